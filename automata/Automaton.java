@@ -723,6 +723,30 @@ public class Automaton implements Serializable, Cloneable {
 		noteListeners.add(listener);
 	}
 
+	/**
+	 * Returns the closure cache for this automaton, which keeps the closure
+	 * of every state until this automaton changes.
+	 * 
+	 * @return the closure cache for this automaton
+	 */
+	public ClosureCache getClosureCache() {
+		if (closureCache == null)
+			closureCache = new ClosureCache(this);
+		return closureCache;
+	}
+
+	/**
+	 * Returns the fingerprint of this automaton, which digests what this
+	 * automaton does and is kept until this automaton changes.
+	 * 
+	 * @return the fingerprint of this automaton
+	 */
+	public Fingerprint getFingerprint() {
+		if (fingerprint == null)
+			fingerprint = new Fingerprint(this);
+		return fingerprint;
+	}
+
 	/**
 	 * Gives an automata state change event to all state listeners.
 	 * 
@@ -988,6 +1012,12 @@ public class Automaton implements Serializable, Cloneable {
 	private transient HashSet<AutomataStateListener> stateListeners = new HashSet<AutomataStateListener>();
 
 	private transient HashSet<AutomataNoteListener> noteListeners = new HashSet<AutomataNoteListener>();
+
+	/** The closure cache for this automaton, once it is asked for. */
+	private transient ClosureCache closureCache = null;
+
+	/** The fingerprint of this automaton, made when first asked for. */
+	private transient Fingerprint fingerprint = null;
 	
 	/**
 	 * Reset all non-transient data structures.
@@ -22,8 +22,12 @@ package automata;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
+import automata.event.SimulationEvent;
+import automata.event.SimulationListener;
+
 /**
  * The automaton simulator object simulates the behavior of an automaton. It
  * takes an automaton object and an input string and runs the machine on the
@@ -86,6 +90,154 @@ public abstract class AutomatonSimulator {
 		return myAutomaton;
 	}
 
+	/**
+	 * Returns the budget that bounds runs of {@link #simulateInput}.
+	 * 
+	 * @return the budget of this simulator
+	 */
+	public SimulationBudget getBudget() {
+		return myBudget;
+	}
+
+	/**
+	 * Sets the budget that bounds runs of {@link #simulateInput}. After a run
+	 * has been stopped, {@link SimulationBudget#getExceeded} tells why.
+	 * 
+	 * @param budget
+	 *            the new budget, which should not be shared with another
+	 *            simulator
+	 */
+	public void setBudget(SimulationBudget budget) {
+		myBudget = budget;
+	}
+
+	/**
+	 * Returns the policy that decides what to do when the budget runs out or
+	 * the automaton has a problem.
+	 * 
+	 * @return the policy of this simulator
+	 */
+	public SimulationPolicy getPolicy() {
+		return myPolicy;
+	}
+
+	/**
+	 * Sets the policy that decides what to do when the budget runs out or the
+	 * automaton has a problem.
+	 * 
+	 * @param policy
+	 *            the new policy
+	 */
+	public void setPolicy(SimulationPolicy policy) {
+		myPolicy = policy;
+	}
+
+	/**
+	 * Returns the policy given to simulators when they are created.
+	 * 
+	 * @return the default policy, or <CODE>null</CODE> if simulators each
+	 *         get a new {@link LimitPolicy}
+	 */
+	public static SimulationPolicy getDefaultPolicy() {
+		return DEFAULT_POLICY;
+	}
+
+	/**
+	 * Sets the policy given to simulators when they are created. The GUI
+	 * sets a policy that asks the user.
+	 * 
+	 * @param policy
+	 *            the default policy, or <CODE>null</CODE> to give each
+	 *            simulator a new {@link LimitPolicy}
+	 */
+	public static void setDefaultPolicy(SimulationPolicy policy) {
+		DEFAULT_POLICY = policy;
+	}
+
+	/**
+	 * Adds a <CODE>SimulationListener</CODE> to this simulator, to be told of
+	 * each run of {@link #simulateInput}.
+	 * 
+	 * @param listener
+	 *            the listener to add
+	 */
+	public void addSimulationListener(SimulationListener listener) {
+		mySimulationListeners.add(listener);
+	}
+
+	/**
+	 * Removes a <CODE>SimulationListener</CODE> from this simulator.
+	 * 
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeSimulationListener(SimulationListener listener) {
+		mySimulationListeners.remove(listener);
+	}
+
+	/**
+	 * Gives a simulation event to all simulation listeners.
+	 * 
+	 * @param event
+	 *            the event to distribute
+	 */
+	protected void distributeSimulationEvent(SimulationEvent event) {
+		Iterator<SimulationListener> it = mySimulationListeners.iterator();
+		while (it.hasNext())
+			it.next().simulationFinished(event);
+	}
+
+	/**
+	 * Begins a run of {@link #simulateInput}. Subclasses call this once the
+	 * configurations of any earlier run are cleared.
+	 */
+	protected void startRun() {
+		myBudget.start();
+		myRunEvent = new SimulationRunEvent();
+		myRunEvent.begin();
+	}
+
+	/**
+	 * Ends a run of {@link #simulateInput} begun by {@link #startRun},
+	 * recording it for the flight recorder and the simulation listeners.
+	 * Subclasses return through this.
+	 * 
+	 * @param input
+	 *            the input that was run
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @return <CODE>accepted</CODE>
+	 */
+	protected boolean finishRun(String input, boolean accepted) {
+		SimulationRunEvent runEvent = myRunEvent;
+		myRunEvent = null;
+		if (runEvent != null) {
+			runEvent.end();
+			if (runEvent.shouldCommit()) {
+				runEvent.automaton = myAutomaton.getClass().getSimpleName();
+				runEvent.input = input;
+				runEvent.result = accepted ? "accept"
+						: myBudget.getExceeded() == null ? "reject"
+								: myBudget.getExceeded().name().toLowerCase();
+				runEvent.steps = myBudget
+						.getUsage(SimulationBudget.Limit.STEPS);
+				runEvent.configurations = myBudget
+						.getUsage(SimulationBudget.Limit.CONFIGURATIONS);
+				runEvent.peakFrontier = myBudget.getPeakFrontier();
+				runEvent.memory = myBudget
+						.getUsage(SimulationBudget.Limit.MEMORY);
+				runEvent.commit();
+			}
+		}
+		if (!mySimulationListeners.isEmpty())
+			distributeSimulationEvent(new SimulationEvent(this, input,
+					accepted, myBudget));
+		return accepted;
+	}
+
+	/** The policy given to simulators when they are created. */
+	private static volatile SimulationPolicy DEFAULT_POLICY = null;
+
 	/** The automaton that the string will be run on. */
 	protected Automaton myAutomaton;
 
@@ -94,4 +246,17 @@ public abstract class AutomatonSimulator {
 	 * moment in the simulation.
 	 */
 	protected Set<Configuration> myConfigurations;
+
+	/** The budget that bounds runs of {@link #simulateInput}. */
+	protected SimulationBudget myBudget = new SimulationBudget();
+
+	/** The policy for when the budget runs out or the automaton has a problem. */
+	protected SimulationPolicy myPolicy = DEFAULT_POLICY == null ? new LimitPolicy()
+			: DEFAULT_POLICY;
+
+	/** The listeners told of each run. */
+	private ArrayList<SimulationListener> mySimulationListeners = new ArrayList<SimulationListener>();
+
+	/** The flight recorder event of the run underway. */
+	private SimulationRunEvent myRunEvent;
 }
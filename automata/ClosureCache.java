@@ -0,0 +1,253 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import automata.event.AutomataStateEvent;
+import automata.event.AutomataStateListener;
+import automata.event.AutomataTransitionEvent;
+import automata.event.AutomataTransitionListener;
+
+/**
+ * The closure cache computes the closure of every state of an automaton at
+ * once and keeps them until the automaton changes. The states joined in
+ * cycles of lambda transitions are first condensed into single components
+ * with Tarjan's algorithm; since components are found in reverse topological
+ * order, the closure of each component is then the union of its own states
+ * with the closures of the components it has lambda transitions to, which are
+ * already known. Closures are kept as bitsets over the states.
+ * <P>
+ * The cache listens to the automaton, and forgets the closures whenever a
+ * state or transition is added, removed or changed. Each automaton has its
+ * own cache, which is got from {@link Automaton#getClosureCache}.
+ * 
+ * @see ClosureTaker
+ */
+
+public class ClosureCache implements AutomataStateListener,
+		AutomataTransitionListener {
+	/**
+	 * Instantiates a closure cache for an automaton, and registers it to hear
+	 * of changes to the automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton whose closures are kept
+	 */
+	public ClosureCache(Automaton automaton) {
+		myAutomaton = automaton;
+		automaton.addStateListener(this);
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Returns the closure of <CODE>state</CODE>, that is, all states
+	 * reachable from <CODE>state</CODE> via lambda transitions. The state
+	 * itself comes first, and the others follow in no particular order. The
+	 * array returned is shared, and must not be changed.
+	 * 
+	 * @param state
+	 *            the state whose closure is wanted
+	 * @return the closure of the state, or <CODE>null</CODE> if the state is
+	 *         not in the automaton
+	 */
+	public State[] getClosure(State state) {
+		validate();
+		Integer index = myIndex.get(state);
+		if (index == null)
+			return null;
+		if (myClosureArrays[index] == null) {
+			long[] bits = myClosures[index];
+			int count = 0;
+			for (int w = 0; w < bits.length; w++)
+				count += Long.bitCount(bits[w]);
+			State[] closure = new State[count];
+			closure[0] = state;
+			count = 1;
+			for (int w = 0; w < bits.length; w++)
+				for (long b = bits[w]; b != 0; b &= b - 1) {
+					int k = (w << 6) + Long.numberOfTrailingZeros(b);
+					if (k != index)
+						closure[count++] = myStates[k];
+				}
+			myClosureArrays[index] = closure;
+		}
+		return myClosureArrays[index];
+	}
+
+	/**
+	 * Returns the closure of <CODE>state</CODE> as a bitset over the indices
+	 * of {@link #getStates}. The bitset returned is shared, and must not be
+	 * changed.
+	 * 
+	 * @param state
+	 *            the state whose closure is wanted
+	 * @return the closure of the state, or <CODE>null</CODE> if the state is
+	 *         not in the automaton
+	 */
+	public long[] getClosureSet(State state) {
+		validate();
+		Integer index = myIndex.get(state);
+		return index == null ? null : myClosures[index];
+	}
+
+	/**
+	 * Returns the states of the automaton, in the order that indexes the
+	 * bitsets of {@link #getClosureSet}.
+	 * 
+	 * @return the states of the automaton
+	 */
+	public State[] getStates() {
+		validate();
+		return myStates;
+	}
+
+	/**
+	 * Forgets the closures when a state is added or removed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public void automataStateChange(AutomataStateEvent event) {
+		if (event.isAdd() || event.isDelete())
+			myStates = null;
+	}
+
+	/**
+	 * Forgets the closures when a transition is added, removed or changed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public void automataTransitionChange(AutomataTransitionEvent event) {
+		myStates = null;
+	}
+
+	/**
+	 * Computes the closures if they are not known.
+	 */
+	private void validate() {
+		if (myStates != null)
+			return;
+		State[] states = myAutomaton.getStates();
+		int n = states.length, words = (n + 63) >> 6;
+		HashMap<State, Integer> index = new HashMap<>();
+		for (int k = 0; k < n; k++)
+			index.put(states[k], k);
+		// The lambda transitions, as lists of target indices.
+		LambdaTransitionChecker checker = LambdaCheckerFactory
+				.getLambdaChecker(myAutomaton);
+		int[][] lambda = new int[n][];
+		for (int k = 0; k < n; k++) {
+			Transition[] transitions = myAutomaton
+					.getTransitionsFromState(states[k]);
+			int count = 0;
+			lambda[k] = new int[transitions.length];
+			for (int i = 0; i < transitions.length; i++)
+				if (checker != null
+						&& checker.isLambdaTransition(transitions[i]))
+					lambda[k][count++] = index.get(transitions[i]
+							.getToState());
+			lambda[k] = Arrays.copyOf(lambda[k], count);
+		}
+
+		// Tarjan's algorithm, without recursion.
+		int[] order = new int[n], low = new int[n], component = new int[n];
+		int[] stack = new int[n], callStack = new int[n], edge = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(order, -1);
+		long[][] closures = new long[n][];
+		int counter = 0, top = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] != -1)
+				continue;
+			int depth = 0;
+			callStack[depth++] = root;
+			order[root] = low[root] = counter++;
+			stack[top++] = root;
+			onStack[root] = true;
+			edge[root] = 0;
+			while (depth > 0) {
+				int v = callStack[depth - 1];
+				if (edge[v] < lambda[v].length) {
+					int w = lambda[v][edge[v]++];
+					if (order[w] == -1) {
+						order[w] = low[w] = counter++;
+						stack[top++] = w;
+						onStack[w] = true;
+						edge[w] = 0;
+						callStack[depth++] = w;
+					} else if (onStack[w])
+						low[v] = Math.min(low[v], order[w]);
+					continue;
+				}
+				depth--;
+				if (depth > 0) {
+					int parent = callStack[depth - 1];
+					low[parent] = Math.min(low[parent], low[v]);
+				}
+				if (low[v] != order[v])
+					continue;
+				// v roots a component; every component it reaches is done.
+				long[] closure = new long[words];
+				int start = top;
+				do {
+					int w = stack[--top];
+					onStack[w] = false;
+					component[w] = v;
+					closure[w >> 6] |= 1L << w;
+				} while (stack[top] != v);
+				for (int i = top; i < start; i++) {
+					int w = stack[i];
+					for (int j = 0; j < lambda[w].length; j++) {
+						long[] other = closures[component[lambda[w][j]]];
+						if (other != null && other != closure)
+							for (int k = 0; k < words; k++)
+								closure[k] |= other[k];
+					}
+				}
+				for (int i = top; i < start; i++)
+					closures[stack[i]] = closure;
+			}
+		}
+
+		myIndex = index;
+		myClosures = closures;
+		myClosureArrays = new State[n][];
+		myStates = states;
+	}
+
+	/** The automaton whose closures are kept. */
+	private Automaton myAutomaton;
+
+	/** The states, by index, or <CODE>null</CODE> if the closures are stale. */
+	private State[] myStates = null;
+
+	/** The index of each state. */
+	private HashMap<State, Integer> myIndex;
+
+	/** The closure of each state as a bitset, by index. */
+	private long[][] myClosures;
+
+	/** The closure of each state as an array, by index, once asked for. */
+	private State[][] myClosureArrays;
+}
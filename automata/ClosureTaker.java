@@ -41,7 +41,8 @@ public class ClosureTaker {
 	/**
 	 * Returns the closure of <CODE>state</CODE>, that is, all states
 	 * reachable from <CODE>state</CODE> without changing any internal state
-	 * (e.g. stack, tape, input) via lambda transitions.
+	 * (e.g. stack, tape, input) via lambda transitions. The closures are
+	 * taken from the automaton's {@link ClosureCache}.
 	 * 
 	 * @param state
 	 *            the state whose closure is being taken.
@@ -50,6 +51,12 @@ public class ClosureTaker {
 	 * @return the set of states that represent the closure of state.
 	 */
 	public static State[] getClosure(State state, Automaton automaton) {
+		State[] closure = automaton.getClosureCache().getClosure(state);
+		if (closure != null)
+			return closure.clone();
+		// The state is not in the automaton, so find its closure directly.
+		LambdaTransitionChecker checker = LambdaCheckerFactory
+				.getLambdaChecker(automaton);
 		List<State> list = new ArrayList<>();
 		list.add(state);
 		for (int i = 0; i < list.size(); i++) {
@@ -57,8 +64,6 @@ public class ClosureTaker {
 			Transition transitions[] = automaton.getTransitionsFromState(state);
 			for (int k = 0; k < transitions.length; k++) {
 				Transition transition = transitions[k];
-				LambdaTransitionChecker checker = LambdaCheckerFactory
-						.getLambdaChecker(automaton);
 				/** if lambda transition */
 				if (checker.isLambdaTransition(transition)) {
 					State toState = transition.getToState();
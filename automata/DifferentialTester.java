@@ -0,0 +1,914 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import automata.fsa.FSATransition;
+import automata.mealy.MealyConfiguration;
+import automata.mealy.MealyTransition;
+import automata.pda.PDAStepWithClosureSimulator;
+import automata.pda.PDATransition;
+import automata.pda.PushdownAutomaton;
+import automata.turing.NDTMSimulator;
+import automata.turing.TMConfiguration;
+import automata.turing.TMSimulator;
+import automata.turing.TMState;
+import automata.turing.TMTransition;
+import automata.turing.Tape;
+import automata.turing.TuringMachine;
+
+/**
+ * A <CODE>DifferentialTester</CODE> compares two automata of the same kind on
+ * every string over their alphabets up to some length, and reports the
+ * shortest strings on which they disagree. Acceptors disagree when one
+ * accepts and the other does not, Mealy and Moore machines when their outputs
+ * differ, and Turing machines, if asked, also when the tapes they accept with
+ * differ. Unlike the checks that need deterministic machines, this works for
+ * any machines, at the price of only looking at short strings.
+ * <P>
+ * The strings are walked as a trie. For finite state, pushdown and Mealy
+ * machines, which read their input once from the left, the configurations
+ * reached on a string are kept by a {@link PrefixSimulator} while the strings
+ * it begins are tried, so each prefix is simulated once however many strings
+ * share it. A Turing machine may read its input in any order, so each string
+ * is run on it from the start. The trie is cut into subtrees that are walked
+ * in parallel, one simulator for each machine and subtree.
+ * <P>
+ * The configurations of each prefix, or each run of a Turing machine, are
+ * held to a {@link SimulationBudget}. Strings that either machine cannot
+ * settle within it are counted as undetermined rather than compared. Once as
+ * many disagreements as are wanted have been found, longer strings are no
+ * longer tried.
+ * 
+ * @see automata.graph.DFAEqualityChecker
+ */
+
+public class DifferentialTester {
+	/**
+	 * Instantiates a tester for two automata. The alphabet is every symbol
+	 * either reads.
+	 * 
+	 * @param first
+	 *            the first automaton, often the reference
+	 * @param second
+	 *            the second automaton
+	 * @throws IllegalArgumentException
+	 *             if the automata are not of the same kind, or are Turing
+	 *             machines with different numbers of tapes
+	 */
+	public DifferentialTester(Automaton first, Automaton second) {
+		if (first.getClass() != second.getClass())
+			throw new IllegalArgumentException(
+					"The automata are not of the same kind.");
+		if (first instanceof TuringMachine
+				&& ((TuringMachine) first).tapes() != ((TuringMachine) second)
+						.tapes())
+			throw new IllegalArgumentException(
+					"The machines do not have the same number of tapes.");
+		myAutomata = new Automaton[] { first, second };
+		Set<Character> symbols = new TreeSet<>();
+		addAlphabet(first, symbols);
+		addAlphabet(second, symbols);
+		myAlphabet = toArray(symbols);
+	}
+
+	/**
+	 * Returns the symbols an automaton reads from its input, in order. For a
+	 * Turing machine these are the symbols its transitions read, other than
+	 * the blank and the special symbols.
+	 * 
+	 * @param automaton
+	 *            the automaton
+	 * @return the symbols of its alphabet
+	 */
+	public static char[] getAlphabet(Automaton automaton) {
+		Set<Character> symbols = new TreeSet<>();
+		addAlphabet(automaton, symbols);
+		return toArray(symbols);
+	}
+
+	/**
+	 * Adds the symbols an automaton reads to a set.
+	 * 
+	 * @param automaton
+	 *            the automaton
+	 * @param symbols
+	 *            the set to add to
+	 */
+	private static void addAlphabet(Automaton automaton, Set<Character> symbols) {
+		Transition[] transitions = automaton.getTransitions();
+		for (int i = 0; i < transitions.length; i++) {
+			Transition transition = transitions[i];
+			if (transition instanceof FSATransition) {
+				String[] elements = ((FSATransition) transition)
+						.getCompiledLabel().getElements();
+				for (int j = 0; j < elements.length; j++)
+					addSymbols(elements[j], symbols);
+			} else if (transition instanceof PDATransition)
+				addSymbols(((PDATransition) transition).getInputToRead(),
+						symbols);
+			else if (transition instanceof MealyTransition)
+				addSymbols(((MealyTransition) transition).getLabel(), symbols);
+			else if (transition instanceof TMTransition) {
+				TMTransition tm = (TMTransition) transition;
+				for (int tape = 0; tape < tm.tapes(); tape++) {
+					String read = tm.getRead(tape);
+					// Only what comes before an assignment is read.
+					if (read.indexOf('}') != -1)
+						read = read.substring(0, read.indexOf('}'));
+					for (int j = 0; j < read.length(); j++) {
+						char c = read.charAt(j);
+						if (c != Tape.BLANK && c != '~' && c != '!'
+								&& c != ',')
+							symbols.add(Character.valueOf(c));
+					}
+				}
+			}
+		}
+		State[] states = automaton.getStates();
+		for (int i = 0; i < states.length; i++)
+			if (states[i] instanceof TMState)
+				addAlphabet(((TMState) states[i]).getInnerTM(), symbols);
+	}
+
+	/**
+	 * Adds the characters of a string to a set.
+	 * 
+	 * @param string
+	 *            the string
+	 * @param symbols
+	 *            the set to add to
+	 */
+	private static void addSymbols(String string, Set<Character> symbols) {
+		for (int i = 0; i < string.length(); i++)
+			symbols.add(Character.valueOf(string.charAt(i)));
+	}
+
+	/**
+	 * Returns the characters of a set in order.
+	 * 
+	 * @param symbols
+	 *            the set
+	 * @return its characters
+	 */
+	private static char[] toArray(Set<Character> symbols) {
+		char[] alphabet = new char[symbols.size()];
+		int i = 0;
+		for (Character symbol : symbols)
+			alphabet[i++] = symbol.charValue();
+		return alphabet;
+	}
+
+	/**
+	 * Returns the symbols strings are made of.
+	 * 
+	 * @return the alphabet
+	 */
+	public char[] getAlphabet() {
+		return myAlphabet.clone();
+	}
+
+	/**
+	 * Sets the symbols strings are made of, in place of those the automata
+	 * read.
+	 * 
+	 * @param alphabet
+	 *            the alphabet, whose order does not matter
+	 */
+	public void setAlphabet(char[] alphabet) {
+		Set<Character> symbols = new TreeSet<>();
+		for (int i = 0; i < alphabet.length; i++)
+			symbols.add(Character.valueOf(alphabet[i]));
+		myAlphabet = toArray(symbols);
+	}
+
+	/**
+	 * Sets whether pushdown automata accept by final state or by empty stack.
+	 * 
+	 * @param finalState
+	 *            <CODE>true</CODE> to accept by final state,
+	 *            <CODE>false</CODE> to accept by empty stack
+	 */
+	public void setAcceptByFinalState(boolean finalState) {
+		myAcceptByFinalState = finalState;
+	}
+
+	/**
+	 * Sets whether Turing machines that both accept a string must also
+	 * leave the same output on their tapes to agree.
+	 * 
+	 * @param compared
+	 *            <CODE>true</CODE> to compare outputs, <CODE>false</CODE>
+	 *            to compare only acceptance
+	 */
+	public void setOutputCompared(boolean compared) {
+		myOutputCompared = compared;
+	}
+
+	/**
+	 * Sets the limits on the configurations of each prefix, or each run of a
+	 * Turing machine.
+	 * 
+	 * @param budget
+	 *            the budget, which is copied for each use
+	 */
+	public void setBudget(SimulationBudget budget) {
+		myBudget = budget;
+	}
+
+	/**
+	 * Sets the most time a test may take in all.
+	 * 
+	 * @param millis
+	 *            the most milliseconds, or {@link SimulationBudget#UNLIMITED}
+	 */
+	public void setTimeout(long millis) {
+		myTimeout = millis;
+	}
+
+	/**
+	 * Sets the most disagreements reported. The shortest are kept, and
+	 * strings longer than the last of them are not tried.
+	 * 
+	 * @param count
+	 *            the most disagreements to report
+	 */
+	public void setMaximumReported(int count) {
+		myMaximumReported = Math.max(1, count);
+	}
+
+	/**
+	 * Sets the number of threads the trie is walked by.
+	 * 
+	 * @param threads
+	 *            the number of threads
+	 */
+	public void setThreads(int threads) {
+		myThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Compares the automata on every string up to a length.
+	 * 
+	 * @param maxLength
+	 *            the length of the longest strings tried
+	 * @return what was found
+	 */
+	public Result test(int maxLength) {
+		for (int i = 0; i < myAutomata.length; i++)
+			prepare(myAutomata[i]);
+		final Result result = new Result(maxLength, myMaximumReported);
+		myDeadline = myTimeout == SimulationBudget.UNLIMITED ? Long.MAX_VALUE
+				: System.nanoTime() + myTimeout * 1000000;
+		// Subtrees are rooted at the prefixes of one length.
+		int depth = 0;
+		long tasks = 1;
+		while (depth < maxLength && myAlphabet.length > 1
+				&& tasks < (long) myThreads * TASKS_PER_THREAD) {
+			depth++;
+			tasks *= myAlphabet.length;
+		}
+		if (myAlphabet.length == 0)
+			tasks = 1;
+		final int split = myAlphabet.length == 1 ? 0 : depth;
+		ForkJoinPool pool = new ForkJoinPool(myThreads);
+		try {
+			List<ForkJoinTask<?>> submitted = new ArrayList<>();
+			for (long t = 0; t < tasks; t++) {
+				final String prefix = getPrefix(t, split);
+				submitted.add(pool.submit(new Runnable() {
+					public void run() {
+						new Walker(result).walk(prefix);
+					}
+				}));
+			}
+			for (int i = 0; i < submitted.size(); i++)
+				submitted.get(i).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.myComplete = false;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		} finally {
+			pool.shutdownNow();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a prefix that roots a subtree.
+	 * 
+	 * @param index
+	 *            the index of the prefix among those of its length
+	 * @param length
+	 *            the length of the prefix
+	 * @return the prefix
+	 */
+	private String getPrefix(long index, int length) {
+		char[] prefix = new char[length];
+		for (int i = length - 1; i >= 0; i--) {
+			prefix[i] = myAlphabet[(int) (index % myAlphabet.length)];
+			index /= myAlphabet.length;
+		}
+		return new String(prefix);
+	}
+
+	/**
+	 * Fills the caches an automaton builds as it is read, which are not safe
+	 * to build from several threads at once.
+	 * 
+	 * @param automaton
+	 *            the automaton to prepare
+	 */
+	private static void prepare(Automaton automaton) {
+		State[] states = automaton.getStates();
+		automaton.getTransitions();
+		ClosureCache closures = null;
+		if (!(automaton instanceof TuringMachine))
+			closures = automaton.getClosureCache();
+		if (automaton instanceof PushdownAutomaton)
+			((PushdownAutomaton) automaton).getTransitionIndex().validate();
+		for (int i = 0; i < states.length; i++) {
+			automaton.getTransitionsFromState(states[i]);
+			automaton.getTransitionsToState(states[i]);
+			if (closures != null)
+				closures.getClosure(states[i]);
+			if (states[i] instanceof TMState)
+				prepare(((TMState) states[i]).getInnerTM());
+		}
+	}
+
+	/**
+	 * Returns the number of strings in a subtree of the trie.
+	 * 
+	 * @param height
+	 *            the length of the longest strings below the root
+	 * @return the number of strings, at most <CODE>Long.MAX_VALUE</CODE>
+	 */
+	private long getSubtreeSize(int height) {
+		long size = 0, level = 1;
+		for (int i = 0; i <= height; i++) {
+			size += level;
+			if (size < 0)
+				return Long.MAX_VALUE;
+			if (myAlphabet.length > 0)
+				level = level > Long.MAX_VALUE / myAlphabet.length ? Long.MAX_VALUE
+						: level * myAlphabet.length;
+			else
+				break;
+		}
+		return size;
+	}
+
+	/**
+	 * A <CODE>Walker</CODE> walks one subtree of the trie with simulators of
+	 * its own.
+	 */
+	private class Walker {
+		/**
+		 * Instantiates a walker.
+		 * 
+		 * @param result
+		 *            the result to add to
+		 */
+		Walker(Result result) {
+			myResult = result;
+			mySides = new Side[myAutomata.length];
+			for (int i = 0; i < mySides.length; i++)
+				mySides[i] = new Side(myAutomata[i]);
+		}
+
+		/**
+		 * Walks the subtree rooted at a prefix. The strings shorter than the
+		 * prefix are tried here only if the prefix goes on from them with
+		 * the first symbol alone, so that each is tried by one walker.
+		 * 
+		 * @param prefix
+		 *            the root of the subtree
+		 */
+		void walk(String prefix) {
+			boolean known = true;
+			for (int i = 0; i < mySides.length; i++)
+				known &= mySides[i].start();
+			for (int length = 0; length <= prefix.length(); length++) {
+				String string = prefix.substring(0, length);
+				if (length == 0 ? !known : !advance(string)) {
+					// Neither the subtree nor the strings owned on the way to
+					// it can be compared.
+					long lost = getSubtreeSize(myResult.myMaxLength
+							- prefix.length());
+					for (int i = length; i < prefix.length(); i++)
+						if (isFirstOnly(prefix, i))
+							lost++;
+					myResult.myUndetermined.addAndGet(lost);
+					return;
+				}
+				if (length < prefix.length() && !isFirstOnly(prefix, length))
+					continue;
+				if (length == prefix.length())
+					walkBelow(string);
+				else
+					compare(string);
+			}
+		}
+
+		/**
+		 * Returns whether a prefix goes on from some length with the first
+		 * symbol alone.
+		 * 
+		 * @param prefix
+		 *            the prefix
+		 * @param length
+		 *            the length it goes on from
+		 * @return <CODE>true</CODE> if the rest is the first symbol repeated
+		 */
+		private boolean isFirstOnly(String prefix, int length) {
+			for (int i = length; i < prefix.length(); i++)
+				if (prefix.charAt(i) != myAlphabet[0])
+					return false;
+			return true;
+		}
+
+		/**
+		 * Tries a string and every longer string it begins, depth first.
+		 * 
+		 * @param string
+		 *            the string, whose configurations are current
+		 */
+		private void walkBelow(String string) {
+			if (string.length() > myResult.myBound)
+				return;
+			if (System.nanoTime() > myDeadline) {
+				myResult.myComplete = false;
+				return;
+			}
+			if (!compare(string))
+				return;
+			if (string.length() >= myResult.myBound)
+				return;
+			for (int i = 0; i < myAlphabet.length; i++) {
+				String next = string + myAlphabet[i];
+				if (advance(next))
+					walkBelow(next);
+				else
+					myResult.myUndetermined.addAndGet(getSubtreeSize(myResult.myBound
+							- next.length()));
+				for (int j = 0; j < mySides.length; j++)
+					mySides[j].retreat(string.length());
+			}
+		}
+
+		/**
+		 * Moves every side to a string one symbol longer than the last.
+		 * 
+		 * @param string
+		 *            the string
+		 * @return <CODE>true</CODE> if every side may go on, <CODE>false</CODE>
+		 *         if one could not settle the string, in which case none of
+		 *         the strings it begins can be compared
+		 */
+		private boolean advance(String string) {
+			boolean known = true;
+			for (int i = 0; i < mySides.length; i++)
+				known &= mySides[i].advance(string);
+			return known;
+		}
+
+		/**
+		 * Compares the sides on a string.
+		 * 
+		 * @param string
+		 *            the string, whose configurations are current
+		 * @return <CODE>true</CODE> if the strings it begins should be tried
+		 */
+		private boolean compare(String string) {
+			String first = mySides[0].getResult(string);
+			String second = mySides[1].getResult(string);
+			if (first == null || second == null) {
+				myResult.myUndetermined.incrementAndGet();
+				return true;
+			}
+			myResult.myTested.incrementAndGet();
+			if (!first.equals(second))
+				myResult.add(new Disagreement(string, first, second));
+			return true;
+		}
+
+		/** The result added to. */
+		private Result myResult;
+
+		/** A side for each automaton. */
+		private Side[] mySides;
+	}
+
+	/**
+	 * A <CODE>Side</CODE> is one automaton as seen by a walker: its
+	 * simulator, and for machines that read their input once, the
+	 * configurations reached on each prefix of the current string.
+	 */
+	private class Side {
+		/**
+		 * Instantiates a side.
+		 * 
+		 * @param automaton
+		 *            the automaton
+		 */
+		Side(Automaton automaton) {
+			if (automaton instanceof PushdownAutomaton)
+				mySimulator = new PDAStepWithClosureSimulator(automaton,
+						myAcceptByFinalState);
+			else
+				mySimulator = SimulatorFactory.getSimulator(automaton);
+			mySimulator.setPolicy(myPolicy);
+			myTuring = automaton instanceof TuringMachine;
+			myTapes = myTuring ? ((TuringMachine) automaton).tapes() : 1;
+			if (!myTuring) {
+				myPrefix = new PrefixSimulator(mySimulator);
+				myPrefix.setBudget(myBudget);
+			}
+		}
+
+		/**
+		 * Settles the empty string.
+		 * 
+		 * @return <CODE>true</CODE> if it was settled within the budget
+		 */
+		boolean start() {
+			return myTuring || myPrefix.moveTo("");
+		}
+
+		/**
+		 * Settles a string one symbol longer than the last, from the
+		 * configurations of the prefixes it begins with.
+		 * 
+		 * @param string
+		 *            the string
+		 * @return <CODE>true</CODE> if it was settled within the budget
+		 */
+		boolean advance(String string) {
+			return myTuring || myPrefix.moveTo(string);
+		}
+
+		/**
+		 * Forgets the configurations of strings longer than a length.
+		 * 
+		 * @param length
+		 *            the length of the string to go back to
+		 */
+		void retreat(int length) {
+			if (!myTuring)
+				myPrefix.retreat(length);
+		}
+
+		/**
+		 * Returns what the automaton makes of the current string.
+		 * 
+		 * @param string
+		 *            the current string
+		 * @return {@link #ACCEPT} or {@link #REJECT}, or the outputs of a
+		 *         Mealy or Moore machine, or <CODE>null</CODE> if the
+		 *         string could not be settled within the budget
+		 */
+		String getResult(String string) {
+			if (myTuring)
+				return run(string);
+			List<Configuration> level = myPrefix.getConfigurations();
+			if (level.isEmpty() || !(level.get(0) instanceof MealyConfiguration)) {
+				for (int i = 0; i < level.size(); i++)
+					if (level.get(i).isAccept())
+						return ACCEPT;
+				return REJECT;
+			}
+			Set<String> outputs = new TreeSet<>();
+			for (int i = 0; i < level.size(); i++)
+				outputs.add(((MealyConfiguration) level.get(i)).getOutput());
+			return OUTPUT + " " + String.join(" | ", outputs);
+		}
+
+		/**
+		 * Runs a string on a Turing machine, breadth first.
+		 * 
+		 * @param string
+		 *            the string, put on the first tape
+		 * @return {@link #ACCEPT}, with the tapes if outputs are compared,
+		 *         or {@link #REJECT}, or <CODE>null</CODE> if the run did not
+		 *         finish within the budget or the machine had a problem
+		 */
+		private String run(String string) {
+			String[] inputs = new String[myTapes];
+			inputs[0] = string;
+			for (int i = 1; i < inputs.length; i++)
+				inputs[i] = "";
+			Configuration[] configs = mySimulator instanceof NDTMSimulator ? ((NDTMSimulator) mySimulator)
+					.getInitialConfigurations(inputs)
+					: ((TMSimulator) mySimulator)
+							.getInitialConfigurations(inputs);
+			myPolicy.clearError();
+			SimulationBudget budget = new SimulationBudget(myBudget);
+			budget.start();
+			while (configs.length > 0) {
+				if (!budget.step(configs.length, null))
+					return null;
+				ArrayList<Configuration> next = new ArrayList<>();
+				for (int i = 0; i < configs.length; i++) {
+					if (configs[i].isAccept())
+						return myOutputCompared ? ACCEPT + " "
+								+ getOutput((TMConfiguration) configs[i])
+								: ACCEPT;
+					next.addAll(mySimulator.stepConfiguration(configs[i]));
+				}
+				if (myPolicy.getErrorTitle() != null)
+					return null;
+				configs = next.toArray(new Configuration[0]);
+			}
+			return REJECT;
+		}
+
+		/**
+		 * Returns the output on the tapes of a configuration.
+		 * 
+		 * @param config
+		 *            the configuration
+		 * @return the output of each tape, separated by tabs
+		 */
+		private String getOutput(TMConfiguration config) {
+			Tape[] tapes = config.getTapes();
+			String[] outputs = new String[tapes.length];
+			for (int i = 0; i < tapes.length; i++)
+				outputs[i] = tapes[i].getOutput();
+			return String.join("\t", outputs);
+		}
+
+		/** The simulator of the automaton. */
+		private AutomatonSimulator mySimulator;
+
+		/** The policy of the simulator, which keeps any problem found. */
+		private LimitPolicy myPolicy = new LimitPolicy();
+
+		/** Whether the automaton is a Turing machine. */
+		private boolean myTuring;
+
+		/** The number of tapes of a Turing machine. */
+		private int myTapes;
+
+		/**
+		 * The configurations reached on each prefix of the current string,
+		 * for machines that read their input once.
+		 */
+		private PrefixSimulator myPrefix;
+	}
+
+	/**
+	 * A <CODE>Disagreement</CODE> is a string the automata make different
+	 * things of.
+	 */
+	public static class Disagreement {
+		/**
+		 * Instantiates a disagreement.
+		 * 
+		 * @param input
+		 *            the string
+		 * @param first
+		 *            what the first automaton made of it
+		 * @param second
+		 *            what the second automaton made of it
+		 */
+		public Disagreement(String input, String first, String second) {
+			myInput = input;
+			myFirst = first;
+			mySecond = second;
+		}
+
+		/**
+		 * Returns the string.
+		 * 
+		 * @return the string the automata disagree on
+		 */
+		public String getInput() {
+			return myInput;
+		}
+
+		/**
+		 * Returns what the first automaton made of the string.
+		 * 
+		 * @return {@link DifferentialTester#ACCEPT},
+		 *         {@link DifferentialTester#REJECT}, or an output
+		 */
+		public String getFirstResult() {
+			return myFirst;
+		}
+
+		/**
+		 * Returns what the second automaton made of the string.
+		 * 
+		 * @return {@link DifferentialTester#ACCEPT},
+		 *         {@link DifferentialTester#REJECT}, or an output
+		 */
+		public String getSecondResult() {
+			return mySecond;
+		}
+
+		public String toString() {
+			return "\"" + myInput + "\": " + myFirst + " / " + mySecond;
+		}
+
+		/** The string. */
+		private String myInput;
+
+		/** What the first automaton made of it. */
+		private String myFirst;
+
+		/** What the second automaton made of it. */
+		private String mySecond;
+	}
+
+	/**
+	 * A <CODE>Result</CODE> is what a test found: the shortest
+	 * disagreements, and how many strings were compared or could not be.
+	 */
+	public static class Result {
+		/**
+		 * Instantiates an empty result.
+		 * 
+		 * @param maxLength
+		 *            the length of the longest strings to try
+		 * @param maximumReported
+		 *            the most disagreements to keep
+		 */
+		Result(int maxLength, int maximumReported) {
+			myMaxLength = maxLength;
+			myBound = maxLength;
+			myMaximumReported = maximumReported;
+		}
+
+		/**
+		 * Keeps a disagreement if it is among the shortest, and stops
+		 * longer strings being tried once enough are kept.
+		 * 
+		 * @param disagreement
+		 *            the disagreement
+		 */
+		synchronized void add(Disagreement disagreement) {
+			myDisagreements.add(disagreement);
+			if (myDisagreements.size() > myMaximumReported)
+				myDisagreements.pollLast();
+			if (myDisagreements.size() == myMaximumReported)
+				myBound = myDisagreements.last().getInput().length();
+		}
+
+		/**
+		 * Returns the shortest disagreements found, shortest first and in
+		 * alphabetical order among those of a length.
+		 * 
+		 * @return the disagreements
+		 */
+		public synchronized List<Disagreement> getDisagreements() {
+			return Collections.unmodifiableList(new ArrayList<Disagreement>(
+					myDisagreements));
+		}
+
+		/**
+		 * Returns whether the automata agreed on every string compared.
+		 * 
+		 * @return <CODE>true</CODE> if no disagreement was found
+		 */
+		public synchronized boolean isAgreed() {
+			return myDisagreements.isEmpty();
+		}
+
+		/**
+		 * Returns the number of strings compared.
+		 * 
+		 * @return the strings both automata settled
+		 */
+		public long getTested() {
+			return myTested.get();
+		}
+
+		/**
+		 * Returns the number of strings that could not be compared because
+		 * an automaton could not settle them within the budget.
+		 * 
+		 * @return the strings not settled
+		 */
+		public long getUndetermined() {
+			return myUndetermined.get();
+		}
+
+		/**
+		 * Returns whether the test finished before its time ran out.
+		 * 
+		 * @return <CODE>false</CODE> if some strings were not tried for want
+		 *         of time
+		 */
+		public boolean isComplete() {
+			return myComplete;
+		}
+
+		/** The length of the longest strings to try. */
+		final int myMaxLength;
+
+		/** The most disagreements to keep. */
+		private final int myMaximumReported;
+
+		/** The length of the longest strings still worth trying. */
+		volatile int myBound;
+
+		/** The strings compared. */
+		final AtomicLong myTested = new AtomicLong();
+
+		/** The strings not settled. */
+		final AtomicLong myUndetermined = new AtomicLong();
+
+		/** Whether the test finished in time. */
+		volatile boolean myComplete = true;
+
+		/** The shortest disagreements found. */
+		private TreeSet<Disagreement> myDisagreements = new TreeSet<>(
+				SHORTLEX);
+	}
+
+	/** The result of an accepted string. */
+	public static final String ACCEPT = "accept";
+
+	/** The result of a rejected string. */
+	public static final String REJECT = "reject";
+
+	/** The start of the result of a Mealy or Moore machine. */
+	public static final String OUTPUT = "output";
+
+	/** Orders disagreements shortest first, then alphabetically. */
+	private static final Comparator<Disagreement> SHORTLEX = new Comparator<Disagreement>() {
+		public int compare(Disagreement a, Disagreement b) {
+			int length = a.getInput().length() - b.getInput().length();
+			return length != 0 ? length : a.getInput().compareTo(
+					b.getInput());
+		}
+	};
+
+	/** The number of subtrees walked for each thread. */
+	private static final int TASKS_PER_THREAD = 4;
+
+	/** The automata compared. */
+	private Automaton[] myAutomata;
+
+	/** The symbols strings are made of. */
+	private char[] myAlphabet;
+
+	/** Whether pushdown automata accept by final state. */
+	private boolean myAcceptByFinalState = true;
+
+	/** Whether the tapes of accepting Turing machines are compared. */
+	private boolean myOutputCompared = false;
+
+	/** The limits on each prefix or run, copied for each. */
+	private SimulationBudget myBudget = new SimulationBudget(
+			SimulationBudget.UNLIMITED, 100000, SimulationBudget.UNLIMITED,
+			SimulationBudget.UNLIMITED);
+
+	/** The most time a test may take in milliseconds. */
+	private long myTimeout = SimulationBudget.UNLIMITED;
+
+	/** When the test underway must stop, from {@link System#nanoTime}. */
+	private long myDeadline;
+
+	/** The most disagreements reported. */
+	private int myMaximumReported = 10;
+
+	/** The number of threads the trie is walked by. */
+	private int myThreads = Runtime.getRuntime().availableProcessors();
+}
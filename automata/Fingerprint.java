@@ -0,0 +1,255 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import automata.event.AutomataStateEvent;
+import automata.event.AutomataStateListener;
+import automata.event.AutomataTransitionEvent;
+import automata.event.AutomataTransitionListener;
+import automata.fsa.FSATransition;
+import automata.mealy.MealyTransition;
+import automata.mealy.MooreMachine;
+import automata.pda.PDATransition;
+import automata.turing.TMState;
+import automata.turing.TMTransition;
+import automata.turing.TuringMachine;
+
+/**
+ * The fingerprint of an automaton is a digest of everything that decides
+ * what the automaton does with an input: its kind, its states by ID, which of
+ * them are initial and final, and the labels of its transitions, along with
+ * state outputs of Moore machines and the building blocks of Turing machines.
+ * Where states are drawn and what they are named play no part, so two
+ * automata that behave the same way because they are the same, such as a
+ * file opened twice, have the same fingerprint.
+ * <P>
+ * The fingerprint listens to the automaton and its building blocks, and is
+ * computed again only after one of them changes. Each automaton has its own,
+ * which is got from {@link Automaton#getFingerprint}.
+ */
+
+public class Fingerprint implements AutomataStateListener,
+		AutomataTransitionListener {
+	/**
+	 * Instantiates a fingerprint for an automaton, and registers it to hear
+	 * of changes to the automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton to fingerprint
+	 */
+	public Fingerprint(Automaton automaton) {
+		myAutomaton = automaton;
+		listen(automaton);
+	}
+
+	/**
+	 * Returns the fingerprint, as hexadecimal digits.
+	 * 
+	 * @return the fingerprint of the automaton as it is now
+	 */
+	public synchronized String getValue() {
+		if (myValue == null) {
+			StringBuffer buffer = new StringBuffer();
+			describe(myAutomaton, buffer);
+			myValue = digest(buffer.toString());
+		}
+		return myValue;
+	}
+
+	/**
+	 * Registers to hear of changes to an automaton, if not already.
+	 * 
+	 * @param automaton
+	 *            the automaton to listen to
+	 */
+	private void listen(Automaton automaton) {
+		if (myListened.put(automaton, automaton) != null)
+			return;
+		automaton.addStateListener(this);
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Writes the parts of an automaton that decide what it does.
+	 * 
+	 * @param automaton
+	 *            the automaton to describe
+	 * @param buffer
+	 *            the buffer to write to
+	 */
+	private void describe(Automaton automaton, StringBuffer buffer) {
+		buffer.append(automaton.getClass().getName());
+		if (automaton instanceof TuringMachine)
+			buffer.append(' ').append(((TuringMachine) automaton).tapes());
+		buffer.append('\n');
+		State[] states = automaton.getStates().clone();
+		Arrays.sort(states, new Comparator<State>() {
+			public int compare(State s1, State s2) {
+				return Integer.compare(s1.getID(), s2.getID());
+			}
+		});
+		for (int i = 0; i < states.length; i++) {
+			State state = states[i];
+			buffer.append('q').append(state.getID());
+			if (state == automaton.getInitialState())
+				buffer.append(" initial");
+			if (automaton.isFinalState(state))
+				buffer.append(" final");
+			if (automaton instanceof MooreMachine)
+				field(buffer, ((MooreMachine) automaton).getOutput(state));
+			if (state instanceof TMState) {
+				Automaton inner = ((TMState) state).getInnerTM();
+				listen(inner);
+				buffer.append(" {\n");
+				describe(inner, buffer);
+				buffer.append('}');
+			}
+			buffer.append('\n');
+		}
+		Transition[] transitions = automaton.getTransitions();
+		List<String> lines = new ArrayList<>(transitions.length);
+		for (int i = 0; i < transitions.length; i++)
+			lines.add(describe(transitions[i]));
+		Collections.sort(lines);
+		for (int i = 0; i < lines.size(); i++)
+			buffer.append(lines.get(i)).append('\n');
+	}
+
+	/**
+	 * Returns the line for a transition. The labels are written as they
+	 * are, not as they are shown, so that the lambda symbol chosen by the
+	 * user cannot be mistaken for a symbol read.
+	 * 
+	 * @param transition
+	 *            the transition to describe
+	 * @return the line for the transition
+	 */
+	private static String describe(Transition transition) {
+		StringBuffer line = new StringBuffer();
+		line.append(transition.getFromState().getID()).append(" -> ")
+				.append(transition.getToState().getID());
+		if (transition instanceof FSATransition)
+			field(line, ((FSATransition) transition).getLabel());
+		else if (transition instanceof PDATransition) {
+			PDATransition pda = (PDATransition) transition;
+			field(line, pda.getInputToRead());
+			field(line, pda.getStringToPop());
+			field(line, pda.getStringToPush());
+		} else if (transition instanceof MealyTransition) {
+			MealyTransition mealy = (MealyTransition) transition;
+			field(line, mealy.getLabel());
+			field(line, mealy.getOutput());
+		} else if (transition instanceof TMTransition) {
+			TMTransition tm = (TMTransition) transition;
+			if (tm.isBlockTransition())
+				line.append(" block");
+			for (int i = 0; i < tm.tapes(); i++) {
+				field(line, tm.getRead(i));
+				field(line, tm.getWrite(i));
+				field(line, tm.getDirection(i));
+			}
+		} else
+			field(line, transition.getDescription());
+		return line.toString();
+	}
+
+	/**
+	 * Writes a field, with its length first so that fields cannot run into
+	 * each other.
+	 * 
+	 * @param buffer
+	 *            the buffer to write to
+	 * @param field
+	 *            the field, which may be <CODE>null</CODE>
+	 */
+	private static void field(StringBuffer buffer, String field) {
+		if (field == null)
+			field = "";
+		buffer.append(' ').append(field.length()).append(':').append(field);
+	}
+
+	/**
+	 * Returns the SHA-256 digest of a string, as hexadecimal digits.
+	 * 
+	 * @param text
+	 *            the string to digest
+	 * @return the digest
+	 */
+	public static String digest(String text) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform has SHA-256.
+			throw new IllegalStateException(e);
+		}
+		byte[] bytes = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+		StringBuffer hex = new StringBuffer(bytes.length * 2);
+		for (int i = 0; i < bytes.length; i++)
+			hex.append(Character.forDigit((bytes[i] >> 4) & 0xf, 16)).append(
+					Character.forDigit(bytes[i] & 0xf, 16));
+		return hex.toString();
+	}
+
+	/**
+	 * Forgets the fingerprint when a state is added, removed or changed.
+	 * Moving a state changes nothing.
+	 * 
+	 * @param event
+	 *            the event
+	 */
+	public synchronized void automataStateChange(AutomataStateEvent event) {
+		if (!event.isMove())
+			myValue = null;
+	}
+
+	/**
+	 * Forgets the fingerprint when a transition is added, removed or
+	 * changed.
+	 * 
+	 * @param event
+	 *            the event
+	 */
+	public synchronized void automataTransitionChange(
+			AutomataTransitionEvent event) {
+		myValue = null;
+	}
+
+	/** The automaton fingerprinted. */
+	private Automaton myAutomaton;
+
+	/** The automaton and building blocks listened to. */
+	private Map<Automaton, Automaton> myListened = new IdentityHashMap<>();
+
+	/** The fingerprint, or <CODE>null</CODE> if it must be computed. */
+	private String myValue = null;
+}
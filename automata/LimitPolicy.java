@@ -0,0 +1,84 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+/**
+ * The <CODE>LimitPolicy</CODE> is the policy for runs with nobody to ask. A
+ * run stops as soon as it reaches a limit of its budget, so results depend
+ * only on the limits, and problems with the automaton are kept so that they
+ * may be reported with the result.
+ * 
+ * @see SimulationBudget#getExceeded
+ */
+
+public class LimitPolicy implements SimulationPolicy {
+	/**
+	 * Always stops the run.
+	 * 
+	 * @return <CODE>false</CODE>
+	 */
+	public boolean isContinued(SimulationBudget budget,
+			SimulationBudget.Limit limit) {
+		return false;
+	}
+
+	/**
+	 * Keeps the problem, replacing any kept before.
+	 */
+	public synchronized void reportError(String title, String message) {
+		myErrorTitle = title;
+		myErrorMessage = message;
+	}
+
+	/**
+	 * Returns the short description of the last problem reported.
+	 * 
+	 * @return the title of the last problem, or <CODE>null</CODE> if there
+	 *         has been none since the last {@link #clearError}
+	 */
+	public synchronized String getErrorTitle() {
+		return myErrorTitle;
+	}
+
+	/**
+	 * Returns the full description of the last problem reported.
+	 * 
+	 * @return the message of the last problem, or <CODE>null</CODE> if
+	 *         there has been none since the last {@link #clearError}
+	 */
+	public synchronized String getErrorMessage() {
+		return myErrorMessage;
+	}
+
+	/**
+	 * Forgets the last problem reported.
+	 */
+	public synchronized void clearError() {
+		myErrorTitle = null;
+		myErrorMessage = null;
+	}
+
+	/** The title of the last problem. */
+	private String myErrorTitle = null;
+
+	/** The message of the last problem. */
+	private String myErrorMessage = null;
+}
@@ -0,0 +1,501 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import automata.fsa.FSAConfiguration;
+import automata.fsa.FSATransition;
+import automata.fsa.FiniteStateAutomaton;
+import automata.mealy.MealyConfiguration;
+import automata.mealy.MealyMachine;
+import automata.mealy.MealyTransition;
+import automata.pda.PDAConfiguration;
+import automata.pda.PDATransition;
+import automata.pda.PushdownAutomaton;
+
+/**
+ * The <CODE>PrefixSimulator</CODE> runs many inputs on a finite state,
+ * pushdown, Mealy or Moore machine without running their common prefixes
+ * more than once. It keeps, for each prefix of the current input, every
+ * configuration reached after reading exactly that prefix, closed under
+ * moves that read nothing. Moving to another input keeps the prefixes the
+ * two inputs share, and only the rest is read, so inputs run in the order of
+ * {@link #getTrieOrder} cost the number of nodes of the trie of the inputs
+ * rather than the sum of their lengths.
+ * <P>
+ * The configurations of a prefix are never changed once found: the
+ * configurations of a longer prefix are made from copies of them that are
+ * put on the new input, and share their parents, stacks and outputs with
+ * them, so the path to a configuration is shared by every input that reads
+ * it. A configuration handed out has its path copied onto the current input,
+ * so that its trace reads as if the input had been run alone. Each
+ * prefix is closed within its own copy of the {@link SimulationBudget}; if
+ * it runs out, no longer prefix can be reached until the simulator moves to
+ * an input that does not begin with it.
+ */
+
+public class PrefixSimulator {
+	/**
+	 * Instantiates a prefix simulator.
+	 * 
+	 * @param simulator
+	 *            the simulator to step configurations with, whose automaton
+	 *            must be supported
+	 * @see #isSupported
+	 */
+	public PrefixSimulator(AutomatonSimulator simulator) {
+		if (!isSupported(simulator.getAutomaton()))
+			throw new IllegalArgumentException(
+					"Only machines that read their input once are supported.");
+		mySimulator = simulator;
+		myLongestRead = getLongestRead(simulator.getAutomaton());
+	}
+
+	/**
+	 * Returns if a prefix simulator can run an automaton, that is, if it is a
+	 * finite state, pushdown, Mealy or Moore machine.
+	 * 
+	 * @param automaton
+	 *            the automaton
+	 * @return <CODE>true</CODE> if the automaton is supported
+	 */
+	public static boolean isSupported(Automaton automaton) {
+		return automaton instanceof FiniteStateAutomaton
+				|| automaton instanceof PushdownAutomaton
+				|| automaton instanceof MealyMachine;
+	}
+
+	/**
+	 * Returns the order to run inputs in so that each shares as long a
+	 * prefix as possible with the one before it, which is lexicographic
+	 * order.
+	 * 
+	 * @param inputs
+	 *            the inputs
+	 * @return the indices of the inputs, in the order to run them
+	 */
+	public static Integer[] getTrieOrder(final String[] inputs) {
+		Integer[] order = new Integer[inputs.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return inputs[a].compareTo(inputs[b]);
+			}
+		});
+		return order;
+	}
+
+	/**
+	 * Sets the limits each prefix is closed within. The budget is copied.
+	 * 
+	 * @param budget
+	 *            the limits of each prefix
+	 */
+	public void setBudget(SimulationBudget budget) {
+		myBudget = new SimulationBudget(budget);
+	}
+
+	/**
+	 * Moves to an input, reading what it does not share with the current
+	 * input.
+	 * 
+	 * @param input
+	 *            the input to move to
+	 * @return <CODE>true</CODE> if all of the input was read within the
+	 *         budget, <CODE>false</CODE> if some prefix of it ran out, in
+	 *         which case {@link #getExceeded} tells which limit
+	 */
+	public boolean moveTo(String input) {
+		int common = 0;
+		if (myInput != null) {
+			int most = Math.min(getLength(), input.length());
+			while (common < most && myInput.charAt(common) == input.charAt(common))
+				common++;
+			if (common == input.length() && !input.equals(myInput))
+				reseat(common, input);
+		}
+		retreat(common);
+		myInput = input;
+		if (myLevels.isEmpty() && !add(mySimulator.getInitialConfigurations(input), 0))
+			return false;
+		for (int length = getLength() + 1; length <= input.length(); length++)
+			if (!advance(length))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Forgets the configurations of prefixes longer than a length.
+	 * 
+	 * @param length
+	 *            the length of the longest prefix to keep, or -1 to forget
+	 *            them all
+	 */
+	public void retreat(int length) {
+		while (myLevels.size() > length + 1)
+			myLevels.remove(myLevels.size() - 1);
+	}
+
+	/**
+	 * Returns the length of the longest prefix of the current input that was
+	 * read.
+	 * 
+	 * @return the length of the longest prefix read, or -1 if none was
+	 */
+	public int getLength() {
+		return myLevels.size() - 1;
+	}
+
+	/**
+	 * Returns the configurations reached after reading the longest prefix
+	 * read of the current input.
+	 * 
+	 * @return the configurations, closed under moves that read nothing
+	 */
+	public List<Configuration> getConfigurations() {
+		return myLevels.get(getLength()).myConfigurations;
+	}
+
+	/**
+	 * Returns an accepting configuration of the current input, with the path
+	 * that led to it.
+	 * 
+	 * @return an accepting configuration, or <CODE>null</CODE> if there is
+	 *         none or the input was not all read
+	 */
+	public Configuration getAcceptingConfiguration() {
+		if (getLength() != myInput.length())
+			return null;
+		List<Configuration> configs = getConfigurations();
+		for (int i = 0; i < configs.size(); i++)
+			if (configs.get(i).isAccept())
+				return getPath(configs.get(i), myInput);
+		return null;
+	}
+
+	/**
+	 * Returns the last configuration reached on the longest prefix read that
+	 * any configuration reached, which is where a rejected input stopped,
+	 * with the path that led to it.
+	 * 
+	 * @return the last configuration reached, or <CODE>null</CODE> if no
+	 *         prefix was read
+	 */
+	public Configuration getLastConfiguration() {
+		for (int length = getLength(); length >= 0; length--) {
+			List<Configuration> configs = myLevels.get(length).myConfigurations;
+			if (!configs.isEmpty())
+				return getPath(configs.get(configs.size() - 1), myInput);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the limit the last prefix to be closed ran out of.
+	 * 
+	 * @return the limit, or <CODE>null</CODE> if the last prefix was closed
+	 *         within the budget
+	 */
+	public SimulationBudget.Limit getExceeded() {
+		return myExceeded;
+	}
+
+	/**
+	 * Returns the steps taken to reach the longest prefix read, counting
+	 * each step once however many inputs shared it.
+	 * 
+	 * @return the steps taken on the way to the prefix
+	 */
+	public long getSteps() {
+		return myLevels.isEmpty() ? 0 : myLevels.get(getLength()).mySteps;
+	}
+
+	/**
+	 * Returns the configurations generated on the way to the longest prefix
+	 * read.
+	 * 
+	 * @return the configurations generated on the way to the prefix
+	 */
+	public long getConfigurationCount() {
+		return myLevels.isEmpty() ? 0
+				: myLevels.get(getLength()).myGenerated;
+	}
+
+	/**
+	 * Returns the most configurations generated by one step on the way to
+	 * the longest prefix read.
+	 * 
+	 * @return the size of the largest frontier on the way to the prefix
+	 */
+	public long getPeakFrontier() {
+		return myLevels.isEmpty() ? 0 : myLevels.get(getLength()).myFrontier;
+	}
+
+	/**
+	 * Reads the prefix of the current input one character longer than the
+	 * longest read, from the configurations of the prefixes it ends a
+	 * transition from.
+	 * 
+	 * @param length
+	 *            the length of the prefix
+	 * @return <CODE>true</CODE> if it was closed within the budget
+	 */
+	private boolean advance(int length) {
+		List<Configuration> seeds = new ArrayList<>();
+		for (int from = Math.max(0, length - myLongestRead); from < length; from++) {
+			List<Configuration> level = myLevels.get(from).myConfigurations;
+			for (int i = 0; i < level.size(); i++) {
+				ArrayList<Configuration> stepped = mySimulator
+						.stepConfiguration(extend(level.get(i), myInput, level
+								.get(i).getParent()));
+				for (int j = 0; j < stepped.size(); j++)
+					if (getPosition(stepped.get(j)) == length)
+						seeds.add(stepped.get(j));
+			}
+		}
+		return add(seeds.toArray(new Configuration[0]), length);
+	}
+
+	/**
+	 * Closes the configurations reached at a prefix under moves that read
+	 * nothing, within the budget, and keeps them as the configurations of
+	 * that prefix.
+	 * 
+	 * @param seeds
+	 *            the configurations to start from
+	 * @param length
+	 *            the length of the prefix they are all at
+	 * @return <CODE>true</CODE> if they were closed within the budget
+	 */
+	private boolean add(Configuration[] seeds, int length) {
+		Level parent = length == 0 ? null : myLevels.get(length - 1);
+		SimulationBudget budget = new SimulationBudget(myBudget);
+		budget.start();
+		VisitedConfigurations visited = new VisitedConfigurations();
+		List<Configuration> closed = new ArrayList<>();
+		List<Configuration> frontier = new ArrayList<>();
+		for (int i = 0; i < seeds.length; i++)
+			if (visited.add(seeds[i]))
+				frontier.add(seeds[i]);
+		while (!frontier.isEmpty()) {
+			if (!budget.step(frontier.size(), null)) {
+				myExceeded = budget.getExceeded();
+				return false;
+			}
+			closed.addAll(frontier);
+			List<Configuration> next = new ArrayList<>();
+			for (int i = 0; i < frontier.size(); i++) {
+				ArrayList<Configuration> stepped = mySimulator
+						.stepConfiguration(frontier.get(i));
+				for (int j = 0; j < stepped.size(); j++)
+					if (getPosition(stepped.get(j)) == length
+							&& visited.add(stepped.get(j)))
+						next.add(stepped.get(j));
+			}
+			frontier = next;
+		}
+		myExceeded = null;
+		Level level = new Level(closed);
+		level.mySteps = budget.getUsage(SimulationBudget.Limit.STEPS);
+		level.myGenerated = budget
+				.getUsage(SimulationBudget.Limit.CONFIGURATIONS);
+		level.myFrontier = budget.getPeakFrontier();
+		if (parent != null) {
+			level.mySteps += parent.mySteps;
+			level.myGenerated += parent.myGenerated;
+			level.myFrontier = Math.max(level.myFrontier, parent.myFrontier);
+		}
+		myLevels.add(level);
+		return true;
+	}
+
+	/**
+	 * Puts the configurations of a prefix on another input that ends there,
+	 * so that they tell whether that input is accepted.
+	 * 
+	 * @param length
+	 *            the length of the prefix
+	 * @param input
+	 *            the input
+	 */
+	private void reseat(int length, String input) {
+		Level level = myLevels.get(length);
+		List<Configuration> configs = new ArrayList<>();
+		for (int i = 0; i < level.myConfigurations.size(); i++) {
+			Configuration config = level.myConfigurations.get(i);
+			configs.add(extend(config, input, config.getParent()));
+		}
+		level.myConfigurations = configs;
+	}
+
+	/**
+	 * Returns the longest input a transition of an automaton reads, so that
+	 * configurations of that many shorter prefixes are stepped from.
+	 * 
+	 * @param automaton
+	 *            the automaton
+	 * @return the longest read, at least 1
+	 */
+	private static int getLongestRead(Automaton automaton) {
+		int longest = 1;
+		Transition[] transitions = automaton.getTransitions();
+		for (int i = 0; i < transitions.length; i++) {
+			Transition transition = transitions[i];
+			if (transition instanceof FSATransition) {
+				String[] elements = ((FSATransition) transition)
+						.getCompiledLabel().getElements();
+				for (int j = 0; j < elements.length; j++)
+					longest = Math.max(longest, elements[j].length());
+			} else if (transition instanceof PDATransition)
+				longest = Math.max(longest, ((PDATransition) transition)
+						.getInputToRead().length());
+			else if (transition instanceof MealyTransition)
+				longest = Math.max(longest, ((MealyTransition) transition)
+						.getLabel().length());
+		}
+		return longest;
+	}
+
+	/**
+	 * Returns a copy of a configuration and the path that led to it, put on
+	 * another input.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @param input
+	 *            the other input, which begins with what the configuration
+	 *            has read
+	 * @return the configuration on the other input, whose parents are
+	 *         copies of its parents on that input
+	 */
+	private static Configuration getPath(Configuration configuration,
+			String input) {
+		List<Configuration> path = new ArrayList<>();
+		for (Configuration config = configuration; config != null; config = config
+				.getParent())
+			path.add(config);
+		Configuration copy = null;
+		for (int i = path.size() - 1; i >= 0; i--)
+			copy = extend(path.get(i), input, copy);
+		return copy;
+	}
+
+	/**
+	 * Returns a configuration like another, at the same position of another
+	 * input. The new configuration shares the stack or output of the old
+	 * one.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @param input
+	 *            the other input, which begins with what the configuration
+	 *            has read
+	 * @param parent
+	 *            the parent of the new configuration, of the same sort
+	 * @return the configuration on the other input
+	 */
+	private static Configuration extend(Configuration configuration,
+			String input, Configuration parent) {
+		State state = configuration.getCurrentState();
+		if (configuration instanceof FSAConfiguration)
+			return new FSAConfiguration(state, (FSAConfiguration) parent,
+					input, ((FSAConfiguration) configuration).getPosition());
+		if (configuration instanceof PDAConfiguration) {
+			PDAConfiguration config = (PDAConfiguration) configuration;
+			return new PDAConfiguration(state, (PDAConfiguration) parent,
+					input, config.getPosition(), config.getStack(), config
+							.getAcceptance());
+		}
+		MealyConfiguration config = (MealyConfiguration) configuration;
+		return new MealyConfiguration(state, (MealyConfiguration) parent,
+				input, input.substring(getPosition(config)), config
+						.getOutput());
+	}
+
+	/**
+	 * Returns the number of input characters a configuration has read.
+	 * 
+	 * @param configuration
+	 *            a finite state, pushdown or Mealy configuration
+	 * @return the position in its input
+	 */
+	private static int getPosition(Configuration configuration) {
+		if (configuration instanceof FSAConfiguration)
+			return ((FSAConfiguration) configuration).getPosition();
+		if (configuration instanceof PDAConfiguration)
+			return ((PDAConfiguration) configuration).getPosition();
+		MealyConfiguration config = (MealyConfiguration) configuration;
+		return config.getInput().length()
+				- config.getUnprocessedInput().length();
+	}
+
+	/**
+	 * A <CODE>Level</CODE> is what was found for one prefix: its
+	 * configurations, and the work done on the way to them.
+	 */
+	private static class Level {
+		/**
+		 * Instantiates a level.
+		 * 
+		 * @param configurations
+		 *            the configurations reached after reading the prefix
+		 */
+		Level(List<Configuration> configurations) {
+			myConfigurations = configurations;
+		}
+
+		/** The configurations reached after reading the prefix. */
+		List<Configuration> myConfigurations;
+
+		/** The steps taken on the way to the prefix. */
+		long mySteps;
+
+		/** The configurations generated on the way to the prefix. */
+		long myGenerated;
+
+		/** The largest frontier on the way to the prefix. */
+		long myFrontier;
+	}
+
+	/** The simulator configurations are stepped with. */
+	private AutomatonSimulator mySimulator;
+
+	/** The longest input a transition reads. */
+	private int myLongestRead;
+
+	/** The limits each prefix is closed within. */
+	private SimulationBudget myBudget = new SimulationBudget();
+
+	/** The current input, or <CODE>null</CODE> before the first. */
+	private String myInput;
+
+	/** What was found for each prefix of the current input read. */
+	private List<Level> myLevels = new ArrayList<>();
+
+	/** The limit the last prefix to be closed ran out of. */
+	private SimulationBudget.Limit myExceeded;
+}
@@ -0,0 +1,314 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+/**
+ * A <CODE>SimulationBudget</CODE> bounds the work of one simulation: the
+ * number of steps, the number of configurations generated, the time taken,
+ * and a rough estimate of the memory the configurations hold. A simulator
+ * calls {@link #start} when a run begins and {@link #step} after each step
+ * of the whole set of configurations. When a limit is reached, the
+ * {@link SimulationPolicy} given to <CODE>step</CODE> decides whether the run
+ * goes on, in which case that limit is raised, or stops, in which case the
+ * budget remembers which limit stopped it. A limit raised this way holds only
+ * for the run underway; the next {@link #start} puts back the limits the
+ * budget was given.
+ * <P>
+ * A budget holds the usage of the run underway, so each simulator needs its
+ * own; {@link #SimulationBudget(SimulationBudget)} copies the limits of
+ * another.
+ * 
+ * @see SimulationPolicy
+ * @see AutomatonSimulator#setBudget
+ */
+
+public class SimulationBudget {
+	/**
+	 * The limits a budget may run out of.
+	 */
+	public enum Limit {
+		/** The number of steps. */
+		STEPS,
+		/** The number of configurations generated. */
+		CONFIGURATIONS,
+		/** The time, in milliseconds. */
+		TIME,
+		/** The estimated memory held by configurations, in bytes. */
+		MEMORY
+	}
+
+	/**
+	 * Instantiates a budget with no limits.
+	 */
+	public SimulationBudget() {
+		this(UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED);
+	}
+
+	/**
+	 * Instantiates a budget. Any limit may be {@link #UNLIMITED}.
+	 * 
+	 * @param maxSteps
+	 *            the most steps a run may take
+	 * @param maxConfigurations
+	 *            the most configurations a run may generate
+	 * @param maxTime
+	 *            the most milliseconds a run may take
+	 * @param maxMemory
+	 *            the most bytes the configurations of a run may be estimated
+	 *            to hold
+	 */
+	public SimulationBudget(long maxSteps, long maxConfigurations,
+			long maxTime, long maxMemory) {
+		myLimits[Limit.STEPS.ordinal()] = maxSteps;
+		myLimits[Limit.CONFIGURATIONS.ordinal()] = maxConfigurations;
+		myLimits[Limit.TIME.ordinal()] = maxTime;
+		myLimits[Limit.MEMORY.ordinal()] = maxMemory;
+		myMaximums = myLimits.clone();
+	}
+
+	/**
+	 * Instantiates a budget with the same limits as another was given, and
+	 * no usage. Limits the other raised for its run underway are not copied.
+	 * 
+	 * @param budget
+	 *            the budget to copy the limits of
+	 */
+	public SimulationBudget(SimulationBudget budget) {
+		myLimits = budget.myLimits.clone();
+		myMaximums = myLimits.clone();
+	}
+
+	/**
+	 * Begins a run, forgetting the usage of any earlier run and putting back
+	 * any limit raised during it.
+	 */
+	public void start() {
+		System.arraycopy(myLimits, 0, myMaximums, 0, myMaximums.length);
+		mySteps = 0;
+		myConfigurations = 0;
+		myMemory = 0;
+		myFrontier = 0;
+		myExceeded = null;
+		myStart = System.nanoTime();
+	}
+
+	/**
+	 * Records a step of a run, and checks the limits. When a limit is
+	 * reached the policy is asked whether to go on; if it agrees the limit
+	 * is doubled until the run is back within it, and if it does not the run
+	 * should stop.
+	 * 
+	 * @param configurations
+	 *            the number of configurations the step generated
+	 * @param policy
+	 *            the policy that decides whether to go on, or
+	 *            <CODE>null</CODE> to always stop
+	 * @return <CODE>true</CODE> if the run may go on, <CODE>false</CODE> if
+	 *         it should stop
+	 */
+	public boolean step(int configurations, SimulationPolicy policy) {
+		mySteps++;
+		myConfigurations += configurations;
+		myFrontier = Math.max(myFrontier, configurations);
+		myMemory = myFrontier * CONFIGURATION_SIZE;
+		return check(policy);
+	}
+
+	/**
+	 * Records steps of a run that follows a single path, each of which
+	 * generated one configuration, and checks the limits as {@link #step}
+	 * does. Such a run may record its steps in batches rather than one by
+	 * one.
+	 * 
+	 * @param steps
+	 *            the number of steps taken
+	 * @param policy
+	 *            the policy that decides whether to go on, or
+	 *            <CODE>null</CODE> to always stop
+	 * @return <CODE>true</CODE> if the run may go on, <CODE>false</CODE> if
+	 *         it should stop
+	 */
+	public boolean advance(long steps, SimulationPolicy policy) {
+		mySteps += steps;
+		myConfigurations += steps;
+		myFrontier = Math.max(myFrontier, 1);
+		myMemory = myFrontier * CONFIGURATION_SIZE;
+		return check(policy);
+	}
+
+	/**
+	 * Checks the limits, asking the policy whether to go on past any that
+	 * is reached.
+	 * 
+	 * @param policy
+	 *            the policy that decides whether to go on, or
+	 *            <CODE>null</CODE> to always stop
+	 * @return <CODE>true</CODE> if the run may go on, <CODE>false</CODE> if
+	 *         it should stop
+	 */
+	private boolean check(SimulationPolicy policy) {
+		Limit limit;
+		while ((limit = getReached()) != null) {
+			if (policy == null || !policy.isContinued(this, limit)) {
+				myExceeded = limit;
+				return false;
+			}
+			do
+				extend(limit);
+			while (getUsage(limit) > getMaximum(limit));
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first limit the usage has reached.
+	 * 
+	 * @return the limit reached, or <CODE>null</CODE> if none is
+	 */
+	private Limit getReached() {
+		Limit[] limits = Limit.values();
+		for (int i = 0; i < limits.length; i++)
+			if (getUsage(limits[i]) > myMaximums[i])
+				return limits[i];
+		return null;
+	}
+
+	/**
+	 * Doubles a limit for the run underway.
+	 * 
+	 * @param limit
+	 *            the limit to double
+	 */
+	public void extend(Limit limit) {
+		long maximum = myMaximums[limit.ordinal()];
+		myMaximums[limit.ordinal()] = maximum > UNLIMITED / 2 ? UNLIMITED
+				: Math.max(1, maximum * 2);
+	}
+
+	/**
+	 * Returns the limit that stopped the last run.
+	 * 
+	 * @return the limit that stopped the run, or <CODE>null</CODE> if it
+	 *         was not stopped by this budget
+	 */
+	public Limit getExceeded() {
+		return myExceeded;
+	}
+
+	/**
+	 * Returns how much of a limit the run underway has used.
+	 * 
+	 * @param limit
+	 *            the limit
+	 * @return the steps, configurations, milliseconds or bytes used
+	 */
+	public long getUsage(Limit limit) {
+		switch (limit) {
+		case STEPS:
+			return mySteps;
+		case CONFIGURATIONS:
+			return myConfigurations;
+		case TIME:
+			return (System.nanoTime() - myStart) / 1000000;
+		default:
+			return myMemory;
+		}
+	}
+
+	/**
+	 * Returns the most configurations generated by one step of the run
+	 * underway.
+	 * 
+	 * @return the size of the largest frontier of configurations
+	 */
+	public long getPeakFrontier() {
+		return myFrontier;
+	}
+
+	/**
+	 * Returns the time the run underway has taken so far.
+	 * 
+	 * @return the nanoseconds since {@link #start}
+	 */
+	public long getElapsed() {
+		return System.nanoTime() - myStart;
+	}
+
+	/**
+	 * Returns the value of a limit for the run underway, which may have been
+	 * raised since the run started.
+	 * 
+	 * @param limit
+	 *            the limit
+	 * @return the most steps, configurations, milliseconds or bytes allowed,
+	 *         or {@link #UNLIMITED}
+	 */
+	public long getMaximum(Limit limit) {
+		return myMaximums[limit.ordinal()];
+	}
+
+	/**
+	 * Sets the value of a limit, for the run underway and every later run.
+	 * 
+	 * @param limit
+	 *            the limit
+	 * @param maximum
+	 *            the most steps, configurations, milliseconds or bytes
+	 *            allowed, or {@link #UNLIMITED}
+	 */
+	public void setMaximum(Limit limit, long maximum) {
+		myLimits[limit.ordinal()] = maximum;
+		myMaximums[limit.ordinal()] = maximum;
+	}
+
+	/** The value of a limit that is never reached. */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	/**
+	 * The rough size of a configuration in bytes, used to estimate memory
+	 * from the largest number of configurations generated by one step.
+	 */
+	public static final int CONFIGURATION_SIZE = 128;
+
+	/** The value of each limit the budget was given. */
+	private long[] myLimits = new long[Limit.values().length];
+
+	/** The value of each limit for this run, raised as the policy allows. */
+	private long[] myMaximums;
+
+	/** The steps taken in this run. */
+	private long mySteps;
+
+	/** The configurations generated in this run. */
+	private long myConfigurations;
+
+	/** The most configurations generated by one step of this run. */
+	private long myFrontier;
+
+	/** The estimated memory of the largest step of this run. */
+	private long myMemory;
+
+	/** When this run started, from {@link System#nanoTime}. */
+	private long myStart = System.nanoTime();
+
+	/** The limit that stopped this run, or <CODE>null</CODE>. */
+	private Limit myExceeded;
+}
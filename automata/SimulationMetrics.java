@@ -0,0 +1,381 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import automata.event.SimulationEvent;
+import automata.event.SimulationListener;
+
+/**
+ * A <CODE>SimulationMetrics</CODE> gathers what runs of inputs cost. Given
+ * to a simulator or a runner of several inputs as a listener, it counts the
+ * runs by how they ended and keeps a histogram of each measure of a run: its
+ * steps, its configurations, its peak frontier (the most configurations
+ * generated by one step), and its time. The histograms have a bucket for
+ * each power of two, so they take the same small space however many runs
+ * there are, and percentiles read from them are good to within a factor of
+ * two. The metrics may be written out as a summary in comma separated
+ * values.
+ * <P>
+ * Runners of several inputs tell their listeners from several threads, so
+ * this is thread safe.
+ * 
+ * @see AutomatonSimulator#addSimulationListener
+ */
+
+public class SimulationMetrics implements SimulationListener {
+	/**
+	 * The measures of a run kept in histograms.
+	 */
+	public enum Measure {
+		/** The steps taken. */
+		STEPS("steps"),
+		/** The configurations generated. */
+		CONFIGURATIONS("configurations"),
+		/** The most configurations generated by one step. */
+		PEAK_FRONTIER("peak_frontier"),
+		/** The time taken, in microseconds. */
+		TIME("time_us");
+
+		/**
+		 * Instantiates a measure.
+		 * 
+		 * @param name
+		 *            the name of the measure in a summary
+		 */
+		private Measure(String name) {
+			myName = name;
+		}
+
+		/**
+		 * Returns the name of this measure in a summary.
+		 * 
+		 * @return the name of this measure
+		 */
+		public String getName() {
+			return myName;
+		}
+
+		/** The name of this measure in a summary. */
+		private final String myName;
+	}
+
+	/**
+	 * Instantiates metrics with no runs recorded.
+	 */
+	public SimulationMetrics() {
+		clear();
+	}
+
+	/**
+	 * Records a run told of by a simulator or runner.
+	 * 
+	 * @param event
+	 *            the event for the run
+	 */
+	public void simulationFinished(SimulationEvent event) {
+		record(event.isAccepted(), event.getExceeded(), event.getSteps(), event
+				.getConfigurations(), event.getPeakFrontier(), event.getTime());
+	}
+
+	/**
+	 * Records a run.
+	 * 
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @param exceeded
+	 *            the limit that stopped the run, or <CODE>null</CODE>
+	 * @param steps
+	 *            the steps taken
+	 * @param configurations
+	 *            the configurations generated
+	 * @param peakFrontier
+	 *            the most configurations generated by one step
+	 * @param time
+	 *            the nanoseconds the run took
+	 */
+	public synchronized void record(boolean accepted,
+			SimulationBudget.Limit exceeded, long steps, long configurations,
+			long peakFrontier, long time) {
+		myRuns++;
+		if (accepted)
+			myAccepted++;
+		else if (exceeded != null)
+			myExceeded[exceeded.ordinal()]++;
+		else
+			myRejected++;
+		myHistograms[Measure.STEPS.ordinal()].add(steps);
+		myHistograms[Measure.CONFIGURATIONS.ordinal()].add(configurations);
+		myHistograms[Measure.PEAK_FRONTIER.ordinal()].add(peakFrontier);
+		myHistograms[Measure.TIME.ordinal()].add(time / 1000);
+	}
+
+	/**
+	 * Forgets every run recorded.
+	 */
+	public synchronized void clear() {
+		myRuns = myAccepted = myRejected = 0;
+		for (int i = 0; i < myExceeded.length; i++)
+			myExceeded[i] = 0;
+		for (int i = 0; i < myHistograms.length; i++)
+			myHistograms[i] = new Histogram();
+	}
+
+	/**
+	 * Returns the number of runs recorded.
+	 * 
+	 * @return the number of runs
+	 */
+	public synchronized long getRuns() {
+		return myRuns;
+	}
+
+	/**
+	 * Returns the number of runs that accepted their input.
+	 * 
+	 * @return the number of accepted runs
+	 */
+	public synchronized long getAccepted() {
+		return myAccepted;
+	}
+
+	/**
+	 * Returns the number of runs that finished without accepting their input.
+	 * 
+	 * @return the number of rejected runs
+	 */
+	public synchronized long getRejected() {
+		return myRejected;
+	}
+
+	/**
+	 * Returns the number of runs stopped by a limit of their budget.
+	 * 
+	 * @param limit
+	 *            the limit
+	 * @return the number of runs stopped by that limit
+	 */
+	public synchronized long getExceeded(SimulationBudget.Limit limit) {
+		return myExceeded[limit.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of a measure.
+	 * 
+	 * @param measure
+	 *            the measure
+	 * @return a copy of the histogram of that measure
+	 */
+	public synchronized Histogram getHistogram(Measure measure) {
+		return new Histogram(myHistograms[measure.ordinal()]);
+	}
+
+	/**
+	 * Writes a summary of the metrics as comma separated values. There is a
+	 * line for each count of runs, giving only the count, and a line for
+	 * each measure, giving the count, total, least, most, mean and the
+	 * 50th, 90th and 99th percentiles.
+	 * 
+	 * @param writer
+	 *            the writer to write to, which is flushed but not closed
+	 */
+	public synchronized void writeSummary(Writer writer) {
+		PrintWriter out = new PrintWriter(writer);
+		out.println("metric,count,total,min,max,mean,p50,p90,p99");
+		out.println("runs," + myRuns + ",,,,,,,");
+		out.println("accepted," + myAccepted + ",,,,,,,");
+		out.println("rejected," + myRejected + ",,,,,,,");
+		SimulationBudget.Limit[] limits = SimulationBudget.Limit.values();
+		for (int i = 0; i < limits.length; i++)
+			out.println("exceeded_" + limits[i].name().toLowerCase() + ","
+					+ myExceeded[i] + ",,,,,,,");
+		Measure[] measures = Measure.values();
+		for (int i = 0; i < measures.length; i++) {
+			Histogram h = myHistograms[i];
+			out.println(measures[i].getName() + "," + h.getCount() + ","
+					+ h.getTotal() + "," + h.getMinimum() + ","
+					+ h.getMaximum() + ","
+					+ String.format("%.2f", h.getMean()) + ","
+					+ h.getPercentile(0.5) + "," + h.getPercentile(0.9) + ","
+					+ h.getPercentile(0.99));
+		}
+		out.flush();
+	}
+
+	/**
+	 * A <CODE>Histogram</CODE> counts non-negative values in a bucket for
+	 * each power of two: bucket 0 holds 0, and bucket <I>i</I> holds the
+	 * values from 2<SUP><I>i</I>-1</SUP> to 2<SUP><I>i</I></SUP>-1. It also
+	 * keeps their total and the least and most of them exactly.
+	 */
+	public static class Histogram {
+		/**
+		 * Instantiates an empty histogram.
+		 */
+		public Histogram() {
+		}
+
+		/**
+		 * Instantiates a copy of a histogram.
+		 * 
+		 * @param histogram
+		 *            the histogram to copy
+		 */
+		public Histogram(Histogram histogram) {
+			System.arraycopy(histogram.myBuckets, 0, myBuckets, 0,
+					myBuckets.length);
+			myCount = histogram.myCount;
+			myTotal = histogram.myTotal;
+			myMinimum = histogram.myMinimum;
+			myMaximum = histogram.myMaximum;
+		}
+
+		/**
+		 * Counts a value. Negative values are counted as 0.
+		 * 
+		 * @param value
+		 *            the value
+		 */
+		public void add(long value) {
+			value = Math.max(0, value);
+			myBuckets[64 - Long.numberOfLeadingZeros(value)]++;
+			myMinimum = myCount == 0 ? value : Math.min(myMinimum, value);
+			myMaximum = Math.max(myMaximum, value);
+			myCount++;
+			myTotal += value;
+		}
+
+		/**
+		 * Returns the number of values in a bucket.
+		 * 
+		 * @param bucket
+		 *            the bucket, from 0 to 64
+		 * @return the number of values in the bucket
+		 */
+		public long getBucket(int bucket) {
+			return myBuckets[bucket];
+		}
+
+		/**
+		 * Returns the number of values counted.
+		 * 
+		 * @return the number of values
+		 */
+		public long getCount() {
+			return myCount;
+		}
+
+		/**
+		 * Returns the total of the values counted.
+		 * 
+		 * @return the total
+		 */
+		public long getTotal() {
+			return myTotal;
+		}
+
+		/**
+		 * Returns the least value counted.
+		 * 
+		 * @return the least value, or 0 if there are none
+		 */
+		public long getMinimum() {
+			return myMinimum;
+		}
+
+		/**
+		 * Returns the most value counted.
+		 * 
+		 * @return the most value, or 0 if there are none
+		 */
+		public long getMaximum() {
+			return myMaximum;
+		}
+
+		/**
+		 * Returns the mean of the values counted.
+		 * 
+		 * @return the mean, or 0 if there are none
+		 */
+		public double getMean() {
+			return myCount == 0 ? 0 : (double) myTotal / myCount;
+		}
+
+		/**
+		 * Returns an estimate of a percentile of the values counted: the top
+		 * of the bucket the percentile falls in, kept within the least and
+		 * most values.
+		 * 
+		 * @param fraction
+		 *            the fraction of values at or below the percentile, from
+		 *            0 to 1
+		 * @return the estimated percentile, or 0 if there are no values
+		 */
+		public long getPercentile(double fraction) {
+			if (myCount == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(fraction * myCount));
+			long seen = 0;
+			for (int i = 0; i < myBuckets.length; i++) {
+				seen += myBuckets[i];
+				if (seen >= rank) {
+					long top = i == 0 ? 0 : i == 64 ? Long.MAX_VALUE
+							: (1L << i) - 1;
+					return Math.max(myMinimum, Math.min(myMaximum, top));
+				}
+			}
+			return myMaximum;
+		}
+
+		/** The number of values in each bucket. */
+		private long[] myBuckets = new long[65];
+
+		/** The number of values. */
+		private long myCount;
+
+		/** The total of the values. */
+		private long myTotal;
+
+		/** The least value. */
+		private long myMinimum;
+
+		/** The most value. */
+		private long myMaximum;
+	}
+
+	/** The number of runs. */
+	private long myRuns;
+
+	/** The number of accepted runs. */
+	private long myAccepted;
+
+	/** The number of rejected runs. */
+	private long myRejected;
+
+	/** The number of runs stopped by each limit. */
+	private long[] myExceeded = new long[SimulationBudget.Limit.values().length];
+
+	/** The histogram of each measure. */
+	private Histogram[] myHistograms = new Histogram[Measure.values().length];
+}
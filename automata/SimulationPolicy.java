@@ -0,0 +1,59 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+/**
+ * A <CODE>SimulationPolicy</CODE> decides what a simulator does when it runs
+ * out of its {@link SimulationBudget}, or finds a problem with the automaton
+ * that keeps it from going on. The interface lets the same simulators be used
+ * interactively, where the user is asked, and in batch or parallel runs,
+ * where nobody is there to ask.
+ * 
+ * @see LimitPolicy
+ * @see AutomatonSimulator#setPolicy
+ */
+
+public interface SimulationPolicy {
+	/**
+	 * Decides whether a run that has reached a limit of its budget should go
+	 * on. If it does, the limit is doubled.
+	 * 
+	 * @param budget
+	 *            the budget, with the usage of the run so far
+	 * @param limit
+	 *            the limit that was reached
+	 * @return <CODE>true</CODE> if the run should go on, <CODE>false</CODE>
+	 *         if it should stop
+	 */
+	public boolean isContinued(SimulationBudget budget,
+			SimulationBudget.Limit limit);
+
+	/**
+	 * Reports a problem with the automaton. The simulation treats the
+	 * configuration where the problem was found as stuck.
+	 * 
+	 * @param title
+	 *            a short description of the problem
+	 * @param message
+	 *            a full description of the problem
+	 */
+	public void reportError(String title, String message);
+}
@@ -0,0 +1,75 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A <CODE>SimulationRunEvent</CODE> is the Java Flight Recorder event for a
+ * run of one input by an {@link AutomatonSimulator}. By default only runs
+ * longer than 20 milliseconds are recorded, so that a recording of a large
+ * batch shows the inputs that were costly; the <CODE>threshold</CODE> setting
+ * of <CODE>jflap.SimulationRun</CODE> changes this.
+ * 
+ * @see AutomatonSimulator#startRun
+ */
+
+@Name("jflap.SimulationRun")
+@Label("Simulation Run")
+@Category({ "JFLAP", "Simulation" })
+@Description("A run of one input on an automaton")
+@Threshold("20 ms")
+public class SimulationRunEvent extends jdk.jfr.Event {
+	/** The kind of automaton run. */
+	@Label("Automaton")
+	String automaton;
+
+	/** The input that was run. */
+	@Label("Input")
+	String input;
+
+	/** How the run ended. */
+	@Label("Result")
+	String result;
+
+	/** The steps taken. */
+	@Label("Steps")
+	long steps;
+
+	/** The configurations generated. */
+	@Label("Configurations")
+	long configurations;
+
+	/** The most configurations generated by one step. */
+	@Label("Peak Frontier")
+	long peakFrontier;
+
+	/** The estimated memory of the largest step. */
+	@Label("Estimated Memory")
+	@DataAmount
+	long memory;
+}
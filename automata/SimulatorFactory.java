@@ -39,7 +39,7 @@ public class SimulatorFactory {
 	 */
 	public static AutomatonSimulator getSimulator(Automaton automaton) {
 		if (automaton instanceof automata.fsa.FiniteStateAutomaton)
-			return new automata.fsa.FSAStepWithClosureSimulator(automaton);
+			return new automata.fsa.FSABitsetSimulator(automaton);
 		else if (automaton instanceof automata.pda.PushdownAutomaton)
 			return new automata.pda.PDAStepWithClosureSimulator(automaton);
 		else if (automaton instanceof automata.turing.TuringMachine) {
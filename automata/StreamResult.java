@@ -0,0 +1,96 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+/**
+ * A stream result reports the outcome of running a stream of input on an
+ * automaton with a {@link StreamSimulator}: whether the input was accepted,
+ * how many characters were read, and where the machine first failed to read
+ * the input, if it did.
+ */
+
+public class StreamResult {
+	/**
+	 * Instantiates a new <CODE>StreamResult</CODE>.
+	 * 
+	 * @param accepted
+	 *            whether the input was accepted
+	 * @param length
+	 *            the number of characters read
+	 * @param failureOffset
+	 *            the offset of the first character the machine could not
+	 *            read, or -1 if all of the input was read
+	 */
+	public StreamResult(boolean accepted, long length, long failureOffset) {
+		myAccepted = accepted;
+		myLength = length;
+		myFailureOffset = failureOffset;
+	}
+
+	/**
+	 * Returns if the input was accepted.
+	 * 
+	 * @return <CODE>true</CODE> if the input was accepted
+	 */
+	public boolean isAccepted() {
+		return myAccepted;
+	}
+
+	/**
+	 * Returns the number of characters read before the machine halted. This
+	 * is the length of the input unless the machine failed part way through.
+	 * 
+	 * @return the number of characters read
+	 */
+	public long getLength() {
+		return myLength;
+	}
+
+	/**
+	 * Returns the offset of the first character of the input the machine
+	 * could not read, that is, on which it had no transition.
+	 * 
+	 * @return the offset of the first failure, or -1 if all of the input was
+	 *         read
+	 */
+	public long getFailureOffset() {
+		return myFailureOffset;
+	}
+
+	/**
+	 * Returns a string representation of this result.
+	 * 
+	 * @return a string representation of this result
+	 */
+	public String toString() {
+		return (myAccepted ? "accept" : "reject") + " length " + myLength
+				+ (myFailureOffset == -1 ? "" : " failed at " + myFailureOffset);
+	}
+
+	/** Whether the input was accepted. */
+	private boolean myAccepted;
+
+	/** The number of characters read. */
+	private long myLength;
+
+	/** The offset of the first failure, or -1. */
+	private long myFailureOffset;
+}
@@ -0,0 +1,192 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A stream simulator runs input on an automaton as it is read from a
+ * <CODE>Reader</CODE>, an <CODE>InputStream</CODE> or a file, rather than
+ * from a string held in memory. Only a fixed size buffer of the input is held
+ * at any time, so input of any length can be run in constant memory. Files
+ * are memory mapped a window at a time. Bytes are read as characters in the
+ * ISO-8859-1 encoding, that is, each byte is the character with the same
+ * value.
+ * <P>
+ * Subclasses supply the machine: how to start it, how to run a block of input
+ * on it, and whether the state it is left in accepts.
+ */
+
+public abstract class StreamSimulator {
+	/**
+	 * Runs the characters of a reader on the machine. The reader is read
+	 * until it is exhausted or the machine fails, and is not closed.
+	 * 
+	 * @param reader
+	 *            the input
+	 * @return the result of the run
+	 * @throws IOException
+	 *             if reading the input fails
+	 */
+	public StreamResult simulate(Reader reader) throws IOException {
+		if (!reset())
+			return new StreamResult(false, 0, 0);
+		char[] buffer = new char[BUFFER_SIZE];
+		long offset = 0;
+		int length;
+		while ((length = reader.read(buffer, 0, buffer.length)) != -1) {
+			int read = read(buffer, 0, length);
+			offset += read;
+			if (read < length)
+				return new StreamResult(false, offset, offset);
+		}
+		return new StreamResult(isAccept(), offset, -1);
+	}
+
+	/**
+	 * Runs the bytes of a stream on the machine. The stream is read until it
+	 * is exhausted or the machine fails, and is not closed.
+	 * 
+	 * @param stream
+	 *            the input
+	 * @return the result of the run
+	 * @throws IOException
+	 *             if reading the input fails
+	 */
+	public StreamResult simulate(InputStream stream) throws IOException {
+		if (!reset())
+			return new StreamResult(false, 0, 0);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long offset = 0;
+		int length;
+		while ((length = stream.read(buffer, 0, buffer.length)) != -1) {
+			int read = read(buffer, 0, length);
+			offset += read;
+			if (read < length)
+				return new StreamResult(false, offset, offset);
+		}
+		return new StreamResult(isAccept(), offset, -1);
+	}
+
+	/**
+	 * Runs the bytes of a file on the machine. The file is memory mapped one
+	 * window at a time.
+	 * 
+	 * @param file
+	 *            the input
+	 * @return the result of the run
+	 * @throws IOException
+	 *             if reading the input fails
+	 */
+	public StreamResult simulate(File file) throws IOException {
+		if (!reset())
+			return new StreamResult(false, 0, 0);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			for (long start = 0; start < size; start += WINDOW_SIZE) {
+				MappedByteBuffer window = channel.map(
+						FileChannel.MapMode.READ_ONLY, start, Math.min(
+								WINDOW_SIZE, size - start));
+				long offset = start;
+				while (window.hasRemaining()) {
+					int length = Math.min(buffer.length, window.remaining());
+					window.get(buffer, 0, length);
+					int read = read(buffer, 0, length);
+					offset += read;
+					if (read < length)
+						return new StreamResult(false, offset, offset);
+				}
+			}
+			return new StreamResult(isAccept(), size, -1);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Puts the machine in its starting configuration.
+	 * 
+	 * @return <CODE>true</CODE> if the machine can run, <CODE>false</CODE>
+	 *         if it cannot, for example because it has no initial state
+	 * @throws IOException
+	 *             if the machine fails to write output
+	 */
+	protected abstract boolean reset() throws IOException;
+
+	/**
+	 * Runs a block of characters on the machine, continuing from where the
+	 * last block left it.
+	 * 
+	 * @param buffer
+	 *            the characters
+	 * @param offset
+	 *            the index of the first character to read
+	 * @param length
+	 *            the number of characters to read
+	 * @return the number of characters read, which is less than
+	 *         <CODE>length</CODE> only if the machine could not read the
+	 *         character after those
+	 * @throws IOException
+	 *             if the machine fails to write output
+	 */
+	protected abstract int read(char[] buffer, int offset, int length)
+			throws IOException;
+
+	/**
+	 * Runs a block of bytes on the machine, continuing from where the last
+	 * block left it. Each byte is read as the character with the same value.
+	 * 
+	 * @param buffer
+	 *            the bytes
+	 * @param offset
+	 *            the index of the first byte to read
+	 * @param length
+	 *            the number of bytes to read
+	 * @return the number of bytes read, which is less than <CODE>length</CODE>
+	 *         only if the machine could not read the byte after those
+	 * @throws IOException
+	 *             if the machine fails to write output
+	 */
+	protected abstract int read(byte[] buffer, int offset, int length)
+			throws IOException;
+
+	/**
+	 * Returns if the machine, having read all of the input, accepts.
+	 * 
+	 * @return <CODE>true</CODE> if the input read is accepted
+	 */
+	protected abstract boolean isAccept();
+
+	/** The size of the buffer input is read into. */
+	protected static final int BUFFER_SIZE = 1 << 16;
+
+	/** The size of each memory mapped window of a file. */
+	protected static final long WINDOW_SIZE = 1L << 28;
+}
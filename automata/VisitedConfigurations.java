@@ -0,0 +1,133 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata;
+
+import java.util.HashSet;
+
+import automata.fsa.FSAConfiguration;
+import automata.pda.CharacterStack;
+import automata.pda.PDAConfiguration;
+
+/**
+ * A <CODE>VisitedConfigurations</CODE> set remembers the configurations a
+ * search of one input has already reached, so that the search never carries
+ * the same configuration twice. Configurations are compared by what they may
+ * still do rather than by how they were reached: the state and input position
+ * for finite state automata, and those with the stack contents for pushdown
+ * automata. Their own <CODE>equals</CODE> also compares parents, so it would
+ * not do here.
+ * <P>
+ * Other sorts of configurations are never considered seen. Turing machine
+ * simulators change their tapes in place as they step, so their
+ * configurations cannot be kept as keys.
+ */
+
+public class VisitedConfigurations {
+	/**
+	 * Adds a configuration to the set.
+	 * 
+	 * @param configuration
+	 *            the configuration reached
+	 * @return <CODE>true</CODE> if no equivalent configuration was seen
+	 *         before, <CODE>false</CODE> if one was and this one may be
+	 *         dropped
+	 */
+	public boolean add(Configuration configuration) {
+		if (configuration instanceof FSAConfiguration) {
+			FSAConfiguration config = (FSAConfiguration) configuration;
+			return mySeen.add(new Key(config.getCurrentState(), config
+					.getPosition(), null));
+		}
+		if (configuration instanceof PDAConfiguration) {
+			PDAConfiguration config = (PDAConfiguration) configuration;
+			return mySeen.add(new Key(config.getCurrentState(), config
+					.getPosition(), config.getStack()));
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of configurations in the set.
+	 * 
+	 * @return the number of distinct configurations seen
+	 */
+	public int size() {
+		return mySeen.size();
+	}
+
+	/**
+	 * Forgets every configuration, so the set may be used for another input.
+	 */
+	public void clear() {
+		mySeen.clear();
+	}
+
+	/**
+	 * The key a configuration is kept under.
+	 */
+	private static final class Key {
+		/**
+		 * Instantiates a key.
+		 * 
+		 * @param state
+		 *            the current state
+		 * @param position
+		 *            the number of input characters read
+		 * @param stack
+		 *            the stack, or <CODE>null</CODE> if there is none
+		 */
+		Key(State state, int position, CharacterStack stack) {
+			myState = state;
+			myPosition = position;
+			myStack = stack;
+			int hash = state.hashCode() * 31 + position;
+			if (stack != null)
+				hash = hash * 31 + stack.hashCode();
+			myHash = hash;
+		}
+
+		public boolean equals(Object object) {
+			Key key = (Key) object;
+			return myState == key.myState && myPosition == key.myPosition
+					&& (myStack == null ? key.myStack == null : myStack
+							.equals(key.myStack));
+		}
+
+		public int hashCode() {
+			return myHash;
+		}
+
+		/** The current state. */
+		private final State myState;
+
+		/** The number of input characters read. */
+		private final int myPosition;
+
+		/** The stack, or <CODE>null</CODE>. */
+		private final CharacterStack myStack;
+
+		/** The hash code. */
+		private final int myHash;
+	}
+
+	/** The keys of the configurations seen. */
+	private HashSet<Key> mySeen = new HashSet<>();
+}
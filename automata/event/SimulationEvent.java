@@ -0,0 +1,183 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.event;
+
+import java.util.EventObject;
+
+import automata.SimulationBudget;
+
+/**
+ * This event is given to listeners of a simulator when a run of one input
+ * finishes. It tells how the run ended and what it cost: the steps taken,
+ * the configurations generated, the most configurations held at once, and
+ * the time taken.
+ * 
+ * @see automata.AutomatonSimulator#addSimulationListener
+ * @see automata.event.SimulationListener
+ */
+
+public class SimulationEvent extends EventObject {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a new <CODE>SimulationEvent</CODE>.
+	 * 
+	 * @param source
+	 *            the simulator or runner that made the run
+	 * @param input
+	 *            the input that was run
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @param exceeded
+	 *            the limit that stopped the run, or <CODE>null</CODE>
+	 * @param steps
+	 *            the steps taken
+	 * @param configurations
+	 *            the configurations generated
+	 * @param peakFrontier
+	 *            the most configurations generated by one step
+	 * @param time
+	 *            the nanoseconds the run took
+	 */
+	public SimulationEvent(Object source, String input, boolean accepted,
+			SimulationBudget.Limit exceeded, long steps, long configurations,
+			long peakFrontier, long time) {
+		super(source);
+		myInput = input;
+		myAccepted = accepted;
+		myExceeded = exceeded;
+		mySteps = steps;
+		myConfigurations = configurations;
+		myPeakFrontier = peakFrontier;
+		myTime = time;
+	}
+
+	/**
+	 * Instantiates a new <CODE>SimulationEvent</CODE> for a run measured by
+	 * a budget.
+	 * 
+	 * @param source
+	 *            the simulator or runner that made the run
+	 * @param input
+	 *            the input that was run
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @param budget
+	 *            the budget of the run, just finished
+	 */
+	public SimulationEvent(Object source, String input, boolean accepted,
+			SimulationBudget budget) {
+		this(source, input, accepted, budget.getExceeded(), budget
+				.getUsage(SimulationBudget.Limit.STEPS), budget
+				.getUsage(SimulationBudget.Limit.CONFIGURATIONS), budget
+				.getPeakFrontier(), budget.getElapsed());
+	}
+
+	/**
+	 * Returns the input that was run.
+	 * 
+	 * @return the input, with the inputs of several tapes separated by
+	 *         tabs
+	 */
+	public String getInput() {
+		return myInput;
+	}
+
+	/**
+	 * Returns if the input was accepted.
+	 * 
+	 * @return <CODE>true</CODE> if the input was accepted
+	 */
+	public boolean isAccepted() {
+		return myAccepted;
+	}
+
+	/**
+	 * Returns the limit that stopped the run.
+	 * 
+	 * @return the limit that stopped the run, or <CODE>null</CODE> if the run
+	 *         finished
+	 */
+	public SimulationBudget.Limit getExceeded() {
+		return myExceeded;
+	}
+
+	/**
+	 * Returns the steps the run took.
+	 * 
+	 * @return the steps taken
+	 */
+	public long getSteps() {
+		return mySteps;
+	}
+
+	/**
+	 * Returns the configurations the run generated.
+	 * 
+	 * @return the configurations generated
+	 */
+	public long getConfigurations() {
+		return myConfigurations;
+	}
+
+	/**
+	 * Returns the most configurations generated by one step of the run.
+	 * 
+	 * @return the size of the largest frontier
+	 */
+	public long getPeakFrontier() {
+		return myPeakFrontier;
+	}
+
+	/**
+	 * Returns the time the run took.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long getTime() {
+		return myTime;
+	}
+
+	/** The input that was run. */
+	private String myInput;
+
+	/** Whether the input was accepted. */
+	private boolean myAccepted;
+
+	/** The limit that stopped the run, or <CODE>null</CODE>. */
+	private SimulationBudget.Limit myExceeded;
+
+	/** The steps taken. */
+	private long mySteps;
+
+	/** The configurations generated. */
+	private long myConfigurations;
+
+	/** The most configurations generated by one step. */
+	private long myPeakFrontier;
+
+	/** The time taken in nanoseconds. */
+	private long myTime;
+}
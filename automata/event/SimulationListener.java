@@ -0,0 +1,43 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.event;
+
+import java.util.EventListener;
+
+/**
+ * An interface that those interested in the runs of a simulator should listen
+ * to. Runs of several inputs at once may give events from several threads, so
+ * a listener shared by them should be thread safe.
+ * 
+ * @see automata.event.SimulationEvent
+ * @see automata.AutomatonSimulator#addSimulationListener
+ */
+
+public interface SimulationListener extends EventListener {
+	/**
+	 * Registers with the listener that a run has finished.
+	 * 
+	 * @param event
+	 *            the event
+	 */
+	public void simulationFinished(SimulationEvent event);
+}
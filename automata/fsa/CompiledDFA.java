@@ -0,0 +1,197 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import automata.State;
+
+/**
+ * A compiled DFA is a table driven form of a deterministic finite state
+ * automaton whose transitions are each labeled with exactly one character.
+ * States are numbered by their position in the array the automaton returned
+ * from <CODE>getStates</CODE>, and characters are mapped to symbol classes by
+ * their position in the alphabet. Running input on the table does not allocate
+ * any objects, which makes it suitable for checking great many inputs.
+ * 
+ * @see automata.fsa.DFACompiler
+ */
+
+public class CompiledDFA {
+	/**
+	 * Instantiates a new <CODE>CompiledDFA</CODE>. Clients should use the
+	 * {@link DFACompiler} to create compiled DFAs.
+	 * 
+	 * @param states
+	 *            the states of the automaton, indexed by state number
+	 * @param initial
+	 *            the number of the initial state
+	 * @param finals
+	 *            for each state number, whether that state is final
+	 * @param classes
+	 *            maps characters to symbol classes, or -1 for characters not
+	 *            in the alphabet
+	 * @param table
+	 *            the transition table, indexed by state number and symbol
+	 *            class, holding the number of the next state or -1
+	 */
+	CompiledDFA(State[] states, int initial, boolean[] finals, int[] classes,
+			int[][] table) {
+		myStates = states;
+		myInitial = initial;
+		myFinals = finals;
+		myClasses = classes;
+		myTable = table;
+	}
+
+	/**
+	 * Returns the number of the state reached after processing the first
+	 * characters of the input, or -1 if the machine stopped early.
+	 * 
+	 * @param input
+	 *            the input to run
+	 * @param length
+	 *            the number of characters of the input to process
+	 * @return the number of the state reached, or -1 if there was no
+	 *         transition on one of the characters
+	 */
+	private int run(CharSequence input, int length) {
+		int state = myInitial;
+		for (int i = 0; i < length; i++) {
+			char c = input.charAt(i);
+			if (c >= myClasses.length)
+				return -1;
+			int symbol = myClasses[c];
+			if (symbol == -1)
+				return -1;
+			state = myTable[state][symbol];
+			if (state == -1)
+				return -1;
+		}
+		return state;
+	}
+
+	/**
+	 * Returns if the automaton accepts the input, that is, if all of the input
+	 * can be processed and the machine is left in a final state.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return <CODE>true</CODE> if the input is accepted, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	public boolean accepts(CharSequence input) {
+		int state = run(input, input.length());
+		return state != -1 && myFinals[state];
+	}
+
+	/**
+	 * Returns the configuration the machine halts in after running the input,
+	 * which is either the configuration with all input processed or the
+	 * configuration on which no transition applied, with the path that led
+	 * to it.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return the configuration the machine halts in
+	 */
+	public FSAConfiguration getFinalConfiguration(String input) {
+		int state = myInitial;
+		FSAConfiguration configuration = new FSAConfiguration(
+				myStates[state], null, input, 0);
+		for (int position = 0; position < input.length(); position++) {
+			char c = input.charAt(position);
+			int symbol = c < myClasses.length ? myClasses[c] : -1;
+			int next = symbol == -1 ? -1 : myTable[state][symbol];
+			if (next == -1)
+				break;
+			state = next;
+			configuration = new FSAConfiguration(myStates[state],
+					configuration, input, position + 1);
+		}
+		return configuration;
+	}
+
+	/**
+	 * Returns the number of the initial state.
+	 * 
+	 * @return the number of the initial state
+	 */
+	public int getInitialState() {
+		return myInitial;
+	}
+
+	/**
+	 * Returns if the state with the given number is final.
+	 * 
+	 * @param state
+	 *            the number of the state
+	 * @return <CODE>true</CODE> if the state is final
+	 */
+	public boolean isFinal(int state) {
+		return myFinals[state];
+	}
+
+	/**
+	 * Returns the number of the state reached from a state on a character.
+	 * 
+	 * @param state
+	 *            the number of the state
+	 * @param c
+	 *            the character read
+	 * @return the number of the next state, or -1 if there is no transition
+	 */
+	public int getNextState(int state, char c) {
+		int symbol = c < myClasses.length ? myClasses[c] : -1;
+		return symbol == -1 ? -1 : myTable[state][symbol];
+	}
+
+	/**
+	 * Returns the characters this automaton has transitions on, in order.
+	 * 
+	 * @return the alphabet of the automaton
+	 */
+	public char[] getAlphabet() {
+		return CompiledNFA.getAlphabet(myClasses);
+	}
+
+	/**
+	 * Returns the number of states in the table.
+	 * 
+	 * @return the number of states in the table
+	 */
+	public int getStateCount() {
+		return myStates.length;
+	}
+
+	/** The states of the automaton, indexed by state number. */
+	private State[] myStates;
+
+	/** The number of the initial state. */
+	private int myInitial;
+
+	/** Whether each state is a final state. */
+	private boolean[] myFinals;
+
+	/** The mapping of characters to symbol classes. */
+	private int[] myClasses;
+
+	/** The transition table, indexed by state number and then symbol class. */
+	private int[][] myTable;
+}
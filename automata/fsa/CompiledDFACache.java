@@ -0,0 +1,108 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+package automata.fsa;
+
+import automata.event.AutomataStateEvent;
+import automata.event.AutomataStateListener;
+import automata.event.AutomataTransitionEvent;
+import automata.event.AutomataTransitionListener;
+
+/**
+ * The compiled DFA cache keeps the {@link CompiledDFA} of a finite state
+ * automaton until the automaton changes. The cache listens to the automaton,
+ * and forgets the table whenever a state is added, removed, made initial or
+ * final, or a transition is added, removed or changed. Each finite state
+ * automaton has its own cache, which is got from
+ * {@link FiniteStateAutomaton#getCompiledDFACache}.
+ * 
+ * @see DFACompiler
+ */
+
+public class CompiledDFACache implements AutomataStateListener,
+		AutomataTransitionListener {
+	/**
+	 * Instantiates a compiled DFA cache for an automaton, and registers it to
+	 * hear of changes to the automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton whose table is kept
+	 */
+	public CompiledDFACache(FiniteStateAutomaton automaton) {
+		myAutomaton = automaton;
+		automaton.addStateListener(this);
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Returns the table compiled form of the automaton, compiling it if the
+	 * automaton changed since it was last compiled.
+	 * 
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         cannot be compiled
+	 * @see DFACompiler#compile
+	 */
+	public synchronized CompiledDFA getCompiledDFA() {
+		if (!myValid) {
+			myDFA = new DFACompiler().compile(myAutomaton);
+			myValid = true;
+		}
+		return myDFA;
+	}
+
+	/**
+	 * Forgets the table when a state is added, removed, or made initial or
+	 * final, which are given as label changes, but not when it is moved.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public synchronized void automataStateChange(AutomataStateEvent event) {
+		if (!event.isMove())
+			invalidate();
+	}
+
+	/**
+	 * Forgets the table when a transition is added, removed or changed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public synchronized void automataTransitionChange(
+			AutomataTransitionEvent event) {
+		invalidate();
+	}
+
+	/**
+	 * Forgets the table.
+	 */
+	private void invalidate() {
+		myValid = false;
+		myDFA = null;
+	}
+
+	/** The automaton whose table is kept. */
+	private FiniteStateAutomaton myAutomaton;
+
+	/** Whether the table is up to date with the automaton. */
+	private boolean myValid = false;
+
+	/** The compiled automaton, or <CODE>null</CODE> if not compilable. */
+	private CompiledDFA myDFA = null;
+}
@@ -0,0 +1,385 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.Arrays;
+
+import automata.State;
+
+/**
+ * A compiled NFA is a bit parallel form of a finite state automaton. The set
+ * of states the machine could be in is kept as a bitset of <CODE>long</CODE>
+ * words, the lambda closure of every state is folded into the masks once when
+ * the automaton is compiled, and each step ORs together the successor masks of
+ * the active states for the symbol read. The cost of running an input is
+ * therefore bound by the number of states, and not by the number of paths the
+ * machine may take: each character read costs one OR of a mask of
+ * <I>n</I>/64 words for every active state, so <I>O</I>(<I>n</I><SUP>2</SUP>/64)
+ * for <I>n</I> states at worst, and <I>O</I>(<I>n</I>/64) only when few
+ * states are active at once.
+ * <P>
+ * The configurations a run ends in are given with a path that leads to them,
+ * found by walking back through the sets of states reached on each prefix of
+ * the input. The path steps as the step with closure simulator does, each
+ * step reading a whole label and ending in any state of the closure of the
+ * state the transition goes to.
+ * 
+ * @see automata.fsa.NFACompiler
+ */
+
+public class CompiledNFA {
+	/**
+	 * Instantiates a new <CODE>CompiledNFA</CODE>. Clients should use the
+	 * {@link NFACompiler} to create compiled NFAs.
+	 * 
+	 * @param states
+	 *            the states of the automaton, by number
+	 * @param stateCount
+	 *            the number of states, including states introduced for
+	 *            labels longer than one character
+	 * @param initial
+	 *            the closure of the initial state
+	 * @param finals
+	 *            the set of final states
+	 * @param classes
+	 *            maps characters to symbol classes, or -1 for characters not
+	 *            in the alphabet
+	 * @param successors
+	 *            indexed by symbol class and then state, the closed set of
+	 *            states reached on that symbol, or <CODE>null</CODE> if there
+	 *            are none
+	 */
+	CompiledNFA(State[] states, int stateCount, long[] initial, long[] finals,
+			int[] classes, long[][][] successors) {
+		myStates = states;
+		myStateCount = stateCount;
+		myInitial = initial;
+		myFinals = finals;
+		myClasses = classes;
+		mySuccessors = successors;
+	}
+
+	/**
+	 * Returns if the automaton accepts the input, that is, if after all the
+	 * input is processed at least one of the states the machine could be in is
+	 * final.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return <CODE>true</CODE> if the input is accepted, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	public boolean accepts(CharSequence input) {
+		return getFinalStates(input) != null;
+	}
+
+	/**
+	 * Returns a configuration of the automaton in a final state with all the
+	 * input processed, and the path that led to it, if the input is
+	 * accepted.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return a configuration in a final state at the end of the input, or
+	 *         <CODE>null</CODE> if the input is not accepted
+	 */
+	public FSAConfiguration getFinalConfiguration(String input) {
+		FSAConfiguration last = getLastConfiguration(input);
+		return last.isAccept() ? last : null;
+	}
+
+	/**
+	 * Returns the configuration a run of the input ends in, with the path
+	 * that led to it. If the input is accepted this is in a final state with
+	 * all the input processed; otherwise it is in a state reached on the
+	 * longest prefix of the input that reached one.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return the configuration the run ends in
+	 */
+	public FSAConfiguration getLastConfiguration(String input) {
+		long[][] sets = new long[input.length() + 1][];
+		sets[0] = myInitial;
+		int count = 1;
+		while (count <= input.length()) {
+			long[] next = new long[myInitial.length];
+			if (!step(sets[count - 1], next, input.charAt(count - 1)))
+				break;
+			sets[count++] = next;
+		}
+		return getConfiguration(input, sets, count);
+	}
+
+	/**
+	 * Returns the configuration a run ends in, given the sets of states it
+	 * reached, with the path that led to it.
+	 * 
+	 * @param input
+	 *            the input that was run
+	 * @param sets
+	 *            the set of states reached on each prefix of the input, from
+	 *            the empty prefix on, none of them empty; these are not
+	 *            changed
+	 * @param count
+	 *            the number of sets, one more than the length of the longest
+	 *            prefix read
+	 * @return a configuration in a final state at the end of the input if
+	 *         one was reached, or else in a state of the automaton reached on
+	 *         the longest prefix that reached one
+	 * @see #getLastConfiguration
+	 */
+	FSAConfiguration getConfiguration(String input, long[][] sets, int count) {
+		int length = count - 1;
+		int state = length == input.length() ? getFirst(sets[length],
+				myFinals) : -1;
+		// States introduced for long labels are numbered after the others.
+		while (state == -1) {
+			state = getFirst(sets[length], null);
+			if (state >= myStates.length) {
+				state = -1;
+				length--;
+			}
+		}
+		// Walk back, each state stepping to the one after it.
+		int[] path = new int[length + 1];
+		path[length] = state;
+		for (int i = length; i > 0; i--)
+			path[i - 1] = getPredecessor(sets[i - 1], path[i], input
+					.charAt(i - 1));
+		FSAConfiguration configuration = null;
+		for (int i = 0; i <= length; i++)
+			if (path[i] < myStates.length)
+				configuration = new FSAConfiguration(myStates[path[i]],
+						configuration, input, i);
+		return configuration;
+	}
+
+	/**
+	 * Runs the input, and returns the states the machine could be in at the
+	 * end of it if one of them is final.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return the states reached, or <CODE>null</CODE> if the input is not
+	 *         accepted
+	 */
+	private long[] getFinalStates(CharSequence input) {
+		long[] current = myInitial.clone();
+		long[] next = new long[current.length];
+		for (int i = 0; i < input.length(); i++) {
+			if (!step(current, next, input.charAt(i)))
+				return null;
+			long[] temp = current;
+			current = next;
+			next = temp;
+		}
+		return intersects(current, myFinals) ? current : null;
+	}
+
+	/**
+	 * Returns a new bitset holding the closure of the initial state.
+	 * 
+	 * @return the set of states the machine starts in
+	 */
+	public long[] getInitialStates() {
+		return myInitial.clone();
+	}
+
+	/**
+	 * Computes the set of states reached from one set of states on a single
+	 * character.
+	 * 
+	 * @param current
+	 *            the set of states the machine could be in
+	 * @param next
+	 *            the set to store the states reached in; it is cleared first
+	 * @param c
+	 *            the character read
+	 * @return <CODE>true</CODE> if any state was reached, <CODE>false</CODE>
+	 *         if the machine can go no further
+	 */
+	public boolean step(long[] current, long[] next, char c) {
+		Arrays.fill(next, 0L);
+		int symbol = c < myClasses.length ? myClasses[c] : -1;
+		if (symbol == -1)
+			return false;
+		long[][] masks = mySuccessors[symbol];
+		boolean any = false;
+		for (int w = 0; w < current.length; w++) {
+			long bits = current[w];
+			while (bits != 0) {
+				int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				long[] mask = masks[state];
+				if (mask == null)
+					continue;
+				for (int k = 0; k < mask.length; k++)
+					next[k] |= mask[k];
+				any = true;
+			}
+		}
+		return any;
+	}
+
+	/**
+	 * Returns if the set of states contains a final state.
+	 * 
+	 * @param states
+	 *            the set of states
+	 * @return <CODE>true</CODE> if one of the states is final
+	 */
+	public boolean isAccept(long[] states) {
+		return intersects(states, myFinals);
+	}
+
+	/**
+	 * Returns if the state with the given number is final.
+	 * 
+	 * @param state
+	 *            the number of the state
+	 * @return <CODE>true</CODE> if the state is final
+	 */
+	public boolean isFinal(int state) {
+		return (myFinals[state >> 6] & (1L << state)) != 0;
+	}
+
+	/**
+	 * Returns the closed set of states reached from a single state on a
+	 * character. The set returned is shared and must not be changed.
+	 * 
+	 * @param state
+	 *            the number of the state
+	 * @param c
+	 *            the character read
+	 * @return the states reached, or <CODE>null</CODE> if there are none
+	 */
+	public long[] getSuccessors(int state, char c) {
+		int symbol = c < myClasses.length ? myClasses[c] : -1;
+		return symbol == -1 ? null : mySuccessors[symbol][state];
+	}
+
+	/**
+	 * Returns the characters this automaton has transitions on, in order.
+	 * 
+	 * @return the alphabet of the automaton
+	 */
+	public char[] getAlphabet() {
+		return getAlphabet(myClasses);
+	}
+
+	/**
+	 * Returns the number of states, including those introduced for labels
+	 * longer than one character.
+	 * 
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return myStateCount;
+	}
+
+	/**
+	 * Returns the characters mapped to a symbol class, in order.
+	 */
+	static char[] getAlphabet(int[] classes) {
+		int count = 0;
+		for (int c = 0; c < classes.length; c++)
+			if (classes[c] != -1)
+				count++;
+		char[] alphabet = new char[count];
+		count = 0;
+		for (int c = 0; c < classes.length; c++)
+			if (classes[c] != -1)
+				alphabet[count++] = (char) c;
+		return alphabet;
+	}
+
+	/**
+	 * Returns a state of a set that steps to another state on a character.
+	 * 
+	 * @param set
+	 *            the set of states, one of which steps to the state
+	 * @param state
+	 *            the number of the state stepped to
+	 * @param c
+	 *            the character read
+	 * @return the number of a state of the set that steps to the state
+	 */
+	private int getPredecessor(long[] set, int state, char c) {
+		for (int w = 0; w < set.length; w++) {
+			long bits = set[w];
+			while (bits != 0) {
+				int from = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				long[] mask = getSuccessors(from, c);
+				if (mask != null && (mask[state >> 6] & (1L << state)) != 0)
+					return from;
+			}
+		}
+		throw new IllegalArgumentException("No state of the set steps there!");
+	}
+
+	/**
+	 * Returns the lowest numbered state of a set that is also in a mask.
+	 * 
+	 * @param set
+	 *            the set of states
+	 * @param mask
+	 *            the mask, or <CODE>null</CODE> to take any state of the set
+	 * @return the number of the state, or -1 if there is none
+	 */
+	private static int getFirst(long[] set, long[] mask) {
+		for (int w = 0; w < set.length; w++) {
+			long bits = mask == null ? set[w] : set[w] & mask[w];
+			if (bits != 0)
+				return (w << 6) + Long.numberOfTrailingZeros(bits);
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns if two bitsets share any bit.
+	 */
+	private static boolean intersects(long[] a, long[] b) {
+		for (int w = 0; w < a.length; w++)
+			if ((a[w] & b[w]) != 0)
+				return true;
+		return false;
+	}
+
+	/** The states of the automaton, by number. */
+	private State[] myStates;
+
+	/** The number of states. */
+	private int myStateCount;
+
+	/** The closure of the initial state. */
+	private long[] myInitial;
+
+	/** The set of final states. */
+	private long[] myFinals;
+
+	/** The mapping of characters to symbol classes. */
+	private int[] myClasses;
+
+	/** The closed successor masks, indexed by symbol class and then state. */
+	private long[][][] mySuccessors;
+}
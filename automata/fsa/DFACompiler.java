@@ -0,0 +1,111 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import automata.Automaton;
+import automata.AutomatonChecker;
+import automata.State;
+import automata.Transition;
+
+/**
+ * The DFA compiler turns a deterministic finite state automaton into a
+ * {@link CompiledDFA}, a dense table of next states indexed by state and symbol
+ * class. Only automata where every transition reads exactly one character can
+ * be compiled; other automata should be simulated as usual.
+ */
+
+public class DFACompiler {
+	/**
+	 * Creates an instance of <CODE>DFACompiler</CODE>.
+	 */
+	public DFACompiler() {
+	}
+
+	/**
+	 * Returns if the automaton can be compiled into a table, that is, if it is
+	 * a deterministic finite state automaton with an initial state and every
+	 * transition label is exactly one character long.
+	 * 
+	 * @param automaton
+	 *            the automaton to check
+	 * @return <CODE>true</CODE> if the automaton can be compiled, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	public boolean isCompilable(Automaton automaton) {
+		if (!(automaton instanceof FiniteStateAutomaton)
+				|| automaton.getInitialState() == null)
+			return false;
+		Transition[] transitions = automaton.getTransitions();
+		for (int k = 0; k < transitions.length; k++) {
+			FSATransition transition = (FSATransition) transitions[k];
+			if (transition.getLabel().length() != 1)
+				return false;
+		}
+		AutomatonChecker ac = new AutomatonChecker();
+		return !ac.isNFA(automaton);
+	}
+
+	/**
+	 * Compiles the automaton into a table. The automaton is checked with
+	 * {@link #isCompilable} here, so callers need not check it first.
+	 * 
+	 * @param automaton
+	 *            the automaton to compile
+	 * @return the compiled form of the automaton, or <CODE>null</CODE> if
+	 *         the automaton cannot be compiled
+	 * @see #isCompilable
+	 */
+	public CompiledDFA compile(Automaton automaton) {
+		if (!isCompilable(automaton))
+			return null;
+		String[] alphabet = new FSAAlphabetRetriever().getAlphabet(automaton);
+		int maxChar = -1;
+		for (int i = 0; i < alphabet.length; i++)
+			maxChar = Math.max(maxChar, alphabet[i].charAt(0));
+		int[] classes = new int[maxChar + 1];
+		Arrays.fill(classes, -1);
+		for (int i = 0; i < alphabet.length; i++)
+			classes[alphabet[i].charAt(0)] = i;
+
+		State[] states = automaton.getStates();
+		HashMap<State, Integer> stateToNumber = new HashMap<>();
+		for (int i = 0; i < states.length; i++)
+			stateToNumber.put(states[i], i);
+		boolean[] finals = new boolean[states.length];
+		int[][] table = new int[states.length][alphabet.length];
+		for (int i = 0; i < states.length; i++) {
+			finals[i] = automaton.isFinalState(states[i]);
+			Arrays.fill(table[i], -1);
+			Transition[] transitions = automaton
+					.getTransitionsFromState(states[i]);
+			for (int k = 0; k < transitions.length; k++) {
+				FSATransition transition = (FSATransition) transitions[k];
+				int symbol = classes[transition.getLabel().charAt(0)];
+				table[i][symbol] = stateToNumber.get(transition.getToState());
+			}
+		}
+		int initial = stateToNumber.get(automaton.getInitialState());
+		return new CompiledDFA(states, initial, finals, classes, table);
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import automata.Automaton;
+
+/**
+ * The FSA bitset simulator runs input on a finite state automaton by keeping
+ * the set of states the machine could be in as a bitset, rather than following
+ * each path as its own configuration. Running input with
+ * {@link #simulateInput} costs time bound by the length of the input and the
+ * number of states, however ambiguous the automaton is. An accepted input
+ * leaves a configuration in a final state, with the path that led to it, so
+ * {@link #isAccepted} answers as for other simulators. Stepping through
+ * configurations works as it does for the step with closure simulator, and
+ * the simulator factory gives this simulator for finite state automata.
+ * 
+ * @see automata.fsa.CompiledNFA
+ */
+
+public class FSABitsetSimulator extends FSAStepWithClosureSimulator {
+	/**
+	 * Creates an FSA bitset simulator for the given automaton.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 */
+	public FSABitsetSimulator(Automaton automaton) {
+		super(automaton);
+	}
+
+	/**
+	 * Runs the automaton on the input string.
+	 * 
+	 * @param input
+	 *            the input string to be run on the automaton
+	 * @return true if the automaton accepts the input
+	 */
+	public boolean simulateInput(String input) {
+		myConfigurations.clear();
+		startRun();
+		FSAConfiguration configuration = getLastConfiguration(input);
+		if (configuration == null || !configuration.isAccept())
+			return finishRun(input, false);
+		myConfigurations.add(configuration);
+		return finishRun(input, true);
+	}
+
+	/**
+	 * Returns the configuration a run of the input ends in: a configuration
+	 * in a final state at the end of the input if it is accepted, or else
+	 * where the run stopped. Deterministic automata run on their table, and
+	 * the configuration then has no parent; other automata run on their
+	 * bitset form, and the configuration has the path that led to it.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return the configuration the run ends in, or <CODE>null</CODE> if the
+	 *         automaton has no initial state
+	 */
+	public FSAConfiguration getLastConfiguration(String input) {
+		CompiledDFA dfa = getCompiledDFA();
+		if (dfa != null)
+			return dfa.getFinalConfiguration(input);
+		CompiledNFA nfa = getCompiledNFA();
+		return nfa == null ? null : nfa.getLastConfiguration(input);
+	}
+
+	/**
+	 * Returns the bitset form of the automaton. The automaton is compiled
+	 * again after it changes.
+	 * 
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         has no initial state
+	 * @see FiniteStateAutomaton#getCompiledNFACache
+	 */
+	public CompiledNFA getCompiledNFA() {
+		if (!(myAutomaton instanceof FiniteStateAutomaton))
+			return new NFACompiler().compile(myAutomaton);
+		return ((FiniteStateAutomaton) myAutomaton).getCompiledNFACache()
+				.getCompiledNFA();
+	}
+}
@@ -28,7 +28,8 @@ import automata.State;
  * An <CODE>FSAConfiguration</CODE> object is a <CODE>Configuration</CODE>
  * object with an additional field for the input string. The current state of
  * the automaton and the unprocessed input are the only necessary data for the
- * simulation of an FSA.
+ * simulation of an FSA. The unprocessed input is kept as a position into the
+ * input, which is shared by all configurations of a simulation.
  * 
  * @author Ryan Cavalcante
  */
@@ -49,9 +50,27 @@ public class FSAConfiguration extends Configuration {
 	 */
 	public FSAConfiguration(State state, FSAConfiguration parent, String input,
 			String unprocessed) {
+		this(state, parent, input, input.length() - unprocessed.length());
+	}
+
+	/**
+	 * Instantiates a new FSAConfiguration.
+	 * 
+	 * @param state
+	 *            the state the automaton is currently in.
+	 * @param parent
+	 *            the configuration that is the immediate ancestor of this
+	 *            configuration
+	 * @param input
+	 *            the input
+	 * @param position
+	 *            the number of characters of the input already processed
+	 */
+	public FSAConfiguration(State state, FSAConfiguration parent, String input,
+			int position) {
 		super(state, parent);
 		myInput = input;
-		myUnprocessedInput = unprocessed;
+		myPosition = position;
 	}
 
 	/**
@@ -62,12 +81,22 @@ public class FSAConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the unprocessed input.
+	 * Returns the number of characters of the input already processed.
+	 * 
+	 * @return the position of the unprocessed input in the input.
+	 */
+	public int getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the unprocessed input. This is made from the input each time it
+	 * is asked for; simulators should use {@link #getPosition} instead.
 	 * 
 	 * @return the unprocessed input.
 	 */
 	public String getUnprocessedInput() {
-		return myUnprocessedInput;
+		return myInput.substring(myPosition);
 	}
 
 	/**
@@ -78,7 +107,7 @@ public class FSAConfiguration extends Configuration {
 	 *            FSA.
 	 */
 	public void setUnprocessedInput(String input) {
-		myUnprocessedInput = input;
+		myPosition = myInput.length() - input.length();
 	}
 
 	/**
@@ -99,7 +128,7 @@ public class FSAConfiguration extends Configuration {
 	 *         otherwise
 	 */
 	public boolean isAccept() {
-		if (getUnprocessedInput().length() != 0)
+		if (myPosition != myInput.length())
 			return false;
 		State s = getCurrentState();
 		Automaton a = s.getAutomaton();
@@ -108,8 +137,8 @@ public class FSAConfiguration extends Configuration {
 
 	/**
 	 * Checks for equality. Two FSAConfigurations are equal if they have the
-	 * same unprocessed input, and satisfy the .equals() test of the base <CODE>Configuration</CODE>
-	 * class.
+	 * same input and position in it, and satisfy the .equals() test of the
+	 * base <CODE>Configuration</CODE> class.
 	 * 
 	 * @see automata.Configuration#equals
 	 * @param configuration
@@ -121,9 +150,10 @@ public class FSAConfiguration extends Configuration {
 		if (configuration == this)
 			return true;
 		try {
+			FSAConfiguration config = (FSAConfiguration) configuration;
 			return super.equals(configuration)
-					&& myUnprocessedInput
-							.equals(((FSAConfiguration) configuration).myUnprocessedInput);
+					&& myPosition == config.myPosition
+					&& myInput.equals(config.myInput);
 		} catch (ClassCastException e) {
 			return false;
 		}
@@ -135,12 +165,12 @@ public class FSAConfiguration extends Configuration {
 	 * @return a hashcode for this object
 	 */
 	public int hashCode() {
-		return super.hashCode() ^ myUnprocessedInput.hashCode();
+		return super.hashCode() ^ (myInput.hashCode() + myPosition * 31);
 	}
 
 	/** The total input. */
 	private String myInput;
 
-	/** The unprocessed input. */
-	private String myUnprocessedInput;
+	/** The number of characters of the input processed. */
+	private int myPosition;
 }
@@ -0,0 +1,289 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The FSA label is the compiled form of the label of an {@link FSATransition}.
+ * A plain label reads exactly itself. A list label like <CODE>[a,b,x..z]</CODE>
+ * reads any one of its elements, where a range like <CODE>x..z</CODE> stands
+ * for every character between the two ends. Text outside the square
+ * brackets is ignored. The single character elements of a list are kept in a
+ * bitmap of characters and the longer elements in a small trie, so that
+ * matching a label against input does not parse the label. A compiled label
+ * does not change, and may be shared by simulators running on several
+ * threads.
+ * 
+ * @see automata.fsa.FSATransition#getCompiledLabel
+ */
+
+public class FSALabel {
+	/**
+	 * Compiles a transition label.
+	 * 
+	 * @param label
+	 *            the label of the transition
+	 */
+	public FSALabel(String label) {
+		myLabel = label;
+		int open = label.indexOf("["), close = label.indexOf("]");
+		myList = open != -1 && close != -1 && open < close;
+		if (!myList) {
+			myElements = new String[] { label };
+			myMatch = new int[] { label.length() };
+			myCharacters = null;
+			myTrie = null;
+			myFirstCharacters = getFirstCharacters(myElements);
+			return;
+		}
+		myMatch = ONE;
+		// XXX Text outside the square brackets is ignored.
+		Set<String> elements = new LinkedHashSet<>();
+		for (String element : label.substring(open + 1, close).split(",")) {
+			// Block implicit lambda values.
+			if (element.isEmpty())
+				continue;
+			// Treat it as a range iff after splitting, the array only has two
+			// elements and both elements contain only a single character.
+			if (element.contains("..")) {
+				String[] range = element.split("\\.\\.");
+				if (range.length == 2 && range[0].strip().length() == 1
+						&& range[1].strip().length() == 1) {
+					char first = range[0].strip().charAt(0);
+					char last = range[1].strip().charAt(0);
+					for (int c = first; c <= last; c++)
+						elements.add(String.valueOf((char) c));
+					continue;
+				}
+			}
+			elements.add(element);
+		}
+		myElements = elements.toArray(new String[0]);
+		int maxChar = -1;
+		for (int i = 0; i < myElements.length; i++)
+			if (myElements[i].length() == 1)
+				maxChar = Math.max(maxChar, myElements[i].charAt(0));
+		myCharacters = new long[(maxChar + 64) >> 6];
+		myTrie = new Node();
+		for (int i = 0; i < myElements.length; i++) {
+			String element = myElements[i];
+			if (element.length() == 1)
+				myCharacters[element.charAt(0) >>> 6] |= 1L << element.charAt(0);
+			else
+				myTrie.add(element, 0);
+		}
+		myFirstCharacters = getFirstCharacters(myElements);
+	}
+
+	/**
+	 * Returns the label this was compiled from.
+	 * 
+	 * @return the label this was compiled from
+	 */
+	public String getLabel() {
+		return myLabel;
+	}
+
+	/**
+	 * Returns if this is a list label.
+	 * 
+	 * @return <CODE>true</CODE> if this is a list label, <CODE>false</CODE>
+	 *         if it is a plain label
+	 */
+	public boolean isList() {
+		return myList;
+	}
+
+	/**
+	 * Returns if this label reads nothing, that is, if it is a lambda label.
+	 * 
+	 * @return <CODE>true</CODE> if this is a lambda label
+	 */
+	public boolean isLambda() {
+		return !myList && myLabel.length() == 0;
+	}
+
+	/**
+	 * Returns the strings this label may read. For a plain label this is just
+	 * the label itself.
+	 * 
+	 * @return the strings this label may read
+	 */
+	public String[] getElements() {
+		return myElements;
+	}
+
+	/**
+	 * Returns the characters the strings this label reads may start with, in
+	 * ascending order.
+	 * 
+	 * @return the possible first characters of input read by this label; this
+	 *         is empty for a lambda label
+	 */
+	public char[] getFirstCharacters() {
+		return myFirstCharacters;
+	}
+
+	/**
+	 * Returns the first characters of the nonempty strings, in ascending
+	 * order.
+	 * 
+	 * @param elements
+	 *            the strings
+	 * @return their distinct first characters
+	 */
+	private static char[] getFirstCharacters(String[] elements) {
+		BitSet first = new BitSet();
+		for (int i = 0; i < elements.length; i++)
+			if (elements[i].length() > 0)
+				first.set(elements[i].charAt(0));
+		char[] characters = new char[first.cardinality()];
+		for (int i = 0, c = first.nextSetBit(0); c >= 0; c = first
+				.nextSetBit(c + 1))
+			characters[i++] = (char) c;
+		return characters;
+	}
+
+	/**
+	 * Returns the lengths of the strings this label may read at a position of
+	 * the input, that is, the lengths of its elements that the input continues
+	 * with at that point.
+	 * 
+	 * @param input
+	 *            the input
+	 * @param start
+	 *            the position in the input to match at
+	 * @return the lengths of the matching elements; the returned array should
+	 *         not be modified
+	 */
+	public int[] getMatchLengths(CharSequence input, int start) {
+		if (!myList) {
+			int length = myLabel.length();
+			if (input.length() - start < length)
+				return NONE;
+			for (int i = 0; i < length; i++)
+				if (input.charAt(start + i) != myLabel.charAt(i))
+					return NONE;
+			return myMatch;
+		}
+		if (start >= input.length())
+			return NONE;
+		char c = input.charAt(start);
+		boolean single = (c >>> 6) < myCharacters.length
+				&& (myCharacters[c >>> 6] & (1L << c)) != 0;
+		Node node = myTrie.get(c);
+		if (node == null)
+			return single ? ONE : NONE;
+		ArrayList<Integer> lengths = new ArrayList<>();
+		if (single)
+			lengths.add(1);
+		for (int i = start + 1; node != null; i++) {
+			if (node.terminal)
+				lengths.add(i - start);
+			node = i < input.length() ? node.get(input.charAt(i)) : null;
+		}
+		int[] result = new int[lengths.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = lengths.get(i);
+		return result;
+	}
+
+	/**
+	 * A node in the trie of elements longer than one character.
+	 */
+	private static class Node {
+		/**
+		 * Adds the rest of an element below this node.
+		 */
+		void add(String element, int index) {
+			if (index == element.length()) {
+				terminal = true;
+				return;
+			}
+			char c = element.charAt(index);
+			int i = Arrays.binarySearch(keys, c);
+			if (i < 0) {
+				i = -i - 1;
+				char[] newKeys = new char[keys.length + 1];
+				Node[] newChildren = new Node[keys.length + 1];
+				System.arraycopy(keys, 0, newKeys, 0, i);
+				System.arraycopy(children, 0, newChildren, 0, i);
+				System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+				System.arraycopy(children, i, newChildren, i + 1, keys.length
+						- i);
+				newKeys[i] = c;
+				newChildren[i] = new Node();
+				keys = newKeys;
+				children = newChildren;
+			}
+			children[i].add(element, index + 1);
+		}
+
+		/**
+		 * Returns the child for a character, or <CODE>null</CODE>.
+		 */
+		Node get(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		/** The characters leading to the children, in ascending order. */
+		char[] keys = new char[0];
+
+		/** The children of this node. */
+		Node[] children = new Node[0];
+
+		/** Whether an element ends at this node. */
+		boolean terminal = false;
+	}
+
+	/** The empty set of match lengths. */
+	private static final int[] NONE = new int[0];
+
+	/** The match lengths of a single character. */
+	private static final int[] ONE = new int[] { 1 };
+
+	/** The label this was compiled from. */
+	private final String myLabel;
+
+	/** Whether this is a list label. */
+	private final boolean myList;
+
+	/** The strings this label may read. */
+	private final String[] myElements;
+
+	/** The match lengths of a plain label. */
+	private final int[] myMatch;
+
+	/** The bitmap of single character elements of a list label. */
+	private final long[] myCharacters;
+
+	/** The trie of longer elements of a list label. */
+	private final Node myTrie;
+
+	/** The possible first characters, in ascending order. */
+	private final char[] myFirstCharacters;
+}
@@ -151,4 +151,34 @@ public class FSALabelHandler {
 			}
 		}
 	}
+
+	/**
+	 * Returns a copy of <CODE>automaton</CODE> that reads the same strings
+	 * with transitions of at most one character per label. Unlike
+	 * {@link #removeMultipleCharacterLabels}, list labels like
+	 * <CODE>[a,b]</CODE> are first replaced by a transition for each of their
+	 * elements, as the simulators read them, and only then are longer labels
+	 * broken up.
+	 * 
+	 * @param automaton
+	 *            the automaton.
+	 * @return the copy of the automaton
+	 */
+	public static FiniteStateAutomaton expandListLabels(Automaton automaton) {
+		FiniteStateAutomaton fsa = (FiniteStateAutomaton) automaton.clone();
+		Transition[] transitions = fsa.getTransitions();
+		for (int k = 0; k < transitions.length; k++) {
+			FSATransition transition = (FSATransition) transitions[k];
+			FSALabel label = transition.getCompiledLabel();
+			if (!label.isList())
+				continue;
+			fsa.removeTransition(transition);
+			String[] elements = label.getElements();
+			for (int i = 0; i < elements.length; i++)
+				fsa.addTransition(new FSATransition(transition.getFromState(),
+						transition.getToState(), elements[i]));
+		}
+		removeMultipleCharacterLabelsFromAutomaton(fsa);
+		return fsa;
+	}
 }
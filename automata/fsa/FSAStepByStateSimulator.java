@@ -21,8 +21,7 @@
 package automata.fsa;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 
 import automata.Automaton;
@@ -30,7 +29,6 @@ import automata.AutomatonSimulator;
 import automata.Configuration;
 import automata.State;
 import automata.Transition;
-import debug.EDebug;
 
 /**
  * The FSA step by state simulator object simulates the behavior of a finite
@@ -65,7 +63,7 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 	public Configuration[] getInitialConfigurations(String input) {
 		Configuration[] configs = new Configuration[1];
 		configs[0] = new FSAConfiguration(myAutomaton.getInitialState(), null,
-				input, input);
+				input, 0);
 		return configs;
 	}
 	
@@ -80,127 +78,68 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		ArrayList<Configuration> list = new ArrayList<>();
 		FSAConfiguration configuration = (FSAConfiguration) config;
 		/** get all information from configuration. */
-		String unprocessedInput = configuration.getUnprocessedInput();
-		String totalInput = configuration.getInput();
+		String input = configuration.getInput();
+		int position = configuration.getPosition();
 		State currentState = configuration.getCurrentState();
-		Transition[] transitions = myAutomaton
-				.getTransitionsFromState(currentState);
+		FSATransition[] transitions = getTransitions(currentState, input,
+				position);
 		for (int k = 0; k < transitions.length; k++) {
-			FSATransition transition = (FSATransition) transitions[k];
-			/** get all information from transition. */
-			String transLabel = transition.getLabel();
-			if (isTransitionList(transLabel)){
-				processElementList(list, configuration, unprocessedInput, totalInput,
-						transition);
-			} else {
-				processElement(list, configuration, unprocessedInput,
-						totalInput, transition, transLabel);
+			FSATransition transition = transitions[k];
+			/** each string the label may read gives one configuration. */
+			int[] lengths = transition.getCompiledLabel().getMatchLengths(
+					input, position);
+			for (int i = 0; i < lengths.length; i++) {
+				addConfigurations(list, configuration, transition
+						.getToState(), position + lengths[i]);
 			}
 		}
 		return list;
 	}
 
-	protected boolean isTransitionList(String transitionLabel) {
-		return (transitionLabel.indexOf("[") != -1) &&
-				(transitionLabel.indexOf("]") != -1);
-	}
-	
 	/**
-	 * Adds all possible configurations from a transition list.
-	 * @param list
-	 * 		      the list containing possible configurations.
-	 * @param configuration
-	 *            the configuration to simulate the one step on.
-	 * @param unprocessedInput
-	 * 			  the unprocessed input.
-	 * @param totalInput
-	 * 			  the total input.
-	 * @param transition
-	 * 			  the transition that emanates from a state.
+	 * Returns the transitions out of a state that may apply to the input
+	 * remaining, using an index of the transitions by the first character
+	 * they read. The index for a state is rebuilt whenever the transitions out
+	 * of that state change.
+	 * 
+	 * @param state
+	 *            the state the transitions come from
+	 * @param input
+	 *            the input
+	 * @param position
+	 *            the number of characters of the input already processed
+	 * @return the transitions that may apply
 	 */
-	protected void processElementList(
-			ArrayList<Configuration> list,
-			FSAConfiguration configuration,
-			String unprocessedInput,
-			String totalInput,
-			FSATransition transition) {
-		String transitionLabel = transition.getLabel();
-		// XXX: This will ignore values outside the square brackets.
-		transitionLabel = transitionLabel.substring(
-				transitionLabel.indexOf("[") + 1,
-				transitionLabel.indexOf("]"));
-		HashSet<String> transitionList = new HashSet<String>(
-				Arrays.asList(transitionLabel.split(",")));
-		// Iterate through all elements of the list in the transition label.
-		for (String element : transitionList) {
-			// Block implicit lambda values.
-			if (element.isEmpty()) {
-				continue;
-			// Process range values.
-			} else if (element.contains("..")) {
-				String[] transitionRange = element.split("\\.\\.");
-				boolean isRange = false;
-				String first = transitionRange[0].strip();
-				String last = transitionRange[1].strip();
-				// Treat it as a range iff after splitting, the array only
-				// has two elements and both elements contain only a single
-				// character.
-				isRange = transitionRange.length == 2 &&
-						first.length() == 1 &&
-						last.length() == 1;
-				if (isRange) {
-					int start = first.charAt(0);
-					int end = last.charAt(0);
-					// Process all characters within the range.
-					for (int i = start; i<= end; i++) {
-						String currentChar = Character.toString((char)i);
-						EDebug.print("RA: " + currentChar);
-						processElement(list, configuration, unprocessedInput,
-								totalInput, transition, currentChar);
-					}
-					continue;
-				}
-				EDebug.print(element + " is not a transition range.");
-			}
-			// Process normal string values.
-			EDebug.print(element);
-			processElement(list, configuration, unprocessedInput,
-					totalInput, transition, element);
+	protected FSATransition[] getTransitions(State state, String input,
+			int position) {
+		Transition[] transitions = myAutomaton.getTransitionsFromState(state);
+		FSATransitionIndex index = myIndices.get(state);
+		if (index == null || index.getSource() != transitions) {
+			index = new FSATransitionIndex(transitions);
+			myIndices.put(state, index);
 		}
+		return index.getTransitions(position == input.length() ? -1 : input
+				.charAt(position));
 	}
 
 	/**
-	 * Adds a configuration to the set of possible configurations.
+	 * Adds the configurations reached by taking a transition to the list of
+	 * possible configurations. This simulator adds only the configuration in
+	 * the state the transition goes to.
+	 * 
 	 * @param list
-	 * 		      the list containing possible configurations.
+	 *            the list containing possible configurations.
 	 * @param configuration
-	 *            the configuration to simulate the one step on.
-	 * @param unprocessedInput
-	 * 			  the unprocessed input.
-	 * @param totalInput
-	 * 			  the total input.
-	 * @param transition
-	 * 			  the transition that emanates from a state.
-	 * @param element
-	 * 			  the transition label or an element from a list or range.
+	 *            the configuration the transition was taken from.
+	 * @param toState
+	 *            the state the transition goes to.
+	 * @param position
+	 *            the position in the input after the transition.
 	 */
-	private void processElement(
-			ArrayList<Configuration> list,
-			FSAConfiguration configuration,
-			String unprocessedInput,
-			String totalInput,
-			FSATransition transition,
-			String element) {
-		if (unprocessedInput.startsWith(element)) {
-			String input = "";
-			if (element.length() < unprocessedInput.length()) {
-				input = unprocessedInput.substring(element.length());
-			}
-			State toState = transition.getToState();
-			FSAConfiguration configurationToAdd = new FSAConfiguration(
-					toState, configuration, totalInput, input);
-			list.add(configurationToAdd);
-		}
+	protected void addConfigurations(ArrayList<Configuration> list,
+			FSAConfiguration configuration, State toState, int position) {
+		list.add(new FSAConfiguration(toState, configuration, configuration
+				.getInput(), position));
 	}
 
 	/**
@@ -216,7 +155,7 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		while (it.hasNext()) {
 			FSAConfiguration configuration = (FSAConfiguration) it.next();
 			State currentState = configuration.getCurrentState();
-			if (configuration.getUnprocessedInput().equals("")
+			if (configuration.getPosition() == configuration.getInput().length()
 					&& myAutomaton.isFinalState(currentState)) {
 				return true;
 			}
@@ -234,6 +173,15 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 	public boolean simulateInput(String input) {
 		/** clear the configurations to begin new simulation. */
 		myConfigurations.clear();
+		startRun();
+		CompiledDFA dfa = getCompiledDFA();
+		if (dfa != null) {
+			/** deterministic machines are run on their table. */
+			if (!dfa.accepts(input))
+				return finishRun(input, false);
+			myConfigurations.add(dfa.getFinalConfiguration(input));
+			return finishRun(input, true);
+		}
 		Configuration[] initialConfigs = getInitialConfigurations(input);
 		for (int k = 0; k < initialConfigs.length; k++) {
 			FSAConfiguration initialConfiguration = (FSAConfiguration) initialConfigs[k];
@@ -241,7 +189,7 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 		}
 		while (!myConfigurations.isEmpty()) {
 			if (isAccepted())
-				return true;
+				return finishRun(input, true);
 			ArrayList<Configuration> configurationsToAdd = new ArrayList<>();
 			Iterator<Configuration> it = myConfigurations.iterator();
 			while (it.hasNext()) {
@@ -255,8 +203,28 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 				it.remove();
 			}
 			myConfigurations.addAll(configurationsToAdd);
+			if (!myBudget.step(myConfigurations.size(), myPolicy))
+				return finishRun(input, false);
 		}
-		return false;
+		return finishRun(input, false);
+	}
+
+	/**
+	 * Returns the table compiled form of the automaton, if the automaton is
+	 * deterministic and all its labels are single characters. The table is
+	 * kept by the automaton's {@link CompiledDFACache}, and compiled again
+	 * after the automaton changes.
+	 * 
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         cannot be compiled
+	 */
+	public CompiledDFA getCompiledDFA() {
+		if (!(myAutomaton instanceof FiniteStateAutomaton))
+			return null;
+		return ((FiniteStateAutomaton) myAutomaton).getCompiledDFACache()
+				.getCompiledDFA();
 	}
 
+	/** The transition index of each state visited. */
+	private HashMap<State, FSATransitionIndex> myIndices = new HashMap<>();
 }
@@ -26,7 +26,6 @@ import automata.Automaton;
 import automata.ClosureTaker;
 import automata.Configuration;
 import automata.State;
-import automata.Transition;
 
 /**
  * The FSA step with closure simulator object simulates the behavior of a finite
@@ -60,50 +59,34 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 		State[] closure = ClosureTaker.getClosure(init, myAutomaton);
 		Configuration[] configs = new Configuration[closure.length];
 		for (int k = 0; k < closure.length; k++) {
-			configs[k] = new FSAConfiguration(closure[k], null, input, input);
+			configs[k] = new FSAConfiguration(closure[k], null, input, 0);
 		}
 		return configs;
 	}
 
 	/**
-	 * Simulates one step for a particular configuration, adding all possible
-	 * configurations reachable in one step to set of possible configurations.
+	 * Adds the configurations reached by taking a transition to the list of
+	 * possible configurations, which are those for each state in the closure
+	 * of the state the transition goes to.
 	 * 
-	 * @param config
-	 *            the configuration to simulate the one step on.
+	 * @param list
+	 *            the list containing possible configurations.
+	 * @param configuration
+	 *            the configuration the transition was taken from.
+	 * @param toState
+	 *            the state the transition goes to.
+	 * @param position
+	 *            the position in the input after the transition.
 	 */
-	public ArrayList<Configuration> stepConfiguration(Configuration config) {
-		ArrayList<Configuration> list = new ArrayList<>();
-		FSAConfiguration configuration = (FSAConfiguration) config;
-		/** get all information from configuration. */
-		String unprocessedInput = configuration.getUnprocessedInput();
-		String totalInput = configuration.getInput();
-		State currentState = configuration.getCurrentState();
-		Transition[] transitions = myAutomaton
-				.getTransitionsFromState(currentState);
-		for (int k = 0; k < transitions.length; k++) {
-			FSATransition transition = (FSATransition) transitions[k];
-			/** get all information from transition. */
-			String transLabel = transition.getLabel();
-			if (isTransitionList(transLabel)){
-				processElementList(list, configuration, unprocessedInput, totalInput,
-						transition);
-			} else if (unprocessedInput.startsWith(transLabel)) {
-				String input = "";
-				if (transLabel.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(transLabel.length());
-				}
-				State toState = transition.getToState();
-				State[] closure = ClosureTaker.getClosure(toState,
-						myAutomaton);
-				for (int i = 0; i < closure.length; i++) {
-					FSAConfiguration configurationToAdd = new FSAConfiguration(
-							closure[i], configuration, totalInput, input);
-					list.add(configurationToAdd);
-				}
-			}
+	protected void addConfigurations(ArrayList<Configuration> list,
+			FSAConfiguration configuration, State toState, int position) {
+		State[] closure = ClosureTaker.getClosure(toState, myAutomaton);
+		for (int i = 0; i < closure.length; i++) {
+			FSAConfiguration configurationToAdd = new FSAConfiguration(
+					closure[i], configuration, configuration.getInput(),
+					position);
+			list.add(configurationToAdd);
 		}
-		return list;
 	}
 
 }
@@ -0,0 +1,168 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import automata.Automaton;
+import automata.StreamSimulator;
+
+/**
+ * The FSA stream simulator runs a stream of input on a finite state automaton
+ * in constant memory. A deterministic automaton is run through its
+ * {@link CompiledDFA} table, keeping only the current state; any other
+ * automaton is run through its {@link CompiledNFA} form, keeping the set of
+ * current states as a bitset. Bytes are run on a small deterministic
+ * automaton through a table indexed by state and byte value. The automaton is
+ * compiled when the simulator is created, so changes made to it afterwards
+ * are not seen.
+ */
+
+public class FSAStreamSimulator extends StreamSimulator {
+	/**
+	 * Creates an FSA stream simulator for the given automaton.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 */
+	public FSAStreamSimulator(Automaton automaton) {
+		myDFA = new DFACompiler().compile(automaton);
+		if (myDFA != null) {
+			int states = myDFA.getStateCount();
+			if (states <= MAX_BYTE_TABLE_STATES) {
+				myByteTable = new int[states << 8];
+				for (int state = 0; state < states; state++)
+					for (int b = 0; b < 256; b++)
+						myByteTable[(state << 8) | b] = myDFA.getNextState(
+								state, (char) b);
+			}
+		} else
+			myNFA = new NFACompiler().compile(automaton);
+	}
+
+	protected boolean reset() {
+		if (myDFA != null) {
+			myState = myDFA.getInitialState();
+			return true;
+		}
+		if (myNFA == null)
+			return false;
+		myCurrent = myNFA.getInitialStates();
+		myNext = new long[myCurrent.length];
+		return true;
+	}
+
+	protected int read(char[] buffer, int offset, int length) {
+		if (myDFA != null) {
+			int state = myState;
+			for (int i = 0; i < length; i++) {
+				int next = myDFA.getNextState(state, buffer[offset + i]);
+				if (next == -1) {
+					myState = state;
+					return i;
+				}
+				state = next;
+			}
+			myState = state;
+			return length;
+		}
+		for (int i = 0; i < length; i++)
+			if (!step(buffer[offset + i]))
+				return i;
+		return length;
+	}
+
+	protected int read(byte[] buffer, int offset, int length) {
+		if (myByteTable != null) {
+			int[] table = myByteTable;
+			int state = myState;
+			for (int i = 0; i < length; i++) {
+				int next = table[(state << 8) | (buffer[offset + i] & 0xff)];
+				if (next == -1) {
+					myState = state;
+					return i;
+				}
+				state = next;
+			}
+			myState = state;
+			return length;
+		}
+		if (myDFA != null) {
+			int state = myState;
+			for (int i = 0; i < length; i++) {
+				int next = myDFA.getNextState(state,
+						(char) (buffer[offset + i] & 0xff));
+				if (next == -1) {
+					myState = state;
+					return i;
+				}
+				state = next;
+			}
+			myState = state;
+			return length;
+		}
+		for (int i = 0; i < length; i++)
+			if (!step((char) (buffer[offset + i] & 0xff)))
+				return i;
+		return length;
+	}
+
+	protected boolean isAccept() {
+		if (myDFA != null)
+			return myDFA.isFinal(myState);
+		return myNFA.isAccept(myCurrent);
+	}
+
+	/**
+	 * Moves the set of current states of the bitset form on a character.
+	 * 
+	 * @param c
+	 *            the character read
+	 * @return <CODE>false</CODE> if no state was reached
+	 */
+	private boolean step(char c) {
+		if (!myNFA.step(myCurrent, myNext, c))
+			return false;
+		long[] temp = myCurrent;
+		myCurrent = myNext;
+		myNext = temp;
+		return true;
+	}
+
+	/** The table form of the automaton, if it is deterministic. */
+	private CompiledDFA myDFA = null;
+
+	/**
+	 * The next state of the table form for each state and byte, if the
+	 * automaton is deterministic and small enough.
+	 */
+	private int[] myByteTable = null;
+
+	/** The most states for which a table by byte is built. */
+	private static final int MAX_BYTE_TABLE_STATES = 1 << 14;
+
+	/** The bitset form of the automaton, if it is not deterministic. */
+	private CompiledNFA myNFA = null;
+
+	/** The current state of the table form. */
+	private int myState;
+
+	/** The current and next sets of states of the bitset form. */
+	private long[] myCurrent, myNext;
+}
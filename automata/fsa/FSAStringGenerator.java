@@ -0,0 +1,410 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.fsa;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import automata.Automaton;
+
+/**
+ * The FSA string generator produces the strings a finite state automaton
+ * accepts, or with {@link #getComplement} the strings it rejects. The
+ * automaton is made deterministic with {@link NFAToDFA} and completed with a
+ * dead state, and the number of strings of each length that lead from each
+ * state to a final state is counted, one length at a time, as it is needed.
+ * With those counts the strings of a length can be numbered in lexicographic
+ * order: {@link #get} returns the string with a given number, {@link #getRandom}
+ * picks one uniformly, and {@link #iterator} goes through all the strings
+ * shortest first without ever entering a state from which no string of the
+ * remaining length is accepted, so each string costs only its length times
+ * the size of the alphabet.
+ * <P>
+ * Changes made to the automaton afterwards are not seen by the generator.
+ */
+
+public class FSAStringGenerator implements Iterable<String> {
+	/**
+	 * Instantiates a generator of the strings the automaton accepts, over the
+	 * characters it has transitions on.
+	 * 
+	 * @param automaton
+	 *            the finite state automaton
+	 */
+	public FSAStringGenerator(Automaton automaton) {
+		this(automaton, null);
+	}
+
+	/**
+	 * Instantiates a generator of the strings the automaton accepts, over the
+	 * given alphabet. Characters the automaton has no transitions on may be
+	 * given, which matters only for the complement.
+	 * 
+	 * @param automaton
+	 *            the finite state automaton
+	 * @param alphabet
+	 *            the characters strings are made of, or <CODE>null</CODE> for
+	 *            the characters the automaton has transitions on
+	 */
+	public FSAStringGenerator(Automaton automaton, char[] alphabet) {
+		CompiledDFA dfa = new DFACompiler().compile(determinize(automaton));
+		if (alphabet == null)
+			alphabet = dfa == null ? new char[0] : dfa.getAlphabet();
+		alphabet = alphabet.clone();
+		Arrays.sort(alphabet);
+		int states = dfa == null ? 0 : dfa.getStateCount();
+		int dead = states;
+		myAlphabet = alphabet;
+		myInitial = dfa == null ? dead : dfa.getInitialState();
+		myFinals = new boolean[states + 1];
+		myTable = new int[states + 1][alphabet.length];
+		for (int s = 0; s < states; s++) {
+			myFinals[s] = dfa.isFinal(s);
+			for (int i = 0; i < alphabet.length; i++) {
+				int next = dfa.getNextState(s, alphabet[i]);
+				myTable[s][i] = next == -1 ? dead : next;
+			}
+		}
+		Arrays.fill(myTable[dead], dead);
+	}
+
+	/**
+	 * Instantiates a generator over the same table as another, with the
+	 * final states given.
+	 * 
+	 * @param generator
+	 *            the generator to share the table of
+	 * @param finals
+	 *            whether each state is final
+	 */
+	private FSAStringGenerator(FSAStringGenerator generator, boolean[] finals) {
+		myAlphabet = generator.myAlphabet;
+		myInitial = generator.myInitial;
+		myTable = generator.myTable;
+		myFinals = finals;
+	}
+
+	/**
+	 * Returns a deterministic copy of an automaton whose labels are each a
+	 * single character. List labels are expanded into a transition for each
+	 * of their elements, and longer labels are broken up, before the subset
+	 * construction.
+	 * 
+	 * @param automaton
+	 *            the finite state automaton
+	 * @return a deterministic automaton accepting the same strings
+	 */
+	private static Automaton determinize(Automaton automaton) {
+		return new NFAToDFA().convertToDFA(FSALabelHandler
+				.expandListLabels(automaton));
+	}
+
+	/**
+	 * Returns a generator of the strings over the same alphabet that this
+	 * generator does not produce, that is, the strings the automaton rejects.
+	 * 
+	 * @return the generator of the complement
+	 */
+	public FSAStringGenerator getComplement() {
+		boolean[] finals = new boolean[myFinals.length];
+		for (int s = 0; s < finals.length; s++)
+			finals[s] = !myFinals[s];
+		return new FSAStringGenerator(this, finals);
+	}
+
+	/**
+	 * Returns the characters strings are made of, in the order strings of a
+	 * length are numbered by.
+	 * 
+	 * @return the alphabet
+	 */
+	public char[] getAlphabet() {
+		return myAlphabet.clone();
+	}
+
+	/**
+	 * Returns the number of strings of each length that lead from each state
+	 * to a final state, counting as far as the length given.
+	 * 
+	 * @param length
+	 *            the length of strings
+	 * @return the number of strings of that length leading from each state to
+	 *         a final state
+	 */
+	private synchronized BigInteger[] getCounts(int length) {
+		if (length < 0)
+			throw new IllegalArgumentException("Length must not be negative.");
+		if (myCounts.isEmpty()) {
+			BigInteger[] counts = new BigInteger[myFinals.length];
+			for (int s = 0; s < counts.length; s++)
+				counts[s] = myFinals[s] ? BigInteger.ONE : BigInteger.ZERO;
+			myCounts.add(counts);
+		}
+		while (myCounts.size() <= length) {
+			BigInteger[] shorter = myCounts.get(myCounts.size() - 1);
+			BigInteger[] counts = new BigInteger[myFinals.length];
+			for (int s = 0; s < counts.length; s++) {
+				BigInteger count = BigInteger.ZERO;
+				for (int i = 0; i < myAlphabet.length; i++)
+					count = count.add(shorter[myTable[s][i]]);
+				counts[s] = count;
+			}
+			myCounts.add(counts);
+		}
+		return myCounts.get(length);
+	}
+
+	/**
+	 * Returns the number of strings of a length this generator produces.
+	 * 
+	 * @param length
+	 *            the length of strings
+	 * @return the number of strings of that length
+	 */
+	public BigInteger getCount(int length) {
+		return getCounts(length)[myInitial];
+	}
+
+	/**
+	 * Returns a string of a length by its number among the strings of that
+	 * length this generator produces, in lexicographic order.
+	 * 
+	 * @param length
+	 *            the length of the string
+	 * @param index
+	 *            the number of the string, from <CODE>0</CODE>
+	 * @return the string with that number
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is negative or not less than
+	 *             {@link #getCount}
+	 */
+	public String get(int length, BigInteger index) {
+		if (index.signum() < 0 || index.compareTo(getCount(length)) >= 0)
+			throw new IndexOutOfBoundsException("There is no string " + index
+					+ " of length " + length + ".");
+		char[] string = new char[length];
+		int state = myInitial;
+		for (int position = 0; position < length; position++) {
+			BigInteger[] counts = getCounts(length - position - 1);
+			for (int i = 0;; i++) {
+				BigInteger count = counts[myTable[state][i]];
+				if (index.compareTo(count) < 0) {
+					string[position] = myAlphabet[i];
+					state = myTable[state][i];
+					break;
+				}
+				index = index.subtract(count);
+			}
+		}
+		return new String(string);
+	}
+
+	/**
+	 * Returns a string of a length chosen uniformly from the strings of that
+	 * length this generator produces.
+	 * 
+	 * @param length
+	 *            the length of the string
+	 * @param random
+	 *            the source of randomness
+	 * @return a string of that length, or <CODE>null</CODE> if there is none
+	 */
+	public String getRandom(int length, Random random) {
+		BigInteger count = getCount(length);
+		if (count.signum() == 0)
+			return null;
+		BigInteger index;
+		do
+			index = new BigInteger(count.bitLength(), random);
+		while (index.compareTo(count) >= 0);
+		return get(length, index);
+	}
+
+	/**
+	 * Returns the first strings this generator produces, shortest first and
+	 * in lexicographic order within a length.
+	 * 
+	 * @param count
+	 *            the most strings to return
+	 * @return the first strings, fewer than asked only if there are no more
+	 */
+	public List<String> getFirst(int count) {
+		List<String> strings = new ArrayList<>();
+		Iterator<String> it = iterator();
+		while (strings.size() < count && it.hasNext())
+			strings.add(it.next());
+		return strings;
+	}
+
+	/**
+	 * Returns an iterator over all the strings this generator produces,
+	 * shortest first and in lexicographic order within a length. The
+	 * iterator ends only if there are finitely many strings.
+	 * 
+	 * @return an iterator over the strings
+	 */
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			public boolean hasNext() {
+				if (myNext == null && !myDone)
+					myNext = findNext();
+				return myNext != null;
+			}
+
+			public String next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				String next = myNext;
+				myNext = null;
+				return next;
+			}
+
+			/**
+			 * Finds the string after the last one returned.
+			 * 
+			 * @return the next string, or <CODE>null</CODE> if there are no
+			 *         more
+			 */
+			private String findNext() {
+				if (myStates != null && advance())
+					return new String(myString);
+				/*
+				 * A string of length at least myLength plus the number of
+				 * states passes through some state twice, and without that
+				 * loop it is a shorter string no shorter than myLength, so
+				 * that many lengths without strings means there are no more.
+				 */
+				for (int empty = 0; empty < myFinals.length; empty++) {
+					myLength++;
+					if (getCount(myLength).signum() > 0) {
+						myString = new char[myLength];
+						mySymbols = new int[myLength];
+						myStates = new int[myLength + 1];
+						myStates[0] = myInitial;
+						descend(0);
+						return new String(myString);
+					}
+				}
+				myDone = true;
+				return null;
+			}
+
+			/**
+			 * Moves to the next string of the same length.
+			 * 
+			 * @return <CODE>true</CODE> if there was one, <CODE>false</CODE>
+			 *         if the last string of this length was reached
+			 */
+			private boolean advance() {
+				for (int position = myLength - 1; position >= 0; position--) {
+					BigInteger[] counts = getCounts(myLength - position - 1);
+					int state = myStates[position];
+					for (int i = mySymbols[position] + 1; i < myAlphabet.length; i++)
+						if (counts[myTable[state][i]].signum() > 0) {
+							choose(position, i);
+							descend(position + 1);
+							return true;
+						}
+				}
+				return false;
+			}
+
+			/**
+			 * Fills the string from a position with the least characters
+			 * that still lead to a final state. The state at that position
+			 * must lead to a final state by a string of the remaining length.
+			 * 
+			 * @param from
+			 *            the position to fill from
+			 */
+			private void descend(int from) {
+				for (int position = from; position < myLength; position++) {
+					BigInteger[] counts = getCounts(myLength - position - 1);
+					int state = myStates[position];
+					int i = 0;
+					while (counts[myTable[state][i]].signum() == 0)
+						i++;
+					choose(position, i);
+				}
+			}
+
+			/**
+			 * Puts a character of the alphabet at a position of the string.
+			 * 
+			 * @param position
+			 *            the position
+			 * @param symbol
+			 *            the index of the character in the alphabet
+			 */
+			private void choose(int position, int symbol) {
+				mySymbols[position] = symbol;
+				myString[position] = myAlphabet[symbol];
+				myStates[position + 1] = myTable[myStates[position]][symbol];
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			/** The length of the strings being produced. */
+			private int myLength = -1;
+
+			/** The string last produced. */
+			private char[] myString;
+
+			/** The index in the alphabet of each character of the string. */
+			private int[] mySymbols;
+
+			/** The state reached before each position of the string. */
+			private int[] myStates;
+
+			/** The string to return next, if it was found already. */
+			private String myNext;
+
+			/** Whether there are no more strings. */
+			private boolean myDone = false;
+		};
+	}
+
+	/** The characters strings are made of, in order. */
+	private char[] myAlphabet;
+
+	/** The number of the initial state. */
+	private int myInitial;
+
+	/** Whether each state is final; the last state is the dead state. */
+	private boolean[] myFinals;
+
+	/** The next state, indexed by state and then index in the alphabet. */
+	private int[][] myTable;
+
+	/**
+	 * For each length counted so far, the number of strings of that length
+	 * leading from each state to a final state.
+	 */
+	private List<BigInteger[]> myCounts = new ArrayList<>();
+}
@@ -88,6 +88,23 @@ public class FSATransition extends Transition {
 	 */
 	protected void setLabel(String label) {
 		myLabel = label;
+		myCompiledLabel = null;
+	}
+
+	/**
+	 * Returns the compiled form of the label for this transition, which is
+	 * used to match the label against input. It is created when first asked
+	 * for and thrown away whenever the label changes.
+	 * 
+	 * @return the compiled form of the label
+	 */
+	public FSALabel getCompiledLabel() {
+		FSALabel compiled = myCompiledLabel;
+		if (compiled == null || !compiled.getLabel().equals(myLabel)) {
+			compiled = new FSALabel(myLabel);
+			myCompiledLabel = compiled;
+		}
+		return compiled;
 	}
 
 	/**
@@ -145,4 +162,7 @@ public class FSATransition extends Transition {
 	 * precondition that a string must satisfy before the machine continues.
 	 */
 	protected String myLabel = "";
+
+	/** The compiled form of the label, or <CODE>null</CODE> if not made yet. */
+	private transient FSALabel myCompiledLabel = null;
 }
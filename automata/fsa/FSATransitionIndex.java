@@ -0,0 +1,132 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import automata.Transition;
+
+/**
+ * The FSA transition index groups the transitions out of a state by the first
+ * character of input they may read, so a simulator only has to try the
+ * transitions that could possibly apply to the input remaining. Lambda
+ * transitions, and list transitions that may start with a great many
+ * characters, are tried on any input.
+ */
+
+public class FSATransitionIndex {
+	/**
+	 * Indexes the transitions out of a state.
+	 * 
+	 * @param transitions
+	 *            the transitions out of the state, as returned by the
+	 *            automaton's <CODE>getTransitionsFromState</CODE>
+	 */
+	public FSATransitionIndex(Transition[] transitions) {
+		mySource = transitions;
+		List<FSATransition> any = new ArrayList<>();
+		List<FSATransition> lambda = new ArrayList<>();
+		Map<Character, List<FSATransition>> buckets = new HashMap<>();
+		for (int k = 0; k < transitions.length; k++) {
+			FSATransition transition = (FSATransition) transitions[k];
+			FSALabel label = transition.getCompiledLabel();
+			char[] first = label.getFirstCharacters();
+			if (label.isLambda())
+				lambda.add(transition);
+			if (label.isLambda() || first.length > MAX_INDEXED) {
+				any.add(transition);
+				continue;
+			}
+			for (int i = 0; i < first.length; i++) {
+				List<FSATransition> bucket = buckets.get(first[i]);
+				if (bucket == null) {
+					bucket = new ArrayList<>();
+					buckets.put(first[i], bucket);
+				}
+				bucket.add(transition);
+			}
+		}
+		myAny = any.toArray(new FSATransition[0]);
+		myLambda = lambda.toArray(new FSATransition[0]);
+		myKeys = new char[buckets.size()];
+		int count = 0;
+		for (Character key : buckets.keySet())
+			myKeys[count++] = key;
+		Arrays.sort(myKeys);
+		myBuckets = new FSATransition[myKeys.length][];
+		for (int i = 0; i < myKeys.length; i++) {
+			List<FSATransition> bucket = buckets.get(myKeys[i]);
+			bucket.addAll(any);
+			myBuckets[i] = bucket.toArray(new FSATransition[0]);
+		}
+	}
+
+	/**
+	 * Returns the array of transitions this index was built from. If the
+	 * automaton returns a different array for the state, the transitions have
+	 * changed and the index should be rebuilt.
+	 * 
+	 * @return the transitions this index was built from
+	 */
+	public Transition[] getSource() {
+		return mySource;
+	}
+
+	/**
+	 * Returns the transitions that may apply to input starting with a
+	 * character.
+	 * 
+	 * @param c
+	 *            the next character of input, or -1 if there is no more input
+	 * @return the transitions that may apply
+	 */
+	public FSATransition[] getTransitions(int c) {
+		if (c == -1)
+			return myLambda;
+		int i = Arrays.binarySearch(myKeys, (char) c);
+		return i < 0 ? myAny : myBuckets[i];
+	}
+
+	/**
+	 * The largest number of first characters a transition may have and still
+	 * be indexed by them.
+	 */
+	private static final int MAX_INDEXED = 256;
+
+	/** The transitions the index was built from. */
+	private Transition[] mySource;
+
+	/** The transitions that may apply to any input. */
+	private FSATransition[] myAny;
+
+	/** The lambda transitions, which are all that apply at the end of input. */
+	private FSATransition[] myLambda;
+
+	/** The first characters of input with transitions of their own, sorted. */
+	private char[] myKeys;
+
+	/** The transitions that may apply, by place of the character in myKeys. */
+	private FSATransition[][] myBuckets;
+}
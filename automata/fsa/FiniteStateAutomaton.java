@@ -52,4 +52,34 @@ public class FiniteStateAutomaton extends Automaton {
 	protected Class getTransitionClass() {
 		return automata.fsa.FSATransition.class;
 	}
+
+	/**
+	 * Returns the compiled DFA cache for this automaton, which keeps the
+	 * table compiled form of this automaton until this automaton changes.
+	 * 
+	 * @return the compiled DFA cache for this automaton
+	 */
+	public CompiledDFACache getCompiledDFACache() {
+		if (compiledDFACache == null)
+			compiledDFACache = new CompiledDFACache(this);
+		return compiledDFACache;
+	}
+
+	/**
+	 * Returns the compiled NFA cache for this automaton, which keeps the
+	 * bitset form of this automaton until this automaton changes.
+	 * 
+	 * @return the compiled NFA cache for this automaton
+	 */
+	public CompiledNFACache getCompiledNFACache() {
+		if (compiledNFACache == null)
+			compiledNFACache = new CompiledNFACache(this);
+		return compiledNFACache;
+	}
+
+	/** The compiled DFA cache for this automaton, once it is asked for. */
+	private transient CompiledDFACache compiledDFACache = null;
+
+	/** The compiled NFA cache for this automaton, once it is asked for. */
+	private transient CompiledNFACache compiledNFACache = null;
 }
@@ -0,0 +1,330 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+import automata.Automaton;
+import automata.AutomatonChecker;
+import automata.State;
+import automata.StatePlacer;
+import automata.Transition;
+
+/**
+ * The Hopcroft minimizer computes the minimum DFA of a deterministic finite
+ * state automaton directly, without building the tree of distinguishable
+ * groups that the interactive {@link Minimizer} produces. States are numbered
+ * and the partition is refined with Hopcroft's algorithm, which runs in
+ * O(n k log n) time for n states and k terminals.
+ * <P>
+ * The result is the same automaton the tree-based minimizer builds: states
+ * unreachable from the initial state are ignored, multiple character labels
+ * are broken into single characters, and the group of states equivalent to the
+ * (implicit) trap state is left out along with the transitions into it,
+ * unless it holds the initial state, in which case it is the only state. Each
+ * state of the result is labeled with the IDs of the states it merges.
+ */
+
+public class HopcroftMinimizer {
+	/**
+	 * Creates an instance of <CODE>HopcroftMinimizer</CODE>.
+	 */
+	public HopcroftMinimizer() {
+	}
+
+	/**
+	 * Returns the minimum DFA for <CODE>dfa</CODE>. The automaton passed in
+	 * is not modified.
+	 * 
+	 * @param dfa
+	 *            the deterministic finite state automaton to minimize
+	 * @return the minimum DFA for <CODE>dfa</CODE>, or <CODE>null</CODE> if
+	 *         <CODE>dfa</CODE> is nondeterministic or has no initial state;
+	 *         if <CODE>dfa</CODE> accepts nothing, the minimum DFA is a
+	 *         single initial state that is not final and has no transitions
+	 */
+	public FiniteStateAutomaton getMinimumDfa(Automaton dfa) {
+		if (dfa.getInitialState() == null
+				|| new AutomatonChecker().isNFA(dfa))
+			return null;
+		if (FSALabelHandler.hasMultipleCharacterLabels(dfa))
+			dfa = FSALabelHandler.removeMultipleCharacterLabels(dfa);
+
+		// Number the reachable states, in breadth first order.
+		HashMap<State, Integer> index = new HashMap<>();
+		ArrayList<State> states = new ArrayList<>();
+		index.put(dfa.getInitialState(), 0);
+		states.add(dfa.getInitialState());
+		TreeSet<Character> terminals = new TreeSet<>();
+		for (int i = 0; i < states.size(); i++) {
+			Transition[] transitions = dfa.getTransitionsFromState(states
+					.get(i));
+			for (int k = 0; k < transitions.length; k++) {
+				terminals.add(((FSATransition) transitions[k]).getLabel()
+						.charAt(0));
+				State to = transitions[k].getToState();
+				if (!index.containsKey(to)) {
+					index.put(to, states.size());
+					states.add(to);
+				}
+			}
+		}
+		char[] alphabet = new char[terminals.size()];
+		HashMap<Character, Integer> symbols = new HashMap<>();
+		int s = 0;
+		for (Character c : terminals) {
+			alphabet[s] = c;
+			symbols.put(c, s++);
+		}
+
+		// Build the transition table, sending missing transitions to a trap.
+		int n = states.size(), trap = -1;
+		int[][] delta = new int[alphabet.length][n];
+		for (int k = 0; k < alphabet.length; k++)
+			Arrays.fill(delta[k], -1);
+		for (int i = 0; i < n; i++) {
+			Transition[] transitions = dfa.getTransitionsFromState(states
+					.get(i));
+			for (int k = 0; k < transitions.length; k++) {
+				int c = symbols.get(((FSATransition) transitions[k])
+						.getLabel().charAt(0));
+				delta[c][i] = index.get(transitions[k].getToState());
+			}
+		}
+		for (int k = 0; k < alphabet.length && trap < 0; k++)
+			for (int i = 0; i < n && trap < 0; i++)
+				if (delta[k][i] < 0)
+					trap = n;
+		if (trap >= 0) {
+			n++;
+			for (int k = 0; k < alphabet.length; k++) {
+				delta[k] = Arrays.copyOf(delta[k], n);
+				for (int i = 0; i < trap; i++)
+					if (delta[k][i] < 0)
+						delta[k][i] = trap;
+				delta[k][trap] = trap;
+			}
+		}
+		boolean[] finals = new boolean[n];
+		for (int i = 0; i < states.size(); i++)
+			finals[i] = dfa.isFinalState(states.get(i));
+
+		int[] block = refine(n, delta, finals);
+		return createMinimumDfa(dfa, states, alphabet, delta, block, trap);
+	}
+
+	/**
+	 * Refines the partition of final and nonfinal states until no block can be
+	 * split further.
+	 * 
+	 * @param n
+	 *            the number of states
+	 * @param delta
+	 *            the complete transition table, indexed by terminal and state
+	 * @param finals
+	 *            which states are final
+	 * @return the block of each state in the coarsest stable partition
+	 */
+	private int[] refine(int n, int[][] delta, boolean[] finals) {
+		int symbols = delta.length;
+		// Inverse transitions for each terminal, in compressed row form.
+		int[][] inverseStart = new int[symbols][];
+		int[][] inverse = new int[symbols][];
+		for (int k = 0; k < symbols; k++) {
+			int[] start = new int[n + 1];
+			for (int i = 0; i < n; i++)
+				start[delta[k][i] + 1]++;
+			for (int i = 0; i < n; i++)
+				start[i + 1] += start[i];
+			int[] fill = Arrays.copyOf(start, n);
+			int[] list = new int[n];
+			for (int i = 0; i < n; i++)
+				list[fill[delta[k][i]]++] = i;
+			inverseStart[k] = start;
+			inverse[k] = list;
+		}
+
+		// Each block is a contiguous range of the element array.
+		int[] elements = new int[n], location = new int[n], block = new int[n];
+		int[] first = new int[n], end = new int[n], marked = new int[n];
+		int blocks = 0, f = 0;
+		for (int i = 0; i < n; i++)
+			if (finals[i])
+				elements[f++] = i;
+		int r = f;
+		for (int i = 0; i < n; i++)
+			if (!finals[i])
+				elements[r++] = i;
+		if (f > 0) {
+			first[blocks] = 0;
+			end[blocks++] = f;
+		}
+		if (f < n) {
+			first[blocks] = f;
+			end[blocks++] = n;
+		}
+		for (int b = 0; b < blocks; b++)
+			for (int p = first[b]; p < end[b]; p++) {
+				block[elements[p]] = b;
+				location[elements[p]] = p;
+			}
+		for (int b = 0; b < blocks; b++)
+			marked[b] = first[b];
+
+		// The waiting set of (block, terminal) splitters.
+		boolean[][] waiting = new boolean[n][symbols];
+		int[] pending = new int[n * Math.max(symbols, 1) + 1];
+		int top = 0;
+		if (blocks == 2) {
+			int smaller = end[0] - first[0] <= end[1] - first[1] ? 0 : 1;
+			for (int k = 0; k < symbols; k++) {
+				waiting[smaller][k] = true;
+				pending[top++] = smaller * symbols + k;
+			}
+		}
+
+		int[] splitter = new int[n], touched = new int[n];
+		while (top > 0) {
+			int pair = pending[--top];
+			int b = pair / symbols, k = pair % symbols;
+			waiting[b][k] = false;
+			int size = end[b] - first[b];
+			System.arraycopy(elements, first[b], splitter, 0, size);
+			// Mark every state that goes into the splitter on the terminal.
+			int touchedCount = 0;
+			for (int i = 0; i < size; i++) {
+				int to = splitter[i];
+				for (int j = inverseStart[k][to]; j < inverseStart[k][to + 1]; j++) {
+					int p = inverse[k][j], c = block[p];
+					if (location[p] < marked[c])
+						continue;
+					if (marked[c] == first[c])
+						touched[touchedCount++] = c;
+					int q = elements[marked[c]];
+					elements[location[p]] = q;
+					location[q] = location[p];
+					elements[marked[c]] = p;
+					location[p] = marked[c]++;
+				}
+			}
+			// Split each touched block into its marked and unmarked parts.
+			for (int i = 0; i < touchedCount; i++) {
+				int c = touched[i];
+				if (marked[c] == end[c]) {
+					marked[c] = first[c];
+					continue;
+				}
+				int d = blocks++;
+				first[d] = first[c];
+				end[d] = marked[c];
+				first[c] = marked[c];
+				marked[d] = first[d];
+				for (int p = first[d]; p < end[d]; p++)
+					block[elements[p]] = d;
+				int smaller = end[d] - first[d] <= end[c] - first[c] ? d : c;
+				for (int j = 0; j < symbols; j++) {
+					int add = waiting[c][j] ? d : smaller;
+					if (waiting[add][j])
+						continue;
+					waiting[add][j] = true;
+					pending[top++] = add * symbols + j;
+				}
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * Builds the minimum DFA from the refined partition.
+	 * 
+	 * @param dfa
+	 *            the automaton being minimized
+	 * @param states
+	 *            the numbered reachable states of <CODE>dfa</CODE>
+	 * @param alphabet
+	 *            the terminals, indexed as in <CODE>delta</CODE>
+	 * @param delta
+	 *            the complete transition table
+	 * @param block
+	 *            the block of each state
+	 * @param trap
+	 *            the number of the trap state, or -1 if there is none
+	 * @return the minimum DFA
+	 */
+	private FiniteStateAutomaton createMinimumDfa(Automaton dfa,
+			ArrayList<State> states, char[] alphabet, int[][] delta,
+			int[] block, int trap) {
+		FiniteStateAutomaton minDfa = new FiniteStateAutomaton();
+		int dead = trap < 0 ? -1 : block[trap];
+		HashMap<Integer, TreeSet<Integer>> groups = new HashMap<>();
+		ArrayList<Integer> order = new ArrayList<>();
+		// If the initial state is dead the language is empty, and the dead
+		// group is kept as a single state with no transitions.
+		boolean empty = block[0] == dead;
+		for (int i = 0; i < states.size(); i++) {
+			if (block[i] == dead && !empty)
+				continue;
+			TreeSet<Integer> group = groups.get(block[i]);
+			if (group == null) {
+				group = new TreeSet<>();
+				groups.put(block[i], group);
+				order.add(i);
+			}
+			group.add(states.get(i).getID());
+		}
+
+		StatePlacer sp = new StatePlacer();
+		HashMap<Integer, State> created = new HashMap<>();
+		for (int k = 0; k < order.size(); k++) {
+			int b = block[order.get(k)];
+			Point point = sp.getPointForState(minDfa);
+			State state = minDfa.createStateWithId(point, k);
+			StringBuffer buffer = new StringBuffer();
+			for (Integer id : groups.get(b)) {
+				if (buffer.length() > 0)
+					buffer.append(",");
+				buffer.append(id);
+			}
+			state.setLabel(buffer.toString());
+			if (dfa.isFinalState(states.get(order.get(k))))
+				minDfa.addFinalState(state);
+			created.put(b, state);
+		}
+		minDfa.setInitialState(created.get(block[0]));
+
+		for (int k = 0; k < order.size(); k++) {
+			int from = order.get(k);
+			for (int c = 0; c < alphabet.length; c++) {
+				int to = block[delta[c][from]];
+				if (to == dead)
+					continue;
+				minDfa.addTransition(new FSATransition(created
+						.get(block[from]), created.get(to), Character
+						.toString(alphabet[c])));
+			}
+		}
+		return minDfa;
+	}
+}
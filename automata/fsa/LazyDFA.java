@@ -0,0 +1,318 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The lazy DFA determinizes a finite state automaton only as far as the input
+ * run on it requires. It runs on the bitset form of the automaton, a
+ * {@link CompiledNFA}, in which each set of states the automaton could be in
+ * is a bitset. Each set reached while reading input is found with one step of
+ * the compiled NFA the first time it is needed and then remembered, so input
+ * that keeps to the same sets of states runs at the speed of a DFA. Only a
+ * bounded number of sets are remembered; when the table is full the least
+ * recently used set is forgotten, along with the steps into and out of it,
+ * and found again if it is needed later. List labels are read as the
+ * simulators read them, as any one of their elements.
+ * <P>
+ * The lazy DFA keeps counts of the steps that were answered from the table
+ * (hits) and the steps that had to be worked out (misses).
+ */
+
+public class LazyDFA {
+	/**
+	 * Creates a lazy DFA for the given compiled automaton.
+	 * 
+	 * @param nfa
+	 *            the bitset form of the automaton to determinize
+	 * @param capacity
+	 *            the most sets of states to remember at once
+	 */
+	public LazyDFA(CompiledNFA nfa, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive.");
+		myNFA = nfa;
+		myCapacity = capacity;
+		myTable = new LinkedHashMap<Subset, Subset>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Subset, Subset> eldest) {
+				if (size() <= myCapacity)
+					return false;
+				eldest.getKey().evict();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns if the automaton accepts the input.
+	 * 
+	 * @param input
+	 *            the input to run
+	 * @return <CODE>true</CODE> if the automaton accepts the input,
+	 *         <CODE>false</CODE> otherwise
+	 */
+	public boolean accepts(CharSequence input) {
+		Subset current = getInitialSubset();
+		for (int i = 0; i < input.length() && current != null; i++)
+			current = getNext(current, input.charAt(i));
+		return current != null && current.myAccept;
+	}
+
+	/**
+	 * Returns the configuration a run of the input ends in, with the path
+	 * that led to it: a configuration in a final state at the end of the
+	 * input if it is accepted, or else where the run stopped.
+	 * 
+	 * @param input
+	 *            the input to run
+	 * @return the configuration the run ends in
+	 * @see CompiledNFA#getLastConfiguration
+	 */
+	public FSAConfiguration getLastConfiguration(String input) {
+		long[][] sets = new long[input.length() + 1][];
+		Subset current = getInitialSubset();
+		sets[0] = current.myStates;
+		int count = 1;
+		while (count <= input.length()) {
+			current = getNext(current, input.charAt(count - 1));
+			if (current == null)
+				break;
+			sets[count++] = current.myStates;
+		}
+		return myNFA.getConfiguration(input, sets, count);
+	}
+
+	/**
+	 * Returns the compiled automaton this lazy DFA runs on.
+	 * 
+	 * @return the bitset form of the automaton
+	 */
+	public CompiledNFA getCompiledNFA() {
+		return myNFA;
+	}
+
+	/**
+	 * Returns the number of steps answered from the table since the counters
+	 * were last reset.
+	 * 
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return myHits;
+	}
+
+	/**
+	 * Returns the number of steps that had to be worked out since the
+	 * counters were last reset.
+	 * 
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return myMisses;
+	}
+
+	/**
+	 * Sets the hit and miss counters back to zero.
+	 */
+	public void resetCounters() {
+		myHits = 0;
+		myMisses = 0;
+	}
+
+	/**
+	 * Returns the number of sets of states currently remembered.
+	 * 
+	 * @return the number of sets in the table
+	 */
+	public int getSize() {
+		return myTable.size();
+	}
+
+	/**
+	 * Returns the most sets of states that are remembered at once.
+	 * 
+	 * @return the capacity of the table
+	 */
+	public int getCapacity() {
+		return myCapacity;
+	}
+
+	/**
+	 * Returns the set for the closure of the initial state.
+	 * 
+	 * @return the initial set
+	 */
+	private Subset getInitialSubset() {
+		if (myInitial != null && !myInitial.myEvicted) {
+			myTable.get(myInitial);
+			myHits++;
+			return myInitial;
+		}
+		myMisses++;
+		myInitial = intern(myNFA.getInitialStates());
+		return myInitial;
+	}
+
+	/**
+	 * Returns the set of states reached from <CODE>subset</CODE> on
+	 * <CODE>c</CODE>.
+	 * 
+	 * @param subset
+	 *            the current set of states
+	 * @param c
+	 *            the character read
+	 * @return the next set of states, or <CODE>null</CODE> if no state is
+	 *         reached
+	 */
+	private Subset getNext(Subset subset, char c) {
+		Subset next = subset.myNext.get(c);
+		if (next != null) {
+			myHits++;
+			if (next != DEAD)
+				myTable.get(next);
+			return next == DEAD ? null : next;
+		}
+		myMisses++;
+		long[] states = new long[subset.myStates.length];
+		next = myNFA.step(subset.myStates, states, c) ? intern(states) : DEAD;
+		if (!subset.myEvicted) {
+			subset.myNext.put(c, next);
+			if (next != DEAD)
+				next.myPrevious.add(subset);
+		}
+		return next == DEAD ? null : next;
+	}
+
+	/**
+	 * Returns the remembered set with these states, remembering a new one if
+	 * there is none.
+	 * 
+	 * @param states
+	 *            the bitset of the states in the set, which is kept
+	 * @return the set of these states
+	 */
+	private Subset intern(long[] states) {
+		Subset subset = new Subset(states, myNFA.isAccept(states));
+		Subset found = myTable.get(subset);
+		if (found != null)
+			return found;
+		myTable.put(subset, subset);
+		return subset;
+	}
+
+	/**
+	 * A set of states of the automaton, along with the sets reached from it
+	 * on the characters read so far.
+	 */
+	private static class Subset {
+		/**
+		 * Creates a set of the given states.
+		 * 
+		 * @param states
+		 *            the bitset of the states
+		 * @param accept
+		 *            whether any of the states is final
+		 */
+		Subset(long[] states, boolean accept) {
+			myStates = states;
+			myAccept = accept;
+			myHash = Arrays.hashCode(states);
+		}
+
+		/**
+		 * Marks this set as forgotten, and removes the steps into and out of
+		 * it, so that no remembered set still holds it.
+		 */
+		void evict() {
+			myEvicted = true;
+			Iterator<Subset> it = myNext.values().iterator();
+			while (it.hasNext()) {
+				Subset next = it.next();
+				if (next != DEAD)
+					next.myPrevious.remove(this);
+			}
+			myNext.clear();
+			for (int k = 0; k < myPrevious.size(); k++) {
+				it = myPrevious.get(k).myNext.values().iterator();
+				while (it.hasNext())
+					if (it.next() == this)
+						it.remove();
+			}
+			myPrevious.clear();
+		}
+
+		public int hashCode() {
+			return myHash;
+		}
+
+		public boolean equals(Object object) {
+			return object instanceof Subset
+					&& Arrays.equals(myStates, ((Subset) object).myStates);
+		}
+
+		/** The bitset of the states, which is never changed. */
+		final long[] myStates;
+
+		/** Whether any of the states is final. */
+		final boolean myAccept;
+
+		/** Whether this set has been dropped from the table. */
+		boolean myEvicted = false;
+
+		/** The sets reached from this one, by character. */
+		final HashMap<Character, Subset> myNext = new HashMap<>();
+
+		/** The sets this one is reached from, once for each step. */
+		final ArrayList<Subset> myPrevious = new ArrayList<>();
+
+		/** The cached hash code. */
+		private final int myHash;
+	}
+
+	/** Stands for the empty set of states, which is never remembered. */
+	private static final Subset DEAD = new Subset(new long[0], false);
+
+	/** The bitset form of the automaton run. */
+	private CompiledNFA myNFA;
+
+	/** The remembered sets, in order of last use. */
+	private LinkedHashMap<Subset, Subset> myTable;
+
+	/** The most sets remembered at once. */
+	private int myCapacity;
+
+	/** The initial set, if it is known. */
+	private Subset myInitial = null;
+
+	/** The number of steps answered from the table. */
+	private long myHits = 0;
+
+	/** The number of steps worked out. */
+	private long myMisses = 0;
+}
@@ -0,0 +1,104 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import automata.Automaton;
+
+/**
+ * The lazy DFA simulator runs input on a finite state automaton through a
+ * {@link LazyDFA}, so that the automaton is determinized only as far as the
+ * input requires, and the sets of states found are reused by later input.
+ * This gives DFA speed on repeated runs without building the whole DFA up
+ * front. The multiple run pane and the batch runner use it for automata that
+ * are not deterministic. Deterministic automata still run on their table.
+ * Otherwise this works as the {@link FSABitsetSimulator} does, and the lazy
+ * DFA is made again when the automaton changes.
+ */
+
+public class LazyDFASimulator extends FSABitsetSimulator {
+	/**
+	 * Creates a lazy DFA simulator for the given automaton that remembers up
+	 * to {@link #DEFAULT_CAPACITY} sets of states.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 */
+	public LazyDFASimulator(Automaton automaton) {
+		this(automaton, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a lazy DFA simulator for the given automaton.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param capacity
+	 *            the most sets of states to remember at once
+	 */
+	public LazyDFASimulator(Automaton automaton, int capacity) {
+		super(automaton);
+		myCapacity = capacity;
+	}
+
+	/**
+	 * Returns the configuration a run of the input ends in, running
+	 * automata that are not deterministic on the lazy DFA.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @return the configuration the run ends in, or <CODE>null</CODE> if the
+	 *         automaton has no initial state
+	 * @see FSABitsetSimulator#getLastConfiguration
+	 */
+	public FSAConfiguration getLastConfiguration(String input) {
+		CompiledDFA dfa = getCompiledDFA();
+		if (dfa != null)
+			return dfa.getFinalConfiguration(input);
+		LazyDFA lazy = getLazyDFA();
+		return lazy == null ? null : lazy.getLastConfiguration(input);
+	}
+
+	/**
+	 * Returns the lazy DFA used to run input, which holds the hit and miss
+	 * counts. It is made again, with no sets remembered, whenever the
+	 * automaton has changed since it was made.
+	 * 
+	 * @return the lazy DFA for the automaton, or <CODE>null</CODE> if the
+	 *         automaton has no initial state
+	 */
+	public LazyDFA getLazyDFA() {
+		CompiledNFA nfa = getCompiledNFA();
+		if (nfa == null)
+			myLazyDFA = null;
+		else if (myLazyDFA == null || myLazyDFA.getCompiledNFA() != nfa)
+			myLazyDFA = new LazyDFA(nfa, myCapacity);
+		return myLazyDFA;
+	}
+
+	/** The number of sets of states remembered by default. */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/** The most sets of states to remember at once. */
+	private int myCapacity;
+
+	/** The lazy DFA, once it is created. */
+	private LazyDFA myLazyDFA = null;
+}
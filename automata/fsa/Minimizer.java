@@ -65,7 +65,8 @@ import automata.UnreachableStatesDetector;
  * each of these states one by one by calling getTransitionsForState, which will
  * return a list of all transitions coming from the state. By adding all these
  * transitions to the minimum dfa, you will have successfully created the
- * minimum dfa.
+ * minimum dfa. If only the minimum dfa is wanted and not the tree, call
+ * getMinimumDfa with just the automaton, which minimizes it directly.
  * 
  * @author Ryan Cavalcante
  */
@@ -826,6 +827,22 @@ public class Minimizer {
 		return false;
 	}
 
+	/**
+	 * Returns the minimum dfa for <CODE>automaton</CODE> without building the
+	 * tree of distinguishable groups. This does not require a call to
+	 * <CODE>initializeMinimizer</CODE> or <CODE>getMinimizeableAutomaton</CODE>,
+	 * and <CODE>automaton</CODE> is not modified.
+	 * 
+	 * @param automaton
+	 *            the dfa to minimize
+	 * @return the minimum dfa, or <CODE>null</CODE> if <CODE>automaton</CODE>
+	 *         is not a dfa with an initial state
+	 * @see HopcroftMinimizer
+	 */
+	public FiniteStateAutomaton getMinimumDfa(Automaton automaton) {
+		return new HopcroftMinimizer().getMinimumDfa(automaton);
+	}
+
 	/**
 	 * Returns the minimized version of <CODE>automaton</CODE>, for which
 	 * <CODE>tree</CODE> is the tree of distinguishable groups.
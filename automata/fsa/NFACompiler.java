@@ -0,0 +1,130 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.fsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import automata.Automaton;
+import automata.ClosureCache;
+import automata.State;
+import automata.Transition;
+
+/**
+ * The NFA compiler turns any finite state automaton into a {@link CompiledNFA}
+ * that runs input over bitsets of states. Labels longer than one character are
+ * broken up by introducing intermediate states, and list labels like
+ * <CODE>[a,b,x..z]</CODE> are expanded into their elements, so every edge of
+ * the compiled machine reads a single character. The lambda closures are
+ * taken from the automaton's {@link ClosureCache} and folded into the
+ * successor masks.
+ */
+
+public class NFACompiler {
+	/**
+	 * Creates an instance of <CODE>NFACompiler</CODE>.
+	 */
+	public NFACompiler() {
+	}
+
+	/**
+	 * Compiles the automaton into bitset form.
+	 * 
+	 * @param automaton
+	 *            the finite state automaton to compile
+	 * @return the compiled form of the automaton, or <CODE>null</CODE> if
+	 *         the automaton has no initial state
+	 */
+	public CompiledNFA compile(Automaton automaton) {
+		if (automaton.getInitialState() == null)
+			return null;
+		ClosureCache cache = automaton.getClosureCache();
+		State[] states = cache.getStates();
+		HashMap<State, Integer> stateToNumber = new HashMap<>();
+		for (int i = 0; i < states.length; i++)
+			stateToNumber.put(states[i], i);
+		int stateCount = states.length;
+
+		// Break every label into edges on single characters.
+		List<int[]> edges = new ArrayList<>();
+		Transition[] transitions = automaton.getTransitions();
+		for (int k = 0; k < transitions.length; k++) {
+			FSATransition transition = (FSATransition) transitions[k];
+			int from = stateToNumber.get(transition.getFromState());
+			int to = stateToNumber.get(transition.getToState());
+			for (String element : transition.getCompiledLabel().getElements()) {
+				if (element.length() == 0)
+					continue;
+				int current = from;
+				for (int i = 0; i < element.length(); i++) {
+					int going = i == element.length() - 1 ? to : stateCount++;
+					edges.add(new int[] { current, element.charAt(i), going });
+					current = going;
+				}
+			}
+		}
+
+		// Number the symbols.
+		int maxChar = -1;
+		for (int[] edge : edges)
+			maxChar = Math.max(maxChar, edge[1]);
+		int[] classes = new int[maxChar + 1];
+		Arrays.fill(classes, -1);
+		int symbols = 0;
+		for (int[] edge : edges)
+			if (classes[edge[1]] == -1)
+				classes[edge[1]] = symbols++;
+
+		// Only the states of the automaton have lambda transitions.
+		int words = (stateCount + 63) >>> 6;
+		long[][] closures = new long[stateCount][];
+		for (int i = 0; i < states.length; i++)
+			closures[i] = Arrays.copyOf(cache.getClosureSet(states[i]), words);
+		for (int i = states.length; i < stateCount; i++) {
+			closures[i] = new long[words];
+			closures[i][i >>> 6] |= 1L << i;
+		}
+		long[][][] successors = new long[symbols][stateCount][];
+		for (int[] edge : edges) {
+			long[][] masks = successors[classes[edge[1]]];
+			if (masks[edge[0]] == null)
+				masks[edge[0]] = new long[words];
+			or(masks[edge[0]], closures[edge[2]]);
+		}
+		long[] finals = new long[words];
+		for (int i = 0; i < states.length; i++)
+			if (automaton.isFinalState(states[i]))
+				finals[i >>> 6] |= 1L << i;
+		int initial = stateToNumber.get(automaton.getInitialState());
+		return new CompiledNFA(states, stateCount, closures[initial], finals,
+				classes, successors);
+	}
+
+	/**
+	 * ORs the second bitset into the first.
+	 */
+	private static void or(long[] into, long[] from) {
+		for (int w = 0; w < into.length; w++)
+			into[w] |= from[w];
+	}
+}
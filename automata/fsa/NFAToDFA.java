@@ -23,7 +23,7 @@ package automata.fsa;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.StringTokenizer;
 
 import automata.AlphabetRetriever;
@@ -367,28 +367,196 @@ public class NFAToDFA {
 		if (FSALabelHandler.hasMultipleCharacterLabels(automaton)) {
 			FSALabelHandler.removeMultipleCharacterLabelsFromAutomaton(automaton);
 		}
-		/** create new finite state automaton. */
+		return convert(automaton);
+	}
+
+	/**
+	 * Performs the subset construction for <CODE>nfa</CODE>, whose labels
+	 * must all be at most one character long. Each set of nfa states is kept
+	 * as a bitset and looked up by hash, the closure of each nfa state is
+	 * taken only once, and all the successors of a set are computed in a
+	 * single pass over its transitions. States of the dfa are only created
+	 * and labeled once every set has been found.
+	 * 
+	 * @param nfa
+	 *            the nfa to convert
+	 * @return a deterministic finite state automaton equivalent to <CODE>nfa</CODE>
+	 */
+	private FiniteStateAutomaton convert(Automaton nfa) {
+		State[] states = nfa.getStates();
+		HashMap<State, Integer> index = new HashMap<>();
+		for (int k = 0; k < states.length; k++)
+			index.put(states[k], k);
+		String[] alphabet = new FSAAlphabetRetriever().getAlphabet(nfa);
+		HashMap<String, Integer> symbols = new HashMap<>();
+		for (int k = 0; k < alphabet.length; k++)
+			symbols.put(alphabet[k], k);
+
+		/** number the non-lambda transitions out of each state. */
+		int words = (states.length + 63) >> 6;
+		int[][] symbolOf = new int[states.length][];
+		int[][] targetOf = new int[states.length][];
+		long[] finals = new long[words];
+		for (int k = 0; k < states.length; k++) {
+			if (nfa.isFinalState(states[k]))
+				finals[k >> 6] |= 1L << k;
+			Transition[] transitions = nfa.getTransitionsFromState(states[k]);
+			int count = 0;
+			symbolOf[k] = new int[transitions.length];
+			targetOf[k] = new int[transitions.length];
+			for (int i = 0; i < transitions.length; i++) {
+				String label = ((FSATransition) transitions[i]).getLabel();
+				if (label.length() == 0)
+					continue;
+				symbolOf[k][count] = symbols.get(label);
+				targetOf[k][count++] = index.get(transitions[i].getToState());
+			}
+			symbolOf[k] = Arrays.copyOf(symbolOf[k], count);
+			targetOf[k] = Arrays.copyOf(targetOf[k], count);
+		}
+
+		long[][] closures = new long[states.length][];
+		HashMap<StateSet, Integer> found = new HashMap<>();
+		ArrayList<long[]> sets = new ArrayList<>();
+		ArrayList<int[]> successors = new ArrayList<>();
+		long[] initial = getClosure(index.get(nfa.getInitialState()), states,
+				closures, index, nfa);
+		found.put(new StateSet(initial), 0);
+		sets.add(initial);
+		/** expand each set in the order it was found. */
+		for (int d = 0; d < sets.size(); d++) {
+			long[] set = sets.get(d);
+			long[][] next = new long[alphabet.length][];
+			for (int w = 0; w < words; w++) {
+				for (long bits = set[w]; bits != 0; bits &= bits - 1) {
+					int k = (w << 6) + Long.numberOfTrailingZeros(bits);
+					for (int i = 0; i < symbolOf[k].length; i++) {
+						int symbol = symbolOf[k][i];
+						if (next[symbol] == null)
+							next[symbol] = new long[words];
+						long[] closure = getClosure(targetOf[k][i], states,
+								closures, index, nfa);
+						for (int j = 0; j < words; j++)
+							next[symbol][j] |= closure[j];
+					}
+				}
+			}
+			int[] row = new int[alphabet.length];
+			for (int symbol = 0; symbol < alphabet.length; symbol++) {
+				if (next[symbol] == null) {
+					row[symbol] = -1;
+					continue;
+				}
+				StateSet key = new StateSet(next[symbol]);
+				Integer to = found.get(key);
+				if (to == null) {
+					to = sets.size();
+					found.put(key, to);
+					sets.add(next[symbol]);
+				}
+				row[symbol] = to;
+			}
+			successors.add(row);
+		}
+
+		/** create and label the states, then add the transitions. */
 		FiniteStateAutomaton dfa = new FiniteStateAutomaton();
-		State initialState = createInitialState(automaton, dfa);
+		StatePlacer sp = new StatePlacer();
+		State[] created = new State[sets.size()];
+		int[] ids = new int[states.length];
+		for (int d = 0; d < created.length; d++) {
+			long[] set = sets.get(d);
+			created[d] = dfa.createStateWithId(sp.getPointForState(dfa), d);
+			int count = 0;
+			boolean isFinal = false;
+			for (int w = 0; w < words; w++) {
+				isFinal |= (set[w] & finals[w]) != 0;
+				for (long bits = set[w]; bits != 0; bits &= bits - 1)
+					ids[count++] = states[(w << 6)
+							+ Long.numberOfTrailingZeros(bits)].getID();
+			}
+			Arrays.sort(ids, 0, count);
+			StringBuffer buffer = new StringBuffer();
+			for (int k = 0; k < count; k++) {
+				if (k > 0)
+					buffer.append(",");
+				buffer.append(Integer.toString(ids[k]));
+			}
+			created[d].setLabel(buffer.toString());
+			if (isFinal)
+				dfa.addFinalState(created[d]);
+		}
+		dfa.setInitialState(created[0]);
+		for (int d = 0; d < created.length; d++) {
+			int[] row = successors.get(d);
+			for (int symbol = 0; symbol < row.length; symbol++)
+				if (row[symbol] >= 0)
+					dfa.addTransition(new FSATransition(created[d],
+							created[row[symbol]], alphabet[symbol]));
+		}
+		return dfa;
+	}
+
+	/**
+	 * Returns the closure of the nfa state numbered <CODE>k</CODE> as a
+	 * bitset, taking it from <CODE>closures</CODE> if it was already found.
+	 * 
+	 * @param k
+	 *            the number of the state
+	 * @param states
+	 *            the states of the nfa, by number
+	 * @param closures
+	 *            the closures found so far, by state number
+	 * @param index
+	 *            the number of each state
+	 * @param nfa
+	 *            the nfa
+	 * @return the closure of the state as a bitset
+	 */
+	private long[] getClosure(int k, State[] states, long[][] closures,
+			HashMap<State, Integer> index, Automaton nfa) {
+		if (closures[k] == null) {
+			long[] closure = new long[(states.length + 63) >> 6];
+			State[] closed = ClosureTaker.getClosure(states[k], nfa);
+			for (int i = 0; i < closed.length; i++) {
+				int j = index.get(closed[i]);
+				closure[j >> 6] |= 1L << j;
+			}
+			closures[k] = closure;
+		}
+		return closures[k];
+	}
+
+	/**
+	 * An immutable set of nfa states, stored as a bitset, that can be used as
+	 * a hash key.
+	 */
+	private static final class StateSet {
 		/**
-		 * get initial state and add to list of states that need to be expanded.
+		 * Wraps a bitset, which must not be changed afterwards.
+		 * 
+		 * @param bits
+		 *            the bitset of state numbers
 		 */
-		ArrayList<State> list = new ArrayList<>();
-		list.add(initialState);
-		/** while still more states to be expanded. */
-		while (!list.isEmpty()) {
-			ArrayList<State> statesToExpand = new ArrayList<>();
-			Iterator<State> it = list.iterator();
-			while (it.hasNext()) {
-				State state = (State) it.next();
-				/** expand state. */
-				statesToExpand.addAll(expandState(state, automaton, dfa));
-				it.remove();
-			}
-			list.addAll(statesToExpand);
+		StateSet(long[] bits) {
+			myBits = bits;
+			myHash = Arrays.hashCode(bits);
 		}
 
-		return dfa;
+		public int hashCode() {
+			return myHash;
+		}
+
+		public boolean equals(Object object) {
+			return object instanceof StateSet
+					&& Arrays.equals(myBits, ((StateSet) object).myBits);
+		}
+
+		/** The bitset of state numbers. */
+		private final long[] myBits;
+
+		/** The cached hash code of the bitset. */
+		private final int myHash;
 	}
 
 }
@@ -21,6 +21,7 @@
 package automata.graph;
 
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Map;
 
 import automata.State;
@@ -42,6 +43,9 @@ public class DFAEqualityChecker {
 	/**
 	 * "Hypothesize" that two states are equal in the graph isomorphism for this
 	 * automaton. This function tests to see if that assumption is justifiable.
+	 * The states reached from a pair are checked in turn with a worklist rather
+	 * than by recursion, so that long chains of states cannot overflow the
+	 * stack.
 	 * 
 	 * @param state1
 	 *            the state in the first automaton
@@ -52,43 +56,47 @@ public class DFAEqualityChecker {
 	 *            the second automaton
 	 */
 	private boolean hypothesize(State state1, State state2, Map<State, State> matching) {
-		{
+		LinkedList<State[]> pending = new LinkedList<>();
+		pending.add(new State[] { state1, state2 });
+		while (!pending.isEmpty()) {
+			State[] pair = pending.removeFirst();
+			state1 = pair[0];
+			state2 = pair[1];
 			// Does state one already have a counterpart?
 			State counterpart = (State) matching.get(state1);
 			// If it does, is it the same?
-			if (counterpart != null)
-				return counterpart == state2;
+			if (counterpart != null) {
+				if (counterpart != state2)
+					return false;
+				continue;
+			}
 			// We haven't visited this node yet.
 			// Does "finality" match up?
 			if (state1.getAutomaton().isFinalState(state1)
 					^ state2.getAutomaton().isFinalState(state2))
 				return false;
-		}
 
-		Map<String, Transition> labelToTrans1 = new HashMap<>(), labelToTrans2 = new HashMap<>();
-		Transition[] t1 = state1.getAutomaton().getTransitionsFromState(state1);
-		Transition[] t2 = state2.getAutomaton().getTransitionsFromState(state2);
-		// If they're not even the same length...
-		if (t1.length != t2.length)
-			return false;
-		for (int i = 0; i < t1.length; i++) {
-			labelToTrans1.put(((FSATransition) t1[i]).getLabel(), t1[i]);
-			labelToTrans2.put(((FSATransition) t2[i]).getLabel(), t2[i]);
-		}
-		// Now, for each transition from state1, we can find the
-		// corresponding transition in state2, if it exists.
-		for (int i = 0; i < t1.length; i++) {
-			String label = ((FSATransition) t1[i]).getLabel();
-			Transition counterpart = (Transition) labelToTrans2.get(label);
-			// Does the same transition exist in the other automaton?
-			if (counterpart == null)
+			Map<String, Transition> labelToTrans2 = new HashMap<>();
+			Transition[] t1 = state1.getAutomaton().getTransitionsFromState(
+					state1);
+			Transition[] t2 = state2.getAutomaton().getTransitionsFromState(
+					state2);
+			// If they're not even the same length...
+			if (t1.length != t2.length)
 				return false;
+			for (int i = 0; i < t2.length; i++)
+				labelToTrans2.put(((FSATransition) t2[i]).getLabel(), t2[i]);
 			matching.put(state1, state2);
-			boolean equal = hypothesize(t1[i].getToState(), counterpart
-					.getToState(), matching);
-			if (!equal) {
-				matching.remove(state1);
-				return false;
+			// Now, for each transition from state1, we can find the
+			// corresponding transition in state2, if it exists.
+			for (int i = 0; i < t1.length; i++) {
+				String label = ((FSATransition) t1[i]).getLabel();
+				Transition other = (Transition) labelToTrans2.get(label);
+				// Does the same transition exist in the other automaton?
+				if (other == null)
+					return false;
+				pending.add(new State[] { t1[i].getToState(),
+						other.getToState() });
 			}
 		}
 		return true;
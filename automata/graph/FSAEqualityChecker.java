@@ -20,12 +20,27 @@
 
 package automata.graph;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import automata.fsa.CompiledDFA;
+import automata.fsa.CompiledNFA;
+import automata.fsa.DFACompiler;
 import automata.fsa.FiniteStateAutomaton;
-import automata.fsa.Minimizer;
-import automata.fsa.NFAToDFA;
+import automata.fsa.NFACompiler;
 
 /**
- * This determines if two FSAs accept the same language.
+ * This determines if two FSAs accept the same language. When both automata
+ * are deterministic, their states are merged with a union-find structure as
+ * the pairs reachable in the product automaton are explored (the algorithm of
+ * Hopcroft and Karp), which takes nearly linear time. Otherwise the automata
+ * are compared without being determinized: each word of one is checked
+ * against the sets of states of the other, and a pair is dropped when a pair
+ * with the same state and a subset of its states has already been seen (an
+ * antichain). When the languages differ, a shortest string accepted by only
+ * one of the automata is found.
  * 
  * @author Thomas Finley
  */
@@ -43,35 +58,299 @@ public class FSAEqualityChecker {
 	 *         not
 	 */
 	public boolean equals(FiniteStateAutomaton fsa1, FiniteStateAutomaton fsa2) {
-		// Clone for safety.
-		fsa1 = (FiniteStateAutomaton) fsa1.clone();
-		fsa2 = (FiniteStateAutomaton) fsa2.clone();
-
-		// Make sure they're DFAs.
-		fsa1 = nfaConverter.convertToDFA(fsa1);
-		fsa2 = nfaConverter.convertToDFA(fsa2);
-		// Minimize the DFAs.
-		minimizer.initializeMinimizer();
-		fsa1 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa1);
-		javax.swing.tree.DefaultTreeModel tree = minimizer
-				.getDistinguishableGroupsTree(fsa1);
-		fsa1 = minimizer.getMinimumDfa(fsa1, tree);
-
-		minimizer.initializeMinimizer();
-		fsa2 = (FiniteStateAutomaton) minimizer.getMinimizeableAutomaton(fsa2);
-		tree = minimizer.getDistinguishableGroupsTree(fsa2);
-		fsa2 = minimizer.getMinimumDfa(fsa2, tree);
-
-		// Check the minimized DFAs to see if they are the same.
-		return checker.equals(fsa1, fsa2);
+		return getDistinguishingString(fsa1, fsa2) == null;
+	}
+
+	/**
+	 * Returns a shortest string accepted by exactly one of two FSAs. An
+	 * automaton without an initial state accepts nothing.
+	 * 
+	 * @param fsa1
+	 *            the first finite state automaton
+	 * @param fsa2
+	 *            the second finite state automaton
+	 * @return a shortest string accepted by one automaton and not the other,
+	 *         or <CODE>null</CODE> if they accept the same language
+	 */
+	public String getDistinguishingString(FiniteStateAutomaton fsa1,
+			FiniteStateAutomaton fsa2) {
+		DFACompiler dfaCompiler = new DFACompiler();
+		CompiledDFA dfa1 = dfaCompiler.compile(fsa1);
+		CompiledDFA dfa2 = dfa1 == null ? null : dfaCompiler.compile(fsa2);
+		if (dfa2 != null) {
+			char[] alphabet = union(dfa1.getAlphabet(), dfa2.getAlphabet());
+			if (hopcroftKarp(dfa1, dfa2, alphabet))
+				return null;
+			return getShortestDifference(dfa1, dfa2, alphabet);
+		}
+		NFACompiler nfaCompiler = new NFACompiler();
+		CompiledNFA nfa1 = nfaCompiler.compile(fsa1);
+		CompiledNFA nfa2 = nfaCompiler.compile(fsa2);
+		String one = getCounterexample(nfa1, nfa2);
+		String two = getCounterexample(nfa2, nfa1);
+		if (one == null || (two != null && two.length() < one.length()))
+			return two;
+		return one;
+	}
+
+	/**
+	 * Decides if two DFAs accept the same language. Pairs of states reachable
+	 * together are merged into one class; a pair whose states are already in
+	 * the same class need not be explored again.
+	 * 
+	 * @param dfa1
+	 *            the first dfa
+	 * @param dfa2
+	 *            the second dfa
+	 * @param alphabet
+	 *            the characters either dfa has transitions on
+	 * @return <CODE>true</CODE> if the dfas accept the same language
+	 */
+	private boolean hopcroftKarp(CompiledDFA dfa1, CompiledDFA dfa2,
+			char[] alphabet) {
+		// States of the second dfa come after those of the first, and each
+		// dfa gets a trap state for missing transitions.
+		int trap1 = dfa1.getStateCount(), offset = trap1 + 1;
+		int trap2 = offset + dfa2.getStateCount();
+		int[] parent = new int[trap2 + 1];
+		for (int i = 0; i < parent.length; i++)
+			parent[i] = i;
+		int[] queue = new int[2 * parent.length];
+		int head = 0, tail = 0;
+		queue[tail++] = dfa1.getInitialState();
+		queue[tail++] = offset + dfa2.getInitialState();
+		union(parent, queue[0], queue[1]);
+		while (head < tail) {
+			int p = queue[head++], q = queue[head++];
+			boolean final1 = p != trap1 && dfa1.isFinal(p);
+			boolean final2 = q != trap2 && dfa2.isFinal(q - offset);
+			if (final1 != final2)
+				return false;
+			for (int k = 0; k < alphabet.length; k++) {
+				int p1 = p == trap1 ? -1 : dfa1.getNextState(p, alphabet[k]);
+				int q1 = q == trap2 ? -1 : dfa2.getNextState(q - offset,
+						alphabet[k]);
+				p1 = p1 == -1 ? trap1 : p1;
+				q1 = q1 == -1 ? trap2 : offset + q1;
+				if (union(parent, p1, q1)) {
+					queue[tail++] = p1;
+					queue[tail++] = q1;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Merges the classes of two elements.
+	 * 
+	 * @param parent
+	 *            the parent of each element in the union-find forest
+	 * @param a
+	 *            the first element
+	 * @param b
+	 *            the second element
+	 * @return <CODE>true</CODE> if the elements were in different classes
+	 */
+	private static boolean union(int[] parent, int a, int b) {
+		a = find(parent, a);
+		b = find(parent, b);
+		if (a == b)
+			return false;
+		parent[a] = b;
+		return true;
+	}
+
+	/**
+	 * Returns the representative of an element's class, halving the path to
+	 * it on the way.
+	 */
+	private static int find(int[] parent, int a) {
+		while (parent[a] != a) {
+			parent[a] = parent[parent[a]];
+			a = parent[a];
+		}
+		return a;
 	}
 
-	/** The equality checker. */
-	private static DFAEqualityChecker checker = new DFAEqualityChecker();
+	/**
+	 * Returns a shortest string accepted by only one of two DFAs, found by a
+	 * breadth first search of the pairs of states reachable together.
+	 * 
+	 * @param dfa1
+	 *            the first dfa
+	 * @param dfa2
+	 *            the second dfa
+	 * @param alphabet
+	 *            the characters either dfa has transitions on
+	 * @return a shortest distinguishing string, or <CODE>null</CODE> if there
+	 *         is none
+	 */
+	private String getShortestDifference(CompiledDFA dfa1, CompiledDFA dfa2,
+			char[] alphabet) {
+		// State -1 is the trap state of either dfa.
+		long width = dfa2.getStateCount() + 1;
+		HashMap<Long, Integer> seen = new HashMap<>();
+		List<int[]> pairs = new ArrayList<>();
+		pairs.add(new int[] { dfa1.getInitialState(), dfa2.getInitialState(),
+				-1, 0 });
+		seen.put((dfa1.getInitialState() + 1) * width
+				+ dfa2.getInitialState() + 1, 0);
+		for (int i = 0; i < pairs.size(); i++) {
+			int[] pair = pairs.get(i);
+			boolean final1 = pair[0] != -1 && dfa1.isFinal(pair[0]);
+			boolean final2 = pair[1] != -1 && dfa2.isFinal(pair[1]);
+			if (final1 != final2)
+				return getString(pairs, i);
+			if (pair[0] == -1 && pair[1] == -1)
+				continue;
+			for (int k = 0; k < alphabet.length; k++) {
+				int p = pair[0] == -1 ? -1 : dfa1.getNextState(pair[0],
+						alphabet[k]);
+				int q = pair[1] == -1 ? -1 : dfa2.getNextState(pair[1],
+						alphabet[k]);
+				Long key = (p + 1) * width + q + 1;
+				if (seen.containsKey(key))
+					continue;
+				seen.put(key, pairs.size());
+				pairs.add(new int[] { p, q, i, alphabet[k] });
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a shortest string accepted by <CODE>nfa1</CODE> but not by
+	 * <CODE>nfa2</CODE>. Each pair explored holds one state of the first
+	 * automaton and the set of states the second could be in after the same
+	 * input.
+	 * 
+	 * @param nfa1
+	 *            the first automaton, or <CODE>null</CODE> if it accepts
+	 *            nothing
+	 * @param nfa2
+	 *            the second automaton, or <CODE>null</CODE> if it accepts
+	 *            nothing
+	 * @return a shortest string in the language of the first automaton that
+	 *         is not in the language of the second, or <CODE>null</CODE> if
+	 *         there is none
+	 */
+	private String getCounterexample(CompiledNFA nfa1, CompiledNFA nfa2) {
+		if (nfa1 == null)
+			return null;
+		char[] alphabet = nfa1.getAlphabet();
+		long[] empty = new long[1];
+		HashMap<Integer, List<long[]>> antichain = new HashMap<>();
+		List<int[]> pairs = new ArrayList<>();
+		List<long[]> sets = new ArrayList<>();
+		long[] initial = nfa1.getInitialStates();
+		long[] start = nfa2 == null ? empty : nfa2.getInitialStates();
+		for (int w = 0; w < initial.length; w++)
+			for (long bits = initial[w]; bits != 0; bits &= bits - 1) {
+				int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+				if (addToAntichain(antichain, p, start)) {
+					pairs.add(new int[] { p, 0, -1, 0 });
+					sets.add(start);
+				}
+			}
+		for (int i = 0; i < pairs.size(); i++) {
+			int[] pair = pairs.get(i);
+			long[] set = sets.get(i);
+			if (nfa1.isFinal(pair[0]) && (nfa2 == null || !nfa2.isAccept(set)))
+				return getString(pairs, i);
+			for (int k = 0; k < alphabet.length; k++) {
+				long[] targets = nfa1.getSuccessors(pair[0], alphabet[k]);
+				if (targets == null)
+					continue;
+				long[] next = empty;
+				if (nfa2 != null) {
+					next = new long[set.length];
+					nfa2.step(set, next, alphabet[k]);
+				}
+				for (int w = 0; w < targets.length; w++)
+					for (long bits = targets[w]; bits != 0; bits &= bits - 1) {
+						int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+						if (addToAntichain(antichain, p, next)) {
+							pairs.add(new int[] { p, 0, i, alphabet[k] });
+							sets.add(next);
+						}
+					}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a pair to the antichain, unless a pair with the same state and a
+	 * subset of the set has already been added. Pairs that the new pair makes
+	 * redundant are removed.
+	 * 
+	 * @param antichain
+	 *            the sets seen so far, by state
+	 * @param state
+	 *            the state of the pair
+	 * @param set
+	 *            the set of the pair
+	 * @return <CODE>true</CODE> if the pair was added, <CODE>false</CODE>
+	 *         if it need not be explored
+	 */
+	private static boolean addToAntichain(HashMap<Integer, List<long[]>> antichain,
+			int state, long[] set) {
+		List<long[]> sets = antichain.get(state);
+		if (sets == null) {
+			sets = new ArrayList<>();
+			antichain.put(state, sets);
+		}
+		for (int i = 0; i < sets.size(); i++)
+			if (isSubset(sets.get(i), set))
+				return false;
+		Iterator<long[]> it = sets.iterator();
+		while (it.hasNext())
+			if (isSubset(set, it.next()))
+				it.remove();
+		sets.add(set);
+		return true;
+	}
+
+	/**
+	 * Returns if every bit of <CODE>a</CODE> is set in <CODE>b</CODE>.
+	 */
+	private static boolean isSubset(long[] a, long[] b) {
+		for (int w = 0; w < a.length; w++)
+			if ((a[w] & ~(w < b.length ? b[w] : 0L)) != 0)
+				return false;
+		return true;
+	}
 
-	/** The converter for an NFA to a DFA. */
-	private static NFAToDFA nfaConverter = new NFAToDFA();
+	/**
+	 * Returns the string that leads to a pair, following the parent of each
+	 * pair back to the start. Each pair holds the index of its parent and the
+	 * character read from it in its last two entries.
+	 */
+	private static String getString(List<int[]> pairs, int index) {
+		StringBuffer buffer = new StringBuffer();
+		for (int[] pair = pairs.get(index); pair[2] != -1; pair = pairs
+				.get(pair[2]))
+			buffer.append((char) pair[3]);
+		return buffer.reverse().toString();
+	}
 
-	/** That which minimizes a DFA. */
-	private static Minimizer minimizer = new Minimizer();
+	/**
+	 * Returns the sorted union of two sorted alphabets.
+	 */
+	private static char[] union(char[] a, char[] b) {
+		StringBuffer buffer = new StringBuffer();
+		int i = 0, j = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j]))
+				buffer.append(a[i++]);
+			else if (i == a.length || b[j] < a[i])
+				buffer.append(b[j++]);
+			else {
+				buffer.append(a[i++]);
+				j++;
+			}
+		}
+		return buffer.toString().toCharArray();
+	}
 }
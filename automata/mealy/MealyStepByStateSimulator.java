@@ -140,13 +140,14 @@ public class MealyStepByStateSimulator extends AutomatonSimulator
     public boolean simulateInput(String input) 
     {
         myConfigurations.clear();
+        startRun();
         Configuration[] initialConfigs = getInitialConfigurations(input);
         myConfigurations.addAll(Arrays.asList(initialConfigs));
 
         while(!myConfigurations.isEmpty())
         {
             if(isAccepted())
-                return true;
+                return finishRun(input, true);
             ArrayList<Configuration> configurationsToAdd = new ArrayList<>();
             Iterator<Configuration> it = myConfigurations.iterator();
             while(it.hasNext())
@@ -156,7 +157,9 @@ public class MealyStepByStateSimulator extends AutomatonSimulator
                 it.remove();
             }
             myConfigurations.addAll(configurationsToAdd);
+            if (!myBudget.step(myConfigurations.size(), myPolicy))
+                return finishRun(input, false);
         }
-        return false;
+        return finishRun(input, false);
     }
 }
@@ -0,0 +1,213 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package automata.mealy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import automata.Automaton;
+import automata.State;
+import automata.StreamSimulator;
+import automata.Transition;
+
+/**
+ * The Mealy stream simulator runs a stream of input on a deterministic Mealy
+ * or Moore machine in constant memory, writing the output of the machine as
+ * it goes. The labels leaving each state are merged into a tree of single
+ * characters, so labels longer than one character are read a character at a
+ * time without looking ahead; the output of a transition is written once its
+ * whole label has been read. The input is accepted if all of it is read and
+ * the machine is not part way through a label. The machine is compiled when
+ * the simulator is created, so changes made to it afterwards are not seen.
+ * 
+ * @see MealyStepByStateSimulator
+ */
+
+public class MealyStreamSimulator extends StreamSimulator {
+	/**
+	 * Creates a Mealy stream simulator for the given machine.
+	 * 
+	 * @param automaton
+	 *            the Mealy or Moore machine to simulate
+	 * @param output
+	 *            where the output of the machine is written, or
+	 *            <CODE>null</CODE> if it is not wanted
+	 * @throws IllegalArgumentException
+	 *             if the machine is nondeterministic or has a lambda
+	 *             transition
+	 */
+	public MealyStreamSimulator(Automaton automaton, Appendable output) {
+		myOutput = output;
+		State[] states = automaton.getStates();
+		myStateCount = states.length;
+		HashMap<State, Integer> index = new HashMap<>();
+		for (int k = 0; k < states.length; k++)
+			index.put(states[k], k);
+		if (automaton.getInitialState() != null) {
+			myInitial = index.get(automaton.getInitialState());
+			if (automaton instanceof MooreMachine)
+				myInitialOutput = ((MooreMachine) automaton)
+						.getOutput(automaton.getInitialState());
+		}
+
+		// Build the tree of labels from each state.
+		ArrayList<HashMap<Character, Integer>> targets = new ArrayList<>();
+		ArrayList<HashMap<Character, String>> outputs = new ArrayList<>();
+		for (int k = 0; k < states.length; k++) {
+			targets.add(new HashMap<Character, Integer>());
+			outputs.add(new HashMap<Character, String>());
+		}
+		for (int k = 0; k < states.length; k++) {
+			Transition[] transitions = automaton
+					.getTransitionsFromState(states[k]);
+			for (int i = 0; i < transitions.length; i++) {
+				MealyTransition transition = (MealyTransition) transitions[i];
+				String label = transition.getLabel();
+				if (label.length() == 0)
+					throw new IllegalArgumentException(
+							"Lambda transitions cannot be streamed.");
+				int node = k;
+				for (int j = 0; j < label.length(); j++) {
+					char c = label.charAt(j);
+					Integer next = targets.get(node).get(c);
+					if (outputs.get(node).containsKey(c)
+							|| (next != null && j == label.length() - 1))
+						throw new IllegalArgumentException(
+								"Only deterministic machines can be streamed.");
+					if (j == label.length() - 1) {
+						targets.get(node).put(c,
+								index.get(transition.getToState()));
+						String out = transition.getOutput();
+						outputs.get(node).put(c, out == null ? "" : out);
+					} else if (next == null) {
+						next = targets.size();
+						targets.add(new HashMap<Character, Integer>());
+						outputs.add(new HashMap<Character, String>());
+						targets.get(node).put(c, next);
+						node = next;
+					} else
+						node = next;
+				}
+			}
+		}
+
+		// Flatten the tree into a table indexed by node and symbol class.
+		int maxChar = -1;
+		for (int k = 0; k < targets.size(); k++)
+			for (Character c : targets.get(k).keySet())
+				maxChar = Math.max(maxChar, c);
+		myClasses = new int[maxChar + 1];
+		Arrays.fill(myClasses, -1);
+		int symbols = 0;
+		for (int k = 0; k < targets.size(); k++)
+			for (Character c : targets.get(k).keySet())
+				if (myClasses[c] == -1)
+					myClasses[c] = symbols++;
+		myTable = new int[targets.size()][symbols];
+		myOutputs = new String[targets.size()][symbols];
+		for (int k = 0; k < targets.size(); k++) {
+			Arrays.fill(myTable[k], -1);
+			for (Character c : targets.get(k).keySet()) {
+				myTable[k][myClasses[c]] = targets.get(k).get(c);
+				myOutputs[k][myClasses[c]] = outputs.get(k).get(c);
+			}
+		}
+	}
+
+	protected boolean reset() throws IOException {
+		if (myInitial == -1)
+			return false;
+		myNode = myInitial;
+		if (myOutput != null && myInitialOutput != null)
+			myOutput.append(myInitialOutput);
+		return true;
+	}
+
+	protected int read(char[] buffer, int offset, int length)
+			throws IOException {
+		for (int i = 0; i < length; i++)
+			if (!step(buffer[offset + i]))
+				return i;
+		return length;
+	}
+
+	protected int read(byte[] buffer, int offset, int length)
+			throws IOException {
+		for (int i = 0; i < length; i++)
+			if (!step((char) (buffer[offset + i] & 0xff)))
+				return i;
+		return length;
+	}
+
+	protected boolean isAccept() {
+		return myNode < myStateCount;
+	}
+
+	/**
+	 * Moves the machine on a character, writing any output.
+	 * 
+	 * @param c
+	 *            the character read
+	 * @return <CODE>false</CODE> if the machine has no transition on the
+	 *         character
+	 * @throws IOException
+	 *             if writing the output fails
+	 */
+	private boolean step(char c) throws IOException {
+		int symbol = c < myClasses.length ? myClasses[c] : -1;
+		if (symbol == -1)
+			return false;
+		int next = myTable[myNode][symbol];
+		if (next == -1)
+			return false;
+		String output = myOutputs[myNode][symbol];
+		if (output != null && myOutput != null)
+			myOutput.append(output);
+		myNode = next;
+		return true;
+	}
+
+	/** Where the output is written, or <CODE>null</CODE>. */
+	private Appendable myOutput;
+
+	/** The number of states; nodes past these are inside labels. */
+	private int myStateCount;
+
+	/** The initial node, or -1 if there is no initial state. */
+	private int myInitial = -1;
+
+	/** The output of the initial state of a Moore machine. */
+	private String myInitialOutput = null;
+
+	/** The mapping of characters to symbol classes. */
+	private int[] myClasses;
+
+	/** The next node, indexed by node and symbol class, or -1. */
+	private int[][] myTable;
+
+	/** The output written when a label is finished, or <CODE>null</CODE>. */
+	private String[][] myOutputs;
+
+	/** The current node. */
+	private int myNode;
+}
@@ -14,16 +14,22 @@
  *
  */
 
-
-
-
-
 package automata.pda;
 
 import java.io.Serializable;
 
 /**
  * A character stack. Allows the pushing and popping of individual <CODE>char</CODE>s.
+ * <P>
+ * The characters are kept as a list of immutable cells from the top of the
+ * stack down, so a stack and the stacks made from it share the cells below
+ * what they changed. Copying a stack, pushing a character and popping one
+ * each take constant time, and the many stacks of the configurations of a
+ * nondeterministic run share their common bottoms rather than each holding
+ * all of its characters. Each cell keeps the height and hash code of the
+ * stack it is the top of, so stacks of different heights or hash codes are
+ * told apart at once, and stacks that share cells are compared only down to
+ * the first shared one.
  * 
  * @author Thomas Finley
  */
@@ -43,12 +49,24 @@ public class CharacterStack implements Serializable {
 
 	/**
 	 * Instantiates a character stack that is a copy of a given character stack.
+	 * The copy shares the cells of the given stack, so this takes constant
+	 * time.
 	 * 
 	 * @param stack
 	 *            the character stack to copy
 	 */
 	public CharacterStack(CharacterStack stack) {
-		this.buffer = new StringBuffer(stack.buffer.toString());
+		myTop = stack.myTop;
+	}
+
+	/**
+	 * Instantiates a character stack with the given top cell.
+	 * 
+	 * @param top
+	 *            the top cell, or <CODE>null</CODE> for an empty stack
+	 */
+	private CharacterStack(Cell top) {
+		myTop = top;
 	}
 
 	/**
@@ -58,8 +76,7 @@ public class CharacterStack implements Serializable {
 	 *            the character to push onto the stack
 	 */
 	public void push(char character) {
-		buffer.insert(0, character);
-		cachedHash = 0xdeadbeef;
+		myTop = new Cell(character, myTop);
 	}
 
 	/**
@@ -70,16 +87,29 @@ public class CharacterStack implements Serializable {
 	 *            the strings characters which we push onto the stack
 	 */
 	public void push(String string) {
-		buffer.insert(0, string);
-		cachedHash = 0xdeadbeef;
+		myTop = push(myTop, string);
+	}
+
+	/**
+	 * Returns the top cell of a stack with a string pushed on another.
+	 * 
+	 * @param top
+	 *            the top cell of the other stack, or <CODE>null</CODE>
+	 * @param string
+	 *            the string, whose first character ends up on top
+	 * @return the top cell of the new stack
+	 */
+	private static Cell push(Cell top, String string) {
+		for (int i = string.length() - 1; i >= 0; i--)
+			top = new Cell(string.charAt(i), top);
+		return top;
 	}
 
 	/**
 	 * Clears the stack.
 	 */
 	public void clear() {
-		buffer = new StringBuffer();
-		cachedHash = 0xdeadbeef;
+		myTop = null;
 	}
 
 	/**
@@ -88,7 +118,16 @@ public class CharacterStack implements Serializable {
 	 * @return the number of characters on this stack
 	 */
 	public int height() {
-		return buffer.length();
+		return myTop == null ? 0 : myTop.myHeight;
+	}
+
+	/**
+	 * Returns the character on top of this stack, without popping it.
+	 * 
+	 * @return the top character, or -1 if the stack is empty
+	 */
+	public int peek() {
+		return myTop == null ? -1 : myTop.myCharacter;
 	}
 
 	/**
@@ -99,10 +138,11 @@ public class CharacterStack implements Serializable {
 	 *         the stack
 	 */
 	public char pop() {
-		char[] toReturn = new char[1];
-		buffer.getChars(0, 1, toReturn, 0);
-		buffer.deleteCharAt(0);
-		return toReturn[0];
+		if (myTop == null)
+			return 0;
+		char character = myTop.myCharacter;
+		myTop = myTop.myNext;
+		return character;
 	}
 
 	/**
@@ -117,21 +157,89 @@ public class CharacterStack implements Serializable {
 	 *         stack
 	 */
 	public String pop(int number) {
-		if (buffer.length() < number)
+		if (height() < number)
 			return null;
 		char[] c = new char[number];
-		buffer.getChars(0, number, c, 0);
-		buffer.delete(0, number);
+		for (int i = 0; i < number; i++) {
+			c[i] = myTop.myCharacter;
+			myTop = myTop.myNext;
+		}
 		return new String(c);
 	}
 
+	/**
+	 * Returns if the top of this stack is a string, that is, if popping as
+	 * many characters as it has would return it. The stack is not changed.
+	 * 
+	 * @param string
+	 *            the string, whose first character is compared with the top
+	 * @return <CODE>true</CODE> if the stack begins with the string
+	 */
+	public boolean startsWith(String string) {
+		if (height() < string.length())
+			return false;
+		Cell cell = myTop;
+		for (int i = 0; i < string.length(); i++, cell = cell.myNext)
+			if (cell.myCharacter != string.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns a new stack like this one with some characters popped and a
+	 * string pushed in their place. This stack is not changed, and the new
+	 * stack shares the cells below the characters popped with it.
+	 * 
+	 * @param number
+	 *            the number of characters to pop
+	 * @param string
+	 *            the string to push, whose first character ends up on top
+	 * @return the new stack, or <CODE>null</CODE> if there are not
+	 *         <CODE>number</CODE> characters on this stack
+	 */
+	public CharacterStack replaceTop(int number, String string) {
+		if (height() < number)
+			return null;
+		Cell top = myTop;
+		for (int i = 0; i < number; i++)
+			top = top.myNext;
+		return new CharacterStack(push(top, string));
+	}
+
+	/**
+	 * Returns a new stack like this one with some characters popped and
+	 * others pushed in their place, given in the order they are pushed, so
+	 * that the last ends up on top. This stack is not changed, and the new
+	 * stack shares the cells below the characters popped with it.
+	 * 
+	 * @param number
+	 *            the number of characters to pop
+	 * @param reversed
+	 *            the characters to push, the last on top
+	 * @return the new stack, or <CODE>null</CODE> if there are not
+	 *         <CODE>number</CODE> characters on this stack
+	 */
+	public CharacterStack replaceTop(int number, char[] reversed) {
+		if (height() < number)
+			return null;
+		Cell top = myTop;
+		for (int i = 0; i < number; i++)
+			top = top.myNext;
+		for (int i = 0; i < reversed.length; i++)
+			top = new Cell(reversed[i], top);
+		return new CharacterStack(top);
+	}
+
 	/**
 	 * Returns a string representation of this object.
 	 * 
 	 * @return a string representation of this object
 	 */
 	public String toString() {
-		return buffer.toString();
+		StringBuilder string = new StringBuilder(height());
+		for (Cell cell = myTop; cell != null; cell = cell.myNext)
+			string.append(cell.myCharacter);
+		return string.toString();
 	}
 
 	/**
@@ -144,12 +252,18 @@ public class CharacterStack implements Serializable {
 	 *         otherwise
 	 */
 	public boolean equals(Object stack) {
-		try {
-			return ((CharacterStack) stack).buffer.toString().equals(
-					buffer.toString());
-		} catch (ClassCastException e) {
+		if (!(stack instanceof CharacterStack))
 			return false;
-		}
+		Cell a = myTop, b = ((CharacterStack) stack).myTop;
+		if (a == b)
+			return true;
+		if (a == null || b == null || a.myHeight != b.myHeight
+				|| a.myHash != b.myHash)
+			return false;
+		for (; a != b; a = a.myNext, b = b.myNext)
+			if (a.myCharacter != b.myCharacter)
+				return false;
+		return true;
 	}
 
 	/**
@@ -158,14 +272,44 @@ public class CharacterStack implements Serializable {
 	 * @return a hash value for this character stack
 	 */
 	public int hashCode() {
-		if (cachedHash != 0xdeadbeef)
-			return cachedHash;
-		return cachedHash = buffer.toString().hashCode();
+		return myTop == null ? 0 : myTop.myHash;
 	}
 
-	/** The string buffer. */
-	private StringBuffer buffer = new StringBuffer();
+	/**
+	 * A <CODE>Cell</CODE> holds one character of a stack and the cells below
+	 * it. Cells never change, so they may be shared by any number of stacks.
+	 */
+	private static final class Cell implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Instantiates a cell.
+		 * 
+		 * @param character
+		 *            the character
+		 * @param next
+		 *            the cell below, or <CODE>null</CODE> at the bottom
+		 */
+		Cell(char character, Cell next) {
+			myCharacter = character;
+			myNext = next;
+			myHeight = next == null ? 1 : next.myHeight + 1;
+			myHash = (next == null ? 0 : next.myHash) * 31 + character;
+		}
+
+		/** The character. */
+		final char myCharacter;
+
+		/** The cell below, or <CODE>null</CODE> at the bottom. */
+		final Cell myNext;
+
+		/** The height of the stack this cell is the top of. */
+		final int myHeight;
+
+		/** The hash code of the stack this cell is the top of. */
+		final int myHash;
+	}
 
-	/** The cached hash value. */
-	private int cachedHash = 0xdeadbeef;
+	/** The top cell, or <CODE>null</CODE> if the stack is empty. */
+	private Cell myTop;
 }
@@ -0,0 +1,223 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.pda;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import automata.SimulationBudget;
+import automata.SimulationPolicy;
+import automata.State;
+
+/**
+ * A compiled DPDA is a form of a deterministic pushdown automaton that
+ * follows the single path of a run without making configurations. The stack
+ * is kept in an array of characters that grows as needed, and the transitions
+ * of each state are looked up in a table by the next character of input and
+ * the character on top of the stack, as the {@link PDATransitionIndex} does,
+ * so a step allocates nothing. Unless the path of the run is asked for,
+ * only the configuration the run ends in is made. States are numbered by
+ * their position in the array the automaton returned from
+ * <CODE>getStates</CODE>.
+ * <P>
+ * The automaton is read when the compiled DPDA is made, so changes made to
+ * it afterwards are not seen. The {@link CompiledDPDACache} of the automaton
+ * compiles it again when it changes.
+ * 
+ * @see PDANondeterminismDetector#isDeterministic
+ */
+
+public class CompiledDPDA {
+	/**
+	 * Compiles a pushdown automaton if it is deterministic and has an initial
+	 * state. Callers need not check either first.
+	 * 
+	 * @param automaton
+	 *            the pushdown automaton
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         is not deterministic or has no initial state
+	 */
+	public static CompiledDPDA compile(PushdownAutomaton automaton) {
+		if (automaton.getInitialState() == null
+				|| !new PDANondeterminismDetector().isDeterministic(automaton))
+			return null;
+		return new CompiledDPDA(automaton);
+	}
+
+	/**
+	 * Compiles a pushdown automaton, which has been found to be
+	 * deterministic and to have an initial state.
+	 * 
+	 * @param automaton
+	 *            the deterministic pushdown automaton
+	 */
+	private CompiledDPDA(PushdownAutomaton automaton) {
+		myStates = automaton.getStates();
+		Map<State, Integer> numbers = PDATransitionIndex
+				.getNumbers(myStates);
+		myInitial = numbers.get(automaton.getInitialState());
+		myFinals = new boolean[myStates.length];
+		myIndices = new PDATransitionIndex.StateIndex[myStates.length];
+		for (int i = 0; i < myStates.length; i++) {
+			myFinals[i] = automaton.isFinalState(myStates[i]);
+			myIndices[i] = new PDATransitionIndex.StateIndex(automaton
+					.getTransitionsFromState(myStates[i]), numbers);
+		}
+	}
+
+	/**
+	 * Returns the configuration the machine ends in after running the input:
+	 * the first accepting configuration reached, the configuration on which
+	 * no transition applied, or the configuration reached when the budget
+	 * ran out.
+	 * 
+	 * @param input
+	 *            the input to run on the automaton
+	 * @param acceptByFinalState
+	 *            <CODE>true</CODE> to accept by final state,
+	 *            <CODE>false</CODE> to accept by empty stack
+	 * @param budget
+	 *            the budget of the run, already started, or
+	 *            <CODE>null</CODE> for no limits; each step counts as one
+	 *            configuration generated
+	 * @param policy
+	 *            the policy that decides whether to go on when a limit is
+	 *            reached, or <CODE>null</CODE> to always stop
+	 * @param path
+	 *            <CODE>true</CODE> to make a configuration for each step, so
+	 *            that the configuration returned has the path that led to
+	 *            it, <CODE>false</CODE> to make only the last one, which
+	 *            then has no parent
+	 * @return the configuration the machine ends in, which accepts if and
+	 *         only if the input is accepted
+	 */
+	public PDAConfiguration getFinalConfiguration(String input,
+			boolean acceptByFinalState, SimulationBudget budget,
+			SimulationPolicy policy, boolean path) {
+		char[] stack = new char[INITIAL_CAPACITY];
+		int height = 0;
+		stack[height++] = INITIAL;
+		int state = myInitial;
+		int acceptance = acceptByFinalState ? PDAConfiguration.FINAL_STATE
+				: PDAConfiguration.EMPTY_STACK;
+		PDAConfiguration configuration = null;
+		CharacterStack characters = null;
+		if (path) {
+			characters = new CharacterStack();
+			characters.push(INITIAL);
+			configuration = new PDAConfiguration(myStates[state], null,
+					input, 0, characters, acceptance);
+		}
+		int position = 0;
+		int length = input.length();
+		int pending = 0;
+		while (position < length
+				|| !(acceptByFinalState ? myFinals[state] : height == 0)) {
+			PDATransitionIndex.Entry[] entries = myIndices[state].get(
+					position < length ? input.charAt(position) : -1,
+					height == 0 ? -1 : stack[height - 1]);
+			PDATransitionIndex.Entry entry = null;
+			for (int i = 0; i < entries.length && entry == null; i++)
+				if (applies(entries[i], input, position, stack, height))
+					entry = entries[i];
+			if (entry == null)
+				break;
+			height -= entry.myPop.length();
+			char[] push = entry.myPush;
+			if (height + push.length > stack.length)
+				stack = Arrays.copyOf(stack, Math.max(stack.length * 2,
+						height + push.length));
+			System.arraycopy(push, 0, stack, height, push.length);
+			height += push.length;
+			position += entry.myRead.length();
+			state = entry.myToNumber;
+			if (path) {
+				characters = characters.replaceTop(entry.myPop.length(), push);
+				configuration = new PDAConfiguration(myStates[state],
+						configuration, input, position, characters, acceptance);
+			}
+			if (budget != null && ++pending == BUDGET_STEP) {
+				pending = 0;
+				if (!budget.advance(BUDGET_STEP, policy))
+					break;
+			}
+		}
+		if (budget != null && pending > 0)
+			budget.advance(pending, policy);
+		if (path)
+			return configuration;
+		characters = new CharacterStack();
+		for (int i = 0; i < height; i++)
+			characters.push(stack[i]);
+		return new PDAConfiguration(myStates[state], null, input, position,
+				characters, acceptance);
+	}
+
+	/**
+	 * Returns if a transition looked up for a configuration applies to it.
+	 * 
+	 * @param entry
+	 *            the transition
+	 * @param input
+	 *            the input
+	 * @param position
+	 *            the position in the input
+	 * @param stack
+	 *            the stack, from the bottom up
+	 * @param height
+	 *            the height of the stack
+	 * @return <CODE>true</CODE> if the transition applies
+	 */
+	private static boolean applies(PDATransitionIndex.Entry entry,
+			String input, int position, char[] stack, int height) {
+		if (entry.myChecked)
+			return true;
+		String pop = entry.myPop;
+		if (pop.length() > height || !input.startsWith(entry.myRead, position))
+			return false;
+		for (int i = 0; i < pop.length(); i++)
+			if (stack[height - 1 - i] != pop.charAt(i))
+				return false;
+		return true;
+	}
+
+	/** The symbol on the stack at the start. */
+	private static final char INITIAL = 'Z';
+
+	/** The room for characters the stack starts with. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** How many steps are taken between checks of the budget. */
+	private static final int BUDGET_STEP = 1024;
+
+	/** The states of the automaton, indexed by state number. */
+	private State[] myStates;
+
+	/** The number of the initial state. */
+	private int myInitial;
+
+	/** Whether each state is a final state. */
+	private boolean[] myFinals;
+
+	/** The table of the transitions out of each state. */
+	private PDATransitionIndex.StateIndex[] myIndices;
+}
@@ -0,0 +1,110 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+package automata.pda;
+
+import automata.event.AutomataStateEvent;
+import automata.event.AutomataStateListener;
+import automata.event.AutomataTransitionEvent;
+import automata.event.AutomataTransitionListener;
+
+/**
+ * The compiled DPDA cache keeps the {@link CompiledDPDA} of a pushdown
+ * automaton until the automaton changes. The cache listens to the automaton,
+ * and forgets the compiled form whenever a state is added, removed, made
+ * initial or final, or a transition is added, removed or changed. Each
+ * pushdown automaton has its own cache, which is got from
+ * {@link PushdownAutomaton#getCompiledDPDACache}.
+ * 
+ * @see CompiledDPDA#compile
+ */
+
+public class CompiledDPDACache implements AutomataStateListener,
+		AutomataTransitionListener {
+	/**
+	 * Instantiates a compiled DPDA cache for an automaton, and registers it
+	 * to hear of changes to the automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton whose compiled form is kept
+	 */
+	public CompiledDPDACache(PushdownAutomaton automaton) {
+		myAutomaton = automaton;
+		automaton.addStateListener(this);
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Returns the compiled form of the automaton, compiling it if the
+	 * automaton changed since it was last compiled.
+	 * 
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         is not deterministic or has no initial state
+	 * @see CompiledDPDA#compile
+	 */
+	public synchronized CompiledDPDA getCompiledDPDA() {
+		if (!myValid) {
+			myDPDA = CompiledDPDA.compile(myAutomaton);
+			myValid = true;
+		}
+		return myDPDA;
+	}
+
+	/**
+	 * Forgets the compiled form when a state is added, removed, or made
+	 * initial or final, which are given as label changes, but not when it is
+	 * moved.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public synchronized void automataStateChange(AutomataStateEvent event) {
+		if (!event.isMove())
+			invalidate();
+	}
+
+	/**
+	 * Forgets the compiled form when a transition is added, removed or
+	 * changed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public synchronized void automataTransitionChange(
+			AutomataTransitionEvent event) {
+		invalidate();
+	}
+
+	/**
+	 * Forgets the compiled form.
+	 */
+	private void invalidate() {
+		myValid = false;
+		myDPDA = null;
+	}
+
+	/** The automaton whose compiled form is kept. */
+	private PushdownAutomaton myAutomaton;
+
+	/** Whether the compiled form is up to date with the automaton. */
+	private boolean myValid = false;
+
+	/** The compiled automaton, or <CODE>null</CODE> if not deterministic. */
+	private CompiledDPDA myDPDA = null;
+}
@@ -28,7 +28,9 @@ import automata.State;
  * A <CODE>PSAConfiguration</CODE> object is a <CODE>Configuration</CODE>
  * object with additional fields for the input string and the stack contents.
  * The current state of the automaton, the stack contents, and the unprocessed
- * input are the only necessary data for the simulation of a PDA.
+ * input are the only necessary data for the simulation of a PDA. The
+ * unprocessed input is kept as a position into the input, which is shared by
+ * all configurations of a simulation.
  * 
  * @author Ryan Cavalcante
  */
@@ -60,9 +62,29 @@ public class PDAConfiguration extends Configuration {
 	 */
 	public PDAConfiguration(State state, PDAConfiguration parent, String input,
 			String unprocessed, CharacterStack stack, int acceptance) {
+		this(state, parent, input, input.length() - unprocessed.length(),
+				stack, acceptance);
+	}
+
+	/**
+	 * Instantiates a new PDAConfiguration.
+	 * 
+	 * @param state
+	 *            the state the automaton is currently in.
+	 * @param parent
+	 *            the immediate ancestor for this configuration
+	 * @param input
+	 *            the original input.
+	 * @param position
+	 *            the number of characters of the input already processed.
+	 * @param stack
+	 *            the stack contents
+	 */
+	public PDAConfiguration(State state, PDAConfiguration parent, String input,
+			int position, CharacterStack stack, int acceptance) {
 		super(state, parent);
 		myInput = input;
-		myUnprocessedInput = unprocessed;
+		myPosition = position;
 		myStack = stack;
 		myAcceptance = acceptance;
 	}
@@ -77,12 +99,32 @@ public class PDAConfiguration extends Configuration {
 	}
 
 	/**
-	 * Returns the unprocessed input.
+	 * Returns how this configuration accepts, to be passed on to the
+	 * configurations made from it.
+	 * 
+	 * @return the acceptance criteria given when this was created
+	 */
+	public int getAcceptance() {
+		return myAcceptance;
+	}
+
+	/**
+	 * Returns the number of characters of the input already processed.
+	 * 
+	 * @return the position of the unprocessed input in the input.
+	 */
+	public int getPosition() {
+		return myPosition;
+	}
+
+	/**
+	 * Returns the unprocessed input. This is made from the input each time it
+	 * is asked for; simulators should use {@link #getPosition} instead.
 	 * 
 	 * @return the unprocessed input.
 	 */
 	public String getUnprocessedInput() {
-		return myUnprocessedInput;
+		return myInput.substring(myPosition);
 	}
 
 	/**
@@ -93,7 +135,7 @@ public class PDAConfiguration extends Configuration {
 	 *            PDA.
 	 */
 	public void setUnprocessedInput(String input) {
-		myUnprocessedInput = input;
+		myPosition = myInput.length() - input.length();
 	}
 
 	/**
@@ -128,14 +170,14 @@ public class PDAConfiguration extends Configuration {
 	 */
 	public boolean isAccept() {
 		if(myAcceptance == FINAL_STATE){
-			if (getUnprocessedInput().length() != 0)
+			if (myPosition != myInput.length())
 				return false;
 			State s = getCurrentState();
 			Automaton a = s.getAutomaton();
 			return a.isFinalState(s);
 		}else if(myAcceptance == EMPTY_STACK){
 			CharacterStack stack = this.getStack();
-			if (this.getUnprocessedInput() == ""
+			if (myPosition == myInput.length()
 					&& stack.height() == 0) {
 				return true;
 			}
@@ -145,8 +187,9 @@ public class PDAConfiguration extends Configuration {
 
 	/**
 	 * Determines whether this configuration equals another configuration. Two
-	 * PDA configurations are equal if they have the same stack, and if they
-	 * satisfy the <CODE>Configuration.equals()</CODE> method.
+	 * PDA configurations are equal if they have the same input, position in it
+	 * and stack, and if they satisfy the <CODE>Configuration.equals()</CODE>
+	 * method.
 	 * 
 	 * @see automata.Configuration#equals
 	 * @param configuration
@@ -158,11 +201,11 @@ public class PDAConfiguration extends Configuration {
 		if (configuration == this)
 			return true;
 		try {
+			PDAConfiguration config = (PDAConfiguration) configuration;
 			return super.equals(configuration)
-					&& myUnprocessedInput
-							.equals(((PDAConfiguration) configuration).myUnprocessedInput)
-					&& myStack
-							.equals(((PDAConfiguration) configuration).myStack);
+					&& myPosition == config.myPosition
+					&& myInput.equals(config.myInput)
+					&& myStack.equals(config.myStack);
 		} catch (ClassCastException e) {
 			return false;
 		}
@@ -175,14 +218,14 @@ public class PDAConfiguration extends Configuration {
 	 */
 	public int hashCode() {
 		return super.hashCode() ^ myStack.hashCode()
-				^ myUnprocessedInput.hashCode();
+				^ (myInput.hashCode() + myPosition * 31);
 	}
 
 	/** The original input. */
 	protected String myInput;
 
-	/** The unprocessed input. */
-	protected String myUnprocessedInput;
+	/** The number of characters of the input processed. */
+	protected int myPosition;
 
 	/** The stack of the PDA. */
 	protected CharacterStack myStack;
@@ -20,7 +20,9 @@
 
 package automata.pda;
 
+import automata.Automaton;
 import automata.NondeterminismDetector;
+import automata.State;
 import automata.Transition;
 
 /**
@@ -78,4 +80,29 @@ public class PDANondeterminismDetector extends NondeterminismDetector {
 			return false;
 	}
 
+	/**
+	 * Returns true if the pushdown automaton is deterministic, that is, if
+	 * no two transitions out of the same state could both apply to one
+	 * configuration. Unlike {@link #getNondeterministicStates}, this does
+	 * not count every lambda transition as nondeterministic: a transition
+	 * that reads nothing only conflicts with transitions that pop a string
+	 * its own pop string is a prefix of, or that is a prefix of it.
+	 * 
+	 * @param automaton
+	 *            the pushdown automaton
+	 * @return true if at most one transition applies to any configuration
+	 */
+	public boolean isDeterministic(Automaton automaton) {
+		State[] states = automaton.getStates();
+		for (int k = 0; k < states.length; k++) {
+			Transition[] transitions = automaton
+					.getTransitionsFromState(states[k]);
+			for (int i = 0; i < transitions.length; i++)
+				for (int p = i + 1; p < transitions.length; p++)
+					if (areNondeterministic(transitions[i], transitions[p]))
+						return false;
+		}
+		return true;
+	}
+
 }
@@ -0,0 +1,666 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.pda;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import automata.SimulationBudget;
+import automata.SimulationPolicy;
+import automata.State;
+import automata.Transition;
+
+/**
+ * The <CODE>PDARecognizer</CODE> decides whether a pushdown automaton accepts
+ * an input in time polynomial in the length of the input and the size of the
+ * automaton, however ambiguous the automaton is and whatever cycles of
+ * lambda transitions it has. Rather than searching configurations, whose
+ * stacks may grow without bound, it works with <I>calls</I>: a state, a
+ * position in the input and the symbol on top of the stack. For each call it
+ * finds the <I>returns</I>, the states and positions the automaton can reach
+ * by the time it has popped that symbol, without ever looking below it. A
+ * transition that pushes symbols is followed through the returns of each
+ * symbol it pushed in turn, as in a graph-structured stack, and a
+ * transition that pops the symbol gives a return. There are only so many
+ * calls and returns, so the saturation ends; every configuration the
+ * automaton reaches has its state, position and top among the calls, so the
+ * input is accepted if a call with all of it read is accepting.
+ * <P>
+ * Transitions that pop several symbols are broken up into transitions that
+ * pop one each through states of their own, and transitions that pop nothing
+ * are tried on every symbol, including a bottom marker kept under the stack
+ * so that an empty stack still has a top. Each return remembers how it was
+ * first found, so once an input is accepted one accepting path can be
+ * rebuilt as {@link PDAConfiguration}s linked to their parents, for the trace
+ * window.
+ */
+
+public class PDARecognizer {
+	/**
+	 * Instantiates a recognizer for a pushdown automaton. Changes made to
+	 * the automaton afterwards are not seen by the recognizer.
+	 * 
+	 * @param automaton
+	 *            the pushdown automaton
+	 * @param acceptByFinalState
+	 *            <CODE>true</CODE> to accept by final state,
+	 *            <CODE>false</CODE> to accept by empty stack
+	 */
+	public PDARecognizer(PushdownAutomaton automaton, boolean acceptByFinalState) {
+		myAcceptance = acceptByFinalState ? PDAConfiguration.FINAL_STATE
+				: PDAConfiguration.EMPTY_STACK;
+		myInitial = automaton.getInitialState();
+		State[] states = automaton.getStates();
+		Map<State, Integer> numbers = new HashMap<>();
+		for (int i = 0; i < states.length; i++)
+			numbers.put(states[i], i);
+		Transition[] transitions = automaton.getTransitions();
+		StringBuilder symbols = new StringBuilder(String.valueOf(INITIAL));
+		for (int i = 0; i < transitions.length; i++) {
+			PDATransition transition = (PDATransition) transitions[i];
+			addSymbols(transition.getStringToPop(), symbols);
+			addSymbols(transition.getStringToPush(), symbols);
+		}
+		mySymbols = symbols.append(BOTTOM).toString();
+		myBottom = mySymbols.length() - 1;
+
+		// Break the transitions into rules that pop exactly one symbol.
+		myFinals = new boolean[states.length];
+		for (int i = 0; i < states.length; i++)
+			myFinals[i] = automaton.isFinalState(states[i]);
+		myOriginalStates = states.length;
+		int stateCount = states.length;
+		List<Rule> rules = new ArrayList<>();
+		for (int i = 0; i < transitions.length; i++) {
+			PDATransition transition = (PDATransition) transitions[i];
+			int from = numbers.get(transition.getFromState());
+			int to = numbers.get(transition.getToState());
+			String pop = transition.getStringToPop();
+			int[] push = getSymbols(transition.getStringToPush());
+			String read = transition.getInputToRead();
+			if (pop.length() == 0) {
+				for (int symbol = 0; symbol <= myBottom; symbol++) {
+					int[] replace = new int[push.length + 1];
+					System.arraycopy(push, 0, replace, 0, push.length);
+					replace[push.length] = symbol;
+					rules.add(new Rule(from, symbol, read, to, replace,
+							transition));
+				}
+				continue;
+			}
+			int current = from;
+			for (int k = 0; k < pop.length(); k++) {
+				boolean last = k == pop.length() - 1;
+				int next = last ? to : stateCount++;
+				rules.add(new Rule(current, mySymbols.indexOf(pop.charAt(k)),
+						k == 0 ? read : "", next, last ? push : NONE,
+						last ? transition : null));
+				current = next;
+			}
+		}
+		myRules = new Rule[stateCount][myBottom + 1][];
+		for (int s = 0; s < stateCount; s++)
+			for (int a = 0; a <= myBottom; a++)
+				myRules[s][a] = NO_RULES;
+		for (int i = 0; i < rules.size(); i++) {
+			Rule rule = rules.get(i);
+			rule.myNumber = i;
+			Rule[] old = myRules[rule.myFrom][rule.mySymbol];
+			Rule[] grown = new Rule[old.length + 1];
+			System.arraycopy(old, 0, grown, 0, old.length);
+			grown[old.length] = rule;
+			myRules[rule.myFrom][rule.mySymbol] = grown;
+		}
+		myStart = new Rule(-1, -1, "", myInitial == null ? -1
+				: numbers.get(myInitial), new int[] {
+				mySymbols.indexOf(INITIAL), myBottom }, null);
+		myStart.myNumber = rules.size();
+		myStateCount = stateCount;
+	}
+
+	/**
+	 * Adds the characters of a string that are not yet symbols.
+	 * 
+	 * @param string
+	 *            the string
+	 * @param symbols
+	 *            the symbols so far
+	 */
+	private static void addSymbols(String string, StringBuilder symbols) {
+		for (int i = 0; i < string.length(); i++)
+			if (symbols.indexOf(String.valueOf(string.charAt(i))) == -1)
+				symbols.append(string.charAt(i));
+	}
+
+	/**
+	 * Returns the numbers of the symbols of a string, the first on top.
+	 * 
+	 * @param string
+	 *            the string
+	 * @return the numbers of its symbols
+	 */
+	private int[] getSymbols(String string) {
+		int[] symbols = new int[string.length()];
+		for (int i = 0; i < symbols.length; i++)
+			symbols[i] = mySymbols.indexOf(string.charAt(i));
+		return symbols;
+	}
+
+	/**
+	 * Sets the limits of a run. Each item found counts as a configuration
+	 * generated.
+	 * 
+	 * @param budget
+	 *            the budget, which is copied, or <CODE>null</CODE> for no
+	 *            limits
+	 * @param policy
+	 *            the policy that decides whether to go on when a limit is
+	 *            reached, or <CODE>null</CODE> to always stop
+	 */
+	public void setBudget(SimulationBudget budget, SimulationPolicy policy) {
+		myBudget = budget == null ? null : new SimulationBudget(budget);
+		myPolicy = policy;
+	}
+
+	/**
+	 * Returns the limit that stopped the last run.
+	 * 
+	 * @return the limit, or <CODE>null</CODE> if the last run finished
+	 */
+	public SimulationBudget.Limit getExceeded() {
+		return myBudget == null ? null : myBudget.getExceeded();
+	}
+
+	/**
+	 * Returns if the automaton accepts an input.
+	 * 
+	 * @param input
+	 *            the input
+	 * @return <CODE>true</CODE> if the input is accepted, <CODE>false</CODE>
+	 *         if it is rejected or the run was stopped by the budget
+	 */
+	public boolean accepts(String input) {
+		return run(input) != null;
+	}
+
+	/**
+	 * Returns an accepting configuration for an input, whose ancestors are
+	 * the configurations of one accepting path from the initial
+	 * configuration.
+	 * 
+	 * @param input
+	 *            the input
+	 * @return the last configuration of an accepting path, or
+	 *         <CODE>null</CODE> if the input is rejected or the run was
+	 *         stopped by the budget
+	 */
+	public PDAConfiguration getAcceptingConfiguration(String input) {
+		Call accepting = run(input);
+		if (accepting == null)
+			return null;
+		// The rules applied, from the end of the path back to its start.
+		List<Rule> path = new ArrayList<>();
+		for (Call call = accepting; call != null; call = call.myCaller.myOrigin) {
+			List<Rule> rules = getRules(call.myCaller);
+			for (int i = rules.size() - 1; i >= 0; i--)
+				path.add(rules.get(i));
+		}
+		Collections.reverse(path);
+		CharacterStack stack = new CharacterStack();
+		stack.push(INITIAL);
+		PDAConfiguration config = new PDAConfiguration(myInitial, null, input,
+				0, stack, myAcceptance);
+		for (int i = 0; i < path.size(); i++) {
+			PDATransition transition = path.get(i).myTransition;
+			if (transition == null)
+				continue;
+			config = new PDAConfiguration(transition.getToState(), config,
+					input, config.getPosition()
+							+ transition.getInputToRead().length(), config
+							.getStack().replaceTop(
+									transition.getStringToPop().length(),
+									transition.getStringToPush()),
+					myAcceptance);
+		}
+		return config;
+	}
+
+	/**
+	 * Returns the rules applied on the way to an item from its call, in
+	 * order, following the returns it went through.
+	 * 
+	 * @param item
+	 *            the item
+	 * @return the rules applied
+	 */
+	private List<Rule> getRules(Item item) {
+		List<Rule> rules = new ArrayList<>();
+		Deque<Object> todo = new ArrayDeque<>();
+		todo.push(item);
+		while (!todo.isEmpty()) {
+			Object next = todo.pop();
+			if (next instanceof Return) {
+				todo.push(((Return) next).myWitness);
+				continue;
+			}
+			Item current = (Item) next;
+			if (current.myPrevious == null) {
+				if (current.myRule != myStart)
+					rules.add(current.myRule);
+				continue;
+			}
+			todo.push(current.myVia);
+			todo.push(current.myPrevious);
+		}
+		return rules;
+	}
+
+	/**
+	 * Saturates the calls and returns of an input until an accepting call is
+	 * found.
+	 * 
+	 * @param input
+	 *            the input
+	 * @return an accepting call, or <CODE>null</CODE> if there is none or
+	 *         the budget ran out
+	 */
+	private Call run(String input) {
+		myInput = input;
+		myCalls = new HashMap<>();
+		myWork = new ArrayDeque<>();
+		myAccepting = null;
+		if (myBudget != null)
+			myBudget.start();
+		if (myInitial == null)
+			return null;
+		Item start = new Item(null, myStart, 0, myStart.myTo, 0, null, null);
+		myWork.add(start);
+		int pending = 0;
+		while (!myWork.isEmpty() && myAccepting == null) {
+			process(myWork.poll());
+			if (myBudget != null && ++pending == BUDGET_STEP) {
+				if (!myBudget.step(pending, myPolicy))
+					return null;
+				pending = 0;
+			}
+		}
+		Call accepting = myAccepting;
+		myCalls = null;
+		myWork = null;
+		return accepting;
+	}
+
+	/**
+	 * Processes an item: if it has followed every symbol its rule pushed it
+	 * gives a return of its call, and otherwise it waits on the call of the
+	 * next symbol and goes on through the returns that call has so far.
+	 * 
+	 * @param item
+	 *            the item
+	 */
+	private void process(Item item) {
+		int[] push = item.myRule.myPush;
+		if (item.myPushed == push.length) {
+			addReturn(item.myOrigin, item.myState, item.myPosition, item);
+			return;
+		}
+		Call call = getCall(item.myState, item.myPosition,
+				push[item.myPushed], item);
+		call.myWaiting.add(item);
+		for (int i = 0; i < call.myReturns.size(); i++)
+			advance(item, call.myReturns.get(i));
+	}
+
+	/**
+	 * Returns a call, making it and queueing the items of the rules that
+	 * apply to it if it is new.
+	 * 
+	 * @param state
+	 *            the number of the state
+	 * @param position
+	 *            the position in the input
+	 * @param symbol
+	 *            the number of the symbol on top
+	 * @param caller
+	 *            the item the call is made for
+	 * @return the call
+	 */
+	private Call getCall(int state, int position, int symbol, Item caller) {
+		long key = ((long) state * (myInput.length() + 1) + position)
+				* (myBottom + 1) + symbol;
+		Call call = myCalls.get(key);
+		if (call != null)
+			return call;
+		call = new Call(caller);
+		myCalls.put(key, call);
+		if (position == myInput.length() && state < myOriginalStates
+				&& (myAcceptance == PDAConfiguration.FINAL_STATE ? myFinals[state]
+						: symbol == myBottom))
+			myAccepting = call;
+		Rule[] rules = myRules[state][symbol];
+		for (int i = 0; i < rules.length; i++)
+			if (myInput.startsWith(rules[i].myRead, position))
+				add(new Item(call, rules[i], 0, rules[i].myTo, position
+						+ rules[i].myRead.length(), null, null));
+		return call;
+	}
+
+	/**
+	 * Adds a return to a call, if it is new, and moves on every item waiting
+	 * on the call through it.
+	 * 
+	 * @param call
+	 *            the call
+	 * @param state
+	 *            the state returned to
+	 * @param position
+	 *            the position returned to
+	 * @param witness
+	 *            the item that found the return
+	 */
+	private void addReturn(Call call, int state, int position, Item witness) {
+		if (call == null)
+			return;
+		if (!call.myReturnKeys.add((long) state * (myInput.length() + 1)
+				+ position))
+			return;
+		Return found = new Return(state, position, witness);
+		call.myReturns.add(found);
+		for (int i = 0; i < call.myWaiting.size(); i++)
+			advance(call.myWaiting.get(i), found);
+	}
+
+	/**
+	 * Moves an item on past the symbol it waits on, through a return of the
+	 * call of that symbol.
+	 * 
+	 * @param item
+	 *            the item
+	 * @param found
+	 *            the return
+	 */
+	private void advance(Item item, Return found) {
+		add(new Item(item.myOrigin, item.myRule, item.myPushed + 1,
+				found.myState, found.myPosition, item, found));
+	}
+
+	/**
+	 * Queues an item, unless an item at the same point of the same rule of
+	 * the same call was queued before.
+	 * 
+	 * @param item
+	 *            the item
+	 */
+	private void add(Item item) {
+		long key = (((long) item.myRule.myNumber * MAX_PUSH + item.myPushed)
+				* myStateCount + item.myState)
+				* (myInput.length() + 1) + item.myPosition;
+		Set<Long> seen = item.myOrigin == null ? new HashSet<Long>()
+				: item.myOrigin.myItems;
+		if (seen.add(key))
+			myWork.add(item);
+	}
+
+	/**
+	 * A <CODE>Rule</CODE> pops exactly one symbol, reads some input, and
+	 * pushes symbols in its place.
+	 */
+	private static class Rule {
+		/**
+		 * Instantiates a rule.
+		 * 
+		 * @param from
+		 *            the number of the state it leaves
+		 * @param symbol
+		 *            the number of the symbol it pops
+		 * @param read
+		 *            the input it reads
+		 * @param to
+		 *            the number of the state it enters
+		 * @param push
+		 *            the numbers of the symbols it pushes, the first on top
+		 * @param transition
+		 *            the transition it completes, or <CODE>null</CODE> if
+		 *            it is not the last part of one
+		 */
+		Rule(int from, int symbol, String read, int to, int[] push,
+				PDATransition transition) {
+			myFrom = from;
+			mySymbol = symbol;
+			myRead = read;
+			myTo = to;
+			myPush = push;
+			myTransition = transition;
+		}
+
+		/** The number of the rule. */
+		int myNumber;
+
+		/** The number of the state it leaves. */
+		final int myFrom;
+
+		/** The number of the symbol it pops. */
+		final int mySymbol;
+
+		/** The input it reads. */
+		final String myRead;
+
+		/** The number of the state it enters. */
+		final int myTo;
+
+		/** The symbols it pushes, the first on top. */
+		final int[] myPush;
+
+		/** The transition it completes, or <CODE>null</CODE>. */
+		final PDATransition myTransition;
+	}
+
+	/**
+	 * A <CODE>Call</CODE> is a state, position and top of stack reached,
+	 * with the items waiting for its returns.
+	 */
+	private static class Call {
+		/**
+		 * Instantiates a call.
+		 * 
+		 * @param caller
+		 *            the item it was first reached from
+		 */
+		Call(Item caller) {
+			myCaller = caller;
+		}
+
+		/** The item it was first reached from. */
+		final Item myCaller;
+
+		/** The items waiting for its returns. */
+		final List<Item> myWaiting = new ArrayList<>();
+
+		/** Its returns. */
+		final List<Return> myReturns = new ArrayList<>();
+
+		/** The states and positions of its returns. */
+		final Set<Long> myReturnKeys = new HashSet<>();
+
+		/** The items of its rules queued so far. */
+		final Set<Long> myItems = new HashSet<>();
+	}
+
+	/**
+	 * A <CODE>Return</CODE> is a state and position a call can reach with
+	 * its symbol popped.
+	 */
+	private static class Return {
+		/**
+		 * Instantiates a return.
+		 * 
+		 * @param state
+		 *            the number of the state
+		 * @param position
+		 *            the position in the input
+		 * @param witness
+		 *            the item that found it
+		 */
+		Return(int state, int position, Item witness) {
+			myState = state;
+			myPosition = position;
+			myWitness = witness;
+		}
+
+		/** The number of the state. */
+		final int myState;
+
+		/** The position in the input. */
+		final int myPosition;
+
+		/** The item that found it. */
+		final Item myWitness;
+	}
+
+	/**
+	 * An <CODE>Item</CODE> is a rule applied to a call, followed through the
+	 * returns of some of the symbols it pushed.
+	 */
+	private static class Item {
+		/**
+		 * Instantiates an item.
+		 * 
+		 * @param origin
+		 *            the call the rule was applied to, or <CODE>null</CODE>
+		 *            for the start
+		 * @param rule
+		 *            the rule
+		 * @param pushed
+		 *            how many of the symbols pushed have been popped again
+		 * @param state
+		 *            the number of the state reached
+		 * @param position
+		 *            the position reached
+		 * @param previous
+		 *            the item this one was moved on from, or
+		 *            <CODE>null</CODE>
+		 * @param via
+		 *            the return it was moved on through, or <CODE>null</CODE>
+		 */
+		Item(Call origin, Rule rule, int pushed, int state, int position,
+				Item previous, Return via) {
+			myOrigin = origin;
+			myRule = rule;
+			myPushed = pushed;
+			myState = state;
+			myPosition = position;
+			myPrevious = previous;
+			myVia = via;
+		}
+
+		/** The call the rule was applied to, or <CODE>null</CODE>. */
+		final Call myOrigin;
+
+		/** The rule. */
+		final Rule myRule;
+
+		/** How many of the symbols pushed have been popped again. */
+		final int myPushed;
+
+		/** The number of the state reached. */
+		final int myState;
+
+		/** The position reached. */
+		final int myPosition;
+
+		/** The item this one was moved on from, or <CODE>null</CODE>. */
+		final Item myPrevious;
+
+		/** The return it was moved on through, or <CODE>null</CODE>. */
+		final Return myVia;
+	}
+
+	/** The symbol on the stack at the start. */
+	private static final char INITIAL = 'Z';
+
+	/** The marker kept under the stack, which no input may hold. */
+	private static final char BOTTOM = '\uFFFF';
+
+	/** A rule that pushes nothing. */
+	private static final int[] NONE = new int[0];
+
+	/** No rules. */
+	private static final Rule[] NO_RULES = new Rule[0];
+
+	/** More than the symbols any rule pushes, for keys of items. */
+	private static final int MAX_PUSH = 1 << 12;
+
+	/** How many items are processed between checks of the budget. */
+	private static final int BUDGET_STEP = 256;
+
+	/** How the automaton accepts. */
+	private int myAcceptance;
+
+	/** The initial state, or <CODE>null</CODE>. */
+	private State myInitial;
+
+	/** The stack symbols, the bottom marker last. */
+	private String mySymbols;
+
+	/** The number of the bottom marker. */
+	private int myBottom;
+
+	/** Whether each state of the automaton is final. */
+	private boolean[] myFinals;
+
+	/** The number of states of the automaton, before those added. */
+	private int myOriginalStates;
+
+	/** The number of states, with those added to pop several symbols. */
+	private int myStateCount;
+
+	/** The rules, indexed by state and then symbol popped. */
+	private Rule[][][] myRules;
+
+	/** The rule that puts the initial stack in place. */
+	private Rule myStart;
+
+	/** The limits of a run, or <CODE>null</CODE>. */
+	private SimulationBudget myBudget;
+
+	/** The policy that decides whether to go on past a limit. */
+	private SimulationPolicy myPolicy;
+
+	/** The input being run. */
+	private String myInput;
+
+	/** The calls of the run, by state, position and symbol. */
+	private Map<Long, Call> myCalls;
+
+	/** The items still to process. */
+	private Deque<Item> myWork;
+
+	/** The first accepting call found. */
+	private Call myAccepting;
+}
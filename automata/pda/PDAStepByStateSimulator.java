@@ -28,8 +28,8 @@ import javax.swing.JOptionPane;
 import automata.Automaton;
 import automata.AutomatonSimulator;
 import automata.Configuration;
+import automata.SimulationBudget;
 import automata.State;
-import automata.Transition;
 
 /**
  * The PDA simulator object simulates the behavior of a pushdown automaton.
@@ -48,6 +48,7 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 	 */
 	public PDAStepByStateSimulator(Automaton automaton) {
 		super(automaton);
+		myBudget = createBudget();
 		/** default acceptance is by final state. */
 		
 		Object[] possibleValues = {"Final State", "Empty Stack"};
@@ -66,6 +67,36 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		//myAcceptance=selectedValue;
 	}
 
+	/**
+	 * Creates a PDA simulator for the given automaton with the acceptance
+	 * criteria already chosen, so that the user is not asked.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param acceptByFinalState
+	 *            <CODE>true</CODE> if the machine accepts by final state,
+	 *            <CODE>false</CODE> if it accepts by empty stack
+	 */
+	public PDAStepByStateSimulator(Automaton automaton,
+			boolean acceptByFinalState) {
+		super(automaton);
+		myBudget = createBudget();
+		myAcceptance = acceptByFinalState ? FINAL_STATE : EMPTY_STACK;
+	}
+
+	/**
+	 * Returns the budget a PDA simulator starts with. A PDA may generate
+	 * configurations without end, so the policy is consulted every
+	 * {@link #MAX_CONFIGURATIONS} configurations.
+	 * 
+	 * @return a budget limited only in configurations
+	 */
+	private static SimulationBudget createBudget() {
+		return new SimulationBudget(SimulationBudget.UNLIMITED,
+				MAX_CONFIGURATIONS, SimulationBudget.UNLIMITED,
+				SimulationBudget.UNLIMITED);
+	}
+
 	/**
 	 * Returns a PDAConfiguration array that represents the initial
 	 * configuration of the PDA, before any input has been processed. It returns
@@ -80,7 +111,7 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		CharacterStack stack = new CharacterStack();
 		stack.push("Z");
 		configs[0] = new PDAConfiguration(myAutomaton.getInitialState(), null,
-				input, input, stack, myAcceptance);
+				input, 0, stack, myAcceptance);
 		return configs;
 	}
 
@@ -95,30 +126,21 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		ArrayList<Configuration> list = new ArrayList<Configuration>();
 		PDAConfiguration configuration = (PDAConfiguration) config;
 		/** get all information from configuration. */
-		String unprocessedInput = configuration.getUnprocessedInput();
 		String totalInput = configuration.getInput();
-		State currentState = configuration.getCurrentState();
-		Transition[] transitions = myAutomaton
-				.getTransitionsFromState(currentState);
-		for (int k = 0; k < transitions.length; k++) {
-			PDATransition transition = (PDATransition) transitions[k];
-			/** get all information from transition. */
-			String inputToRead = transition.getInputToRead();
-			String stringToPop = transition.getStringToPop();
-			CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			CharacterStack stack = new CharacterStack(tempStack);
-			String stackContents = stack.pop(stringToPop.length());
-			if (unprocessedInput.startsWith(inputToRead)
-					&& stringToPop.equals(stackContents)) {
-				String input = "";
-				if (inputToRead.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(inputToRead.length());
-				}
-				State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+		int position = configuration.getPosition();
+		CharacterStack tempStack = configuration.getStack();
+		/** only the transitions indexed under the next input and top. */
+		PDATransitionIndex.Entry[] entries = getTransitions(configuration);
+		for (int k = 0; k < entries.length; k++) {
+			PDATransitionIndex.Entry entry = entries[k];
+			if (entry.applies(totalInput, position, tempStack)) {
+				int next = position + entry.myRead.length();
+				State toState = entry.myToState;
+				/** the new stack shares all but its top with the original. */
+				CharacterStack stack = tempStack.replaceTop(entry.myPop
+						.length(), entry.myPush);
 				PDAConfiguration configurationToAdd = new PDAConfiguration(
-						toState, configuration, totalInput, input, stack, myAcceptance);
+						toState, configuration, totalInput, next, stack, myAcceptance);
 				list.add(configurationToAdd);
 			}
 		}
@@ -126,6 +148,23 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		return list;
 	}
 
+	/**
+	 * Returns the transitions that may apply to a configuration, from the
+	 * transition index of the automaton.
+	 * 
+	 * @param configuration
+	 *            the configuration
+	 * @return the transitions that may apply
+	 */
+	PDATransitionIndex.Entry[] getTransitions(PDAConfiguration configuration) {
+		String input = configuration.getInput();
+		int position = configuration.getPosition();
+		return ((PushdownAutomaton) myAutomaton).getTransitionIndex()
+				.getTransitions(configuration.getCurrentState(),
+						position < input.length() ? input.charAt(position)
+								: -1, configuration.getStack().peek());
+	}
+
 	/**
 	 * Sets acceptance to accept by final state.
 	 */
@@ -140,6 +179,16 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 		myAcceptance = EMPTY_STACK;
 	}
 
+	/**
+	 * Returns whether this simulator accepts by final state.
+	 * 
+	 * @return <CODE>true</CODE> if acceptance is by final state,
+	 *         <CODE>false</CODE> if it is by empty stack
+	 */
+	public boolean isAcceptByFinalState() {
+		return myAcceptance == FINAL_STATE;
+	}
+
 	/**
 	 * Returns true if the simulation of the input string on the automaton left
 	 * the machine in a final state. If the entire input string is processed and
@@ -154,14 +203,14 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 			PDAConfiguration configuration = (PDAConfiguration) it.next();
 			if (myAcceptance == FINAL_STATE) {
 				State currentState = configuration.getCurrentState();
-				if (configuration.getUnprocessedInput() == ""
-						&& myAutomaton.isFinalState(currentState)) {
+				if (configuration.getPosition() == configuration.getInput()
+						.length() && myAutomaton.isFinalState(currentState)) {
 					return true;
 				}
 			} else if (myAcceptance == EMPTY_STACK) {
 				CharacterStack stack = configuration.getStack();
-				if (configuration.getUnprocessedInput() == ""
-						&& stack.height() == 0) {
+				if (configuration.getPosition() == configuration.getInput()
+						.length() && stack.height() == 0) {
 					return true;
 				}
 			}
@@ -179,15 +228,23 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 	public boolean simulateInput(String input) {
 		/** clear the configurations to begin new simulation. */
 		myConfigurations.clear();
+		startRun();
+		CompiledDPDA dpda = getCompiledDPDA();
+		if (dpda != null) {
+			/** deterministic machines follow their single path. */
+			PDAConfiguration last = dpda.getFinalConfiguration(input,
+					isAcceptByFinalState(), myBudget, myPolicy, true);
+			myConfigurations.add(last);
+			return finishRun(input, last.isAccept());
+		}
 		Configuration[] initialConfigs = getInitialConfigurations(input);
 		for (int k = 0; k < initialConfigs.length; k++) {
 			PDAConfiguration initialConfiguration = (PDAConfiguration) initialConfigs[k];
 			myConfigurations.add(initialConfiguration);
 		}
-		int count = 0;
 		while (!myConfigurations.isEmpty()) {
 			if (isAccepted())
-				return true;
+				return finishRun(input, true);
 			ArrayList<Configuration> configurationsToAdd = new ArrayList<Configuration>();
 			Iterator<Configuration> it = myConfigurations.iterator();
 			while (it.hasNext()) {
@@ -195,23 +252,30 @@ public class PDAStepByStateSimulator extends AutomatonSimulator {
 				ArrayList<Configuration> configsToAdd = stepConfiguration(configuration);
 				configurationsToAdd.addAll(configsToAdd);
 				it.remove();
-                count++;
-                if(count > 10000){
-                    int result = JOptionPane.showConfirmDialog(null, "JFLAP has generated 10000 configurations. Continue?");
-                    switch (result) {
-                    case JOptionPane.CANCEL_OPTION:
-                        continue;
-                    case JOptionPane.NO_OPTION:
-                        return false;
-                    default:
-                    }
-                }
 			}
 			myConfigurations.addAll(configurationsToAdd);
+			if (!myBudget.step(myConfigurations.size(), myPolicy))
+				return finishRun(input, false);
 		}
-		return false;
+		return finishRun(input, false);
+	}
+
+	/**
+	 * Returns the compiled form of the automaton, if the automaton is
+	 * deterministic. The automaton is compiled again after it changes.
+	 * 
+	 * @return the compiled automaton, or <CODE>null</CODE> if the automaton
+	 *         is not deterministic or has no initial state
+	 * @see PushdownAutomaton#getCompiledDPDACache
+	 */
+	public CompiledDPDA getCompiledDPDA() {
+		return ((PushdownAutomaton) myAutomaton).getCompiledDPDACache()
+				.getCompiledDPDA();
 	}
 
+	/** The configurations generated before the policy is first consulted. */
+	public static final long MAX_CONFIGURATIONS = 10000;
+
 	/** The mode of acceptance (either by final state or empty stack). */
 	protected int myAcceptance;
 
@@ -26,7 +26,6 @@ import automata.Automaton;
 import automata.ClosureTaker;
 import automata.Configuration;
 import automata.State;
-import automata.Transition;
 
 public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 
@@ -34,6 +33,21 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		super(automaton);
 	}
 
+	/**
+	 * Creates a PDA simulator for the given automaton with the acceptance
+	 * criteria already chosen, so that the user is not asked.
+	 * 
+	 * @param automaton
+	 *            the machine to simulate
+	 * @param acceptByFinalState
+	 *            <CODE>true</CODE> if the machine accepts by final state,
+	 *            <CODE>false</CODE> if it accepts by empty stack
+	 */
+	public PDAStepWithClosureSimulator(Automaton automaton,
+			boolean acceptByFinalState) {
+		super(automaton, acceptByFinalState);
+	}
+
 	/**
 	 * Returns a PDAConfiguration array that represents the initial
 	 * configuration of the PDA, before any input has been processed. It returns
@@ -50,7 +64,7 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		for (int k = 0; k < closure.length; k++) {
 			CharacterStack stack = new CharacterStack();
 			stack.push("Z");
-			configs[k] = new PDAConfiguration(closure[k], null, input, input,
+			configs[k] = new PDAConfiguration(closure[k], null, input, 0,
 					stack, myAcceptance);
 		}
 		return configs;
@@ -67,34 +81,24 @@ public class PDAStepWithClosureSimulator extends PDAStepByStateSimulator {
 		ArrayList<Configuration> list = new ArrayList<Configuration>();
 		PDAConfiguration configuration = (PDAConfiguration) config;
 		/** get all information from configuration. */
-		String unprocessedInput = configuration.getUnprocessedInput();
 		String totalInput = configuration.getInput();
-		State currentState = configuration.getCurrentState();
-		Transition[] transitions = myAutomaton
-				.getTransitionsFromState(currentState);
-		for (int k = 0; k < transitions.length; k++) {
-			PDATransition transition = (PDATransition) transitions[k];
-			/** get all information from transition. */
-			String inputToRead = transition.getInputToRead();
-			String stringToPop = transition.getStringToPop();
-			CharacterStack tempStack = configuration.getStack();
-			/** copy stack object so as to not alter original. */
-			CharacterStack stack = new CharacterStack(tempStack);
-			String stackContents = stack.pop(stringToPop.length());
-			if (unprocessedInput.startsWith(inputToRead)
-					&& stringToPop.equals(stackContents)) {
-				String input = "";
-				if (inputToRead.length() < unprocessedInput.length()) {
-					input = unprocessedInput.substring(inputToRead.length());
-				}
-				State toState = transition.getToState();
-				stack.push(transition.getStringToPush());
+		int position = configuration.getPosition();
+		CharacterStack tempStack = configuration.getStack();
+		/** only the transitions indexed under the next input and top. */
+		PDATransitionIndex.Entry[] entries = getTransitions(configuration);
+		for (int k = 0; k < entries.length; k++) {
+			PDATransitionIndex.Entry entry = entries[k];
+			if (entry.applies(totalInput, position, tempStack)) {
+				int next = position + entry.myRead.length();
+				State toState = entry.myToState;
+				/** the new stack shares all but its top with the original. */
+				CharacterStack stack = tempStack.replaceTop(entry.myPop
+						.length(), entry.myPush);
 				State[] closure = ClosureTaker.getClosure(toState, myAutomaton);
 				for (int i = 0; i < closure.length; i++) {
-					CharacterStack cstack = new CharacterStack(stack);
 					PDAConfiguration configurationToAdd = new PDAConfiguration(
-							closure[i], configuration, totalInput, input,
-							cstack, myAcceptance);
+							closure[i], configuration, totalInput, next,
+							new CharacterStack(stack), myAcceptance);
 					list.add(configurationToAdd);
 				}
 
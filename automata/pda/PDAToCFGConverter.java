@@ -20,11 +20,11 @@
 
 package automata.pda;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Stack;
 
 import automata.Automaton;
 import automata.State;
@@ -45,6 +45,9 @@ import gui.grammar.GrammarTableModel;
  * repeatedly calling getProductionsForTransition on every transition in the pda
  * and adding all of the returned productions to your context free grammar. If
  * you do this for every transition in the pda, you will have an equivalent cfg.
+ * For large pdas, convertToContextFreeGrammar can instead make only the
+ * useful productions, those reachable from the start variable whose
+ * variables are all productive, without making the rest first.
  * 
  * @see grammar.cfg.ContextFreeGrammar
  * 
@@ -207,6 +210,24 @@ public class PDAToCFGConverter {
 		return new String(ch);
 	}
 
+	/**
+	 * Maps <CODE>variable</CODE> to a unique variable, unless it already is
+	 * mapped. The start symbol is mapped to "S".
+	 * 
+	 * @param variable
+	 *            the variable (e.g. "(q1Aq3)").
+	 * @param automaton
+	 *            the automaton.
+	 */
+	private void mapVariable(String variable, Automaton automaton) {
+		if (MAP.get(variable) == null) {
+			if (isStartSymbol(variable, automaton))
+				MAP.put(variable, START_SYMBOL);
+			else
+				MAP.put(variable, getUniqueVariable());
+		}
+	}
+
 	/**
 	 * Returns true if <CODE>variable</CODE> is the start symbol. (i.e.
 	 * "(q0Zqf)")
@@ -269,24 +290,9 @@ public class PDAToCFGConverter {
 						.concat(state.concat(RIGHT_PAREN))));
 
 				/** Map to unique variables. */
-				if (MAP.get(lhs) == null) {
-					if (isStartSymbol(lhs, automaton))
-						MAP.put(lhs, START_SYMBOL);
-					else
-						MAP.put(lhs, getUniqueVariable());
-				}
-				if (MAP.get(variable1) == null) {
-					if (isStartSymbol(variable1, automaton))
-						MAP.put(variable1, START_SYMBOL);
-					else
-						MAP.put(variable1, getUniqueVariable());
-				}
-				if (MAP.get(variable2) == null) {
-					if (isStartSymbol(variable2, automaton))
-						MAP.put(variable2, START_SYMBOL);
-					else
-						MAP.put(variable2, getUniqueVariable());
-				}
+				mapVariable(lhs, automaton);
+				mapVariable(variable1, automaton);
+				mapVariable(variable2, automaton);
 
 				String rhs = toRead.concat(variable1.concat(variable2));
 
@@ -319,12 +325,7 @@ public class PDAToCFGConverter {
 
 		String lhs = LEFT_PAREN.concat(fromState.concat(toPop.concat(toState
 				.concat(RIGHT_PAREN))));
-		if (MAP.get(lhs) == null) {
-			if (isStartSymbol(lhs, automaton))
-				MAP.put(lhs, START_SYMBOL);
-			else
-				MAP.put(lhs, getUniqueVariable());
-		}
+		mapVariable(lhs, automaton);
 		String rhs = toRead;
 
 		Production production = new Production(lhs, rhs);
@@ -400,6 +401,24 @@ public class PDAToCFGConverter {
 	 * @return a cfg equivalent to <CODE>automaton</CODE>.
 	 */
 	public ContextFreeGrammar convertToContextFreeGrammar(Automaton automaton) {
+		return convertToContextFreeGrammar(automaton, false);
+	}
+
+	/**
+	 * Returns a ContextFreeGrammar object that represents a grammar equivalent
+	 * to <CODE>automaton</CODE>, either with the productions of every
+	 * transition or with only the useful ones.
+	 * 
+	 * @param automaton
+	 *            the automaton.
+	 * @param useful
+	 *            true to make only the productions returned by
+	 *            {@link #getUsefulProductions}, false to make every
+	 *            production of every transition.
+	 * @return a cfg equivalent to <CODE>automaton</CODE>.
+	 */
+	public ContextFreeGrammar convertToContextFreeGrammar(Automaton automaton,
+			boolean useful) {
 		/** check if automaton is pda. */
 		if (!(automaton instanceof PushdownAutomaton))
 			throw new IllegalArgumentException(
@@ -414,10 +433,21 @@ public class PDAToCFGConverter {
 		ArrayList<Production> list = new ArrayList<>();
 		ContextFreeGrammar grammar = new ContextFreeGrammar();
 
-		Transition[] transitions = automaton.getTransitions();
-		for (int k = 0; k < transitions.length; k++) {
-			list.addAll(createProductionsForTransition(transitions[k],
-					automaton));
+		if (useful) {
+			list = getUsefulProductions(automaton);
+			for (int k = 0; k < list.size(); k++) {
+				Production production = list.get(k);
+				mapVariable(production.getLHS(), automaton);
+				String[] variables = getVariables(production.getRHS());
+				for (int i = 0; i < variables.length; i++)
+					mapVariable(variables[i], automaton);
+			}
+		} else {
+			Transition[] transitions = automaton.getTransitions();
+			for (int k = 0; k < transitions.length; k++) {
+				list.addAll(createProductionsForTransition(transitions[k],
+						automaton));
+			}
 		}
 
 		Iterator<Production> it = list.iterator();
@@ -428,56 +458,378 @@ public class PDAToCFGConverter {
 
 		return grammar;
 	}
-	
-	
+
+
 	/**
-	 * Recursive function used by <code>purgeProductions()</code> to determine which productions should be
-	 * included in the grammar.  It takes a variable and recursively checks all productions that have it on
-	 * the left-hand side to determine whether each production should be accepted
+	 * Returns the productions of the conversion that can take part in
+	 * deriving a string from the start variable: those whose variables are
+	 * all productive and whose left side is reachable from the start variable
+	 * through such productions. These are the productions that
+	 * {@link #purgeProductions} keeps, but the others are never made, so the
+	 * conversion of a large automaton does not make a production for every
+	 * triple of states for every transition.
+	 * <P>
+	 * A variable (pAq) is productive once the automaton can go from p to q
+	 * popping A, and is only looked for once p with A on top is reachable
+	 * from the initial state with Z on top. Both are found by saturation over
+	 * worklists. When p with A on top is reached, a transition from p that
+	 * pops A and pushes nothing makes its variable productive, and one that
+	 * pushes two symbols makes the state it goes to with the first symbol on
+	 * top reached, and waits for the first variable on the right side of its
+	 * productions. When a variable is taken off the worklist, the transitions
+	 * waiting for it as their first variable go on to wait for the second,
+	 * whose state with the second symbol on top is then reached, and are
+	 * joined with the second variables already taken off; the transitions
+	 * already waiting for it as their second variable are joined with it. So
+	 * each production is made once. Productions are kept by their left side
+	 * as they are made, and those reachable from the start variable are
+	 * returned.
 	 * 
-	 * @param lhs 
-	 		     the variable on the left-hand side.  The initial variable is the initial state + 'Z' +
-	 * 			 the final state.
-	 * @param productions
-	 * 			 the current list of productions.
-	 * @param valid 
-	 *           set of variables that potentially end in terminals
-	 * @param validProductions 
-	 *           an int array used to mark all productions that should not be removed.  The values that 
-	 *           can be in it are: <br><br> -1 - production should be removed <br> 0 - yet to be processed <br> 
-	 *           1 - currently being processed (helps prevent cycling) <br> 2 - production should be kept
-	 * @return true if one of the following three are true, false otherwise.<br><br> 1.  the lhs leads to a leaf node.
-	 * <br> 2.  the lhs leads to a cycle. <br> 3. All variables on the right side lead to a cycle or a leaf node.
+	 * @param automaton
+	 *            the automaton, in the correct form for conversion.
+	 * @return the useful productions, from the start variable on.
 	 */
-	private void purgeProductionsHelper(String lhs, Production[] productions, HashSet<String> valid, int[] validProductions){		
-		ArrayList<String> variables;
-		String rhs;			
-		for (int i=0; i<productions.length; i++)
-			if (productions[i].getLHS().equals(lhs) && validProductions[i] == 0) {				 
-				validProductions[i] = 1;
-				variables = new ArrayList<String>();
-				rhs = new String(productions[i].getRHS());
-				while (rhs.indexOf(LEFT_PAREN) > -1) {				
-					variables.add(rhs.substring(rhs.indexOf(LEFT_PAREN), rhs.indexOf(RIGHT_PAREN)+1));
-					if (rhs.indexOf(RIGHT_PAREN) != rhs.length()-1)
-						rhs = rhs.substring(rhs.indexOf(RIGHT_PAREN) + 1);
-					else
-						rhs = "";
-				}
-				for (int j=0; j<variables.size(); j++) {
-					if (validProductions[i] == 1 && !valid.contains(variables.get(j)))
-						validProductions[i] = -1;					
+	public ArrayList<Production> getUsefulProductions(Automaton automaton) {
+		if (!isInCorrectFormForConversion(automaton))
+			throw new IllegalArgumentException(
+					"automaton not in correct form for conversion to CFG");
+		return new Saturation(automaton).getProductions();
+	}
+
+	/**
+	 * A <CODE>Saturation</CODE> finds the useful productions of an
+	 * automaton for {@link #getUsefulProductions}. Variables (pAq) are
+	 * numbered from the numbers of p, A and q, and pairs of a state p with A
+	 * on top from those of p and A.
+	 */
+	private class Saturation {
+		/**
+		 * Numbers the states and stack symbols of an automaton, and indexes
+		 * its transitions by the state they leave and the symbol they pop.
+		 * 
+		 * @param automaton
+		 *            the automaton.
+		 */
+		Saturation(Automaton automaton) {
+			myAutomaton = automaton;
+			myStates = automaton.getStates();
+			for (int k = 0; k < myStates.length; k++)
+				myNumbers.put(myStates[k], k);
+			Transition[] transitions = automaton.getTransitions();
+			StringBuilder symbols = new StringBuilder(BOTTOM_OF_STACK);
+			for (int k = 0; k < transitions.length; k++) {
+				PDATransition trans = (PDATransition) transitions[k];
+				String string = trans.getStringToPop()
+						+ trans.getStringToPush();
+				for (int i = 0; i < string.length(); i++)
+					if (symbols.indexOf(string.substring(i, i + 1)) == -1)
+						symbols.append(string.charAt(i));
+			}
+			mySymbols = symbols.toString();
+			for (int k = 0; k < transitions.length; k++) {
+				PDATransition trans = (PDATransition) transitions[k];
+				getList(myTransitions, getPair(trans.getFromState(), trans
+						.getStringToPop().charAt(0))).add(trans);
+			}
+		}
+
+		/**
+		 * Saturates the worklists, and returns the productions reachable
+		 * from the start variable.
+		 * 
+		 * @return the useful productions.
+		 */
+		ArrayList<Production> getProductions() {
+			reach(getPair(myAutomaton.getInitialState(), BOTTOM_OF_STACK
+					.charAt(0)));
+			while (!myReached.isEmpty() || !myWork.isEmpty()) {
+				if (!myReached.isEmpty()) {
+					long pair = myReached.poll();
+					ArrayList<PDATransition> transitions = myTransitions
+							.get(pair);
+					for (int k = 0; transitions != null
+							&& k < transitions.size(); k++) {
+						PDATransition trans = transitions.get(k);
+						if (isPushLambdaTransition(trans)) {
+							addRule(getVariable(trans.getFromState(), trans
+									.getStringToPop().charAt(0), trans
+									.getToState()), trans.getInputToRead());
+						} else if (isPushTwoTransition(trans)) {
+							long first = getPair(trans.getToState(), trans
+									.getStringToPush().charAt(0));
+							getList(myFirsts, first).add(trans);
+							ArrayList<Long> ends = myEnds.get(first);
+							for (int i = 0; ends != null && i < ends.size(); i++)
+								waitForSecond(trans, ends.get(i));
+							reach(first);
+						}
+					}
+					continue;
 				}
-				if (validProductions[i] == 1) {
-					validProductions[i] = 2;	
-					for (int j=0; j<variables.size(); j++)
-						purgeProductionsHelper((String) variables.get(j), productions, valid, validProductions);
+				long variable = myWork.poll();
+				long pair = variable / myStates.length;
+				ArrayList<PDATransition> seconds = mySeconds.get(pair);
+				ArrayList<Long> firsts = mySecondFirsts.get(pair);
+				for (int k = 0; seconds != null && k < seconds.size(); k++)
+					addRule(getVariable(seconds.get(k).getFromState(), seconds
+							.get(k).getStringToPop().charAt(0),
+							myStates[getTo(variable)]), seconds.get(k)
+							.getInputToRead(), firsts.get(k), variable);
+				getList(myEnds, pair).add(variable);
+				ArrayList<PDATransition> waiting = myFirsts.get(pair);
+				for (int k = 0; waiting != null && k < waiting.size(); k++)
+					waitForSecond(waiting.get(k), variable);
+			}
+
+			// Keep what is reachable from the start variable.
+			ArrayList<Production> list = new ArrayList<>();
+			long start = getVariable(myAutomaton.getInitialState(),
+					BOTTOM_OF_STACK.charAt(0), myAutomaton.getFinalStates()[0]);
+			HashSet<Long> reached = new HashSet<>();
+			ArrayDeque<Long> reachable = new ArrayDeque<>();
+			reached.add(start);
+			reachable.add(start);
+			while (!reachable.isEmpty()) {
+				ArrayList<Rule> rules = myRules.get(reachable.poll());
+				for (int k = 0; rules != null && k < rules.size(); k++) {
+					Rule rule = rules.get(k);
+					StringBuilder rhs = new StringBuilder(rule.myRead);
+					for (int i = 0; i < rule.myVariables.length; i++) {
+						rhs.append(getName(rule.myVariables[i]));
+						if (reached.add(rule.myVariables[i]))
+							reachable.add(rule.myVariables[i]);
+					}
+					list.add(new Production(getName(rule.myLeft), rhs
+							.toString()));
 				}
 			}
+			return list;
+		}
+
+		/**
+		 * Makes a transition that pushes two symbols, whose first variable
+		 * has been taken off, wait for its second variable, and joins it with
+		 * the second variables already taken off.
+		 * 
+		 * @param trans
+		 *            the transition.
+		 * @param first
+		 *            the first variable.
+		 */
+		private void waitForSecond(PDATransition trans, long first) {
+			int middle = getTo(first);
+			long second = getPair(myStates[middle], trans.getStringToPush()
+					.charAt(1));
+			getList(mySeconds, second).add(trans);
+			getList(mySecondFirsts, second).add(first);
+			ArrayList<Long> ends = myEnds.get(second);
+			for (int i = 0; ends != null && i < ends.size(); i++)
+				addRule(getVariable(trans.getFromState(), trans
+						.getStringToPop().charAt(0), myStates[getTo(ends
+						.get(i))]), trans.getInputToRead(), first, ends.get(i));
+			reach(second);
+		}
+
+		/**
+		 * Puts a pair of a state and a symbol on top on the worklist, unless
+		 * it was reached before.
+		 * 
+		 * @param pair
+		 *            the pair.
+		 */
+		private void reach(long pair) {
+			if (myReachedPairs.add(pair))
+				myReached.add(pair);
+		}
+
+		/**
+		 * Keeps a production, and puts its left side on the worklist if it
+		 * was not yet known to be productive.
+		 * 
+		 * @param lhs
+		 *            the variable on the left side.
+		 * @param read
+		 *            the input read.
+		 * @param variables
+		 *            the variables on the right side.
+		 */
+		private void addRule(long lhs, String read, long... variables) {
+			ArrayList<Rule> rules = myRules.get(lhs);
+			if (rules == null) {
+				rules = new ArrayList<>();
+				myRules.put(lhs, rules);
+				myWork.add(lhs);
+			}
+			rules.add(new Rule(lhs, read, variables));
+		}
+
+		/**
+		 * Returns the list kept in a map under a key, making it if there is
+		 * none yet.
+		 * 
+		 * @param map
+		 *            the map.
+		 * @param key
+		 *            the key.
+		 * @return the list.
+		 */
+		private <T> ArrayList<T> getList(HashMap<Long, ArrayList<T>> map,
+				long key) {
+			ArrayList<T> list = map.get(key);
+			if (list == null) {
+				list = new ArrayList<>();
+				map.put(key, list);
+			}
+			return list;
+		}
+
+		/**
+		 * Returns the number of a state with a symbol on top.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param symbol
+		 *            the symbol.
+		 * @return the number of the pair.
+		 */
+		private long getPair(State state, char symbol) {
+			return (long) myNumbers.get(state) * mySymbols.length()
+					+ mySymbols.indexOf(symbol);
+		}
+
+		/**
+		 * Returns the number of the variable (pAq).
+		 * 
+		 * @param from
+		 *            the state p.
+		 * @param symbol
+		 *            the symbol A.
+		 * @param to
+		 *            the state q.
+		 * @return the number of the variable.
+		 */
+		private long getVariable(State from, char symbol, State to) {
+			return getPair(from, symbol) * myStates.length + myNumbers.get(to);
+		}
+
+		/**
+		 * Returns the number of the state q of the variable (pAq).
+		 * 
+		 * @param variable
+		 *            the number of the variable.
+		 * @return the number of q.
+		 */
+		private int getTo(long variable) {
+			return (int) (variable % myStates.length);
+		}
+
+		/**
+		 * Returns the name of a variable, as the productions of transitions
+		 * name it (e.g. "(q1Aq3)").
+		 * 
+		 * @param variable
+		 *            the number of the variable.
+		 * @return the name of the variable.
+		 */
+		private String getName(long variable) {
+			long pair = variable / myStates.length;
+			State from = myStates[(int) (pair / mySymbols.length())];
+			char symbol = mySymbols.charAt((int) (pair % mySymbols.length()));
+			return LEFT_PAREN + from.getName() + symbol
+					+ myStates[getTo(variable)].getName() + RIGHT_PAREN;
+		}
+
+		/** The automaton. */
+		private Automaton myAutomaton;
+
+		/** The states, by number. */
+		private State[] myStates;
+
+		/** The number of each state. */
+		private HashMap<State, Integer> myNumbers = new HashMap<>();
+
+		/** The stack symbols, by number. */
+		private String mySymbols;
+
+		/** The transitions, by the state they leave and the symbol popped. */
+		private HashMap<Long, ArrayList<PDATransition>> myTransitions = new HashMap<>();
+
+		/** The pairs reached. */
+		private HashSet<Long> myReachedPairs = new HashSet<>();
+
+		/** The pairs reached but not yet taken off. */
+		private ArrayDeque<Long> myReached = new ArrayDeque<>();
+
+		/** The productions made so far, by their left side. */
+		private HashMap<Long, ArrayList<Rule>> myRules = new HashMap<>();
+
+		/** The variables known to be productive but not yet taken off. */
+		private ArrayDeque<Long> myWork = new ArrayDeque<>();
+
+		/** The variables taken off, by the pair they pop from. */
+		private HashMap<Long, ArrayList<Long>> myEnds = new HashMap<>();
+
+		/** The transitions waiting for their first variable, by its pair. */
+		private HashMap<Long, ArrayList<PDATransition>> myFirsts = new HashMap<>();
+
+		/** The transitions waiting for their second variable, by its pair. */
+		private HashMap<Long, ArrayList<PDATransition>> mySeconds = new HashMap<>();
+
+		/** The first variables of the transitions in mySeconds. */
+		private HashMap<Long, ArrayList<Long>> mySecondFirsts = new HashMap<>();
+	}
+
+	/**
+	 * Returns the variables (e.g. "(q1Aq3)") on the right side of a
+	 * production, in order.
+	 * 
+	 * @param rhs
+	 *            the right side.
+	 * @return the variables.
+	 */
+	private static String[] getVariables(String rhs) {
+		ArrayList<String> variables = new ArrayList<>();
+		int leftIndex, rightIndex = -1;
+		while ((leftIndex = rhs.indexOf(LEFT_PAREN, rightIndex + 1)) != -1
+				&& (rightIndex = rhs.indexOf(RIGHT_PAREN, leftIndex)) != -1)
+			variables.add(rhs.substring(leftIndex, rightIndex + 1));
+		return variables.toArray(new String[0]);
+	}
+
+	/**
+	 * A <CODE>Rule</CODE> is a production made by a {@link Saturation},
+	 * with its variables as numbers.
+	 */
+	private static class Rule {
+		/**
+		 * Instantiates a rule.
+		 * 
+		 * @param left
+		 *            the variable on the left side.
+		 * @param read
+		 *            the input read.
+		 * @param variables
+		 *            the variables on the right side.
+		 */
+		Rule(long left, String read, long[] variables) {
+			myLeft = left;
+			myRead = read;
+			myVariables = variables;
+		}
+
+		/** The variable on the left side. */
+		final long myLeft;
+
+		/** The input read. */
+		final String myRead;
+
+		/** The variables on the right side. */
+		final long[] myVariables;
 	}
-	
+
 	/**
 	 * Gets rid of superfluous productions in the table before transforming into a CFG.
+	 * Only the productions {@link #getUsefulProductions} makes are kept.
 	 * 
 	 * @param automaton
 	 *            the current automaton
@@ -487,55 +839,17 @@ public class PDAToCFGConverter {
 	 */
 	public void purgeProductions(Automaton automaton, GrammarTableModel model) {		
 		Production[] productions = model.getProductions();
-		HashSet<String> valid = new HashSet<>();
-		Stack<String> variables, invalid;
-		boolean updated;
-		int[] validProductions = new int[productions.length];
-		for (int i = 0; i < productions.length; i++)
-			validProductions[i] = 0;
-		
-		//After initializing variables, add all variables that can eventually end in terminals
-		//to a stack.
-		do {			
-			updated = false;						
-			for (int i=0; i<validProductions.length; i++) {
-				variables = new Stack<String>();
-				invalid = new Stack<String>();
-				String rhs = productions[i].getRHS();
-				while (rhs.indexOf(LEFT_PAREN) > -1) {								
-					variables.push(rhs.substring(rhs.indexOf(LEFT_PAREN), rhs.indexOf(RIGHT_PAREN)+1));
-					if (rhs.indexOf(RIGHT_PAREN) != rhs.length()-1)
-						rhs = rhs.substring(rhs.indexOf(RIGHT_PAREN) + 1);
-					else
-						rhs = "";
-				}
-				
-				while (variables.size() > 0)
-					if (!valid.contains((String) variables.peek()))						
-						invalid.push(variables.pop());					
-					else
-						variables.pop();
-				if (invalid.size() == 0 && !valid.contains(productions[i].getLHS())) {
-					updated = true;
-					valid.add(productions[i].getLHS());
-				}									
-			}			
-		} while (updated);
-		
-		//Then, trace a path from the initial variable to all terminals that it can reach.
-		String initVar = LEFT_PAREN + automaton.getInitialState().getName() + BOTTOM_OF_STACK + 
-					automaton.getFinalStates()[0].getName() + RIGHT_PAREN;
-		purgeProductionsHelper(initVar, productions, valid, validProductions);
+		HashSet<Production> useful = new HashSet<>(getUsefulProductions(automaton));
 		
-		//Next, delete all superfluous rows and make note of those capital-letter variable
+		//Delete all superfluous rows and make note of those capital-letter variable
 		//assignments that are freed up in a new map.
 		HashMap<String, String> newMap = new HashMap<>();
 		HashSet<String> freeValues = new HashSet<>();
 		String key;
 		for (int i=0; i<26; i++)
 			freeValues.add("" + (char)('A' + i));
-		for (int i=validProductions.length-1; i>=0; i--)  
-			if (validProductions[i] < 2) 
+		for (int i=productions.length-1; i>=0; i--)  
+			if (!useful.contains(productions[i])) 
 				model.deleteRow(i);
 			else {
 				key = productions[i].getLHS();
@@ -569,4 +883,5 @@ public class PDAToCFGConverter {
 	protected static final String RIGHT_PAREN = ")";
 
 	protected static final String BOTTOM_OF_STACK = "Z";
+
 }
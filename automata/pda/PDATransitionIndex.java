@@ -0,0 +1,323 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+
+package automata.pda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import automata.State;
+import automata.Transition;
+import automata.event.AutomataStateEvent;
+import automata.event.AutomataStateListener;
+import automata.event.AutomataTransitionEvent;
+import automata.event.AutomataTransitionListener;
+
+/**
+ * The transition index finds the transitions of a pushdown automaton that
+ * may apply to a configuration without trying every transition out of its
+ * state. For each state the transitions are sorted into a table by the first
+ * character they read, or lambda, and the first character they pop, or
+ * nothing; a configuration is looked up by its next input character and the
+ * character on top of its stack, and the cell found holds, in their order in
+ * the automaton, the transitions that read that character or nothing and pop
+ * that character or nothing. Only transitions that read or pop more than one
+ * character need checking further. The strings the transitions push are kept
+ * reversed, as characters in the order they are pushed.
+ * <P>
+ * The index listens to the automaton, and is rebuilt after a state or
+ * transition is added, removed or changed. Each pushdown automaton has its
+ * own index, which is got from {@link PushdownAutomaton#getTransitionIndex}.
+ * 
+ * @see PDAStepByStateSimulator
+ */
+
+public class PDATransitionIndex implements AutomataStateListener,
+		AutomataTransitionListener {
+	/**
+	 * Instantiates a transition index for a pushdown automaton, and registers
+	 * it to hear of changes to the automaton.
+	 * 
+	 * @param automaton
+	 *            the automaton whose transitions are indexed
+	 */
+	public PDATransitionIndex(PushdownAutomaton automaton) {
+		myAutomaton = automaton;
+		automaton.addStateListener(this);
+		automaton.addTransitionListener(this);
+	}
+
+	/**
+	 * Returns the transitions out of a state that may apply to a
+	 * configuration, in their order in the automaton. The array returned is
+	 * shared, and must not be changed.
+	 * 
+	 * @param state
+	 *            the state of the configuration
+	 * @param character
+	 *            the next character of input, or -1 if all of it is read
+	 * @param top
+	 *            the character on top of the stack, or -1 if it is empty
+	 * @return the transitions that may apply, each of which applies if
+	 *         {@link Entry#applies} says so
+	 */
+	Entry[] getTransitions(State state, int character, int top) {
+		validate();
+		StateIndex index = myIndex.get(state);
+		return index == null ? NONE : index.get(character, top);
+	}
+
+	/**
+	 * Builds the index now, if it is not up to date. The index is built when
+	 * first used anyway, but building it is not safe from several threads at
+	 * once, while using it is.
+	 */
+	public void validate() {
+		if (myIndex != null)
+			return;
+		HashMap<State, StateIndex> index = new HashMap<>();
+		State[] states = myAutomaton.getStates();
+		Map<State, Integer> numbers = getNumbers(states);
+		for (int i = 0; i < states.length; i++)
+			index.put(states[i], new StateIndex(myAutomaton
+					.getTransitionsFromState(states[i]), numbers));
+		myIndex = index;
+	}
+
+	/**
+	 * Forgets the index when a state is added or removed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public void automataStateChange(AutomataStateEvent event) {
+		if (event.isAdd() || event.isDelete())
+			myIndex = null;
+	}
+
+	/**
+	 * Forgets the index when a transition is added, removed or changed.
+	 * 
+	 * @param event
+	 *            the event describing the change
+	 */
+	public void automataTransitionChange(AutomataTransitionEvent event) {
+		myIndex = null;
+	}
+
+	/**
+	 * Returns the number of each state, its place in an array of states.
+	 * 
+	 * @param states
+	 *            the states
+	 * @return the number of each state
+	 */
+	static Map<State, Integer> getNumbers(State[] states) {
+		Map<State, Integer> numbers = new HashMap<>();
+		for (int i = 0; i < states.length; i++)
+			numbers.put(states[i], i);
+		return numbers;
+	}
+
+	/**
+	 * Returns the distinct first characters of the nonempty strings, sorted.
+	 * 
+	 * @param strings
+	 *            the strings
+	 * @return their first characters
+	 */
+	private static char[] getFirsts(String[] strings) {
+		char[] firsts = new char[strings.length];
+		int count = 0;
+		for (int i = 0; i < strings.length; i++)
+			if (strings[i].length() > 0)
+				firsts[count++] = strings[i].charAt(0);
+		firsts = Arrays.copyOf(firsts, count);
+		Arrays.sort(firsts);
+		count = 0;
+		for (int i = 0; i < firsts.length; i++)
+			if (count == 0 || firsts[count - 1] != firsts[i])
+				firsts[count++] = firsts[i];
+		return Arrays.copyOf(firsts, count);
+	}
+
+	/**
+	 * Returns the row or column of the table for a character: 0 for none,
+	 * or one more than its place among the characters.
+	 * 
+	 * @param firsts
+	 *            the characters with rows or columns of their own
+	 * @param character
+	 *            the character, or -1 for none
+	 * @return its row or column
+	 */
+	private static int getSlot(char[] firsts, int character) {
+		if (character < 0)
+			return 0;
+		int slot = Arrays.binarySearch(firsts, (char) character);
+		return slot < 0 ? 0 : slot + 1;
+	}
+
+	/**
+	 * An <CODE>Entry</CODE> is a transition compiled for stepping.
+	 */
+	static final class Entry {
+		/**
+		 * Compiles a transition.
+		 * 
+		 * @param transition
+		 *            the transition
+		 * @param toNumber
+		 *            the number of the state it goes to
+		 */
+		Entry(PDATransition transition, int toNumber) {
+			myTransition = transition;
+			myToState = transition.getToState();
+			myToNumber = toNumber;
+			myRead = transition.getInputToRead();
+			myPop = transition.getStringToPop();
+			String push = transition.getStringToPush();
+			myPush = new char[push.length()];
+			for (int i = 0; i < myPush.length; i++)
+				myPush[i] = push.charAt(push.length() - 1 - i);
+			myChecked = myRead.length() <= 1 && myPop.length() <= 1;
+		}
+
+		/**
+		 * Returns if the transition applies to a configuration it was looked
+		 * up for, whose first characters it is known to match.
+		 * 
+		 * @param input
+		 *            the input of the configuration
+		 * @param position
+		 *            the position of the configuration in its input
+		 * @param stack
+		 *            the stack of the configuration
+		 * @return <CODE>true</CODE> if the transition applies
+		 */
+		boolean applies(String input, int position, CharacterStack stack) {
+			return myChecked
+					|| (input.startsWith(myRead, position) && stack
+							.startsWith(myPop));
+		}
+
+		/** The transition. */
+		final PDATransition myTransition;
+
+		/** The state it goes to. */
+		final State myToState;
+
+		/** The number of the state it goes to. */
+		final int myToNumber;
+
+		/** The input it reads. */
+		final String myRead;
+
+		/** The string it pops. */
+		final String myPop;
+
+		/** The characters it pushes, in the order they are pushed. */
+		final char[] myPush;
+
+		/** Whether its first characters are all there is to check. */
+		final boolean myChecked;
+	}
+
+	/**
+	 * A <CODE>StateIndex</CODE> is the table of the transitions out of one
+	 * state.
+	 */
+	static final class StateIndex {
+		/**
+		 * Sorts the transitions out of a state into a table.
+		 * 
+		 * @param transitions
+		 *            the transitions out of the state
+		 * @param numbers
+		 *            the number of each state of the automaton
+		 */
+		StateIndex(Transition[] transitions, Map<State, Integer> numbers) {
+			String[] reads = new String[transitions.length];
+			String[] pops = new String[transitions.length];
+			for (int i = 0; i < transitions.length; i++) {
+				reads[i] = ((PDATransition) transitions[i]).getInputToRead();
+				pops[i] = ((PDATransition) transitions[i]).getStringToPop();
+			}
+			myReads = getFirsts(reads);
+			myPops = getFirsts(pops);
+			int columns = myPops.length + 1;
+			List<List<Entry>> cells = new ArrayList<>();
+			for (int i = 0; i < (myReads.length + 1) * columns; i++)
+				cells.add(new ArrayList<Entry>());
+			for (int i = 0; i < transitions.length; i++) {
+				Entry entry = new Entry((PDATransition) transitions[i],
+						numbers.get(transitions[i].getToState()));
+				int row = reads[i].length() == 0 ? 0 : getSlot(myReads,
+						reads[i].charAt(0));
+				int column = pops[i].length() == 0 ? 0 : getSlot(myPops,
+						pops[i].charAt(0));
+				// Reading or popping nothing applies whatever is there.
+				for (int r = 0; r <= myReads.length; r++)
+					for (int c = 0; c < columns; c++)
+						if ((row == 0 || row == r) && (column == 0 || column == c))
+							cells.get(r * columns + c).add(entry);
+			}
+			myTable = new Entry[cells.size()][];
+			for (int i = 0; i < myTable.length; i++)
+				myTable[i] = cells.get(i).toArray(NONE);
+		}
+
+		/**
+		 * Returns the transitions that may apply to a configuration.
+		 * 
+		 * @param character
+		 *            the next character of input, or -1 if all is read
+		 * @param top
+		 *            the character on top of the stack, or -1 if empty
+		 * @return the transitions that may apply
+		 */
+		Entry[] get(int character, int top) {
+			return myTable[getSlot(myReads, character) * (myPops.length + 1)
+					+ getSlot(myPops, top)];
+		}
+
+		/** The first characters read that have rows of their own. */
+		final char[] myReads;
+
+		/** The first characters popped that have columns of their own. */
+		final char[] myPops;
+
+		/** The transitions of each cell, by row and then column. */
+		final Entry[][] myTable;
+	}
+
+	/** No transitions. */
+	private static final Entry[] NONE = new Entry[0];
+
+	/** The automaton whose transitions are indexed. */
+	private PushdownAutomaton myAutomaton;
+
+	/** The table of each state, or <CODE>null</CODE> if the index is stale. */
+	private HashMap<State, StateIndex> myIndex = null;
+}
@@ -57,4 +57,35 @@ public class PushdownAutomaton extends Automaton {
 	protected Class getTransitionClass() {
 		return automata.pda.PDATransition.class;
 	}
+
+	/**
+	 * Returns the transition index for this automaton, which finds the
+	 * transitions that may apply to a configuration and is kept until this
+	 * automaton changes.
+	 * 
+	 * @return the transition index for this automaton
+	 */
+	public PDATransitionIndex getTransitionIndex() {
+		if (transitionIndex == null)
+			transitionIndex = new PDATransitionIndex(this);
+		return transitionIndex;
+	}
+
+	/**
+	 * Returns the compiled DPDA cache for this automaton, which keeps the
+	 * compiled form of this automaton until it changes.
+	 * 
+	 * @return the compiled DPDA cache for this automaton
+	 */
+	public CompiledDPDACache getCompiledDPDACache() {
+		if (compiledDPDACache == null)
+			compiledDPDACache = new CompiledDPDACache(this);
+		return compiledDPDACache;
+	}
+
+	/** The transition index for this automaton, once it is asked for. */
+	private transient PDATransitionIndex transitionIndex = null;
+
+	/** The compiled DPDA cache for this automaton, once it is asked for. */
+	private transient CompiledDPDACache compiledDPDACache = null;
 }
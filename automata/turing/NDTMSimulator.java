@@ -192,6 +192,7 @@ public class NDTMSimulator extends AutomatonSimulator {
     public boolean simulateInput(String input) {
 	/** clear the configurations to begin new simulation. */
 	myConfigurations.clear();
+	startRun();
 	Configuration[] initialConfigs = getInitialConfigurations(input);
 	for(int k = 0; k < initialConfigs.length; k++) {
 	    TMConfiguration initialConfiguration = 
@@ -199,7 +200,7 @@ public class NDTMSimulator extends AutomatonSimulator {
 	    myConfigurations.add(initialConfiguration);
 	} 
 	while (!myConfigurations.isEmpty()) {
-	    if(isAccepted()) return true;
+	    if(isAccepted()) return finishRun(input, true);
 	    ArrayList<Configuration> configurationsToAdd = new ArrayList<>();
 	    Iterator<Configuration> it = myConfigurations.iterator();
 	    while (it.hasNext()) {
@@ -209,8 +210,10 @@ public class NDTMSimulator extends AutomatonSimulator {
 		it.remove();
 	    } 
 	    myConfigurations.addAll(configurationsToAdd);
+	    if (!myBudget.step(myConfigurations.size(), myPolicy))
+	    	return finishRun(input, false);
 	}
-	return false;
+	return finishRun(input, false);
     }
     private AcceptanceFilter[] myFilters;
 
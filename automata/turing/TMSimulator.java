@@ -28,8 +28,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import javax.swing.JOptionPane;
-
 import automata.Automaton;
 import automata.AutomatonSimulator;
 import automata.Configuration;
@@ -180,9 +178,8 @@ public class TMSimulator extends AutomatonSimulator {
                 if (varToChar.containsKey(characters[i])){
                     //warn the user that they are attempting something erroneous
                     //MERLIN MERLIN MERLIN MERLIN MERLIN//
-                    JOptionPane.showMessageDialog(null,"You cannot use a variable on the left side of the assignment operator!\n Please fix this and restart the simulation.", 
-                            "Illegal Variable Location!\n"
-                            ,  JOptionPane.ERROR_MESSAGE);
+                    myPolicy.reportError("Illegal Variable Location!",
+                            "You cannot use a variable on the left side of the assignment operator!\n Please fix this and restart the simulation.");
 
                 }
                 if (characters[i].charAt(0) == underHead) flag = true;; //take care of assignment somewhere else //here, it's only alphabet letters
@@ -240,10 +237,9 @@ public class TMSimulator extends AutomatonSimulator {
 
             //check that the initial state exists
             if (currentState == null) {
-                    JOptionPane.showMessageDialog(null, "It appears that one of your building blocks, possibly nested, lacks an initial state.\n "+
-                            "Please resolve this problem and restart the simulation.",
-                            "Missing Initial State"
-                            ,  JOptionPane.ERROR_MESSAGE);
+                    myPolicy.reportError("Missing Initial State",
+                            "It appears that one of your building blocks, possibly nested, lacks an initial state.\n "+
+                            "Please resolve this problem and restart the simulation.");
 
                     return list;
             }
@@ -363,6 +359,7 @@ outer:  while (true){
 		/** clear the configurations to begin new simulation. */
         //System.out.println("In Simulate Input");
 		myConfigurations.clear();
+		startRun();
 		Configuration[] initialConfigs = getInitialConfigurations(input);
 		for (int k = 0; k < initialConfigs.length; k++) {
 			TMConfiguration initialConfiguration = (TMConfiguration) initialConfigs[k];
@@ -371,7 +368,7 @@ outer:  while (true){
 		while (!myConfigurations.isEmpty()) {
 			//System.out.println("HERE!!!!!");
 			if (isAccepted())
-				return true;
+				return finishRun(input, true);
 			ArrayList<Configuration> configurationsToAdd = new ArrayList<>();
 			Iterator<Configuration> it = myConfigurations.iterator();
 			while (it.hasNext()) {
@@ -381,8 +378,10 @@ outer:  while (true){
 				it.remove();
 			}
 			myConfigurations.addAll(configurationsToAdd);
+			if (!myBudget.step(myConfigurations.size(), myPolicy))
+				return finishRun(input, false);
 		}
-		return false;
+		return finishRun(input, false);
 	}
 
 	public String[] getInputStrings() {
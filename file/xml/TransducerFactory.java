@@ -20,6 +20,7 @@
 
 package file.xml;
 
+import java.awt.GraphicsEnvironment;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -85,6 +86,11 @@ public class TransducerFactory {
 		// Check for the type.
 		//if single tape standard Turing machine, ask user if they wish to open TM as standard TM or TMBB
 		if (type.equals("turing")) {
+			// Without a display there is no one to ask, and a machine with
+			// no blocks is a standard Turing machine.
+			if (GraphicsEnvironment.isHeadless()) {
+				return instantiate(new TMTransducer());
+			}
 			if (OpenAction.openOrRead) {
 				return instantiate(new TMBBTransducer());
 			}
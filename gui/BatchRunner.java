@@ -0,0 +1,975 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package gui;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import automata.Automaton;
+import automata.AutomatonSimulator;
+import automata.Configuration;
+import automata.DifferentialTester;
+import automata.LimitPolicy;
+import automata.PrefixSimulator;
+import automata.SimulationBudget;
+import automata.SimulationMetrics;
+import automata.SimulatorFactory;
+import automata.VisitedConfigurations;
+import automata.fsa.CompiledDFA;
+import automata.fsa.FSABitsetSimulator;
+import automata.fsa.FSAConfiguration;
+import automata.fsa.FSAStepByStateSimulator;
+import automata.fsa.FiniteStateAutomaton;
+import automata.fsa.LazyDFASimulator;
+import automata.pda.CompiledDPDA;
+import automata.pda.PDAConfiguration;
+import automata.pda.PDAStepByStateSimulator;
+import automata.pda.PDAStepWithClosureSimulator;
+import automata.pda.PushdownAutomaton;
+import automata.turing.NDTMSimulator;
+import automata.turing.TMSimulator;
+import automata.turing.TuringMachine;
+import file.ParseException;
+import file.XMLCodec;
+import grammar.Grammar;
+import grammar.parse.BruteParser;
+import gui.sim.multiple.ParallelRunner;
+import gui.sim.multiple.ResultCache;
+
+/**
+ * The <CODE>BatchRunner</CODE> is the headless mode of JFLAP, started by
+ * giving <CODE>text</CODE> as the first command line argument. It loads
+ * each structure file through the {@link file.XMLCodec}, runs every line of
+ * the input files against it, and writes one CSV or JSON line per input to
+ * standard output. Nothing here touches a window, so it may be run on a
+ * machine without a display.
+ * <P>
+ * Automata are run on the simulator the {@link automata.SimulatorFactory}
+ * would give, breadth first as the multiple run pane does, dropping
+ * configurations already reached, within a {@link SimulationBudget} on the
+ * number of steps, configurations, time and memory; an input that runs out of
+ * it is reported with the limit it ran out of. Deterministic finite state
+ * and pushdown automata instead follow their single path on a
+ * {@link CompiledDFA} or {@link CompiledDPDA}, and other finite state
+ * automata run on their bitset form through a {@link LazyDFASimulator}.
+ * Grammars are run on the
+ * {@link grammar.parse.BruteParser}, bounded only by time. Accepted and
+ * rejected inputs are kept in a {@link ResultCache}, so an input repeated on
+ * the same structure, or on a copy of it in another file, is not run again;
+ * with <CODE>--cache</CODE> the results are also kept in a directory for
+ * later runs. Each line gives what its input cost, and with
+ * <CODE>--metrics</CODE> a summary of the costs of all inputs is written to
+ * a file as well. With <CODE>--share-prefixes</CODE> the inputs of a
+ * nondeterministic finite state, pushdown, Mealy or Moore machine are run
+ * by a {@link PrefixSimulator}, which reads the prefixes they share once,
+ * and their results are written in sorted order of the inputs.
+ * <P>
+ * With <CODE>--diff</CODE> no inputs are read; instead the two automata given
+ * are compared on every string up to the length given, and the shortest
+ * strings they disagree on are written.
+ */
+
+public class BatchRunner {
+	/**
+	 * Instantiates a batch runner that writes its results to the given
+	 * writer.
+	 * 
+	 * @param out
+	 *            the writer to write the results to
+	 */
+	public BatchRunner(Writer out) {
+		myOut = new PrintWriter(out);
+	}
+
+	/**
+	 * Runs the headless mode on command line arguments. These are the
+	 * arguments that followed <CODE>text</CODE>; structure files are those
+	 * ending in <CODE>.jff</CODE> or <CODE>.xml</CODE>, every other file is
+	 * read for inputs, one per line, with <CODE>-</CODE> meaning standard
+	 * input. Standard input is also read if no input files are given.
+	 * 
+	 * @param args
+	 *            the options and files
+	 * @return the exit status, <CODE>0</CODE> if all structures were run,
+	 *         <CODE>1</CODE> if the arguments were bad, <CODE>2</CODE> if
+	 *         a structure could not be run, and <CODE>3</CODE> if the two
+	 *         automata given with <CODE>--diff</CODE> disagreed
+	 */
+	public static int run(String[] args) {
+		Writer writer = new OutputStreamWriter(System.out,
+				StandardCharsets.UTF_8);
+		BatchRunner runner = new BatchRunner(writer);
+		List<File> structures = new ArrayList<>();
+		List<String> inputFiles = new ArrayList<>();
+		File metrics = null;
+		int diff = -1;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("--json"))
+					runner.setJSON(true);
+				else if (arg.equals("--csv"))
+					runner.setJSON(false);
+				else if (arg.equals("--accept"))
+					runner.setAcceptByFinalState(!value(args, ++i).equals(
+							"empty"));
+				else if (arg.equals("--max-steps"))
+					runner.setMaxSteps(Long.parseLong(value(args, ++i)));
+				else if (arg.equals("--max-configs"))
+					runner.setMaxConfigurations(Long.parseLong(value(args,
+							++i)));
+				else if (arg.equals("--timeout"))
+					runner.setTimeout(Long.parseLong(value(args, ++i)));
+				else if (arg.equals("--cache"))
+					runner.setCache(new File(value(args, ++i)));
+				else if (arg.equals("--share-prefixes"))
+					runner.setPrefixesShared(true);
+				else if (arg.equals("--diff"))
+					diff = Integer.parseInt(value(args, ++i));
+				else if (arg.equals("--metrics"))
+					metrics = new File(value(args, ++i));
+				else if (arg.equals("--max-memory"))
+					runner.setMaxMemory(Long.parseLong(value(args, ++i)) << 20);
+				else if (arg.startsWith("--"))
+					throw new IllegalArgumentException("Unknown option " + arg
+							+ ".");
+				else if (arg.endsWith(".jff") || arg.endsWith(".xml"))
+					structures.add(new File(arg));
+				else
+					inputFiles.add(arg);
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			return 1;
+		}
+		if (structures.isEmpty() || diff >= 0 && structures.size() != 2) {
+			System.err.println(USAGE);
+			return 1;
+		}
+		if (diff >= 0) {
+			int status = runner.diff(structures.get(0), structures.get(1), diff);
+			runner.myOut.flush();
+			return status;
+		}
+		if (inputFiles.isEmpty())
+			inputFiles.add("-");
+		List<String> inputs = new ArrayList<>();
+		for (int i = 0; i < inputFiles.size(); i++) {
+			String name = inputFiles.get(i);
+			try {
+				readInputs(name.equals("-") ? System.in : new FileInputStream(
+						name), inputs);
+			} catch (IOException e) {
+				System.err.println("Could not read " + name + ": "
+						+ e.getMessage());
+				return 1;
+			}
+		}
+		runner.printHeader();
+		int status = 0;
+		for (int i = 0; i < structures.size(); i++)
+			if (!runner.run(structures.get(i), inputs))
+				status = 2;
+		runner.myOut.flush();
+		if (metrics != null) {
+			try {
+				Writer metricsWriter = new OutputStreamWriter(
+						new FileOutputStream(metrics), StandardCharsets.UTF_8);
+				try {
+					runner.getMetrics().writeSummary(metricsWriter);
+				} finally {
+					metricsWriter.close();
+				}
+			} catch (IOException e) {
+				System.err.println("Could not write " + metrics + ": "
+						+ e.getMessage());
+				return 1;
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Returns the value of an option.
+	 * 
+	 * @param args
+	 *            the command line arguments
+	 * @param index
+	 *            the index of the value
+	 * @return the value at that index
+	 * @throws IllegalArgumentException
+	 *             if the option has no value
+	 */
+	private static String value(String[] args, int index) {
+		if (index >= args.length)
+			throw new IllegalArgumentException("Option " + args[index - 1]
+					+ " needs a value.");
+		return args[index];
+	}
+
+	/**
+	 * Reads the lines of a stream as inputs. The stream is closed afterwards
+	 * unless it is standard input.
+	 * 
+	 * @param stream
+	 *            the stream to read
+	 * @param inputs
+	 *            the list to add the lines to
+	 * @throws IOException
+	 *             if the stream could not be read
+	 */
+	private static void readInputs(InputStream stream, List<String> inputs)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				stream, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null)
+			inputs.add(line);
+		if (stream != System.in)
+			reader.close();
+	}
+
+	/**
+	 * Sets whether results are written as JSON lines rather than CSV.
+	 * 
+	 * @param json
+	 *            <CODE>true</CODE> for JSON lines, <CODE>false</CODE> for
+	 *            CSV
+	 */
+	public void setJSON(boolean json) {
+		myJSON = json;
+	}
+
+	/**
+	 * Sets whether pushdown automata accept by final state or by empty stack.
+	 * 
+	 * @param finalState
+	 *            <CODE>true</CODE> to accept by final state,
+	 *            <CODE>false</CODE> to accept by empty stack
+	 */
+	public void setAcceptByFinalState(boolean finalState) {
+		myAcceptByFinalState = finalState;
+	}
+
+	/**
+	 * Sets the number of steps an automaton may take on one input.
+	 * 
+	 * @param steps
+	 *            the maximum number of steps
+	 */
+	public void setMaxSteps(long steps) {
+		myBudget.setMaximum(SimulationBudget.Limit.STEPS, steps);
+	}
+
+	/**
+	 * Sets the number of configurations an automaton may generate on one
+	 * input.
+	 * 
+	 * @param configurations
+	 *            the maximum number of configurations
+	 */
+	public void setMaxConfigurations(long configurations) {
+		myBudget.setMaximum(SimulationBudget.Limit.CONFIGURATIONS,
+				configurations);
+	}
+
+	/**
+	 * Sets the time one input may take.
+	 * 
+	 * @param millis
+	 *            the maximum time in milliseconds
+	 */
+	public void setTimeout(long millis) {
+		myBudget.setMaximum(SimulationBudget.Limit.TIME, millis);
+	}
+
+	/**
+	 * Sets the memory the configurations of one input may be estimated to
+	 * hold.
+	 * 
+	 * @param bytes
+	 *            the maximum memory in bytes
+	 */
+	public void setMaxMemory(long bytes) {
+		myBudget.setMaximum(SimulationBudget.Limit.MEMORY, bytes);
+	}
+
+	/**
+	 * Sets the directory results are kept in between runs.
+	 * 
+	 * @param directory
+	 *            the directory, or <CODE>null</CODE> to keep results only in
+	 *            memory
+	 */
+	public void setCache(File directory) {
+		myCache.setStore(directory);
+	}
+
+	/**
+	 * Compares two automata on every string up to a length with a
+	 * {@link DifferentialTester}, and writes the shortest strings they
+	 * disagree on, one line each. How many strings were compared is written
+	 * to standard error.
+	 * 
+	 * @param first
+	 *            the file of the first automaton
+	 * @param second
+	 *            the file of the second automaton
+	 * @param maxLength
+	 *            the length of the longest strings to try
+	 * @return <CODE>0</CODE> if the automata agreed, <CODE>2</CODE> if they
+	 *         could not be compared, and <CODE>3</CODE> if they disagreed
+	 */
+	public int diff(File first, File second, int maxLength) {
+		Automaton[] automata = new Automaton[2];
+		File[] files = { first, second };
+		for (int i = 0; i < files.length; i++) {
+			try {
+				Serializable structure = new XMLCodec().decode(files[i], null);
+				if (!(structure instanceof Automaton)) {
+					System.err.println(files[i].getPath()
+							+ ": Cannot compare this structure.");
+					return 2;
+				}
+				automata[i] = (Automaton) structure;
+			} catch (ParseException e) {
+				System.err.println(files[i].getPath() + ": " + e.getMessage());
+				return 2;
+			}
+		}
+		DifferentialTester tester;
+		try {
+			tester = new DifferentialTester(automata[0], automata[1]);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return 2;
+		}
+		tester.setAcceptByFinalState(myAcceptByFinalState);
+		tester.setBudget(myBudget);
+		DifferentialTester.Result result = tester.test(maxLength);
+		if (!myJSON)
+			myOut.println("input," + csv(first.getPath()) + ","
+					+ csv(second.getPath()));
+		List<DifferentialTester.Disagreement> disagreements = result
+				.getDisagreements();
+		for (int i = 0; i < disagreements.size(); i++) {
+			DifferentialTester.Disagreement d = disagreements.get(i);
+			if (myJSON)
+				myOut.println("{\"input\":" + json(d.getInput())
+						+ ",\"first\":" + json(d.getFirstResult())
+						+ ",\"second\":" + json(d.getSecondResult()) + "}");
+			else
+				myOut.println(csv(d.getInput()) + ","
+						+ csv(d.getFirstResult()) + ","
+						+ csv(d.getSecondResult()));
+		}
+		System.err.println("Compared " + result.getTested()
+				+ " strings; " + result.getUndetermined()
+				+ " could not be settled"
+				+ (result.isComplete() ? "." : " before time ran out."));
+		return result.isAgreed() ? 0 : 3;
+	}
+
+	/**
+	 * Returns what the inputs run so far cost.
+	 * 
+	 * @return the metrics of every input written
+	 */
+	public SimulationMetrics getMetrics() {
+		return myMetrics;
+	}
+
+	/**
+	 * Writes the CSV header, if results are written as CSV.
+	 */
+	public void printHeader() {
+		if (!myJSON)
+			myOut.println("file,input,result,limit,steps,configurations,"
+					+ "peak_frontier,time_us,output");
+	}
+
+	/**
+	 * Runs all inputs on the structure in a file. If the file cannot be read
+	 * or holds a structure that cannot be run, a single error line is
+	 * written.
+	 * 
+	 * @param file
+	 *            the structure file
+	 * @param inputs
+	 *            the inputs to run
+	 * @return <CODE>true</CODE> if the structure was run,
+	 *         <CODE>false</CODE> if it was not
+	 */
+	public boolean run(File file, List<String> inputs) {
+		String name = file.getPath();
+		Serializable structure;
+		try {
+			structure = new XMLCodec().decode(file, null);
+		} catch (ParseException e) {
+			print(name, null, ERROR, null, 0, 0, 0, e.getMessage());
+			return false;
+		}
+		if (structure instanceof Automaton) {
+			Automaton automaton = (Automaton) structure;
+			if (automaton.getInitialState() == null) {
+				print(name, null, ERROR, null, 0, 0, 0, "No initial state.");
+				return false;
+			}
+			AutomatonSimulator simulator = getSimulator(automaton);
+			String prefix = ResultCache.getPrefix(automaton, simulator);
+			if (myPrefixesShared && ParallelRunner.isShared(simulator)) {
+				runShared(name, simulator, inputs, prefix);
+				myOut.flush();
+				return true;
+			}
+			for (int i = 0; i < inputs.size(); i++) {
+				String key = ResultCache.getKey(prefix,
+						new String[] { inputs.get(i) });
+				myStart = System.nanoTime();
+				if (!printCached(name, inputs.get(i), key))
+					run(name, automaton, simulator, inputs.get(i), key);
+			}
+		} else if (structure instanceof Grammar) {
+			Grammar grammar = (Grammar) structure;
+			String prefix = ResultCache.getPrefix(grammar, null);
+			for (int i = 0; i < inputs.size(); i++) {
+				String key = ResultCache.getKey(prefix,
+						new String[] { inputs.get(i) });
+				myStart = System.nanoTime();
+				if (!printCached(name, inputs.get(i), key))
+					run(name, grammar, inputs.get(i), key);
+			}
+		} else {
+			print(name, null, ERROR, null, 0, 0, 0, "Cannot run this structure.");
+			return false;
+		}
+		myOut.flush();
+		return true;
+	}
+
+	/**
+	 * Runs the inputs on an automaton in the order of the trie of the
+	 * inputs, reading the prefixes they share once, and writes the results
+	 * in that order. What an input cost is what was spent on the way to it.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param simulator
+	 *            the simulator for the automaton
+	 * @param inputs
+	 *            the inputs to run
+	 * @param prefix
+	 *            the start of the cache keys for the automaton
+	 */
+	private void runShared(String name, AutomatonSimulator simulator,
+			List<String> inputs, String prefix) {
+		PrefixSimulator prefixes = new PrefixSimulator(simulator);
+		prefixes.setBudget(myBudget);
+		String[] array = inputs.toArray(new String[0]);
+		Integer[] order = PrefixSimulator.getTrieOrder(array);
+		for (int i = 0; i < order.length; i++) {
+			String input = array[order[i]];
+			String key = ResultCache.getKey(prefix, new String[] { input });
+			myStart = System.nanoTime();
+			if (printCached(name, input, key))
+				continue;
+			if (!prefixes.moveTo(input)) {
+				print(name, input, LIMIT, prefixes.getExceeded(), prefixes
+						.getSteps(), prefixes.getConfigurationCount(), prefixes
+						.getPeakFrontier(), ResultCache.getOutput(prefixes
+						.getLastConfiguration()));
+				continue;
+			}
+			Configuration config = prefixes.getAcceptingConfiguration();
+			String result = config == null ? REJECT : ACCEPT;
+			if (config == null)
+				config = prefixes.getLastConfiguration();
+			finish(name, input, key, result, prefixes.getSteps(), prefixes
+					.getConfigurationCount(), prefixes.getPeakFrontier(),
+					ResultCache.getOutput(config));
+		}
+	}
+
+	/**
+	 * Sets whether inputs run on the same nondeterministic finite state,
+	 * pushdown, Mealy or Moore machine read the prefixes they share once.
+	 * The results of each such machine are then written in sorted order of
+	 * their inputs.
+	 * 
+	 * @param shared
+	 *            <CODE>true</CODE> to read shared prefixes once
+	 */
+	public void setPrefixesShared(boolean shared) {
+		myPrefixesShared = shared;
+	}
+
+	/**
+	 * Writes the result kept for an input, if there is one.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param input
+	 *            the input line
+	 * @param key
+	 *            the key of the input in the result cache
+	 * @return <CODE>true</CODE> if a result was kept and written
+	 */
+	private boolean printCached(String name, String input, String key) {
+		ResultCache.Result result = myCache.get(key);
+		if (result == null)
+			return false;
+		print(name, input, result.getVerdict(), null, result.getSteps(),
+				result.getConfigurations(), 0, result.getOutput());
+		return true;
+	}
+
+	/**
+	 * Keeps the result of an input, and writes it.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param input
+	 *            the input line
+	 * @param key
+	 *            the key of the input in the result cache
+	 * @param result
+	 *            the result, accept or reject
+	 * @param steps
+	 *            the steps taken
+	 * @param configurations
+	 *            the configurations generated
+	 * @param peakFrontier
+	 *            the most configurations generated by one step
+	 * @param output
+	 *            the output
+	 */
+	private void finish(String name, String input, String key, String result,
+			long steps, long configurations, long peakFrontier, String output) {
+		myCache.put(key, new ResultCache.Result(result, output, steps,
+				configurations, null));
+		print(name, input, result, null, steps, configurations, peakFrontier,
+				output);
+	}
+
+	/**
+	 * Returns the simulator to use for an automaton. This is what the
+	 * simulator factory gives, except that pushdown automata are told their
+	 * acceptance criteria rather than asking for it, finite state automata
+	 * that are not deterministic run on a {@link LazyDFASimulator} so that
+	 * later inputs reuse the sets of states found by earlier ones, and
+	 * problems with the automaton are kept rather than shown.
+	 * 
+	 * @param automaton
+	 *            the automaton to simulate
+	 * @return the simulator for the automaton
+	 */
+	private AutomatonSimulator getSimulator(Automaton automaton) {
+		AutomatonSimulator simulator;
+		if (automaton instanceof PushdownAutomaton)
+			simulator = new PDAStepWithClosureSimulator(automaton,
+					myAcceptByFinalState);
+		else if (automaton instanceof FiniteStateAutomaton
+				&& ((FiniteStateAutomaton) automaton).getCompiledDFACache()
+						.getCompiledDFA() == null)
+			simulator = new LazyDFASimulator(automaton);
+		else
+			simulator = SimulatorFactory.getSimulator(automaton);
+		simulator.setPolicy(new LimitPolicy());
+		return simulator;
+	}
+
+	/**
+	 * Runs one input on an automaton, breadth first, and writes the result.
+	 * A step advances every configuration at once, so on an accept the steps
+	 * are the length of the accepting path.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param automaton
+	 *            the automaton to run
+	 * @param simulator
+	 *            the simulator for the automaton
+	 * @param input
+	 *            the input line
+	 * @param key
+	 *            the key of the input in the result cache
+	 */
+	private void run(String name, Automaton automaton,
+			AutomatonSimulator simulator, String input, String key) {
+		if (simulator instanceof FSAStepByStateSimulator) {
+			CompiledDFA dfa = ((FSAStepByStateSimulator) simulator)
+					.getCompiledDFA();
+			if (dfa != null) {
+				FSAConfiguration last = dfa.getFinalConfiguration(input);
+				int steps = input.length()
+						- last.getUnprocessedInput().length();
+				print(name, input, last.isAccept() ? ACCEPT : REJECT, null,
+						steps, steps + 1, 1, "");
+				return;
+			}
+		}
+		if (simulator instanceof FSABitsetSimulator) {
+			FSAConfiguration last = ((FSABitsetSimulator) simulator)
+					.getLastConfiguration(input);
+			if (last != null) {
+				int steps = last.getPosition();
+				finish(name, input, key, last.isAccept() ? ACCEPT : REJECT,
+						steps, steps + 1, 1, "");
+				return;
+			}
+		}
+		if (simulator instanceof PDAStepByStateSimulator) {
+			CompiledDPDA dpda = ((PDAStepByStateSimulator) simulator)
+					.getCompiledDPDA();
+			if (dpda != null) {
+				SimulationBudget budget = new SimulationBudget(myBudget);
+				budget.start();
+				PDAConfiguration last = dpda.getFinalConfiguration(input,
+						myAcceptByFinalState, budget, null, false);
+				long steps = budget.getUsage(SimulationBudget.Limit.STEPS);
+				if (budget.getExceeded() != null)
+					print(name, input, LIMIT, budget.getExceeded(), steps,
+							steps + 1, 1, ResultCache.getOutput(last));
+				else
+					finish(name, input, key, last.isAccept() ? ACCEPT
+							: REJECT, steps, steps + 1, 1, ResultCache
+							.getOutput(last));
+				return;
+			}
+		}
+		Configuration[] configs;
+		if (automaton instanceof TuringMachine
+				&& ((TuringMachine) automaton).tapes() > 1) {
+			String[] tapes = getTapeInputs(input, ((TuringMachine) automaton)
+					.tapes());
+			if (simulator instanceof NDTMSimulator)
+				configs = ((NDTMSimulator) simulator)
+						.getInitialConfigurations(tapes);
+			else
+				configs = ((TMSimulator) simulator)
+						.getInitialConfigurations(tapes);
+		} else
+			configs = simulator.getInitialConfigurations(input);
+		LimitPolicy policy = (LimitPolicy) simulator.getPolicy();
+		policy.clearError();
+		SimulationBudget budget = new SimulationBudget(myBudget);
+		budget.start();
+		Configuration last = configs.length == 0 ? null
+				: configs[configs.length - 1];
+		VisitedConfigurations visited = new VisitedConfigurations();
+		for (int i = 0; i < configs.length; i++)
+			visited.add(configs[i]);
+		while (configs.length > 0) {
+			if (!budget.step(configs.length, null)) {
+				print(name, input, LIMIT, budget.getExceeded(), budget,
+						ResultCache.getOutput(last));
+				return;
+			}
+			ArrayList<Configuration> next = new ArrayList<>();
+			for (int i = 0; i < configs.length; i++) {
+				last = configs[i];
+				if (last.isAccept()) {
+					finish(name, input, key, ACCEPT, budget, last);
+					return;
+				}
+				ArrayList<Configuration> stepped = simulator
+						.stepConfiguration(last);
+				for (int j = 0; j < stepped.size(); j++)
+					if (visited.add(stepped.get(j)))
+						next.add(stepped.get(j));
+			}
+			if (policy.getErrorTitle() != null) {
+				print(name, input, ERROR, null, budget, policy.getErrorTitle());
+				return;
+			}
+			configs = next.toArray(new Configuration[0]);
+		}
+		finish(name, input, key, REJECT, budget, last);
+	}
+
+	/**
+	 * Splits an input line into the inputs for each tape of a multitape
+	 * Turing machine. The inputs are separated by tabs; missing ones are
+	 * empty.
+	 * 
+	 * @param input
+	 *            the input line
+	 * @param tapes
+	 *            the number of tapes
+	 * @return the input for each tape
+	 */
+	private static String[] getTapeInputs(String input, int tapes) {
+		String[] split = input.split("\t", -1);
+		String[] inputs = new String[tapes];
+		for (int i = 0; i < tapes; i++)
+			inputs[i] = i < split.length ? split[i] : "";
+		return inputs;
+	}
+
+	/**
+	 * Runs one input on a grammar with the brute force parser and writes the
+	 * result. The steps are the nodes the parser generated.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param grammar
+	 *            the grammar to parse with
+	 * @param input
+	 *            the input line
+	 * @param key
+	 *            the key of the input in the result cache
+	 */
+	private void run(String name, Grammar grammar, String input, String key) {
+		BruteParser parser;
+		try {
+			parser = BruteParser.get(grammar, input);
+		} catch (IllegalArgumentException e) {
+			// The input holds a symbol that is no terminal.
+			print(name, input, REJECT, null, 0, 0, 0, "");
+			return;
+		}
+		SimulationBudget budget = new SimulationBudget(myBudget);
+		budget.start();
+		long maxTime = budget.getMaximum(SimulationBudget.Limit.TIME);
+		parser.start();
+		try {
+			while (!parser.isFinished()
+					&& budget.getUsage(SimulationBudget.Limit.TIME) <= maxTime)
+				Thread.sleep(1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		parser.pause();
+		int nodes = parser.getTotalNodeCount();
+		if (!parser.isFinished())
+			print(name, input, LIMIT, SimulationBudget.Limit.TIME, nodes,
+					nodes, 0, "");
+		else
+			finish(name, input, key, parser.getAnswer() != null ? ACCEPT
+					: REJECT, nodes, nodes, 0, "");
+	}
+
+	/**
+	 * Keeps the result of an input run on an automaton, and writes it.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param input
+	 *            the input line
+	 * @param key
+	 *            the key of the input in the result cache
+	 * @param result
+	 *            the result, accept or reject
+	 * @param budget
+	 *            the budget of the run, with its usage
+	 * @param last
+	 *            the last configuration
+	 */
+	private void finish(String name, String input, String key, String result,
+			SimulationBudget budget, Configuration last) {
+		long steps = budget.getUsage(SimulationBudget.Limit.STEPS);
+		finish(name, input, key, result, Math.max(steps - 1, 0), budget
+				.getUsage(SimulationBudget.Limit.CONFIGURATIONS), budget
+				.getPeakFrontier(), ResultCache.getOutput(last));
+	}
+
+	/**
+	 * Writes one result line for a run of an automaton. The steps are those
+	 * completed; a step that was stopped by the budget, or that found no
+	 * configurations to go on with, is not counted.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param input
+	 *            the input
+	 * @param result
+	 *            the result
+	 * @param limit
+	 *            the limit that was exceeded, or <CODE>null</CODE>
+	 * @param budget
+	 *            the budget of the run, with its usage
+	 * @param output
+	 *            the output, or the error message for an error
+	 */
+	private void print(String name, String input, String result,
+			SimulationBudget.Limit limit, SimulationBudget budget,
+			String output) {
+		long steps = budget.getUsage(SimulationBudget.Limit.STEPS);
+		print(name, input, result, limit, Math.max(steps - 1, 0), budget
+				.getUsage(SimulationBudget.Limit.CONFIGURATIONS), budget
+				.getPeakFrontier(), output);
+	}
+
+	/**
+	 * Writes one result line. The time of an input is taken from when
+	 * {@link #run(File, List)} began it, and the run is recorded in the
+	 * metrics.
+	 * 
+	 * @param name
+	 *            the name of the structure file
+	 * @param input
+	 *            the input, or <CODE>null</CODE> for an error about the
+	 *            whole structure
+	 * @param result
+	 *            the result
+	 * @param limit
+	 *            the limit that was exceeded, or <CODE>null</CODE>
+	 * @param steps
+	 *            the steps taken
+	 * @param configurations
+	 *            the configurations generated
+	 * @param peakFrontier
+	 *            the most configurations generated by one step
+	 * @param output
+	 *            the output, or the error message for an error
+	 */
+	private void print(String name, String input, String result,
+			SimulationBudget.Limit limit, long steps, long configurations,
+			long peakFrontier, String output) {
+		long time = 0;
+		if (input != null) {
+			time = System.nanoTime() - myStart;
+			myMetrics.record(ACCEPT.equals(result), limit, steps,
+					configurations, peakFrontier, time);
+		}
+		String limitName = limit == null ? "" : limit.name().toLowerCase();
+		if (myJSON) {
+			myOut.println("{\"file\":" + json(name) + ",\"input\":"
+					+ (input == null ? "null" : json(input)) + ",\"result\":"
+					+ json(result) + ",\"limit\":"
+					+ (limit == null ? "null" : json(limitName))
+					+ ",\"steps\":" + steps
+					+ ",\"configurations\":" + configurations
+					+ ",\"peak_frontier\":" + peakFrontier
+					+ ",\"time_us\":" + time / 1000
+					+ ",\"output\":" + json(output) + "}");
+		} else {
+			myOut.println(csv(name) + "," + (input == null ? "" : csv(input))
+					+ "," + result + "," + limitName + "," + steps + ","
+					+ configurations + "," + peakFrontier + "," + time / 1000
+					+ "," + csv(output));
+		}
+	}
+
+	/**
+	 * Quotes a string as a CSV field, if it needs quoting.
+	 * 
+	 * @param field
+	 *            the field
+	 * @return the field as it should be written
+	 */
+	private static String csv(String field) {
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r')
+				return "\"" + field.replace("\"", "\"\"") + "\"";
+		}
+		return field;
+	}
+
+	/**
+	 * Quotes a string as a JSON string.
+	 * 
+	 * @param string
+	 *            the string
+	 * @return the JSON string literal
+	 */
+	private static String json(String string) {
+		StringBuffer quoted = new StringBuffer(string.length() + 2);
+		quoted.append('"');
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c == '\t')
+				quoted.append("\\t");
+			else if (c == '\n')
+				quoted.append("\\n");
+			else if (c == '\r')
+				quoted.append("\\r");
+			else if (c < 0x20)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/** The result for an accepted input. */
+	public static final String ACCEPT = "accept";
+
+	/** The result for a rejected input. */
+	public static final String REJECT = "reject";
+
+	/** The result for an input that ran out of its budget. */
+	public static final String LIMIT = "limit";
+
+	/** The result for a structure or input that could not be run. */
+	public static final String ERROR = "error";
+
+	/** The most results held in memory. */
+	private static final int CACHE_SIZE = 100000;
+
+	/** The usage message. */
+	private static final String USAGE = "Usage: text [--csv | --json] "
+			+ "[--accept final|empty] [--max-steps n] [--max-configs n] "
+			+ "[--timeout ms] [--max-memory mb] [--cache dir] "
+			+ "[--metrics summary.csv] [--share-prefixes] [--diff length] "
+			+ "structure.jff... [inputs.txt... | -]";
+
+	/** The writer results are written to. */
+	private PrintWriter myOut;
+
+	/** Whether results are written as JSON lines. */
+	private boolean myJSON = false;
+
+	/** Whether pushdown automata accept by final state. */
+	private boolean myAcceptByFinalState = true;
+
+	/** Whether inputs read the prefixes they share once. */
+	private boolean myPrefixesShared = false;
+
+	/** The results of inputs already run. */
+	private ResultCache myCache = new ResultCache(CACHE_SIZE);
+
+	/** The limits on one input, copied for each input. */
+	private SimulationBudget myBudget = new SimulationBudget(100000, 1000000,
+			10000, SimulationBudget.UNLIMITED);
+
+	/** What the inputs written so far cost. */
+	private SimulationMetrics myMetrics = new SimulationMetrics();
+
+	/** When the input being run was begun, from {@link System#nanoTime}. */
+	private long myStart;
+}
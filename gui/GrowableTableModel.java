@@ -123,11 +123,13 @@ public abstract class GrowableTableModel extends AbstractTableModel implements
 	}
 
 	/**
-	 * Returns the number of rows currently in this table.
+	 * Returns the number of rows currently in this table. This is not final
+	 * so that a table whose rows are not held in <CODE>data</CODE>, like
+	 * {@link gui.sim.multiple.FileInputTableModel}, may count its own.
 	 * 
 	 * @return the number of rows currently in this table
 	 */
-	public final int getRowCount() {
+	public int getRowCount() {
 		return data.size();
 	}
 
@@ -30,12 +30,14 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
+import automata.AutomatonSimulator;
 import file.Codec;
 import file.ParseException;
 import gui.action.NewAction;
 import gui.action.OpenAction;
 import gui.environment.Profile;
 import gui.environment.Universe;
+import gui.sim.InteractivePolicy;
 
 /**
  * This is the class that starts JFLAP.
@@ -56,13 +58,22 @@ public class Main {
 	 * Starts JFLAP. This sets various system properties. If there are command
 	 * line arguments, this will attempt to open them as JFLAP files. If there
 	 * are no arguments, this will call on {@link gui.action.NewAction#showNew}
-	 * to display a choice for a new structure.
+	 * to display a choice for a new structure. If the first argument is
+	 * <CODE>text</CODE>, the rest are handed to {@link BatchRunner#run} and no
+	 * window is shown.
 	 * 
 	 * @param args
 	 *            the command line arguments, which may hold files to open
 	 */
 	public static void main(String[] args) {
 
+		// Run headless, without any windows, if asked.
+		if (args.length > 0 && args[0].equals("text")) {
+			System.setProperty("java.awt.headless", "true");
+			String[] rest = new String[args.length - 1];
+			System.arraycopy(args, 1, rest, 0, rest.length);
+			System.exit(BatchRunner.run(rest));
+		}
        
 		// Make sure we're not some old version.
 		try {
@@ -109,13 +120,11 @@ public class Main {
 		} catch (SecurityException e) {
 			// Well, not key.
 		}
+		// Simulators ask the user before running past their limits.
+		AutomatonSimulator.setDefaultPolicy(new InteractivePolicy(null));
 		// Prompt the user for newness.
 		NewAction.showNew();
 		if (args.length > 0) {
-			if(args[0].equals("text")){
-				
-			}
-			
 			for (int i = 0; i < args.length; i++) {
 				Codec[] codecs = (Codec[]) Universe.CODEC_REGISTRY
 				.getDecoders().toArray(new Codec[0]);
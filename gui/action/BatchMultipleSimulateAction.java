@@ -56,15 +56,11 @@ import javax.swing.table.TableColumnModel;
 //import com.sun.org.apache.xalan.internal.xsltc.compiler.Parser;
 
 import automata.Automaton;
-import automata.AutomatonSimulator;
 import automata.Configuration;
 import automata.NondeterminismDetector;
 import automata.NondeterminismDetectorFactory;
-import automata.SimulatorFactory;
 import automata.State;
-import automata.mealy.MealyConfiguration;
 import automata.mealy.MealyMachine;
-import automata.turing.TMSimulator;
 import automata.turing.TuringMachine;
 import grammar.Grammar;
 import gui.JTableExtender;
@@ -130,63 +126,6 @@ public class BatchMultipleSimulateAction extends MultipleSimulateAction {
 		return "Multiple Run";
 	}
 
-	/**
-	 * This will search configurations for an accepting configuration.
-	 * 
-	 * @param automaton
-	 *            the automaton input is simulated on
-	 * @param simulator
-	 *            the automaton simulator for this automaton
-	 * @param configs
-	 *            the initial configurations generated from a single input
-	 * @param initialInput
-	 *            the object that represents the initial input; this is a String
-	 *            object in most cases, but for Turing Machines is an array of
-	 *            String objects
-	 * @param associatedConfigurations
-	 *            the first accepting configuration encountered will be added to
-	 *            this list, or the last configuration considered if there was
-	 *            no accepted configuration
-	 * @return <CODE>0</CODE> if this was an accept, <CODE>1</CODE> if
-	 *         reject, and <CODE>2</CODE> if the user cancelled the run
-	 */
-	protected int handleInput(Automaton automaton,
-			AutomatonSimulator simulator, Configuration[] configs,
-			Object initialInput, List<Configuration> associatedConfigurations) {
-		JFrame frame = Universe.frameForEnvironment(getEnvironment());
-		// How many configurations have we had?
-		int numberGenerated = 0;
-		// When should the next warning be?
-		int warningGenerated = WARNING_STEP;
-		Configuration lastConsidered = configs[configs.length - 1];
-		while (configs.length > 0) {
-			numberGenerated += configs.length;
-			// Make sure we should continue.
-			if (numberGenerated >= warningGenerated) {
-				if (!confirmContinue(numberGenerated, frame)) {
-					associatedConfigurations.add(lastConsidered);
-					return 2;
-				}
-				while (numberGenerated >= warningGenerated)
-					warningGenerated *= 2;
-			}
-			// Get the next batch of configurations.
-			ArrayList<Configuration> next = new ArrayList<>();
-			for (int i = 0; i < configs.length; i++) {
-				lastConsidered = configs[i];
-				if (configs[i].isAccept()) {
-					associatedConfigurations.add(configs[i]);
-					return 0;
-				} else {
-					next.addAll(simulator.stepConfiguration(configs[i]));
-				}
-			}
-			configs = (Configuration[]) next.toArray(new Configuration[0]);
-		}
-		associatedConfigurations.add(lastConsidered);
-		return 1;
-	}
-
 	/**
 	 * Provides an initialized multiple input table object.
 	 * 
@@ -369,86 +308,11 @@ public class BatchMultipleSimulateAction extends MultipleSimulateAction {
 					// We weren't editing anything, so we're OK.
 				}
 				InputTableModel model = (InputTableModel) table.getModel();
-				
-				if(getObject() instanceof Automaton){
-	                Automaton currentAuto = (Automaton)getEnvironment().myObjects.get(0);
-					AutomatonSimulator simulator = SimulatorFactory
-							.getSimulator(currentAuto);
-					String[][] inputs = model.getInputs();
-	                int uniqueInputs = inputs.length;
-	                int tapes = 1;
-	                if(model.isMultiple){
-	                	if (currentAuto instanceof TuringMachine) {
-							 tapes = ((TuringMachine)currentAuto).tapes;
-	                	}
-	                    uniqueInputs = getEnvironment().myTestStrings.size()/tapes;
-	                }
-					for (int r = 0; r < inputs.length; r++) {
-	                    if(r>0){
-	                        if(r%uniqueInputs==0){
-	                            currentAuto = (Automaton)getEnvironment().myObjects.get(r/uniqueInputs);
-	                           
-	                            simulator = SimulatorFactory.getSimulator(currentAuto);                         
-	                        }
-	                    }
-						Configuration[] configs = null;
-						Object input = null;
-						// Is this a Turing machine?
-						if (currentAuto instanceof TuringMachine) {
-							 
-							configs = ((TMSimulator) simulator)
-									.getInitialConfigurations(inputs[r]);
-							input = inputs[r];
-						} else { // If it's not a Turing machine.
-							configs = simulator
-									.getInitialConfigurations(inputs[r][0]);
-							input = inputs[r][0];
-						}
-						List<Configuration> associated = new ArrayList<>();
-						int result = handleInput(currentAuto, simulator,
-								configs, input, associated);
-						Configuration c = null;
-						if (associated.size() != 0)
-							c = (Configuration) associated.get(0);
-                        
-                        /*
-                         * If it's a Moore or Mealy machine, the output should be
-                         * the string not accept/reject.
-                         */
-                        if(getObject() instanceof MealyMachine)
-                        {
-                            MealyConfiguration con = (MealyConfiguration) c;
-                            model.setResult(r, con.getOutput(), con, 
-                                getEnvironment().myTransducerStrings, (r%(uniqueInputs))*(tapes+1));
-                        }
-						//currentCompare.add()
-                        else
-                            model.setResult(r, RESULT[result], c, getEnvironment().myTransducerStrings, (r%(uniqueInputs))*(tapes+1));
-					}
-				}
-				else if(getObject() instanceof Grammar){
-					String[][] inputs = model.getInputs();
-					int uniqueInputs = inputs.length;
-					Grammar currentGram = (Grammar)getObject();
-					BruteParsePane parsePane = new BruteParsePane((GrammarEnvironment)getEnvironment(), currentGram, model);
-					parsePane.inputField.setEditable(false);    
-                    parsePane.row = -1;
-					parsePane.parseMultiple();
-//						while(parsePane.pauseResumeAction.isEnabled()){
-//							timer.start();
-//							while(timer.isRunning()){
-//								//wait
-//							}
-						
-//						}
-//						if(parsePane.stepAction.isEnabled()) model.setResult(r, "Accept", null, getEnvironment().myTransducerStrings, (r%uniqueInputs));
-						
-								
-					
-				}
+				runInputs(model, getEnvironment().myObjects.get(0));
 			}
 			
 		});
+		addRunControls(bar);
 		if(!((InputTableModel)table.getModel()).isMultiple){
 		// Add the clear button.
 		bar.add(new AbstractAction("Clear") {
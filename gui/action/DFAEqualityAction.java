@@ -26,6 +26,7 @@ import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 
 import automata.UselessStatesDetector;
+import automata.fsa.FSABitsetSimulator;
 import automata.fsa.FiniteStateAutomaton;
 import automata.graph.FSAEqualityChecker;
 import gui.environment.Environment;
@@ -113,8 +114,17 @@ public class DFAEqualityAction extends FSAAction {
 				.cleanAutomaton(other);
 		automaton = (FiniteStateAutomaton) UselessStatesDetector
 				.cleanAutomaton(automaton);
-		String checkedMessage = checker.equals(other, automaton) ? "They ARE equivalent!"
-				: "They AREN'T equivalent!";
+		String difference = checker.getDistinguishingString(other, automaton);
+		String checkedMessage = "They ARE equivalent!";
+		if (difference != null) {
+			boolean accepted = new FSABitsetSimulator(automaton)
+					.simulateInput(difference);
+			checkedMessage = "They AREN'T equivalent!\n"
+					+ (difference.length() == 0 ? "The empty string"
+							: "The string \"" + difference + "\"")
+					+ " is accepted by " + (accepted ? "this" : "the other")
+					+ " automaton only.";
+		}
 		JOptionPane.showMessageDialog(
 				Universe.frameForEnvironment(environment), checkedMessage);
 	}
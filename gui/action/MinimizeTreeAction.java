@@ -28,13 +28,16 @@ import automata.AutomatonChecker;
 import automata.fsa.FiniteStateAutomaton;
 import automata.fsa.Minimizer;
 import gui.environment.Environment;
+import gui.environment.FrameFactory;
 import gui.environment.Universe;
 import gui.environment.tag.CriticalTag;
 import gui.minimize.MinimizePane;
 
 /**
  * This action allows the user to manually minimize a DFA using a minimization
- * tree.
+ * tree. A DFA with too many states to minimize by hand may instead be
+ * minimized at once by the {@link automata.fsa.HopcroftMinimizer}, and the
+ * minimum DFA opened in a new window.
  * 
  * @author Thomas Finley
  */
@@ -83,6 +86,20 @@ public class MinimizeTreeAction extends FSAAction {
 					.frameForEnvironment(environment), "This isn't a DFA!");
 			return;
 		}
+		int states = automaton.getStates().length;
+		if (states > MAX_TREE_STATES) {
+			int choice = JOptionPane.showConfirmDialog(Universe
+					.frameForEnvironment(environment), "This DFA has " + states
+					+ " states, too many to minimize with a tree.\n"
+					+ "Build the minimum DFA directly?", "Minimize DFA",
+					JOptionPane.YES_NO_CANCEL_OPTION);
+			if (choice == JOptionPane.YES_OPTION) {
+				FrameFactory.createFrame(minimizer.getMinimumDfa(automaton));
+				return;
+			}
+			if (choice != JOptionPane.NO_OPTION)
+				return;
+		}
 		// Show the new environs pane.
 		FiniteStateAutomaton minimized = (FiniteStateAutomaton) automaton
 				.clone();
@@ -101,4 +118,10 @@ public class MinimizeTreeAction extends FSAAction {
 	/** That which minimizes a DFA. */
 	private static Minimizer minimizer = new Minimizer();
 
+	/**
+	 * The most states a DFA may have before the user is offered its minimum
+	 * DFA directly instead of the tree.
+	 */
+	private static final int MAX_TREE_STATES = 30;
+
 }
@@ -27,6 +27,8 @@ import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -41,10 +43,12 @@ import javax.swing.AbstractAction;
 import javax.swing.Box;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSlider;
@@ -52,22 +56,27 @@ import javax.swing.JSplitPane;
 import javax.swing.JTable;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.ScrollPaneLayout;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableRowSorter;
 
 //import com.sun.org.apache.xalan.internal.xsltc.compiler.Parser;
 
 import automata.Automaton;
-import automata.AutomatonSimulator;
 import automata.Configuration;
 import automata.NondeterminismDetector;
 import automata.NondeterminismDetectorFactory;
-import automata.SimulatorFactory;
+import automata.SimulationBudget;
+import automata.SimulationMetrics;
 import automata.State;
-import automata.mealy.MealyConfiguration;
 import automata.mealy.MealyMachine;
-import automata.turing.NDTMSimulator;
-import automata.turing.TMSimulator;
 import automata.turing.TuringMachine;
 import grammar.Grammar;
 import gui.JTableExtender;
@@ -84,7 +93,10 @@ import gui.environment.tag.CriticalTag;
 import gui.grammar.GrammarInputPane;
 import gui.grammar.parse.BruteParsePane;
 import gui.sim.TraceWindow;
+import gui.sim.multiple.FileInputTableModel;
 import gui.sim.multiple.InputTableModel;
+import gui.sim.multiple.ParallelRunner;
+import gui.sim.multiple.ResultCache;
 import gui.viewer.AutomatonPane;
 
 /**
@@ -134,61 +146,266 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 	}
 
 	/**
-	 * This will search configurations for an accepting configuration.
+	 * Adds the progress bar and cancel button for runs of the inputs to a
+	 * tool bar, with a check box to show the time each row took and a button
+	 * to save what the last run cost. They stay idle until
+	 * {@link #runInputs} is called.
 	 * 
-	 * @param automaton
-	 *            the automaton input is simulated on
-	 * @param simulator
-	 *            the automaton simulator for this automaton
-	 * @param configs
-	 *            the initial configurations generated from a single input
-	 * @param initialInput
-	 *            the object that represents the initial input; this is a String
-	 *            object in most cases, but for Turing Machines is an array of
-	 *            String objects
-	 * @param associatedConfigurations
-	 *            the first accepting configuration encountered will be added to
-	 *            this list, or the last configuration considered if there was
-	 *            no accepted configuration
-	 * @return <CODE>0</CODE> if this was an accept, <CODE>1</CODE> if
-	 *         reject, and <CODE>2</CODE> if the user cancelled the run
+	 * @param bar
+	 *            the tool bar to add them to
 	 */
-	protected int handleInput(Automaton automaton,
-			AutomatonSimulator simulator, Configuration[] configs,
-			Object initialInput, List<Configuration> associatedConfigurations) {
-		JFrame frame = Universe.frameForEnvironment(getEnvironment());
-		//frame.pack();
-		// How many configurations have we had?
-		int numberGenerated = 0;
-		// When should the next warning be?
-		int warningGenerated = WARNING_STEP;
-		Configuration lastConsidered = configs[configs.length - 1];
-		while (configs.length > 0) {
-			numberGenerated += configs.length;
-			// Make sure we should continue.
-			if (numberGenerated >= warningGenerated) {
-				if (!confirmContinue(numberGenerated, frame)) {
-					associatedConfigurations.add(lastConsidered);
-					return 2;
-				}
-				while (numberGenerated >= warningGenerated)
-					warningGenerated *= 2;
+	protected void addRunControls(JToolBar bar) {
+		myProgress = new JProgressBar();
+		myProgress.setStringPainted(true);
+		myProgress.setString("");
+		myCancelAction = new AbstractAction("Cancel") {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public void actionPerformed(ActionEvent e) {
+				if (myRunner != null)
+					myRunner.cancel(false);
+			}
+		};
+		myCancelAction.setEnabled(false);
+		myMetricsAction = new AbstractAction("Save Metrics") {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public void actionPerformed(ActionEvent e) {
+				saveMetrics();
+			}
+		};
+		myMetricsAction.setEnabled(false);
+		bar.add(myProgress);
+		bar.add(myCancelAction);
+		bar.add(new JCheckBox(new AbstractAction("Times") {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public void actionPerformed(ActionEvent e) {
+				setTimesShown(((JCheckBox) e.getSource()).isSelected());
+			}
+		}));
+		bar.add(new JCheckBox(new AbstractAction("Share Prefixes") {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public void actionPerformed(ActionEvent e) {
+				myPrefixesShared = ((JCheckBox) e.getSource()).isSelected();
+			}
+		}));
+		bar.add(myMetricsAction);
+	}
+
+	/**
+	 * Sets whether the table shows a column with the time each row took to
+	 * run, in milliseconds. The column reads the times kept by the
+	 * {@link InputTableModel}, so the model's columns are unchanged.
+	 * 
+	 * @param shown
+	 *            <CODE>true</CODE> to show the column, <CODE>false</CODE>
+	 *            to hide it
+	 */
+	protected void setTimesShown(boolean shown) {
+		if (myTimeColumn != null)
+			table.getColumnModel().removeColumn(myTimeColumn);
+		myTimeColumn = null;
+		if (!shown)
+			return;
+		myTimeColumn = new TableColumn(table.getModel().getColumnCount() - 1);
+		myTimeColumn.setHeaderValue("Time (ms)");
+		myTimeColumn.setCellRenderer(new DefaultTableCellRenderer() {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public Component getTableCellRendererComponent(JTable table,
+					Object value, boolean isSelected, boolean hasFocus,
+					int row, int column) {
+				long time = ((InputTableModel) table.getModel())
+						.getTime(table.convertRowIndexToModel(row));
+				return super.getTableCellRendererComponent(table, time < 0 ? ""
+						: String.format("%.3f", time / 1e6), isSelected,
+						hasFocus, row, column);
+			}
+		});
+		table.getColumnModel().addColumn(myTimeColumn);
+	}
+
+	/**
+	 * Asks for a file and saves a summary of what the rows of the last run
+	 * cost in it, as comma separated values.
+	 * 
+	 * @see automata.SimulationMetrics#writeSummary
+	 */
+	protected void saveMetrics() {
+		JFileChooser chooser = new JFileChooser(System.getProperties()
+				.getProperty("user.dir"));
+		if (chooser.showSaveDialog(table) != JFileChooser.APPROVE_OPTION)
+			return;
+		try {
+			FileWriter writer = new FileWriter(chooser.getSelectedFile());
+			try {
+				myMetrics.writeSummary(writer);
+			} finally {
+				writer.close();
 			}
-			// Get the next batch of configurations.
-			ArrayList<Configuration> next = new ArrayList<>();
-			for (int i = 0; i < configs.length; i++) {
-				lastConsidered = configs[i];
-				if (configs[i].isAccept()) {
-					associatedConfigurations.add(configs[i]);
-					return 0;
-				} else {
-					next.addAll(simulator.stepConfiguration(configs[i]));
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(table, e.getMessage(),
+					"Could Not Save Metrics", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	/**
+	 * Runs every row of the input table in the background, spread over the
+	 * processors, with results put in the table as each row finishes. This
+	 * does nothing if a run is already underway.
+	 * 
+	 * @param model
+	 *            the input table
+	 * @param first
+	 *            the automaton or grammar the first rows are run on; in a
+	 *            multiple file table the rest are run on the environment's
+	 *            other objects in turn
+	 * @see gui.sim.multiple.ParallelRunner
+	 */
+	protected void runInputs(InputTableModel model, Object first) {
+		if (myRunner != null && !myRunner.isDone())
+			return;
+		// The rows of a file are read as they are run.
+		String[][] inputs = model instanceof FileInputTableModel ? null
+				: model.getInputs();
+		int rows = inputs == null ? ((FileInputTableModel) model)
+				.getLineCount() : inputs.length;
+		if (rows == 0)
+			return;
+		int uniqueInputs = rows;
+		int tapes = 1;
+		if (model.isMultiple) {
+			if (first instanceof TuringMachine)
+				tapes = ((TuringMachine) first).tapes;
+			uniqueInputs = getEnvironment().myTestStrings.size() / tapes;
+		}
+		Object[] structures = new Object[rows];
+		Object current = first;
+		for (int r = 0; r < rows; r++) {
+			if (r > 0 && r % uniqueInputs == 0)
+				current = getEnvironment().myObjects.get(r / uniqueInputs);
+			structures[r] = current;
+		}
+		int stride = first instanceof Grammar ? 2 : tapes + 1;
+		myRunner = new ParallelRunner(model, inputs, structures,
+				getEnvironment().myTransducerStrings, uniqueInputs, stride,
+				myProgress, getBudget(), RESULT_CACHE);
+		myRunner.setPrefixesShared(myPrefixesShared);
+		myMetrics = new SimulationMetrics();
+		myRunner.addSimulationListener(myMetrics);
+		myRunner.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				if (event.getNewValue() == SwingWorker.StateValue.DONE) {
+					myCancelAction.setEnabled(false);
+					myMetricsAction.setEnabled(true);
 				}
 			}
-			configs = (Configuration[]) next.toArray(new Configuration[0]);
+		});
+		myCancelAction.setEnabled(true);
+		myRunner.execute();
+	}
+
+	/**
+	 * Puts a new model in the table, keeping the columns shown and whether
+	 * only rejected rows are shown. The new model must have the same columns
+	 * as the old. The inputs of a table backed by a file cannot be edited, so
+	 * the action that enters the empty string is disabled for it.
+	 * 
+	 * @param model
+	 *            the new model
+	 */
+	protected void setModel(InputTableModel model) {
+		table.setAutoCreateColumnsFromModel(false);
+		table.setModel(model);
+		setRejectedOnly(myRejectedOnly);
+		if (myEnterEmptyAction != null)
+			myEnterEmptyAction
+					.setEnabled(!(model instanceof FileInputTableModel));
+	}
+
+	/**
+	 * Sets whether the table shows only the rows that were rejected. The rows
+	 * are chosen by their results alone, so a table backed by a file is not
+	 * read to filter it. Rows that are rejected later are shown as they
+	 * finish, but the rows are filtered again only once for each batch of
+	 * results put in the table, not for every cell updated.
+	 * 
+	 * @param rejectedOnly
+	 *            <CODE>true</CODE> to show only rejected rows,
+	 *            <CODE>false</CODE> to show every row
+	 */
+	protected void setRejectedOnly(boolean rejectedOnly) {
+		myRejectedOnly = rejectedOnly;
+		if (!rejectedOnly) {
+			table.setRowSorter(null);
+			return;
 		}
-		associatedConfigurations.add(lastConsidered);
-		return 1;
+		final InputTableModel model = (InputTableModel) table.getModel();
+		final TableRowSorter<InputTableModel> sorter = new TableRowSorter<>(
+				model);
+		sorter.setSortsOnUpdates(false);
+		sorter.setRowFilter(new RowFilter<InputTableModel, Integer>() {
+			public boolean include(
+					Entry<? extends InputTableModel, ? extends Integer> entry) {
+				return model.isRejected(entry.getIdentifier().intValue());
+			}
+		});
+		for (int i = 0; i < model.getColumnCount(); i++)
+			sorter.setSortable(i, false);
+		table.setRowSorter(sorter);
+		model.addTableModelListener(new TableModelListener() {
+			public void tableChanged(TableModelEvent event) {
+				if (table.getRowSorter() != sorter) {
+					// This filter is no longer used.
+					model.removeTableModelListener(this);
+					return;
+				}
+				if (event.getType() != TableModelEvent.UPDATE || myRefilter)
+					return;
+				// Updates come in batches on the event thread, so filter
+				// again once the batch is done.
+				myRefilter = true;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						myRefilter = false;
+						if (table.getRowSorter() == sorter)
+							sorter.sort();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Returns the limits each row of a run is held to. Rows are not run on
+	 * the event thread, so nobody is asked to go on; a row that runs out is
+	 * reported in the table instead. The memory limit is shared out so that
+	 * each processor may hold a large row at once.
+	 * 
+	 * @return the budget for each row
+	 */
+	protected SimulationBudget getBudget() {
+		long memory = Runtime.getRuntime().maxMemory()
+				/ (2 * Runtime.getRuntime().availableProcessors());
+		return new SimulationBudget(SimulationBudget.UNLIMITED,
+				MAX_CONFIGURATIONS, SimulationBudget.UNLIMITED, memory);
 	}
 
 	/**
@@ -332,7 +549,19 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 				JFileChooser ourChooser=new JFileChooser (System.getProperties().getProperty("user.dir"));
 				int retval=ourChooser.showOpenDialog(null);
 				File f=null;
-				if (retval==JFileChooser.APPROVE_OPTION)
+				if (retval==JFileChooser.APPROVE_OPTION && !model.isMultiple)
+				{
+					// Large files are shown without reading them all.
+					try {
+						setModel(new FileInputTableModel(ourChooser
+								.getSelectedFile(), model.getColumnCount()));
+					} catch (IOException e1) {
+						JOptionPane.showMessageDialog(table, e1.getMessage(),
+								"Could Not Load Inputs",
+								JOptionPane.ERROR_MESSAGE);
+					}
+				}
+				else if (retval==JFileChooser.APPROVE_OPTION)
 				{
 					f=ourChooser.getSelectedFile();
 					try 
@@ -382,96 +611,11 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 					// We weren't editing anything, so we're OK.
 				}
 				InputTableModel model = (InputTableModel) table.getModel();
-				
-				if(getObject() instanceof Automaton){
-	                Automaton currentAuto = (Automaton)getObject();
-					AutomatonSimulator simulator = SimulatorFactory
-							.getSimulator(currentAuto);
-					String[][] inputs = model.getInputs();
-	                int uniqueInputs = inputs.length;
-	                int tapes = 1;
-	                if(model.isMultiple){
-	                	if (currentAuto instanceof TuringMachine) {
-							 tapes = ((TuringMachine)currentAuto).tapes;
-	                	}
-	                    uniqueInputs = getEnvironment().myTestStrings.size()/tapes;
-	                }
-					for (int r = 0; r < inputs.length; r++) {
-	                    if(r>0){
-	                        if(r%uniqueInputs==0){
-	                            currentAuto = (Automaton)getEnvironment().myObjects.get(r/uniqueInputs);
-	                           
-	                            simulator = SimulatorFactory.getSimulator(currentAuto);                         
-	                        }
-	                    }
-						Configuration[] configs = null;
-						Object input = null;
-						// Is this a Turing machine?
-						if (currentAuto instanceof TuringMachine) {
-							Automaton a = (Automaton)getObject();
-							NondeterminismDetector d = NondeterminismDetectorFactory.getDetector(a);
-				            State[] nd = d.getNondeterministicStates(a);
-				            // Is the Turing machine nondeterministic?
-				            if(nd.length > 0) {
-				            		configs = ((NDTMSimulator) simulator)
-										.getInitialConfigurations(inputs[r]);
-								input = inputs[r];
-				            } else {
-				            		configs = ((TMSimulator) simulator)
-									.getInitialConfigurations(inputs[r]);
-				            		input = inputs[r];
-				            }
-						} else { // If it's not a Turing machine.
-							configs = simulator
-									.getInitialConfigurations(inputs[r][0]);
-							input = inputs[r][0];
-						}
-						List<Configuration> associated = new ArrayList<>();
-						int result = handleInput(currentAuto, simulator,
-								configs, input, associated);
-						Configuration c = null;
-						if (associated.size() != 0)
-							c = (Configuration) associated.get(0);
-                        
-                        /*
-                         * If it's a Moore or Mealy machine, the output should be
-                         * the string not accept/reject.
-                         */
-                        //MERLIN MERLIN MERLIN MERLIN MERLIN//
-                        if(getObject() instanceof MealyMachine)
-                        {
-                            MealyConfiguration con = (MealyConfiguration) c;
-                            model.setResult(r, con.getOutput(), con, 
-                                getEnvironment().myTransducerStrings, (r%(uniqueInputs))*(tapes+1));
-                        }
-						//currentCompare.add()
-                        else
-                            model.setResult(r, RESULT[result], c, getEnvironment().myTransducerStrings, (r%(uniqueInputs))*(tapes+1));
-					}
-				}
-				else if(getObject() instanceof Grammar){
-					String[][] inputs = model.getInputs();
-					int uniqueInputs = inputs.length;
-					Grammar currentGram = (Grammar)getObject();
-					BruteParsePane parsePane = new BruteParsePane((GrammarEnvironment)getEnvironment(), currentGram, model);
-					parsePane.inputField.setEditable(false);    
-                    parsePane.row = -1;
-					parsePane.parseMultiple();
-//						while(parsePane.pauseResumeAction.isEnabled()){
-//							timer.start();
-//							while(timer.isRunning()){
-//								//wait
-//							}
-						
-//						}
-//						if(parsePane.stepAction.isEnabled()) model.setResult(r, "Accept", null, getEnvironment().myTransducerStrings, (r%uniqueInputs));
-						
-								
-					
-				}
+				runInputs(model, getObject());
 			}
 			
 		});
+		addRunControls(bar);
 		if(!((InputTableModel)table.getModel()).isMultiple){
 		// Add the clear button.
 		bar.add(new AbstractAction("Clear") {
@@ -488,9 +632,22 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 					// We weren't editing anything, so we're OK.
 				}
 				InputTableModel model = (InputTableModel) table.getModel();              
-				model.clear();
+				if (model instanceof FileInputTableModel)
+					setModel(((FileInputTableModel) model).getEmptyModel());
+				else
+					model.clear();
 			}
 		});
+		bar.add(new JCheckBox(new AbstractAction("Rejected Only") {
+			/**
+			 * 
+			 */
+			private static final long serialVersionUID = 1L;
+
+			public void actionPerformed(ActionEvent e) {
+				setRejectedOnly(((JCheckBox) e.getSource()).isSelected());
+			}
+		}));
 		
         /*
          * So that it will show up as Lambda or Epsilon, depending on the
@@ -503,7 +660,7 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
             empty = "Lambda";
         else if(Universe.curProfile.getEmptyString().equals(Profile.EPSILON))
             empty = "Epsilon";
-		bar.add(new AbstractAction("Enter " + empty/*"Enter Lambda"*/) {
+		myEnterEmptyAction = new AbstractAction("Enter " + empty/*"Enter Lambda"*/) {
 			/**
 			 * 
 			 */
@@ -513,10 +670,12 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 				int row = table.getSelectedRow();
 				if (row == -1)
 					return;
+				row = table.convertRowIndexToModel(row);
 				for (int column = 0; column < table.getColumnCount() - 1; column++)
 					table.getModel().setValueAt("", row, column);
 			}
-		});
+		};
+		bar.add(myEnterEmptyAction);
 		}
 		if(getObject() instanceof Automaton) {
 			bar.add(new AbstractAction("View Trace") {
@@ -530,6 +689,7 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 				InputTableModel tm = (InputTableModel) table.getModel();
 				List<Integer> nonassociatedRows = new ArrayList<>();
 				for (int i = 0; i < rows.length; i++) {
+					rows[i] = table.convertRowIndexToModel(rows[i]);
 					if (rows[i] == tm.getRowCount() - 1)
 						continue;
 					Configuration c = tm
@@ -939,11 +1099,12 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 	         String machineFileName = (String)model.getValueAt(row, 0);           
 	         updateView(machineFileName, (String)model.getValueAt(row, 1), table); 
 		 }
+		 else if(table.getSelectedRow() < 0) return;
        else if(this.getEnvironment().getObject() instanceof Grammar){
-       updateView(((Grammar)this.getEnvironment().getObject()).getFileName(), (String)model.getValueAt(table.getSelectedRow(), 1), table);
+       updateView(((Grammar)this.getEnvironment().getObject()).getFileName(), (String)model.getValueAt(table.convertRowIndexToModel(table.getSelectedRow()), 1), table);
        }
        else if(this.getEnvironment().getObject() instanceof Automaton){
-       updateView(((Automaton)this.getEnvironment().getObject()).getFileName(), (String)model.getValueAt(table.getSelectedRow(), 1), table);
+       updateView(((Automaton)this.getEnvironment().getObject()).getFileName(), (String)model.getValueAt(table.convertRowIndexToModel(table.getSelectedRow()), 1), table);
    }
 		
 	}
@@ -1052,6 +1213,47 @@ public class MultipleSimulateAction extends NoInteractionSimulateAction {
 		public JSplitPane mySplit = null;
 	}
 	protected JTable table = null;
+
+	/** The run of the inputs underway, or the last one. */
+	protected ParallelRunner myRunner = null;
+
+	/** The progress bar for runs of the inputs. */
+	protected JProgressBar myProgress = null;
+
+	/** The action that cancels a run of the inputs. */
+	protected AbstractAction myCancelAction = null;
+
+	/** The action that saves what the last run cost. */
+	protected AbstractAction myMetricsAction = null;
+
+	/** What the rows of the last run cost. */
+	protected SimulationMetrics myMetrics = null;
+
+	/** The column showing the time each row took, or <CODE>null</CODE>. */
+	protected TableColumn myTimeColumn = null;
+
+	/** Whether the table shows only rejected rows. */
+	protected boolean myRejectedOnly = false;
+
+	/** Whether the rows are to be filtered again once updates are done. */
+	private boolean myRefilter = false;
+
+	/** The action that enters the empty string, or <CODE>null</CODE>. */
+	protected AbstractAction myEnterEmptyAction = null;
+
+	/** Whether rows read the prefixes their inputs share once. */
+	protected boolean myPrefixesShared = false;
+
+	/** The most configurations a row may generate. */
+	protected static final long MAX_CONFIGURATIONS = 10000000;
+
+	/**
+	 * The results of rows already run, shared by every multiple run so that
+	 * only rows whose input or structure changed are run again. The results
+	 * hold their configurations only weakly, so the traces of runs no longer
+	 * shown are not kept.
+	 */
+	protected static final ResultCache RESULT_CACHE = new ResultCache(100000);
     
 	private static String[] RESULT = { "Accept", "Reject", "Cancelled" };
     
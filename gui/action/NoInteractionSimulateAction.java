@@ -30,9 +30,19 @@ import javax.swing.JOptionPane;
 import automata.Automaton;
 import automata.AutomatonSimulator;
 import automata.Configuration;
+import automata.SimulationBudget;
+import automata.SimulationPolicy;
+import automata.fsa.CompiledNFA;
+import automata.fsa.FSABitsetSimulator;
+import automata.fsa.FSAConfiguration;
+import automata.pda.PDAConfiguration;
+import automata.pda.PDARecognizer;
+import automata.pda.PDAStepByStateSimulator;
+import automata.pda.PushdownAutomaton;
 import grammar.Grammar;
 import gui.environment.Environment;
 import gui.environment.Universe;
+import gui.sim.InteractivePolicy;
 
 /**
  * This is the action used for the simulation of input on an automaton with no
@@ -95,21 +105,100 @@ public class NoInteractionSimulateAction extends SimulateAction {
 	}
 
 	/**
-	 * Confirms if the user wants to keep searching. This should be called
-	 * periodically to give the user a chance to break out of infinite loops.
+	 * Decides whether a pushdown automaton accepts an input with a
+	 * {@link PDARecognizer}, which ends even where searching the
+	 * configurations would not, and reports one accepting path if it does.
 	 * 
-	 * @param generated
-	 *            the number of configurations generated sofar
+	 * @param automaton
+	 *            the pushdown automaton
+	 * @param simulator
+	 *            the simulator, which knows how the automaton accepts
+	 * @param input
+	 *            the input
+	 * @param policy
+	 *            the policy that decides whether to go on past a limit
 	 * @param component
 	 *            the parent component of dialogs brought up
-	 * @return <CODE>true</CODE> if we should continue searching, or <CODE>false</CODE>
-	 *         if we should halt
+	 * @return the reported accepting configuration if the user wants to
+	 *         search for more, or <CODE>null</CODE> if we should halt
+	 */
+	private PDAConfiguration recognize(PushdownAutomaton automaton,
+			PDAStepByStateSimulator simulator, String input,
+			SimulationPolicy policy, Component component) {
+		PDARecognizer recognizer = new PDARecognizer(automaton, simulator
+				.isAcceptByFinalState());
+		recognizer.setBudget(new SimulationBudget(SimulationBudget.UNLIMITED,
+				RECOGNIZER_STEP, SimulationBudget.UNLIMITED,
+				SimulationBudget.UNLIMITED), policy);
+		PDAConfiguration accepting = recognizer
+				.getAcceptingConfiguration(input);
+		if (accepting != null)
+			return reportConfiguration(accepting, component) ? accepting
+					: null;
+		if (recognizer.getExceeded() == null)
+			JOptionPane.showMessageDialog(component, "The input was rejected.");
+		return null;
+	}
+
+	/**
+	 * Decides whether a finite state automaton accepts an input on its
+	 * bitset form, which costs no more for each character than the number of
+	 * states however many paths there are, and reports one accepting path if
+	 * it does.
+	 * 
+	 * @param simulator
+	 *            the simulator for the finite state automaton
+	 * @param input
+	 *            the input
+	 * @param component
+	 *            the parent component of dialogs brought up
+	 * @return the reported accepting configuration if the user wants to
+	 *         search for more, or <CODE>null</CODE> if we should halt
 	 */
-	protected boolean confirmContinue(int generated, Component component) {
-		int result = JOptionPane.showConfirmDialog(component, generated
-				+ " configurations have been generated.  "
-				+ "Should we continue?");
-		return result == JOptionPane.YES_OPTION;
+	private FSAConfiguration decide(FSABitsetSimulator simulator,
+			String input, Component component) {
+		CompiledNFA nfa = simulator.getCompiledNFA();
+		FSAConfiguration accepting = nfa == null ? null : nfa
+				.getFinalConfiguration(input);
+		if (accepting != null)
+			return reportConfiguration(accepting, component) ? accepting
+					: null;
+		JOptionPane.showMessageDialog(component, "The input was rejected.");
+		return null;
+	}
+
+	/**
+	 * Determines whether two finite state or pushdown configurations end the
+	 * same path, that is, whether they and all their ancestors pairwise agree
+	 * in state, position and, for pushdown automata, stack.
+	 * 
+	 * @param first
+	 *            the first configuration
+	 * @param second
+	 *            the second configuration, of the same sort as the first
+	 * @return <CODE>true</CODE> if the paths are the same, <CODE>false</CODE>
+	 *         otherwise
+	 */
+	private static boolean isSamePath(Configuration first,
+			Configuration second) {
+		while (first != null && second != null) {
+			if (first.getCurrentState() != second.getCurrentState())
+				return false;
+			if (first instanceof FSAConfiguration
+					&& ((FSAConfiguration) first).getPosition() != ((FSAConfiguration) second)
+							.getPosition())
+				return false;
+			if (first instanceof PDAConfiguration) {
+				PDAConfiguration a = (PDAConfiguration) first;
+				PDAConfiguration b = (PDAConfiguration) second;
+				if (a.getPosition() != b.getPosition()
+						|| !a.getStack().equals(b.getStack()))
+					return false;
+			}
+			first = first.getParent();
+			second = second.getParent();
+		}
+		return first == second;
 	}
 
 	/**
@@ -130,26 +219,47 @@ public class NoInteractionSimulateAction extends SimulateAction {
 			AutomatonSimulator simulator, Configuration[] configs,
 			Object initialInput) {
 		JFrame frame = Universe.frameForEnvironment(environment);
-		// How many configurations have we had?
-		int numberGenerated = 0;
-		// When should the next warning be?
-		int warningGenerated = WARNING_STEP;
+		// Ask the user every so many configurations.
+		SimulationBudget budget = new SimulationBudget(
+				SimulationBudget.UNLIMITED, WARNING_STEP,
+				SimulationBudget.UNLIMITED, SimulationBudget.UNLIMITED);
+		SimulationPolicy policy = new InteractivePolicy(frame);
+		// Settle pushdown automata first, since the search may never end,
+		// and finite state automata, since it may take exponential time.
+		// The path already reported is counted but not shown again.
+		Configuration witness = null;
+		if (automaton instanceof PushdownAutomaton
+				&& simulator instanceof PDAStepByStateSimulator
+				&& initialInput instanceof String) {
+			witness = recognize((PushdownAutomaton) automaton,
+					(PDAStepByStateSimulator) simulator, (String) initialInput,
+					policy, frame);
+			if (witness == null)
+				return;
+		} else if (simulator instanceof FSABitsetSimulator
+				&& initialInput instanceof String) {
+			witness = decide((FSABitsetSimulator) simulator,
+					(String) initialInput, frame);
+			if (witness == null)
+				return;
+		}
+		budget.start();
 		// How many have accepted?
 		int numberAccepted = 0;
 		while (configs.length > 0) {
-			numberGenerated += configs.length;
 			// Make sure we should continue.
-			if (numberGenerated >= warningGenerated) {
-				if (!confirmContinue(numberGenerated, frame))
-					return;
-				while (numberGenerated >= warningGenerated)
-					warningGenerated *= 2;
-			}
+			if (!budget.step(configs.length, policy))
+				return;
 			// Get the next batch of configurations.
 			ArrayList<Configuration> next = new ArrayList<>();
 			for (int i = 0; i < configs.length; i++) {
 				if (configs[i].isAccept()) {
 					numberAccepted++;
+					if (witness != null
+							&& isSamePath(witness, configs[i])) {
+						witness = null;
+						continue;
+					}
 					if (!reportConfiguration(configs[i], frame))
 						return;
 				} else {
@@ -172,4 +282,7 @@ public class NoInteractionSimulateAction extends SimulateAction {
 
 	/** The steps in warnings. */
 	protected static final int WARNING_STEP = 500;
+
+	/** The items a recognizer processes between warnings. */
+	private static final int RECOGNIZER_STEP = 200000;
 }
@@ -65,8 +65,6 @@ public class FSAConfigurationIcon extends ConfigurationIcon {
 		// Draw the torn tape with the rest of the input.
 		Torn.paintString((Graphics2D) g, config.getInput(),
 				RIGHT_STATE.x + 5.0f, ((float) height) * 0.5f, Torn.MIDDLE,
-				width - RIGHT_STATE.x - 5.0f, false, true, config.getInput()
-						.length()
-						- config.getUnprocessedInput().length());
+				width - RIGHT_STATE.x - 5.0f, false, true, config.getPosition());
 	}
 }
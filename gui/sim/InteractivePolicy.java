@@ -0,0 +1,128 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package gui.sim;
+
+import java.awt.Component;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+import automata.SimulationBudget;
+import automata.SimulationPolicy;
+
+/**
+ * The <CODE>InteractivePolicy</CODE> asks the user whether a simulation that
+ * has reached a limit of its budget should go on, and shows problems with the
+ * automaton in an error dialog. It may be used from any thread; the dialogs
+ * are always shown on the event thread.
+ */
+
+public class InteractivePolicy implements SimulationPolicy {
+	/**
+	 * Instantiates a new <CODE>InteractivePolicy</CODE>.
+	 * 
+	 * @param component
+	 *            the parent component of dialogs brought up, or
+	 *            <CODE>null</CODE>
+	 */
+	public InteractivePolicy(Component component) {
+		myComponent = component;
+	}
+
+	/**
+	 * Asks the user whether to go on.
+	 */
+	public boolean isContinued(SimulationBudget budget,
+			SimulationBudget.Limit limit) {
+		final String message = getMessage(budget, limit)
+				+ "  Should we continue?";
+		final int[] result = new int[1];
+		show(new Runnable() {
+			public void run() {
+				result[0] = JOptionPane.showConfirmDialog(myComponent,
+						message);
+			}
+		});
+		return result[0] == JOptionPane.YES_OPTION;
+	}
+
+	/**
+	 * Shows the problem in an error dialog.
+	 */
+	public void reportError(final String title, final String message) {
+		show(new Runnable() {
+			public void run() {
+				JOptionPane.showMessageDialog(myComponent, message, title,
+						JOptionPane.ERROR_MESSAGE);
+			}
+		});
+	}
+
+	/**
+	 * Returns the sentence telling the user how much of a limit was used.
+	 * 
+	 * @param budget
+	 *            the budget
+	 * @param limit
+	 *            the limit that was reached
+	 * @return the sentence describing the usage
+	 */
+	private static String getMessage(SimulationBudget budget,
+			SimulationBudget.Limit limit) {
+		long usage = budget.getUsage(limit);
+		switch (limit) {
+		case STEPS:
+			return usage + " steps have been taken.";
+		case CONFIGURATIONS:
+			return usage + " configurations have been generated.";
+		case TIME:
+			return "The simulation has run for " + (usage / 1000)
+					+ " seconds.";
+		default:
+			return "The configurations take about " + (usage >> 20)
+					+ " MB of memory.";
+		}
+	}
+
+	/**
+	 * Runs a dialog on the event thread, and waits for it.
+	 * 
+	 * @param dialog
+	 *            the code that shows the dialog
+	 */
+	private static void show(Runnable dialog) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			dialog.run();
+			return;
+		}
+		try {
+			SwingUtilities.invokeAndWait(dialog);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (InvocationTargetException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/** The parent component of dialogs brought up. */
+	private Component myComponent;
+}
@@ -76,8 +76,7 @@ public class PDAConfigurationIcon extends ConfigurationIcon {
 		Torn.paintString((Graphics2D) g, config.getInput(),
 				RIGHT_STATE.x + 5.0f, ((float) super.getIconHeight()) * 0.5f,
 				Torn.MIDDLE, width - RIGHT_STATE.x - 5.0f, false, true, config
-						.getInput().length()
-						- config.getUnprocessedInput().length());
+						.getPosition());
 		// Draw the stack.
 		Torn.paintString((Graphics2D) g, config.getStack().toString(),
 				BELOW_STATE.x, BELOW_STATE.y + 5.0f, Torn.TOP, getIconWidth(),
@@ -0,0 +1,382 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package gui.sim.multiple;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import automata.Configuration;
+
+/**
+ * The <CODE>FileInputTableModel</CODE> is an input table whose inputs are
+ * the lines of a file, for test suites too large to hold as strings. The file
+ * is memory mapped and only the offsets of its lines are kept, so a line is
+ * read only when the table asks for it, which it does only for the rows it
+ * shows. The inputs for the tapes of a multitape machine are separated by
+ * tabs.
+ * <P>
+ * Results are kept as one byte for each row when they are a plain accept,
+ * reject or cancel; only other results, and outputs, are kept as strings.
+ * Only the most recent configurations are kept for tracing. The inputs cannot
+ * be edited, nor rows added or removed, and the file should not be changed
+ * while it is shown. A {@link ParallelRunner} reads the rows as it runs them,
+ * so the inputs are never all held at once. The mapped file and the results
+ * are not serialized with the table.
+ * 
+ * @see #isRejected
+ */
+
+public class FileInputTableModel extends InputTableModel {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Instantiates a table over the lines of a file.
+	 * 
+	 * @param file
+	 *            the file of inputs
+	 * @param columns
+	 *            the number of columns, as in the table this replaces
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public FileInputTableModel(File file, int columns) throws IOException {
+		super(columns);
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			mySize = channel.size();
+			myWindows = new MappedByteBuffer[(int) ((mySize + WINDOW_SIZE - 1)
+					/ WINDOW_SIZE)];
+			for (int i = 0; i < myWindows.length; i++) {
+				long start = i * WINDOW_SIZE;
+				myWindows[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						start, Math.min(WINDOW_SIZE, mySize - start));
+			}
+		} finally {
+			raf.close();
+		}
+		index();
+		myVerdicts = new byte[myLines];
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Finds where each line starts. A last line with no newline is still a
+	 * line, but the empty line after a final newline is not.
+	 */
+	private void index() {
+		long[] starts = new long[1024];
+		int lines = 0;
+		long start = 0;
+		for (int w = 0; w < myWindows.length; w++) {
+			MappedByteBuffer window = myWindows[w];
+			int limit = window.limit();
+			for (int i = 0; i < limit; i++) {
+				if (window.get(i) != '\n')
+					continue;
+				if (lines + 1 >= starts.length)
+					starts = Arrays.copyOf(starts, starts.length * 2);
+				starts[lines++] = start;
+				start = w * WINDOW_SIZE + i + 1;
+			}
+		}
+		if (start < mySize) {
+			if (lines + 1 >= starts.length)
+				starts = Arrays.copyOf(starts, starts.length + 1);
+			starts[lines++] = start;
+			start = mySize + 1;
+		}
+		// The last line ends where a line after it would start.
+		starts[lines] = start;
+		myStarts = starts;
+		myLines = lines;
+	}
+
+	/**
+	 * Returns a line of the file.
+	 * 
+	 * @param line
+	 *            the line
+	 * @return the line, without its line break
+	 */
+	public String getLine(int line) {
+		long start = myStarts[line];
+		long end = Math.min(myStarts[line + 1] - 1, mySize);
+		if (end > start && getByte(end - 1) == '\r')
+			end--;
+		byte[] bytes = new byte[(int) (end - start)];
+		for (int i = 0; i < bytes.length;) {
+			long offset = start + i;
+			MappedByteBuffer window = myWindows[(int) (offset / WINDOW_SIZE)];
+			int from = (int) (offset % WINDOW_SIZE);
+			int length = Math.min(bytes.length - i, window.limit() - from);
+			// Absolute reads leave the shared buffer as it is.
+			for (int j = 0; j < length; j++)
+				bytes[i + j] = window.get(from + j);
+			i += length;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns a byte of the file.
+	 * 
+	 * @param offset
+	 *            the offset of the byte
+	 * @return the byte
+	 */
+	private byte getByte(long offset) {
+		return myWindows[(int) (offset / WINDOW_SIZE)]
+				.get((int) (offset % WINDOW_SIZE));
+	}
+
+	/**
+	 * Returns the inputs of a row, one for each input column.
+	 * 
+	 * @param row
+	 *            the row
+	 * @return the inputs of the row
+	 */
+	public String[] getInput(int row) {
+		String[] input = new String[getInputCount()];
+		Arrays.fill(input, "");
+		String[] split = getLine(row).split("\\t", input.length);
+		System.arraycopy(split, 0, input, 0, split.length);
+		return input;
+	}
+
+	/**
+	 * Returns the inputs of every row. Every line is read and held at once,
+	 * so a run should read the rows with {@link #getInput} as it goes
+	 * instead.
+	 */
+	public String[][] getInputs() {
+		String[][] inputs = new String[myLines][];
+		for (int r = 0; r < inputs.length; r++)
+			inputs[r] = getInput(r);
+		return inputs;
+	}
+
+	/**
+	 * Returns the number of lines of the file, which is the number of rows
+	 * with inputs.
+	 * 
+	 * @return the number of lines
+	 */
+	public int getLineCount() {
+		return myLines;
+	}
+
+	/**
+	 * Returns the number of rows, one for each line and the blank row every
+	 * input table ends with.
+	 */
+	public int getRowCount() {
+		return myLines + 1;
+	}
+
+	/**
+	 * Returns the value of a cell. Inputs are read from the file.
+	 */
+	public Object getValueAt(int row, int column) {
+		if (row == myLines)
+			return "";
+		int inputs = getInputCount();
+		if (column < inputs)
+			return getInput(row)[column];
+		if (column == getColumnCount() - 1 && myVerdicts[row] != OTHER)
+			return VERDICTS[myVerdicts[row]];
+		String value = myValues.get(getCell(row, column));
+		return value == null ? "" : value;
+	}
+
+	/**
+	 * Sets the value of an output or result cell. Inputs cannot be changed,
+	 * and setting one does nothing.
+	 */
+	public void setValueAt(Object newData, int row, int column) {
+		if (row >= myLines || column < getInputCount())
+			return;
+		String value = newData == null ? "" : newData.toString();
+		Long cell = Long.valueOf(getCell(row, column));
+		if (column == getColumnCount() - 1) {
+			byte verdict = OTHER;
+			for (byte v = 0; v < VERDICTS.length; v++)
+				if (VERDICTS[v].equals(value))
+					verdict = v;
+			myVerdicts[row] = verdict;
+			if (verdict != OTHER)
+				value = "";
+		}
+		if (value.length() == 0)
+			myValues.remove(cell);
+		else
+			myValues.put(cell, value);
+		fireTableCellUpdated(row, column);
+	}
+
+	/**
+	 * Returns the key of a cell in the map of values.
+	 * 
+	 * @param row
+	 *            the row
+	 * @param column
+	 *            the column
+	 * @return the key of the cell
+	 */
+	private long getCell(int row, int column) {
+		return (long) row * getColumnCount() + column;
+	}
+
+	/**
+	 * Returns <CODE>false</CODE>, since the inputs come from the file and the
+	 * rest are results.
+	 */
+	public boolean isCellEditable(int row, int column) {
+		return false;
+	}
+
+	/**
+	 * Returns <CODE>false</CODE>, since rows are lines of the file.
+	 */
+	public boolean deleteRow(int row) {
+		return false;
+	}
+
+	/**
+	 * Does nothing, since rows are lines of the file.
+	 */
+	public void insertRow(Object[] newData, int row) {
+	}
+
+	/**
+	 * Returns whether a row was rejected, from its verdict alone unless it
+	 * has another result.
+	 */
+	public boolean isRejected(int row) {
+		if (row >= myLines)
+			return false;
+		if (myVerdicts[row] != OTHER)
+			return myVerdicts[row] == REJECTED;
+		return super.isRejected(row);
+	}
+
+	/**
+	 * Keeps the configuration of a row if it is among the most recent.
+	 */
+	protected void setAssociatedConfigurationForRow(int row,
+			Configuration config) {
+		if (config == null)
+			myConfigurations.remove(Integer.valueOf(row));
+		else
+			myConfigurations.put(Integer.valueOf(row), config);
+	}
+
+	/**
+	 * Returns the configuration of a row, if it is still kept.
+	 */
+	public Configuration getAssociatedConfigurationForRow(int row) {
+		return myConfigurations.get(Integer.valueOf(row));
+	}
+
+	/**
+	 * Forgets every result. The inputs are those of the file, and stay.
+	 */
+	public void clear() {
+		if (myVerdicts == null)
+			return;
+		Arrays.fill(myVerdicts, (byte) 0);
+		myValues.clear();
+		myConfigurations.clear();
+		clearTimes();
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Returns an empty table like this one, whose inputs can be edited.
+	 * 
+	 * @return an empty table with the same columns
+	 */
+	public InputTableModel getEmptyModel() {
+		InputTableModel model = new InputTableModel(getColumnCount());
+		model.addTableModelListener(LISTENER);
+		return model;
+	}
+
+	/** The results kept as bytes; the index of each is its byte. */
+	private static final String[] VERDICTS = { "", ParallelRunner.ACCEPT,
+			ParallelRunner.REJECT, ParallelRunner.CANCELLED };
+
+	/** The byte of a rejected row. */
+	private static final byte REJECTED = 2;
+
+	/** The byte of a row whose result is kept as a string. */
+	private static final byte OTHER = -1;
+
+	/** The most configurations kept for tracing. */
+	public static final int MAX_CONFIGURATIONS = 10000;
+
+	/** The size of each mapped window of the file. */
+	private static final long WINDOW_SIZE = 1L << 28;
+
+	/** The mapped windows of the file. */
+	private transient MappedByteBuffer[] myWindows;
+
+	/** The size of the file. */
+	private long mySize;
+
+	/** The number of lines. */
+	private int myLines;
+
+	/**
+	 * The offset each line starts at, and after the last line one past the
+	 * end of the file.
+	 */
+	private transient long[] myStarts;
+
+	/** The verdict of each row. */
+	private transient byte[] myVerdicts;
+
+	/** The outputs, and results that are not plain verdicts, by cell. */
+	private transient Map<Long, String> myValues = new HashMap<>();
+
+	/** The most recent configurations, by row. */
+	private transient Map<Integer, Configuration> myConfigurations =
+			new LinkedHashMap<Integer, Configuration>() {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(
+				Map.Entry<Integer, Configuration> eldest) {
+			return size() > MAX_CONFIGURATIONS;
+		}
+	};
+}
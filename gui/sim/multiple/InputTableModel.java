@@ -325,12 +325,78 @@ public class InputTableModel extends GrowableTableModel {
 		// Finally, set the result.
 		setValueAt(result, row, getColumnCount() - 1);
 		// Store the accepting configuration at this entry.
+		setAssociatedConfigurationForRow(row, config);
+	}
+
+	/**
+	 * Sets the configuration associated with a row.
+	 * 
+	 * @param row
+	 *            the row
+	 * @param config
+	 *            the configuration, or <CODE>null</CODE> to have none
+	 *            associated with the row
+	 */
+	protected void setAssociatedConfigurationForRow(int row,
+			Configuration config) {
 		if (config == null)
 			rowToAssociatedConfiguration.remove(Integer.valueOf(row));
 		else
 			rowToAssociatedConfiguration.put(Integer.valueOf(row), config);
 	}
 
+	/**
+	 * Sets the time a row took to run.
+	 * 
+	 * @param row
+	 *            the row
+	 * @param time
+	 *            the time in nanoseconds
+	 */
+	public void setTime(int row, long time) {
+		if (myTimes == null || row >= myTimes.length) {
+			int length = Math.max(row + 1, myTimes == null ? 16
+					: myTimes.length * 2);
+			long[] times = new long[length];
+			Arrays.fill(times, -1);
+			if (myTimes != null)
+				System.arraycopy(myTimes, 0, times, 0, myTimes.length);
+			myTimes = times;
+		}
+		myTimes[row] = time;
+	}
+
+	/**
+	 * Returns the time a row took to run, as set by {@link #setTime}.
+	 * 
+	 * @param row
+	 *            the row
+	 * @return the time in nanoseconds, or -1 if the row has not been run
+	 */
+	public long getTime(int row) {
+		return myTimes == null || row >= myTimes.length ? -1 : myTimes[row];
+	}
+
+	/**
+	 * Forgets the times rows took to run.
+	 */
+	public void clearTimes() {
+		myTimes = null;
+	}
+
+	/**
+	 * Returns whether the result of a row is a reject, whether or not a
+	 * reject was expected.
+	 * 
+	 * @param row
+	 *            the row
+	 * @return <CODE>true</CODE> if the row was rejected
+	 */
+	public boolean isRejected(int row) {
+		Object result = getValueAt(row, getColumnCount() - 1);
+		return result != null && result.toString().startsWith("Reject");
+	}
+
 	/**
 	 * This initializes the table so that it is completely blank except for
 	 * having one row. The number of columns remains unchanged.
@@ -338,6 +404,7 @@ public class InputTableModel extends GrowableTableModel {
 	public void clear() {
 		if (rowToAssociatedConfiguration != null)
 			rowToAssociatedConfiguration.clear();
+		clearTimes();
 		super.clear();
 	}
 
@@ -380,4 +447,10 @@ public class InputTableModel extends GrowableTableModel {
 	 * an associated configuration, this map should not hold an entry.
 	 */
 	private final Map<Integer, Configuration> rowToAssociatedConfiguration = new HashMap<>();
+
+	/**
+	 * The time each row took to run in nanoseconds, or -1 for rows not run;
+	 * <CODE>null</CODE> until a time is set.
+	 */
+	private long[] myTimes = null;
 }
@@ -0,0 +1,871 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package gui.sim.multiple;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+
+import automata.Automaton;
+import automata.AutomatonSimulator;
+import automata.ClosureCache;
+import automata.Configuration;
+import automata.LimitPolicy;
+import automata.PrefixSimulator;
+import automata.SimulationBudget;
+import automata.SimulatorFactory;
+import automata.VisitedConfigurations;
+import automata.event.SimulationEvent;
+import automata.event.SimulationListener;
+import automata.fsa.CompiledDFA;
+import automata.fsa.FSABitsetSimulator;
+import automata.fsa.FSAStepByStateSimulator;
+import automata.fsa.FiniteStateAutomaton;
+import automata.fsa.LazyDFASimulator;
+import automata.mealy.MealyConfiguration;
+import automata.mealy.MealyMachine;
+import automata.pda.CompiledDPDA;
+import automata.pda.PDAStepByStateSimulator;
+import automata.pda.PDAStepWithClosureSimulator;
+import automata.pda.PushdownAutomaton;
+import automata.turing.NDTMSimulator;
+import automata.turing.TMSimulator;
+import automata.turing.TMState;
+import automata.turing.TuringMachine;
+import grammar.Grammar;
+import grammar.parse.BruteParser;
+
+/**
+ * The <CODE>ParallelRunner</CODE> runs every row of an input table off the
+ * event dispatch thread, with the rows spread over a fork join pool with one
+ * thread per processor. The rows are cut into tasks, and each task runs its
+ * rows on a simulator of its own, since simulators keep state between steps.
+ * Results go into the table as soon as each row finishes, and a progress bar
+ * counts them. Automata are searched breadth first, never searching the same
+ * configuration twice, except that deterministic finite state and pushdown
+ * automata follow their single path on a {@link CompiledDFA} or
+ * {@link CompiledDPDA}, and other finite state automata run on their bitset
+ * form through a {@link LazyDFASimulator}; grammars are parsed by brute
+ * force. Each row runs
+ * within its own copy of a {@link SimulationBudget}, and a row that runs out
+ * of it, or whose automaton has a problem, gets a result saying so rather
+ * than holding up the run. Rows whose results are in a {@link ResultCache}
+ * are not run again, and the results of rows that are run are put there.
+ * The rows of a {@link FileInputTableModel} are read from its file as they
+ * are run, rather than all before the run starts.
+ * The time each row took is put in the table, and {@link SimulationListener}s
+ * are told what each row cost.
+ * <P>
+ * With {@link #setPrefixesShared} the rows of a task on a nondeterministic
+ * finite state, pushdown, Mealy or Moore machine are run in the order of the
+ * trie of their inputs by a {@link PrefixSimulator}, so the prefixes rows
+ * have in common are read once. Each prefix is then held to the budget
+ * rather than each row.
+ * <P>
+ * A run may be cancelled with {@link #cancel}, after which every row that
+ * has not finished is reported as cancelled.
+ */
+
+public class ParallelRunner extends SwingWorker<Object, ParallelRunner.Row> {
+	/**
+	 * Instantiates a runner for the rows of a table. This must be called on
+	 * the event dispatch thread, as getting the simulator for a pushdown
+	 * automaton may ask the user for its acceptance criteria.
+	 * 
+	 * @param model
+	 *            the table the results are put in
+	 * @param inputs
+	 *            the inputs of each row, as returned by
+	 *            {@link InputTableModel#getInputs}, or <CODE>null</CODE> if
+	 *            the model is a {@link FileInputTableModel} whose rows are
+	 *            read as they are run
+	 * @param structures
+	 *            the automaton or grammar each row is run on
+	 * @param comparison
+	 *            the expected results passed on to
+	 *            {@link InputTableModel#setResult}, or <CODE>null</CODE>
+	 * @param uniqueInputs
+	 *            the number of rows for each structure
+	 * @param stride
+	 *            the number of expected results for each input
+	 * @param progress
+	 *            the progress bar to count finished rows in
+	 * @param budget
+	 *            the limits each row is run within
+	 * @param cache
+	 *            the results kept from earlier runs, or <CODE>null</CODE>
+	 *            to run every row
+	 */
+	public ParallelRunner(InputTableModel model, String[][] inputs,
+			Object[] structures, ArrayList<String> comparison,
+			int uniqueInputs, int stride, JProgressBar progress,
+			SimulationBudget budget, ResultCache cache) {
+		myModel = model;
+		myBudget = budget;
+		myCache = cache;
+		myInputs = inputs;
+		myRowCount = inputs == null ? ((FileInputTableModel) model)
+				.getLineCount() : inputs.length;
+		myStructures = structures;
+		myComparison = comparison;
+		myUniqueInputs = uniqueInputs;
+		myStride = stride;
+		myProgress = progress;
+		myFinished = new boolean[myRowCount];
+		for (int r = 0; r < structures.length; r++) {
+			if (myPrefixes.containsKey(structures[r]))
+				continue;
+			AutomatonSimulator simulator = null;
+			if (structures[r] instanceof Automaton) {
+				Automaton automaton = (Automaton) structures[r];
+				simulator = SimulatorFactory.getSimulator(automaton);
+				mySimulators.put(automaton, simulator);
+				prepare(automaton);
+			}
+			myPrefixes.put(structures[r], cache == null ? null : ResultCache
+					.getPrefix(structures[r], simulator));
+		}
+		progress.setMinimum(0);
+		progress.setMaximum(myRowCount);
+		progress.setValue(0);
+		progress.setString(null);
+	}
+
+	/**
+	 * Fills the caches an automaton builds as it is read. These are not
+	 * safe to build from several threads at once, but once built they are
+	 * only read.
+	 * 
+	 * @param automaton
+	 *            the automaton to prepare
+	 */
+	private static void prepare(Automaton automaton) {
+		automata.State[] states = automaton.getStates();
+		automaton.getTransitions();
+		ClosureCache closures = null;
+		if (automaton instanceof FiniteStateAutomaton
+				|| automaton instanceof PushdownAutomaton)
+			closures = automaton.getClosureCache();
+		if (automaton instanceof FiniteStateAutomaton) {
+			((FiniteStateAutomaton) automaton).getCompiledDFACache();
+			((FiniteStateAutomaton) automaton).getCompiledNFACache();
+		}
+		if (automaton instanceof PushdownAutomaton) {
+			((PushdownAutomaton) automaton).getTransitionIndex().validate();
+			((PushdownAutomaton) automaton).getCompiledDPDACache();
+		}
+		for (int i = 0; i < states.length; i++) {
+			automaton.getTransitionsFromState(states[i]);
+			automaton.getTransitionsToState(states[i]);
+			if (closures != null)
+				closures.getClosure(states[i]);
+			if (states[i] instanceof TMState)
+				prepare(((TMState) states[i]).getInnerTM());
+		}
+	}
+
+	/**
+	 * Returns a new simulator for an automaton, like the one made for it
+	 * when this runner was created. Finite state automata that are not
+	 * deterministic get a {@link LazyDFASimulator}, so that the rows of a
+	 * task reuse the sets of states found by the rows before them.
+	 * 
+	 * @param automaton
+	 *            the automaton to simulate
+	 * @return a simulator of its own for the automaton
+	 */
+	private AutomatonSimulator getSimulator(Automaton automaton) {
+		AutomatonSimulator prototype = mySimulators.get(automaton);
+		if (prototype instanceof PDAStepByStateSimulator)
+			return new PDAStepWithClosureSimulator(automaton,
+					((PDAStepByStateSimulator) prototype)
+							.isAcceptByFinalState());
+		if (prototype instanceof FSABitsetSimulator
+				&& ((FSABitsetSimulator) prototype).getCompiledDFA() == null)
+			return new LazyDFASimulator(automaton);
+		return SimulatorFactory.getSimulator(automaton);
+	}
+
+	/**
+	 * Cuts the rows into tasks and runs them on the pool. A task holds only
+	 * rows of the same structure, and there are several tasks for each
+	 * thread so that the threads finish at about the same time.
+	 */
+	protected Object doInBackground() throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int size = Math.max(1, myRowCount / (threads * TASKS_PER_THREAD));
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			int start = 0;
+			for (int r = 1; r <= myRowCount; r++) {
+				if (r < myRowCount && r - start < size
+						&& myStructures[r] == myStructures[start])
+					continue;
+				final int from = start, to = r;
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						runRows(from, to);
+					}
+				}));
+				start = r;
+			}
+			for (int i = 0; i < tasks.size(); i++)
+				tasks.get(i).get();
+		} finally {
+			pool.shutdownNow();
+		}
+		return null;
+	}
+
+	/**
+	 * Runs a range of rows on the same structure, publishing each result.
+	 * 
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the row after the last
+	 */
+	private void runRows(int from, int to) {
+		AutomatonSimulator simulator = null;
+		LimitPolicy policy = new LimitPolicy();
+		if (myStructures[from] instanceof Automaton) {
+			simulator = getSimulator((Automaton) myStructures[from]);
+			simulator.setPolicy(policy);
+			if (myPrefixesShared && isShared(simulator)) {
+				runShared(from, to, simulator);
+				return;
+			}
+		}
+		for (int r = from; r < to && !isCancelled(); r++) {
+			SimulationBudget budget = new SimulationBudget(myBudget);
+			budget.start();
+			String key = getKey(r);
+			if (reportCached(r, key, budget))
+				continue;
+			if (simulator != null)
+				handleInput(r, (Automaton) myStructures[r], simulator, policy,
+						key, budget);
+			else
+				parseInput(r, (Grammar) myStructures[r], key, budget);
+		}
+	}
+
+	/**
+	 * Runs a range of rows on the same automaton in the order of the trie of
+	 * their inputs, reading each prefix they share once, and publishes each
+	 * result. What a row cost is what was spent on the way to its input,
+	 * and its time is only what reading the rest of its input took.
+	 * 
+	 * @param from
+	 *            the first row
+	 * @param to
+	 *            the row after the last
+	 * @param simulator
+	 *            the simulator for the automaton
+	 */
+	private void runShared(int from, int to, AutomatonSimulator simulator) {
+		Automaton automaton = (Automaton) myStructures[from];
+		PrefixSimulator prefixes = new PrefixSimulator(simulator);
+		prefixes.setBudget(myBudget);
+		String[] inputs = new String[to - from];
+		for (int r = from; r < to; r++)
+			inputs[r - from] = getInput(r)[0];
+		Integer[] order = PrefixSimulator.getTrieOrder(inputs);
+		for (int i = 0; i < order.length && !isCancelled(); i++) {
+			int r = from + order[i];
+			SimulationBudget budget = new SimulationBudget(myBudget);
+			budget.start();
+			String key = getKey(r);
+			if (reportCached(r, key, budget))
+				continue;
+			if (!prefixes.moveTo(inputs[order[i]])) {
+				report(new Row(r, getExceededResult(prefixes.getExceeded()),
+						prefixes.getLastConfiguration()), false, prefixes
+						.getExceeded(), prefixes.getSteps(), prefixes
+						.getConfigurationCount(), prefixes.getPeakFrontier(),
+						budget.getElapsed());
+				continue;
+			}
+			Configuration config = prefixes.getAcceptingConfiguration();
+			String result = config == null ? REJECT : ACCEPT;
+			if (config == null)
+				config = prefixes.getLastConfiguration();
+			if (key != null)
+				myCache.put(key, new ResultCache.Result(result, ResultCache
+						.getOutput(config), prefixes.getSteps(), prefixes
+						.getConfigurationCount(), config));
+			report(getRow(automaton, r, result, config), ACCEPT
+					.equals(result), null, prefixes.getSteps(),
+					prefixes.getConfigurationCount(), prefixes
+							.getPeakFrontier(), budget.getElapsed());
+		}
+	}
+
+	/**
+	 * Returns whether rows run on a simulator share their prefixes when
+	 * asked to. Deterministic automata that compile to a table run faster on
+	 * the table, so they do not.
+	 * 
+	 * @param simulator
+	 *            the simulator
+	 * @return <CODE>true</CODE> if the rows share their prefixes
+	 */
+	public static boolean isShared(AutomatonSimulator simulator) {
+		if (simulator instanceof FSAStepByStateSimulator
+				&& ((FSAStepByStateSimulator) simulator).getCompiledDFA() != null)
+			return false;
+		if (simulator instanceof PDAStepByStateSimulator
+				&& ((PDAStepByStateSimulator) simulator).getCompiledDPDA() != null)
+			return false;
+		return PrefixSimulator.isSupported(simulator.getAutomaton());
+	}
+
+	/**
+	 * Publishes the result of a row kept in the cache, if there is one.
+	 * 
+	 * @param row
+	 *            the row
+	 * @param key
+	 *            the key of the row in the cache, or <CODE>null</CODE>
+	 * @param budget
+	 *            the budget of the row, started when the row was begun
+	 * @return <CODE>true</CODE> if a result was kept and published
+	 */
+	private boolean reportCached(int row, String key, SimulationBudget budget) {
+		if (key == null)
+			return false;
+		ResultCache.Result result = myCache.get(key);
+		if (result == null)
+			return false;
+		Configuration config = result.getConfiguration();
+		if (!isShown(config, myStructures[row]))
+			return false;
+		report(new Row(row, myStructures[row] instanceof MealyMachine ? result
+				.getOutput() : result.getVerdict(), config),
+				ACCEPT.equals(result.getVerdict()), null, result.getSteps(),
+				result.getConfigurations(), 0, budget.getElapsed());
+		return true;
+	}
+
+	/**
+	 * Sets whether rows on finite state, pushdown, Mealy and Moore machines
+	 * share the prefixes their inputs have in common. This should be set
+	 * before the run is executed.
+	 * 
+	 * @param shared
+	 *            <CODE>true</CODE> to read shared prefixes once
+	 */
+	public void setPrefixesShared(boolean shared) {
+		myPrefixesShared = shared;
+	}
+
+	/**
+	 * Returns the key of a row in the result cache.
+	 * 
+	 * @param row
+	 *            the row
+	 * @return the key, or <CODE>null</CODE> if the row is not cached
+	 */
+	private String getKey(int row) {
+		String prefix = myPrefixes.get(myStructures[row]);
+		return prefix == null ? null : ResultCache.getKey(prefix, getInput(row));
+	}
+
+	/**
+	 * Returns the inputs of a row. The rows of a file are read each time
+	 * they are asked for.
+	 * 
+	 * @param row
+	 *            the row
+	 * @return the input for each tape
+	 */
+	private String[] getInput(int row) {
+		return myInputs == null ? ((FileInputTableModel) myModel)
+				.getInput(row) : myInputs[row];
+	}
+
+	/**
+	 * Returns whether a cached result can be shown in the table. The tape
+	 * outputs of a Turing machine are read from the last configuration, so
+	 * a result without one is run again.
+	 * 
+	 * @param config
+	 *            the last configuration of the cached result, or
+	 *            <CODE>null</CODE>
+	 * @param structure
+	 *            the structure of the row
+	 * @return <CODE>true</CODE> if the result can be shown
+	 */
+	private static boolean isShown(Configuration config, Object structure) {
+		return config != null || !(structure instanceof TuringMachine);
+	}
+
+	/**
+	 * Puts the result of a row in the cache, and publishes it.
+	 * 
+	 * @param automaton
+	 *            the automaton the row was run on
+	 * @param row
+	 *            the row
+	 * @param key
+	 *            the key of the row in the cache, or <CODE>null</CODE>
+	 * @param result
+	 *            the result, accept or reject
+	 * @param budget
+	 *            the budget of the run, with its usage
+	 * @param config
+	 *            the configuration associated with the result
+	 */
+	private void finish(Automaton automaton, int row, String key,
+			String result, SimulationBudget budget, Configuration config) {
+		if (key != null)
+			myCache.put(key, new ResultCache.Result(result, ResultCache
+					.getOutput(config), budget
+					.getUsage(SimulationBudget.Limit.STEPS), budget
+					.getUsage(SimulationBudget.Limit.CONFIGURATIONS), config));
+		report(getRow(automaton, row, result, config), ACCEPT.equals(result),
+				budget);
+	}
+
+	/**
+	 * Runs a row on an automaton and publishes the result.
+	 * 
+	 * @param row
+	 *            the row to run
+	 * @param automaton
+	 *            the automaton to run it on
+	 * @param simulator
+	 *            the simulator for the automaton
+	 * @param policy
+	 *            the policy of the simulator, which keeps any problem found
+	 * @param key
+	 *            the key of the row in the result cache, or <CODE>null</CODE>
+	 * @param budget
+	 *            the budget of the row, already started
+	 */
+	private void handleInput(int row, Automaton automaton,
+			AutomatonSimulator simulator, LimitPolicy policy, String key,
+			SimulationBudget budget) {
+		String[] input = getInput(row);
+		policy.clearError();
+		Configuration[] configs;
+		if (simulator instanceof TMSimulator)
+			configs = ((TMSimulator) simulator).getInitialConfigurations(input);
+		else if (simulator instanceof NDTMSimulator)
+			configs = ((NDTMSimulator) simulator)
+					.getInitialConfigurations(input);
+		else {
+			if (simulator instanceof FSAStepByStateSimulator) {
+				CompiledDFA dfa = ((FSAStepByStateSimulator) simulator)
+						.getCompiledDFA();
+				if (dfa != null) {
+					Configuration last = dfa.getFinalConfiguration(input[0]);
+					report(getRow(automaton, row, last.isAccept() ? ACCEPT
+							: REJECT, last), last.isAccept(), budget);
+					return;
+				}
+			}
+			if (simulator instanceof FSABitsetSimulator) {
+				Configuration last = ((FSABitsetSimulator) simulator)
+						.getLastConfiguration(input[0]);
+				if (last != null) {
+					finish(automaton, row, key, last.isAccept() ? ACCEPT
+							: REJECT, budget, last);
+					return;
+				}
+			}
+			if (simulator instanceof PDAStepByStateSimulator) {
+				PDAStepByStateSimulator pda = (PDAStepByStateSimulator) simulator;
+				CompiledDPDA dpda = pda.getCompiledDPDA();
+				if (dpda != null) {
+					Configuration last = dpda.getFinalConfiguration(input[0],
+							pda.isAcceptByFinalState(), budget, null, true);
+					if (budget.getExceeded() != null)
+						report(new Row(row, getExceededResult(budget
+								.getExceeded()), last), false, budget);
+					else
+						finish(automaton, row, key, last.isAccept() ? ACCEPT
+								: REJECT, budget, last);
+					return;
+				}
+			}
+			configs = simulator.getInitialConfigurations(input[0]);
+		}
+		Configuration lastConsidered = configs[configs.length - 1];
+		// Configurations reached before need not be searched again.
+		VisitedConfigurations visited = new VisitedConfigurations();
+		for (int i = 0; i < configs.length; i++)
+			visited.add(configs[i]);
+		while (configs.length > 0) {
+			if (isCancelled()) {
+				publish(new Row(row, CANCELLED, lastConsidered));
+				return;
+			}
+			if (!budget.step(configs.length, null)) {
+				report(new Row(row, getExceededResult(budget.getExceeded()),
+						lastConsidered), false, budget);
+				return;
+			}
+			ArrayList<Configuration> next = new ArrayList<>();
+			for (int i = 0; i < configs.length; i++) {
+				lastConsidered = configs[i];
+				if (configs[i].isAccept()) {
+					finish(automaton, row, key, ACCEPT, budget, configs[i]);
+					return;
+				}
+				ArrayList<Configuration> stepped = simulator
+						.stepConfiguration(configs[i]);
+				for (int j = 0; j < stepped.size(); j++)
+					if (visited.add(stepped.get(j)))
+						next.add(stepped.get(j));
+			}
+			if (policy.getErrorTitle() != null) {
+				report(new Row(row, ERROR + ": " + policy.getErrorTitle(),
+						lastConsidered), false, budget);
+				return;
+			}
+			configs = next.toArray(new Configuration[0]);
+		}
+		finish(automaton, row, key, REJECT, budget, lastConsidered);
+	}
+
+	/**
+	 * Returns the result of a row that ran out of its budget.
+	 * 
+	 * @param limit
+	 *            the limit the row ran out of
+	 * @return the result naming the limit
+	 */
+	public static String getExceededResult(SimulationBudget.Limit limit) {
+		return EXCEEDED + ": " + limit.name().toLowerCase();
+	}
+
+	/**
+	 * Returns the result of an automaton row. The result of a Mealy or Moore
+	 * machine is its output rather than accept or reject.
+	 * 
+	 * @param automaton
+	 *            the automaton the row was run on
+	 * @param row
+	 *            the row
+	 * @param result
+	 *            the result
+	 * @param config
+	 *            the configuration associated with the result
+	 * @return the result of the row
+	 */
+	private Row getRow(Automaton automaton, int row, String result,
+			Configuration config) {
+		if (automaton instanceof MealyMachine)
+			result = ((MealyConfiguration) config).getOutput();
+		return new Row(row, result, config);
+	}
+
+	/**
+	 * Publishes the result of a row that finished, telling the simulation
+	 * listeners what the row cost.
+	 * 
+	 * @param row
+	 *            the result of the row
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @param budget
+	 *            the budget of the row, with its usage
+	 */
+	private void report(Row row, boolean accepted, SimulationBudget budget) {
+		report(row, accepted, budget.getExceeded(), budget
+				.getUsage(SimulationBudget.Limit.STEPS), budget
+				.getUsage(SimulationBudget.Limit.CONFIGURATIONS), budget
+				.getPeakFrontier(), budget.getElapsed());
+	}
+
+	/**
+	 * Publishes the result of a row that finished, telling the simulation
+	 * listeners what the row cost.
+	 * 
+	 * @param row
+	 *            the result of the row
+	 * @param accepted
+	 *            <CODE>true</CODE> if the input was accepted
+	 * @param exceeded
+	 *            the limit that stopped the row, or <CODE>null</CODE>
+	 * @param steps
+	 *            the steps taken
+	 * @param configurations
+	 *            the configurations generated
+	 * @param peakFrontier
+	 *            the most configurations generated by one step
+	 * @param time
+	 *            the nanoseconds the row took
+	 */
+	private void report(Row row, boolean accepted,
+			SimulationBudget.Limit exceeded, long steps, long configurations,
+			long peakFrontier, long time) {
+		row.myTime = time;
+		if (!mySimulationListeners.isEmpty()) {
+			SimulationEvent event = new SimulationEvent(this, String.join(
+					"\t", getInput(row.myRow)), accepted, exceeded, steps,
+					configurations, peakFrontier, time);
+			for (int i = 0; i < mySimulationListeners.size(); i++)
+				mySimulationListeners.get(i).simulationFinished(event);
+		}
+		publish(row);
+	}
+
+	/**
+	 * Adds a <CODE>SimulationListener</CODE> to this runner, to be told of
+	 * each row that finishes. Listeners are told from the threads the rows
+	 * are run on, so they should be thread safe, and they should be added
+	 * before the run is executed.
+	 * 
+	 * @param listener
+	 *            the listener to add
+	 */
+	public void addSimulationListener(SimulationListener listener) {
+		mySimulationListeners.add(listener);
+	}
+
+	/**
+	 * Removes a <CODE>SimulationListener</CODE> from this runner.
+	 * 
+	 * @param listener
+	 *            the listener to remove
+	 */
+	public void removeSimulationListener(SimulationListener listener) {
+		mySimulationListeners.remove(listener);
+	}
+
+	/**
+	 * Parses a row with a grammar and publishes the result. The parser works
+	 * in a thread of its own, so this only waits for it.
+	 * 
+	 * @param row
+	 *            the row to parse
+	 * @param grammar
+	 *            the grammar to parse it with
+	 * @param key
+	 *            the key of the row in the result cache, or <CODE>null</CODE>
+	 * @param budget
+	 *            the budget of the row, already started
+	 */
+	private void parseInput(int row, Grammar grammar, String key,
+			SimulationBudget budget) {
+		BruteParser parser;
+		try {
+			parser = BruteParser.get(grammar, getInput(row)[0]);
+		} catch (IllegalArgumentException e) {
+			// The input holds a symbol that is no terminal.
+			report(new Row(row, REJECT, null), false, budget);
+			return;
+		}
+		long maxTime = budget.getMaximum(SimulationBudget.Limit.TIME);
+		parser.start();
+		try {
+			while (!parser.isFinished()) {
+				if (isCancelled()
+						|| budget.getUsage(SimulationBudget.Limit.TIME) > maxTime)
+					break;
+				Thread.sleep(PARSE_POLL);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		int nodes = parser.getTotalNodeCount();
+		if (!parser.isFinished()) {
+			parser.pause();
+			if (isCancelled())
+				publish(new Row(row, CANCELLED, null));
+			else
+				report(new Row(row,
+						getExceededResult(SimulationBudget.Limit.TIME), null),
+						false, SimulationBudget.Limit.TIME, nodes, nodes, 0,
+						budget.getElapsed());
+			return;
+		}
+		String result = parser.getAnswer() == null ? REJECT : ACCEPT;
+		if (key != null)
+			myCache.put(key, new ResultCache.Result(result, "", nodes, nodes,
+					null));
+		report(new Row(row, result, null), ACCEPT.equals(result), null, nodes,
+				nodes, 0, budget.getElapsed());
+	}
+
+	/**
+	 * Puts finished rows in the table and advances the progress bar.
+	 */
+	protected void process(List<Row> rows) {
+		for (int i = 0; i < rows.size(); i++)
+			setResult(rows.get(i));
+	}
+
+	/**
+	 * Puts a result in the table, unless the row already has one.
+	 * 
+	 * @param row
+	 *            the result for a row
+	 */
+	private void setResult(Row row) {
+		if (myFinished[row.myRow])
+			return;
+		myFinished[row.myRow] = true;
+		myModel.setResult(row.myRow, row.myResult, row.myConfiguration,
+				myComparison, (row.myRow % myUniqueInputs) * myStride);
+		if (row.myTime >= 0)
+			myModel.setTime(row.myRow, row.myTime);
+		myProgress.setValue(myProgress.getValue() + 1);
+	}
+
+	/**
+	 * Marks the rows that did not finish as cancelled, and passes on any
+	 * failure of the run.
+	 */
+	protected void done() {
+		if (isCancelled()) {
+			for (int r = 0; r < myFinished.length; r++)
+				setResult(new Row(r, CANCELLED, null));
+			myProgress.setString(CANCELLED);
+			return;
+		}
+		try {
+			get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ExecutionException)
+				cause = cause.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * The result of a row, passed from the pool to the event dispatch
+	 * thread.
+	 */
+	static class Row {
+		/**
+		 * Instantiates the result of a row.
+		 * 
+		 * @param row
+		 *            the row
+		 * @param result
+		 *            the result to show
+		 * @param config
+		 *            the associated configuration, or <CODE>null</CODE>
+		 */
+		Row(int row, String result, Configuration config) {
+			myRow = row;
+			myResult = result;
+			myConfiguration = config;
+		}
+
+		/** The row. */
+		final int myRow;
+
+		/** The result to show. */
+		final String myResult;
+
+		/** The associated configuration. */
+		final Configuration myConfiguration;
+
+		/** The nanoseconds the row took, or -1 if it did not finish. */
+		long myTime = -1;
+	}
+
+	/** The result for an accepted row. */
+	public static final String ACCEPT = "Accept";
+
+	/** The result for a rejected row. */
+	public static final String REJECT = "Reject";
+
+	/** The result for a row that was cancelled. */
+	public static final String CANCELLED = "Cancelled";
+
+	/** The start of the result for a row that ran out of its budget. */
+	public static final String EXCEEDED = "Budget Exceeded";
+
+	/** The start of the result for a row whose automaton has a problem. */
+	public static final String ERROR = "Error";
+
+	/** How many tasks each thread gets. */
+	private static final int TASKS_PER_THREAD = 4;
+
+	/** How often to check on a parser, in milliseconds. */
+	private static final int PARSE_POLL = 10;
+
+	/** The table the results go in. */
+	private InputTableModel myModel;
+
+	/** The limits each row is run within. */
+	private SimulationBudget myBudget;
+
+	/** The results kept from earlier runs, or <CODE>null</CODE>. */
+	private ResultCache myCache;
+
+	/** The start of the cache keys for each structure. */
+	private Map<Object, String> myPrefixes = new IdentityHashMap<>();
+
+	/** The inputs of each row, or <CODE>null</CODE> to read them from a file. */
+	private String[][] myInputs;
+
+	/** The number of rows. */
+	private int myRowCount;
+
+	/** The structure each row is run on. */
+	private Object[] myStructures;
+
+	/** The expected results, or <CODE>null</CODE>. */
+	private ArrayList<String> myComparison;
+
+	/** The number of rows for each structure. */
+	private int myUniqueInputs;
+
+	/** The number of expected results for each input. */
+	private int myStride;
+
+	/** The progress bar. */
+	private JProgressBar myProgress;
+
+	/** Which rows have their results in the table. */
+	private boolean[] myFinished;
+
+	/** The simulator first made for each automaton. */
+	private Map<Automaton, AutomatonSimulator> mySimulators = new IdentityHashMap<>();
+
+	/** Whether rows share the prefixes of their inputs. */
+	private boolean myPrefixesShared = false;
+
+	/** The listeners told of each row that finishes. */
+	private List<SimulationListener> mySimulationListeners = new CopyOnWriteArrayList<>();
+}
@@ -0,0 +1,472 @@
+/*
+ *  JFLAP - Formal Languages and Automata Package
+ * 
+ * 
+ *  Susan H. Rodger
+ *  Computer Science Department
+ *  Duke University
+ *  August 27, 2009
+
+ *  Copyright (c) 2002-2009
+ *  All rights reserved.
+
+ *  JFLAP is open source software. Please see the LICENSE for terms.
+ *
+ */
+
+
+
+
+
+package gui.sim.multiple;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import automata.Automaton;
+import automata.AutomatonSimulator;
+import automata.Configuration;
+import automata.Fingerprint;
+import automata.mealy.MealyConfiguration;
+import automata.pda.PDAStepByStateSimulator;
+import automata.turing.TMConfiguration;
+import automata.turing.Tape;
+import automata.turing.TuringMachine;
+import grammar.Grammar;
+import grammar.Production;
+import gui.environment.Universe;
+
+/**
+ * The <CODE>ResultCache</CODE> remembers the results of running inputs on
+ * automata and grammars, so that an input need not be run again on a
+ * structure that has not changed. Results are found by the content of the
+ * structure rather than the object, through its {@link Fingerprint}, so a
+ * file opened again, or an edit that is undone, finds the results from
+ * before. An edit changes the fingerprint, so results from before the edit
+ * are simply not found again, and age out.
+ * <P>
+ * Results are kept for the whole structure, not for the part of it a run
+ * went through. So after an edit that changes what the structure does, every
+ * row is run again, even one whose input never reaches the states or
+ * productions that were edited. Only edits that change nothing, such as
+ * moving or renaming states, and edits that are undone, keep the rows from
+ * being run again.
+ * <P>
+ * The cache holds a fixed number of results, forgetting those least recently
+ * used. It may also keep results in a directory, one file to a result, where
+ * they outlast the program. Only results decided by the structure and input
+ * alone should be kept; one cut short by a budget or a cancel should not.
+ * A result holds its last configuration only weakly, since through its
+ * parents the configuration holds the whole trace of the run; it is kept as
+ * long as a table still shows it.
+ */
+
+public class ResultCache {
+	/**
+	 * Instantiates a cache with no directory.
+	 * 
+	 * @param capacity
+	 *            the most results held in memory
+	 */
+	public ResultCache(final int capacity) {
+		myResults = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(
+					Map.Entry<String, Result> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Sets the directory results are kept in, besides memory.
+	 * 
+	 * @param directory
+	 *            the directory, which is made if need be, or
+	 *            <CODE>null</CODE> to keep results only in memory
+	 */
+	public synchronized void setStore(File directory) {
+		myStore = directory;
+	}
+
+	/**
+	 * Returns the start of the keys for a structure. This must be called on
+	 * the thread that edits the structure.
+	 * 
+	 * @param structure
+	 *            the automaton or grammar
+	 * @param simulator
+	 *            the simulator used for an automaton, or <CODE>null</CODE>
+	 * @return the start of the keys, or <CODE>null</CODE> if results on this
+	 *         sort of structure cannot be kept
+	 */
+	public static String getPrefix(Object structure,
+			AutomatonSimulator simulator) {
+		if (structure instanceof Automaton)
+			return ((Automaton) structure).getFingerprint().getValue()
+					+ getMode(structure, simulator);
+		if (structure instanceof Grammar)
+			return getFingerprint((Grammar) structure);
+		return null;
+	}
+
+	/**
+	 * Returns what decides the result besides the structure and the input:
+	 * the acceptance criteria of pushdown automata and Turing machines.
+	 * 
+	 * @param structure
+	 *            the automaton
+	 * @param simulator
+	 *            the simulator used for it
+	 * @return the settings that decide results
+	 */
+	private static String getMode(Object structure,
+			AutomatonSimulator simulator) {
+		if (simulator instanceof PDAStepByStateSimulator)
+			return ((PDAStepByStateSimulator) simulator)
+					.isAcceptByFinalState() ? " final" : " empty";
+		if (structure instanceof TuringMachine)
+			return (Universe.curProfile.getAcceptByFinalState() ? " final"
+					: "")
+					+ (Universe.curProfile.getAcceptByHalting() ? " halt" : "");
+		return "";
+	}
+
+	/**
+	 * Returns the fingerprint of a grammar: its start variable and its
+	 * productions, in order.
+	 * 
+	 * @param grammar
+	 *            the grammar
+	 * @return the fingerprint of the grammar
+	 */
+	private static String getFingerprint(Grammar grammar) {
+		Production[] productions = grammar.getProductions();
+		String[] lines = new String[productions.length];
+		for (int i = 0; i < productions.length; i++)
+			lines[i] = field(productions[i].getLHS())
+					+ field(productions[i].getRHS());
+		Arrays.sort(lines);
+		StringBuffer buffer = new StringBuffer(grammar.getClass().getName());
+		buffer.append(field(grammar.getStartVariable())).append('\n');
+		for (int i = 0; i < lines.length; i++)
+			buffer.append(lines[i]).append('\n');
+		return Fingerprint.digest(buffer.toString());
+	}
+
+	/**
+	 * Returns the key for an input on a structure.
+	 * 
+	 * @param prefix
+	 *            the start of the keys for the structure, from
+	 *            {@link #getPrefix}
+	 * @param input
+	 *            the input for each tape
+	 * @return the key
+	 */
+	public static String getKey(String prefix, String[] input) {
+		StringBuffer key = new StringBuffer(prefix);
+		for (int i = 0; i < input.length; i++)
+			key.append(field(input[i]));
+		return key.toString();
+	}
+
+	/**
+	 * Returns a field with its length first, so that fields cannot run into
+	 * each other.
+	 * 
+	 * @param field
+	 *            the field, which may be <CODE>null</CODE>
+	 * @return the field with its length
+	 */
+	private static String field(String field) {
+		if (field == null)
+			field = "";
+		return " " + field.length() + ":" + field;
+	}
+
+	/**
+	 * Returns the result kept for a key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the result, or <CODE>null</CODE> if none is kept
+	 */
+	public synchronized Result get(String key) {
+		Result result = myResults.get(key);
+		if (result == null && myStore != null) {
+			result = read(key);
+			if (result != null)
+				myResults.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Keeps a result for a key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param result
+	 *            the result
+	 */
+	public synchronized void put(String key, Result result) {
+		myResults.put(key, result);
+		if (myStore != null)
+			write(key, result);
+	}
+
+	/**
+	 * Forgets the results held in memory. Results kept in the directory are
+	 * not forgotten.
+	 */
+	public synchronized void clear() {
+		myResults.clear();
+	}
+
+	/**
+	 * Returns the number of results held in memory.
+	 * 
+	 * @return the number of results held in memory
+	 */
+	public synchronized int size() {
+		return myResults.size();
+	}
+
+	/**
+	 * Returns the file a key is kept in, named for the digest of the key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the file for the key
+	 */
+	private File getFile(String key) {
+		String name = Fingerprint.digest(key);
+		return new File(new File(myStore, name.substring(0, 2)), name);
+	}
+
+	/**
+	 * Reads the result for a key from the directory.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the result, or <CODE>null</CODE> if none is kept or it cannot
+	 *         be read
+	 */
+	private Result read(String key) {
+		File file = getFile(key);
+		if (!file.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(
+				file))) {
+			// Another key with the same digest is not this one.
+			if (!key.equals(readString(in)))
+				return null;
+			String verdict = readString(in);
+			String output = readString(in);
+			long steps = in.readLong();
+			long configurations = in.readLong();
+			return new Result(verdict, output, steps, configurations, null);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the result for a key to the directory. The file is written
+	 * under another name and then renamed, so that it is never read half
+	 * written. A result that cannot be written is only held in memory.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param result
+	 *            the result
+	 */
+	private void write(String key, Result result) {
+		File file = getFile(key);
+		File temporary = new File(file.getPath() + ".tmp");
+		file.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(
+				temporary))) {
+			writeString(out, key);
+			writeString(out, result.getVerdict());
+			writeString(out, result.getOutput());
+			out.writeLong(result.getSteps());
+			out.writeLong(result.getConfigurations());
+		} catch (IOException e) {
+			temporary.delete();
+			return;
+		}
+		if (!temporary.renameTo(file)) {
+			file.delete();
+			if (!temporary.renameTo(file))
+				temporary.delete();
+		}
+	}
+
+	/**
+	 * Reads a string of any length written by {@link #writeString}.
+	 * 
+	 * @param in
+	 *            the stream
+	 * @return the string
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a string of any length.
+	 * 
+	 * @param out
+	 *            the stream
+	 * @param string
+	 *            the string
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	private static void writeString(DataOutputStream out, String string)
+			throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Returns the output of a configuration. This is the output of a Mealy
+	 * or Moore machine, or the tape output of a Turing machine, with the
+	 * tapes separated by tabs.
+	 * 
+	 * @param config
+	 *            the configuration, which may be <CODE>null</CODE>
+	 * @return the output, or the empty string if this sort of configuration
+	 *         has no output
+	 */
+	public static String getOutput(Configuration config) {
+		if (config instanceof MealyConfiguration)
+			return ((MealyConfiguration) config).getOutput();
+		if (config instanceof TMConfiguration) {
+			Tape[] tapes = ((TMConfiguration) config).getTapes();
+			StringBuffer output = new StringBuffer();
+			for (int i = 0; i < tapes.length; i++) {
+				if (i > 0)
+					output.append('\t');
+				output.append(tapes[i].getOutput());
+			}
+			return output.toString();
+		}
+		return "";
+	}
+
+	/**
+	 * The result of running an input on a structure.
+	 */
+	public static class Result {
+		/**
+		 * Instantiates a result.
+		 * 
+		 * @param verdict
+		 *            whether the input was accepted or rejected
+		 * @param output
+		 *            the output of the last configuration
+		 * @param steps
+		 *            the steps taken
+		 * @param configurations
+		 *            the configurations generated
+		 * @param configuration
+		 *            the last configuration, or <CODE>null</CODE>; it is
+		 *            held only weakly
+		 */
+		public Result(String verdict, String output, long steps,
+				long configurations, Configuration configuration) {
+			myVerdict = verdict;
+			myOutput = output;
+			mySteps = steps;
+			myConfigurations = configurations;
+			myConfiguration = configuration == null ? null
+					: new WeakReference<>(configuration);
+		}
+
+		/**
+		 * Returns whether the input was accepted or rejected.
+		 * 
+		 * @return the verdict
+		 */
+		public String getVerdict() {
+			return myVerdict;
+		}
+
+		/**
+		 * Returns the output of the last configuration.
+		 * 
+		 * @return the output, as from {@link ResultCache#getOutput}
+		 */
+		public String getOutput() {
+			return myOutput;
+		}
+
+		/**
+		 * Returns the steps taken.
+		 * 
+		 * @return the steps taken
+		 */
+		public long getSteps() {
+			return mySteps;
+		}
+
+		/**
+		 * Returns the configurations generated.
+		 * 
+		 * @return the configurations generated
+		 */
+		public long getConfigurations() {
+			return myConfigurations;
+		}
+
+		/**
+		 * Returns the last configuration. Results read from a directory have
+		 * none, nor do results whose configuration nothing else held on to,
+		 * and the configuration may belong to another copy of the structure.
+		 * 
+		 * @return the last configuration, or <CODE>null</CODE>
+		 */
+		public Configuration getConfiguration() {
+			return myConfiguration == null ? null : myConfiguration.get();
+		}
+
+		/** Whether the input was accepted or rejected. */
+		private final String myVerdict;
+
+		/** The output of the last configuration. */
+		private final String myOutput;
+
+		/** The steps taken. */
+		private final long mySteps;
+
+		/** The configurations generated. */
+		private final long myConfigurations;
+
+		/** The last configuration, held weakly, or <CODE>null</CODE>. */
+		private final WeakReference<Configuration> myConfiguration;
+	}
+
+	/** The results held in memory, least recently used first. */
+	private Map<String, Result> myResults;
+
+	/** The directory results are kept in, or <CODE>null</CODE>. */
+	private File myStore = null;
+}